@@ -30,6 +30,7 @@ public class BfConsts {
   public static final String ARG_ANALYSIS_NAME = "analysisname";
   public static final String ARG_ANSWER_JSON_PATH = "answerjsonpath";
   public static final String ARG_BDP_DETAIL = "bdpdetail";
+  public static final String ARG_BDP_INCREMENTAL_BGP = "bdpincrementalbgp";
   public static final String ARG_BDP_MAX_OSCILLATION_RECOVERY_ATTEMPTS =
       "bdpmaxoscillationrecoveryattempts";
   public static final String ARG_BDP_MAX_RECORDED_ITERATIONS = "bdpmaxrecordediterations";
@@ -152,6 +153,7 @@ public class BfConsts {
   public static final String RELPATH_NODE_BLACKLIST_FILE = "node_blacklist";
   public static final String RELPATH_NODE_ROLES_PATH = "node_roles.json";
   public static final String RELPATH_PARSE_ANSWER_PATH = "parse_answer";
+  public static final String RELPATH_PARSE_CACHE_DIR = "parse_cache";
   public static final String RELPATH_PRECOMPUTED_ROUTES = "precomputedroutes";
   public static final String RELPATH_QUERIES_DIR = "queries";
   public static final String RELPATH_QUESTION_FILE = "question.json";
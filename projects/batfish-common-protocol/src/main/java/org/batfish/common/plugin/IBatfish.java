@@ -20,6 +20,7 @@ import org.batfish.datamodel.ForwardingAction;
 import org.batfish.datamodel.HeaderSpace;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.NodeRoleSpecifier;
+import org.batfish.datamodel.ReachabilityEngine;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
@@ -113,7 +114,7 @@ public interface IBatfish extends IPluginConsumer {
 
   ParseVendorConfigurationAnswerElement loadParseVendorConfigurationAnswerElement();
 
-  AnswerElement multipath(HeaderSpace headerSpace);
+  AnswerElement multipath(HeaderSpace headerSpace, ReachabilityEngine engine);
 
   AtomicInteger newBatch(String description, int jobs);
 
@@ -178,7 +179,8 @@ public interface IBatfish extends IPluginConsumer {
       String finalNodeRegexStr,
       String notFinalNodeRegexStr,
       Set<String> transitNodes,
-      Set<String> notTransitNodes);
+      Set<String> notTransitNodes,
+      ReachabilityEngine engine);
 
   void writeDataPlane(DataPlane dp, DataPlaneAnswerElement ae);
 }
@@ -27,9 +27,6 @@ import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import org.apache.commons.io.IOUtils;
 import org.batfish.common.BatfishException;
 import org.batfish.common.CompositeBatfishException;
 import org.batfish.common.util.BatfishObjectInputStream;
@@ -46,16 +43,35 @@ public abstract class PluginConsumer implements IPluginConsumer {
 
   private ClassLoader _currentClassLoader;
 
+  private final SerializationFormat _serializationFormat;
+
   private final boolean _serializeToText;
 
   public PluginConsumer(boolean serializeToText) {
+    this(serializeToText, SerializationFormat.GZIP);
+  }
+
+  public PluginConsumer(boolean serializeToText, SerializationFormat serializationFormat) {
     _currentClassLoader = Thread.currentThread().getContextClassLoader();
+    _serializationFormat = serializationFormat;
     _serializeToText = serializeToText;
   }
 
+  /**
+   * Deserializes an object from the contents of a file written by {@link #serializeObject} or
+   * {@link #toSerializedData}, in any {@link SerializationFormat}.
+   */
   protected <S extends Serializable> S deserializeObject(byte[] data, Class<S> outputClass) {
-    ByteArrayInputStream stream = new ByteArrayInputStream(data);
-    return deserializeObject(stream, outputClass);
+    try {
+      // Awkward nested try blocks required because we refuse to throw IOExceptions.
+      try (InputStream stream = SerializationFormat.openInput(new ByteArrayInputStream(data))) {
+        return deserializeObject(stream, outputClass);
+      }
+    } catch (IOException e) {
+      throw new BatfishException(
+          "Failed to deserialize object of type '" + outputClass.getCanonicalName() + "' from data",
+          e);
+    }
   }
 
   protected <S extends Serializable> S deserializeObject(InputStream stream, Class<S> outputClass) {
@@ -88,8 +104,8 @@ public abstract class PluginConsumer implements IPluginConsumer {
       try (Closer closer = Closer.create()) {
         FileInputStream fis = closer.register(new FileInputStream(inputFile.toFile()));
         BufferedInputStream bis = closer.register(new BufferedInputStream(fis));
-        GZIPInputStream gis = closer.register(new GZIPInputStream(bis));
-        return deserializeObject(gis, outputClass);
+        InputStream is = closer.register(SerializationFormat.openInput(bis));
+        return deserializeObject(is, outputClass);
       }
     } catch (IOException e) {
       throw new BatfishException(
@@ -100,19 +116,6 @@ public abstract class PluginConsumer implements IPluginConsumer {
     }
   }
 
-  protected byte[] fromGzipFile(Path inputFile) {
-    try {
-      // Awkward nested try blocks required because we refuse to throw IOExceptions.
-      try (Closer closer = Closer.create()) {
-        FileInputStream fis = closer.register(new FileInputStream(inputFile.toFile()));
-        GZIPInputStream gis = closer.register(new GZIPInputStream(fis));
-        return IOUtils.toByteArray(gis);
-      }
-    } catch (IOException e) {
-      throw new BatfishException("Failed to gunzip file: " + inputFile, e);
-    }
-  }
-
   public ClassLoader getCurrentClassLoader() {
     return _currentClassLoader;
   }
@@ -156,24 +159,29 @@ public abstract class PluginConsumer implements IPluginConsumer {
     }
   }
 
-  /** Serializes the given object to a file with the given output name, using GZIP compression. */
+  /**
+   * Serializes the given object to a file with the given output name, using the configured {@link
+   * SerializationFormat}.
+   */
   public void serializeObject(Serializable object, Path outputFile) {
     try {
       try (Closer closer = Closer.create()) {
         OutputStream out = closer.register(Files.newOutputStream(outputFile));
         BufferedOutputStream bout = closer.register(new BufferedOutputStream(out));
-        serializeToGzipData(object, bout);
+        serializeToData(object, bout);
       }
     } catch (IOException e) {
-      throw new BatfishException(
-          "Failed to serialize object to gzip output file: " + outputFile, e);
+      throw new BatfishException("Failed to serialize object to output file: " + outputFile, e);
     }
   }
 
-  /** Serializes the given object to a GZIP-compressed byte[]. */
-  protected byte[] toGzipData(Serializable object) {
+  /**
+   * Serializes the given object to a byte[] in the configured {@link SerializationFormat}, suitable
+   * for writing directly to a file.
+   */
+  protected byte[] toSerializedData(Serializable object) {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    serializeToGzipData(object, baos);
+    serializeToData(object, baos);
     return baos.toByteArray();
   }
 
@@ -188,25 +196,25 @@ public abstract class PluginConsumer implements IPluginConsumer {
     public void close() {}
   }
 
-  /** Serializes the given object to the given stream, using GZIP compression. */
-  private void serializeToGzipData(Serializable object, OutputStream out) {
+  /** Serializes the given object to the given stream, using the configured format. */
+  private void serializeToData(Serializable object, OutputStream out) {
     // This is a hack:
     //   XStream requires that its streams be closed to properly finish serialization,
     //   but we do not actually want to close the passed-in output stream.
     out = new CloseIgnoringOutputStream(out);
 
     try (Closer closer = Closer.create()) {
-      GZIPOutputStream gos = closer.register(new GZIPOutputStream(out));
+      OutputStream encoded = closer.register(_serializationFormat.openOutput(out));
       ObjectOutputStream oos;
       if (_serializeToText) {
         XStream xstream = new XStream(new DomDriver("UTF-8"));
-        oos = closer.register(xstream.createObjectOutputStream(gos));
+        oos = closer.register(xstream.createObjectOutputStream(encoded));
       } else {
-        oos = closer.register(new ObjectOutputStream(gos));
+        oos = closer.register(new ObjectOutputStream(encoded));
       }
       oos.writeObject(object);
     } catch (IOException e) {
-      throw new BatfishException("Failed to convert object to gzip data", e);
+      throw new BatfishException("Failed to convert object to serialized data", e);
     }
   }
 }
@@ -22,6 +22,7 @@ import java.nio.file.attribute.FileTime;
 import java.security.KeyStore;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -62,7 +63,6 @@ import org.batfish.common.Pair;
 import org.batfish.datamodel.BgpNeighbor;
 import org.batfish.datamodel.BgpProcess;
 import org.batfish.datamodel.Configuration;
-import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.Interface;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.Prefix;
@@ -807,8 +807,7 @@ public class CommonUtil {
   }
 
   public static Topology synthesizeTopology(Map<String, Configuration> configurations) {
-    SortedSet<Edge> edges = new TreeSet<>();
-    Map<Prefix, Set<NodeInterfacePair>> prefixInterfaces = new HashMap<>();
+    Map<Prefix, SortedSet<NodeInterfacePair>> prefixInterfaces = new HashMap<>();
     configurations.forEach(
         (nodeName, node) -> {
           for (Entry<String, Interface> e : node.getInterfaces().entrySet()) {
@@ -819,25 +818,23 @@ public class CommonUtil {
                 if (prefix.getPrefixLength() < 32) {
                   Prefix network = new Prefix(prefix.getNetworkAddress(), prefix.getPrefixLength());
                   NodeInterfacePair pair = new NodeInterfacePair(nodeName, ifaceName);
-                  Set<NodeInterfacePair> interfaceBucket =
-                      prefixInterfaces.computeIfAbsent(network, k -> new HashSet<>());
+                  SortedSet<NodeInterfacePair> interfaceBucket =
+                      prefixInterfaces.computeIfAbsent(network, k -> new TreeSet<>());
                   interfaceBucket.add(pair);
                 }
               }
             }
           }
         });
-    for (Set<NodeInterfacePair> bucket : prefixInterfaces.values()) {
-      for (NodeInterfacePair p1 : bucket) {
-        for (NodeInterfacePair p2 : bucket) {
-          if (!p1.equals(p2)) {
-            Edge edge = new Edge(p1, p2);
-            edges.add(edge);
-          }
-        }
+    // interfaces on the same subnet are all adjacent, so each subnet is kept as a broadcast domain
+    // rather than as an edge between every two of its interfaces
+    List<SortedSet<NodeInterfacePair>> broadcastDomains = new ArrayList<>();
+    for (SortedSet<NodeInterfacePair> bucket : prefixInterfaces.values()) {
+      if (bucket.size() > 1) {
+        broadcastDomains.add(bucket);
       }
     }
-    return new Topology(edges);
+    return new Topology(new TreeSet<>(), broadcastDomains);
   }
 
   public static SortedMap<Integer, String> toLineMap(String str) {
@@ -5,9 +5,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.google.common.hash.PrimitiveSink;
 import java.io.Serializable;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "class")
@@ -37,6 +39,18 @@ public abstract class AbstractRoute implements Serializable, Comparable<Abstract
 
   private static final String PROP_VRF = "vrf";
 
+  protected static void putIp(PrimitiveSink into, @Nullable Ip ip) {
+    into.putLong(ip == null ? -1L : ip.asLong());
+  }
+
+  protected static void putString(PrimitiveSink into, @Nullable String s) {
+    if (s == null) {
+      into.putInt(-1);
+    } else {
+      into.putInt(s.length()).putUnencodedChars(s);
+    }
+  }
+
   protected final Prefix _network;
 
   private String _nextHop;
@@ -152,6 +166,21 @@ public abstract class AbstractRoute implements Serializable, Comparable<Abstract
     return routeStr;
   }
 
+  /**
+   * Feeds the fields that {@link #equals} compares into {@code into}, so that routes can be hashed
+   * to more bits than {@link #hashCode} provides. Equal routes must feed equal values, so
+   * subclasses that compare other fields than these must override this.
+   */
+  public void funnel(PrimitiveSink into) {
+    into.putLong(_network.getAddress().asLong()).putInt(_network.getPrefixLength());
+    putIp(into, getNextHopIp());
+    putString(into, getNextHopInterface());
+    into.putInt(getAdministrativeCost());
+    Long metric = getMetric();
+    into.putBoolean(metric != null).putLong(metric == null ? 0L : metric);
+    into.putInt(getProtocol().ordinal()).putInt(getTag());
+  }
+
   @JsonIgnore
   public abstract int getAdministrativeCost();
 
@@ -3,17 +3,14 @@ package org.batfish.datamodel;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.batfish.common.util.ComparableStructure;
 
 @JsonSchemaDescription(
@@ -22,17 +19,19 @@ public final class AsPathAccessList extends ComparableStructure<String> implemen
 
   private static final String PROP_LINES = "lines";
 
-  private static final long serialVersionUID = 1L;
+  private static final int MAX_CACHED_AS_PATHS = 1 << 12;
 
-  private transient Set<AsPath> _deniedCache;
+  private static final long serialVersionUID = 1L;
 
   private final List<AsPathAccessListLine> _lines;
 
-  private transient Set<AsPath> _permittedCache;
+  // whether each recently checked AS-path is permitted
+  private transient Cache<AsPath, Boolean> _permitsCache;
 
   public AsPathAccessList(String name) {
     super(name);
     _lines = new ArrayList<>();
+    _permitsCache = buildPermitsCache();
   }
 
   @JsonCreator
@@ -41,6 +40,11 @@ public final class AsPathAccessList extends ComparableStructure<String> implemen
       @JsonProperty(PROP_LINES) List<AsPathAccessListLine> lines) {
     super(name);
     _lines = lines;
+    _permitsCache = buildPermitsCache();
+  }
+
+  private static Cache<AsPath, Boolean> buildPermitsCache() {
+    return CacheBuilder.newBuilder().maximumSize(MAX_CACHED_AS_PATHS).build();
   }
 
   @Override
@@ -62,38 +66,27 @@ public final class AsPathAccessList extends ComparableStructure<String> implemen
   }
 
   private boolean newPermits(AsPath asPath) {
-    boolean accept = false;
+    String asPathString = asPath.getAsPathString();
     for (AsPathAccessListLine line : _lines) {
-      String regex = line.getRegex();
-      Pattern p = Pattern.compile(regex);
-      String asPathString = asPath.getAsPathString();
-      Matcher matcher = p.matcher(asPathString);
-      boolean match = matcher.find();
-      if (match) {
-        accept = line.getAction() == LineAction.ACCEPT;
-        break;
+      if (RegexMatchCache.matches(
+          line.getCompiledRegex(), false, asPathString, () -> asPathString)) {
+        return line.getAction() == LineAction.ACCEPT;
       }
     }
-    if (accept) {
-      _permittedCache.add(asPath);
-    } else {
-      _deniedCache.add(asPath);
-    }
-    return accept;
+    return false;
   }
 
   public boolean permits(AsPath asPath) {
-    if (_deniedCache.contains(asPath)) {
-      return false;
-    } else if (_permittedCache.contains(asPath)) {
-      return true;
+    Boolean permits = _permitsCache.getIfPresent(asPath);
+    if (permits == null) {
+      permits = newPermits(asPath);
+      _permitsCache.put(asPath, permits);
     }
-    return newPermits(asPath);
+    return permits;
   }
 
   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
     in.defaultReadObject();
-    _deniedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    _permittedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    _permitsCache = buildPermitsCache();
   }
 }
@@ -3,6 +3,7 @@ package org.batfish.datamodel;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import java.io.Serializable;
+import java.util.regex.Pattern;
 
 @JsonSchemaDescription("A line in an AsPathAccessList")
 public final class AsPathAccessListLine implements Serializable, Comparable<AsPathAccessListLine> {
@@ -11,6 +12,8 @@ public final class AsPathAccessListLine implements Serializable, Comparable<AsPa
 
   private LineAction _action;
 
+  private transient volatile Pattern _pattern;
+
   private String _regex;
 
   @Override
@@ -42,6 +45,16 @@ public final class AsPathAccessListLine implements Serializable, Comparable<AsPa
     return _action;
   }
 
+  /** The compiled regex of this line, compiled when first needed */
+  Pattern getCompiledRegex() {
+    Pattern pattern = _pattern;
+    if (pattern == null) {
+      pattern = Pattern.compile(_regex);
+      _pattern = pattern;
+    }
+    return pattern;
+  }
+
   @JsonPropertyDescription("The regex against which a route's AS-path will be compared")
   public String getRegex() {
     return _regex;
@@ -62,5 +75,6 @@ public final class AsPathAccessListLine implements Serializable, Comparable<AsPa
 
   public void setRegex(String regex) {
     _regex = regex;
+    _pattern = null;
   }
 }
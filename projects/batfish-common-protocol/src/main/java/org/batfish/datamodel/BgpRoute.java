@@ -5,6 +5,7 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.hash.PrimitiveSink;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -295,6 +296,24 @@ public class BgpRoute extends AbstractRoute {
     return true;
   }
 
+  @Override
+  public void funnel(PrimitiveSink into) {
+    super.funnel(into);
+    into.putInt(_asPath.size());
+    for (SortedSet<Integer> asSet : _asPath.getAsSets()) {
+      into.putInt(asSet.size());
+      asSet.forEach(into::putInt);
+    }
+    into.putInt(_clusterList.size());
+    _clusterList.forEach(into::putLong);
+    into.putInt(_communities.size());
+    _communities.forEach(into::putLong);
+    into.putInt(_localPreference);
+    putIp(into, _originatorIp);
+    into.putInt(_originType == null ? -1 : _originType.ordinal());
+    into.putInt(_weight);
+  }
+
   @JsonIgnore(false)
   @JsonProperty(PROP_ADMINISTRATIVE_COST)
   @Override
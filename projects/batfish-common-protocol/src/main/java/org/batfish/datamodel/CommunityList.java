@@ -4,15 +4,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import org.batfish.common.util.CommonUtil;
 import org.batfish.common.util.ComparableStructure;
 
 @JsonSchemaDescription(
@@ -25,8 +17,6 @@ public class CommunityList extends ComparableStructure<String> {
   /** */
   private static final long serialVersionUID = 1L;
 
-  private transient Set<Long> _deniedCache;
-
   private boolean _invertMatch;
 
   /**
@@ -35,8 +25,6 @@ public class CommunityList extends ComparableStructure<String> {
    */
   private final List<CommunityListLine> _lines;
 
-  private transient Set<Long> _permittedCache;
-
   /**
    * Constructs a CommunityList with the given name for {@link #_name}, and lines for {@link
    * #_lines}
@@ -83,10 +71,7 @@ public class CommunityList extends ComparableStructure<String> {
     boolean match = false;
     Boolean matchingLineAccepts = null;
     for (CommunityListLine line : _lines) {
-      Pattern p = Pattern.compile(line.getRegex());
-      String communityStr = CommonUtil.longToCommunity(community);
-      Matcher matcher = p.matcher(communityStr);
-      if (matcher.find()) {
+      if (line.findsCommunity(community)) {
         match = true;
         matchingLineAccepts = line.getAction() == LineAction.ACCEPT;
         break;
@@ -99,30 +84,17 @@ public class CommunityList extends ComparableStructure<String> {
         accept = matchingLineAccepts;
       }
     }
-    if (accept) {
-      _permittedCache.add(community);
-    } else {
-      _deniedCache.add(community);
-    }
     return accept;
   }
 
+  /**
+   * Returns whether the list permits a community. Results of matching the regexes of the lines are
+   * cached across lists, so lists need no cache of their own.
+   */
   public boolean permits(long community) {
-    // if (_permittedCache.contains(community)) {
-    // return true;
-    // }
-    // else if (_deniedCache.contains(community)) {
-    // return false;
-    // }
     return newPermits(community);
   }
 
-  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
-    in.defaultReadObject();
-    _deniedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    _permittedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
-  }
-
   public void setInvertMatch(boolean invertMatch) {
     _invertMatch = invertMatch;
   }
@@ -7,7 +7,6 @@ import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import java.io.Serializable;
 import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.batfish.common.util.CommonUtil;
 
@@ -22,6 +21,8 @@ public class CommunityListLine implements Serializable {
 
   private final LineAction _action;
 
+  private transient volatile Pattern _pattern;
+
   private final String _regex;
 
   @JsonCreator
@@ -55,13 +56,21 @@ public class CommunityListLine implements Serializable {
     return _action;
   }
 
+  /** The compiled regex of this line, compiled when first needed */
+  Pattern getCompiledRegex() {
+    Pattern pattern = _pattern;
+    if (pattern == null) {
+      pattern = Pattern.compile(_regex);
+      _pattern = pattern;
+    }
+    return pattern;
+  }
+
   public Set<Long> getExactMatchingCommunities(Set<Long> allCommunities) {
-    Pattern p = Pattern.compile(_regex);
+    Pattern p = getCompiledRegex();
     Set<Long> matchingCommunitites = new LinkedHashSet<>();
     for (long candidateCommunity : allCommunities) {
-      String candidateCommunityStr = CommonUtil.longToCommunity(candidateCommunity);
-      Matcher matcher = p.matcher(candidateCommunityStr);
-      if (matcher.matches()) {
+      if (matches(p, true, candidateCommunity)) {
         matchingCommunitites.add(candidateCommunity);
       }
     }
@@ -69,18 +78,21 @@ public class CommunityListLine implements Serializable {
   }
 
   public Set<Long> getMatchingCommunities(Set<Long> allCommunities, boolean invertMatch) {
-    Pattern p = Pattern.compile(_regex);
+    Pattern p = getCompiledRegex();
     Set<Long> matchingCommunitites = new LinkedHashSet<>();
     for (long candidateCommunity : allCommunities) {
-      String candidateCommunityStr = CommonUtil.longToCommunity(candidateCommunity);
-      Matcher matcher = p.matcher(candidateCommunityStr);
-      if (matcher.find() ^ invertMatch) {
+      if (matches(p, false, candidateCommunity) ^ invertMatch) {
         matchingCommunitites.add(candidateCommunity);
       }
     }
     return matchingCommunitites;
   }
 
+  /** Returns whether the regex of this line matches part of the text of the given community */
+  boolean findsCommunity(long community) {
+    return matches(getCompiledRegex(), false, community);
+  }
+
   @JsonProperty(PROP_REGEX)
   @JsonPropertyDescription("The regex against which a route's communities will be compared")
   public String getRegex() {
@@ -96,6 +108,11 @@ public class CommunityListLine implements Serializable {
     return result;
   }
 
+  private static boolean matches(Pattern pattern, boolean fullMatch, long community) {
+    return RegexMatchCache.matches(
+        pattern, fullMatch, community, () -> CommonUtil.longToCommunity(community));
+  }
+
   public Long toLiteralCommunity() {
     throw new UnsupportedOperationException("no implementation for generated method");
     // TODO Auto-generated method stub
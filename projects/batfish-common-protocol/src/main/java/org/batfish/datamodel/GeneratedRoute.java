@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.google.common.hash.PrimitiveSink;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import java.util.ArrayList;
 import java.util.List;
@@ -134,6 +135,11 @@ public final class GeneratedRoute extends AbstractRoute {
     return _network.equals(rhs._network);
   }
 
+  @Override
+  public void funnel(PrimitiveSink into) {
+    into.putLong(_network.getAddress().asLong()).putInt(_network.getPrefixLength());
+  }
+
   @JsonIgnore(false)
   @JsonProperty(PROP_ADMINISTRATIVE_COST)
   @Override
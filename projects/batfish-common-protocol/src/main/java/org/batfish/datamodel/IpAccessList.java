@@ -34,6 +34,10 @@ public class IpAccessList extends ComparableStructure<String> {
     }
   }
 
+  // built from the lines when first needed, and again whenever the lines or their actions or
+  // destination IPs change
+  private transient volatile IpAccessListIndex _index;
+
   private List<IpAccessListLine> _lines;
 
   @JsonCreator
@@ -57,14 +61,18 @@ public class IpAccessList extends ComparableStructure<String> {
     return other._lines.equals(_lines);
   }
 
+  /**
+   * Returns the first line that matches a flow and its action, or no line and {@link
+   * LineAction#REJECT} if no line matches. Lines are looked up in an index by destination IP, and
+   * the result is shared, so filtering many flows matches few lines and allocates nothing.
+   */
   public FilterResult filter(Flow flow) {
-    for (int i = 0; i < _lines.size(); i++) {
-      IpAccessListLine line = _lines.get(i);
-      if (line.matches(flow)) {
-        return new FilterResult(i, line.getAction());
-      }
+    IpAccessListIndex index = _index;
+    if (index == null || !index.indexes(_lines)) {
+      index = new IpAccessListIndex(_lines);
+      _index = index;
     }
-    return new FilterResult(null, LineAction.REJECT);
+    return index.filter(flow);
   }
 
   @JsonProperty(PROP_LINES)
@@ -0,0 +1,173 @@
+package org.batfish.datamodel;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * The lines of an {@link IpAccessList}, indexed by the destination prefixes they match, so that a
+ * flow is only checked against the lines that can match its destination IP.
+ *
+ * <p>A line whose destination IPs are all prefixes is stored at the node of each of those prefixes
+ * in a binary trie. Any other line is checked against every flow. The lines that can match a flow
+ * are then the unindexed lines and the lines at the nodes along the path of the destination IP of
+ * the flow. Each node keeps its lines in order, so checking a node stops at its first matching
+ * line, or at the first line after the best match found so far.
+ */
+final class IpAccessListIndex {
+
+  private static final class Node {
+
+    private int[] _lines = new int[0];
+
+    private Node _one;
+
+    private Node _zero;
+
+    private void addLine(int line) {
+      // lines are added in order, so a line with several prefixes at this node is added once
+      if (_lines.length > 0 && _lines[_lines.length - 1] == line) {
+        return;
+      }
+      int[] lines = new int[_lines.length + 1];
+      System.arraycopy(_lines, 0, lines, 0, _lines.length);
+      lines[_lines.length] = line;
+      _lines = lines;
+    }
+  }
+
+  private static final FilterResult NO_MATCH = new FilterResult(null, LineAction.REJECT);
+
+  /*
+   * Returns whether the destination IPs of a line can be indexed, i.e. whether the line matches
+   * only flows to the prefixes of its destination IPs
+   */
+  private static boolean isIndexable(IpAccessListLine line) {
+    if (line.getDstIps().isEmpty()) {
+      return false;
+    }
+    for (IpWildcard dstIp : line.getDstIps()) {
+      if (!dstIp.isPrefix()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private final LineAction[] _actions;
+
+  private final int[] _dstIpCounts;
+
+  private final SortedSet<?>[] _dstIps;
+
+  private final IpAccessListLine[] _lines;
+
+  private final FilterResult[] _results;
+
+  private final Node _root;
+
+  private final int _size;
+
+  private final int[] _unindexedLines;
+
+  IpAccessListIndex(List<IpAccessListLine> lines) {
+    _size = lines.size();
+    _actions = new LineAction[_size];
+    _dstIpCounts = new int[_size];
+    _dstIps = new SortedSet<?>[_size];
+    _lines = lines.toArray(new IpAccessListLine[_size]);
+    _results = new FilterResult[_size];
+    _root = new Node();
+    List<Integer> unindexedLines = new ArrayList<>();
+    for (int i = 0; i < _size; i++) {
+      IpAccessListLine line = _lines[i];
+      _actions[i] = line.getAction();
+      _dstIps[i] = line.getDstIps();
+      _dstIpCounts[i] = line.getDstIps().size();
+      _results[i] = new FilterResult(i, line.getAction());
+      if (!isIndexable(line)) {
+        unindexedLines.add(i);
+        continue;
+      }
+      for (IpWildcard dstIp : line.getDstIps()) {
+        Prefix prefix = dstIp.toPrefix();
+        long bits = prefix.getAddress().asLong();
+        Node node = _root;
+        for (int depth = 0; depth < prefix.getPrefixLength(); depth++) {
+          if (((bits >>> (31 - depth)) & 1L) == 0L) {
+            if (node._zero == null) {
+              node._zero = new Node();
+            }
+            node = node._zero;
+          } else {
+            if (node._one == null) {
+              node._one = new Node();
+            }
+            node = node._one;
+          }
+        }
+        node.addLine(i);
+      }
+    }
+    _unindexedLines = unindexedLines.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Returns the result of filtering a flow, which is the same as checking the lines in order.
+   * Results are shared and allocated when the index is built.
+   */
+  FilterResult filter(Flow flow) {
+    long dstIp = flow.getDstIp().asLong();
+    int bestLine = firstMatchingLine(_unindexedLines, flow, _size);
+    Node node = _root;
+    int depth = 0;
+    while (node != null) {
+      bestLine = firstMatchingLine(node._lines, flow, bestLine);
+      if (depth == Prefix.MAX_PREFIX_LENGTH) {
+        break;
+      }
+      node = ((dstIp >>> (31 - depth)) & 1L) == 0L ? node._zero : node._one;
+      depth++;
+    }
+    return bestLine < _size ? _results[bestLine] : NO_MATCH;
+  }
+
+  /*
+   * Returns the first of the given lines, in order, that matches the flow and comes before the
+   * bound, or the bound if there is none
+   */
+  private int firstMatchingLine(int[] lines, Flow flow, int bound) {
+    for (int line : lines) {
+      if (line >= bound) {
+        break;
+      }
+      if (_lines[line].matches(flow)) {
+        return line;
+      }
+    }
+    return bound;
+  }
+
+  /**
+   * Returns whether this is an index of the given lines, as they are now: the same lines in the
+   * same order, each with the action and destination IPs it had when the index was built. Other
+   * conditions of a line need not be checked, since they are matched against each flow anyway.
+   */
+  boolean indexes(List<IpAccessListLine> lines) {
+    if (lines.size() != _size) {
+      return false;
+    }
+    Iterator<IpAccessListLine> it = lines.iterator();
+    for (int i = 0; i < _size; i++) {
+      IpAccessListLine line = it.next();
+      if (line != _lines[i]
+          || line.getAction() != _actions[i]
+          || line.getDstIps() != _dstIps[i]
+          || line.getDstIps().size() != _dstIpCounts[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
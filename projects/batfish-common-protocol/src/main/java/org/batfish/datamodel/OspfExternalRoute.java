@@ -3,6 +3,7 @@ package org.batfish.datamodel;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.hash.PrimitiveSink;
 import javax.annotation.Nonnull;
 
 public abstract class OspfExternalRoute extends OspfRoute {
@@ -153,6 +154,12 @@ public abstract class OspfExternalRoute extends OspfRoute {
     return true;
   }
 
+  @Override
+  public void funnel(PrimitiveSink into) {
+    super.funnel(into);
+    into.putLong(_lsaMetric);
+  }
+
   @JsonProperty(PROP_ADVERTISER)
   public final String getAdvertiser() {
     return _advertiser;
@@ -2,6 +2,7 @@ package org.batfish.datamodel;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.hash.PrimitiveSink;
 
 public class OspfExternalType2Route extends OspfExternalRoute {
 
@@ -36,6 +37,12 @@ public class OspfExternalType2Route extends OspfExternalRoute {
     return true;
   }
 
+  @Override
+  public void funnel(PrimitiveSink into) {
+    super.funnel(into);
+    into.putLong(getCostToAdvertiser());
+  }
+
   @Override
   public OspfMetricType getOspfMetricType() {
     return OspfMetricType.E2;
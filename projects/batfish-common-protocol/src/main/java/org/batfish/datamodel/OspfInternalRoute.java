@@ -1,5 +1,6 @@
 package org.batfish.datamodel;
 
+import com.google.common.hash.PrimitiveSink;
 import java.util.Objects;
 
 public abstract class OspfInternalRoute extends OspfRoute {
@@ -11,6 +12,12 @@ public abstract class OspfInternalRoute extends OspfRoute {
     super(network, nextHopIp, admin, metric, area);
   }
 
+  @Override
+  public void funnel(PrimitiveSink into) {
+    super.funnel(into);
+    into.putLong(_area);
+  }
+
   @Override
   protected final String protocolRouteString() {
     return " area:" + _area;
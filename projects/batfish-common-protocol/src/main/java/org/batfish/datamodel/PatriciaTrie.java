@@ -0,0 +1,266 @@
+package org.batfish.datamodel;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * A path-compressed binary trie (PATRICIA trie) mapping IPv4 prefixes to values.
+ *
+ * <p>Nodes exist only for prefixes that have been inserted and for the points at which the paths to
+ * two inserted prefixes diverge, so the depth of the trie is bounded by the number of distinct
+ * prefix lengths rather than by the number of address bits. Keys are stored as the network bits of
+ * the prefix in the low 32 bits of a {@code long}, and all bit operations are performed directly on
+ * that representation, so neither insertion nor lookup allocates any intermediate objects.
+ *
+ * @param <T> Type of the values stored in the trie
+ */
+public class PatriciaTrie<T> implements Serializable {
+
+  private static final class Node<T> implements Serializable {
+
+    /** */
+    private static final long serialVersionUID = 1L;
+
+    /** The network bits of this node's prefix; all bits beyond {@link #_length} are zero */
+    private final long _bits;
+
+    private Node<T> _left;
+
+    private final int _length;
+
+    private Node<T> _right;
+
+    /** The value stored for this node's prefix, or {@code null} for a pure branching node */
+    @Nullable private T _value;
+
+    Node(long bits, int length) {
+      _bits = bits;
+      _length = length;
+    }
+
+    private void forEachValue(Consumer<? super T> action) {
+      if (_left != null) {
+        _left.forEachValue(action);
+      }
+      if (_right != null) {
+        _right.forEachValue(action);
+      }
+      if (_value != null) {
+        action.accept(_value);
+      }
+    }
+
+    private int hash() {
+      int hash = Long.hashCode(_bits) * 31 + _length;
+      hash = hash * 31 + Objects.hashCode(_value);
+      hash = hash * 31 + (_left == null ? 0 : _left.hash());
+      hash = hash * 31 + (_right == null ? 0 : _right.hash());
+      return hash;
+    }
+
+    private boolean sameAs(@Nullable Node<?> other) {
+      return other != null
+          && _bits == other._bits
+          && _length == other._length
+          && Objects.equals(_value, other._value)
+          && (_left == null ? other._left == null : _left.sameAs(other._left))
+          && (_right == null ? other._right == null : _right.sameAs(other._right));
+    }
+
+    private void setChild(Node<T> child) {
+      if (getBit(child._bits, _length)) {
+        _right = child;
+      } else {
+        _left = child;
+      }
+    }
+  }
+
+  private static final long ADDRESS_MASK = 0xFFFFFFFFL;
+
+  /** */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Returns the length of the longest common prefix of two keys, considering at most {@code
+   * maxLength} bits.
+   */
+  private static int commonPrefixLength(long bits1, long bits2, int maxLength) {
+    int common = Long.numberOfLeadingZeros(bits1 ^ bits2) - Long.SIZE + Prefix.MAX_PREFIX_LENGTH;
+    return Math.min(common, maxLength);
+  }
+
+  /** Returns the bit at {@code index} of a key, where index 0 is the most significant bit. */
+  private static boolean getBit(long bits, int index) {
+    return ((bits >>> (Prefix.MAX_PREFIX_LENGTH - 1 - index)) & 1L) != 0;
+  }
+
+  private static long getBits(Prefix prefix) {
+    return prefix.getAddress().asLong() & mask(prefix.getPrefixLength());
+  }
+
+  private static long mask(int length) {
+    return ~(ADDRESS_MASK >>> length) & ADDRESS_MASK;
+  }
+
+  private final Node<T> _root;
+
+  public PatriciaTrie() {
+    _root = new Node<>(0L, 0);
+  }
+
+  /**
+   * Returns the value stored for {@code prefix}, computing and storing it with {@code
+   * mappingFunction} if there is none.
+   *
+   * @param prefix The prefix whose value to retrieve; host bits are ignored
+   * @param mappingFunction Function producing the (non-null) initial value for the prefix
+   * @return The current or newly computed value
+   */
+  public T computeIfAbsent(Prefix prefix, Function<Prefix, T> mappingFunction) {
+    Node<T> node = getOrCreateNode(getBits(prefix), prefix.getPrefixLength());
+    if (node._value == null) {
+      node._value = mappingFunction.apply(prefix);
+    }
+    return node._value;
+  }
+
+  /**
+   * Returns whether the trie contains any prefix that is equal to or more specific than {@code
+   * prefix}. For the zero-length prefix, returns whether the zero-length prefix itself is present.
+   */
+  public boolean containsPathFromPrefix(Prefix prefix) {
+    long bits = getBits(prefix);
+    int length = prefix.getPrefixLength();
+    Node<T> node = _root;
+    while (node != null) {
+      if (((node._bits ^ bits) & mask(Math.min(node._length, length))) != 0) {
+        return false;
+      }
+      if (node._length >= length) {
+        // every non-root node lies on the path to at least one stored prefix
+        return node != _root || node._value != null;
+      }
+      node = getBit(bits, node._length) ? node._right : node._left;
+    }
+    return false;
+  }
+
+  /**
+   * Check if two tries contain exactly the same prefixes with equal values.
+   *
+   * <p>Since the shape of the trie is fully determined by the set of stored prefixes, this is a
+   * simple simultaneous walk of both tries.
+   */
+  @Override
+  public boolean equals(@Nullable Object other) {
+    return other == this
+        || (other instanceof PatriciaTrie<?> && _root.sameAs(((PatriciaTrie<?>) other)._root));
+  }
+
+  /**
+   * Apply {@code action} to every stored value. More specific prefixes are visited before less
+   * specific ones, and prefixes with a 0 at the first differing bit before those with a 1.
+   */
+  public void forEachValue(Consumer<? super T> action) {
+    _root.forEachValue(action);
+  }
+
+  /** Returns the value stored for exactly {@code prefix}, or {@code null} if there is none. */
+  @Nullable
+  public T get(Prefix prefix) {
+    long bits = getBits(prefix);
+    int length = prefix.getPrefixLength();
+    Node<T> node = _root;
+    while (node != null && node._length <= length) {
+      if (((node._bits ^ bits) & mask(node._length)) != 0) {
+        return null;
+      }
+      if (node._length == length) {
+        return node._value;
+      }
+      node = getBit(bits, node._length) ? node._right : node._left;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the value stored for the longest prefix containing {@code address}, or {@code null} if
+   * no stored prefix contains it.
+   */
+  @Nullable
+  public T getLongestPrefixMatch(Ip address) {
+    long bits = address.asLong();
+    if ((bits & ~ADDRESS_MASK) != 0) {
+      // not a valid IPv4 address (e.g. Ip.AUTO), so not contained in any prefix
+      return null;
+    }
+    T match = null;
+    Node<T> node = _root;
+    while (node != null && ((node._bits ^ bits) & mask(node._length)) == 0) {
+      if (node._value != null) {
+        match = node._value;
+      }
+      if (node._length == Prefix.MAX_PREFIX_LENGTH) {
+        break;
+      }
+      node = getBit(bits, node._length) ? node._right : node._left;
+    }
+    return match;
+  }
+
+  private Node<T> getOrCreateNode(long bits, int length) {
+    Node<T> parent = _root;
+    if (length == 0) {
+      return _root;
+    }
+    while (true) {
+      Node<T> child = getBit(bits, parent._length) ? parent._right : parent._left;
+      if (child == null) {
+        Node<T> node = new Node<>(bits, length);
+        parent.setChild(node);
+        return node;
+      }
+      int common = commonPrefixLength(bits, child._bits, Math.min(length, child._length));
+      if (common == child._length) {
+        if (common == length) {
+          return child;
+        }
+        // the child's prefix contains the new prefix, so keep descending
+        parent = child;
+        continue;
+      }
+      Node<T> node = new Node<>(bits, length);
+      if (common == length) {
+        // the new prefix contains the child's prefix, so it goes between parent and child
+        parent.setChild(node);
+        node.setChild(child);
+        return node;
+      }
+      // the paths diverge before the end of either prefix, so insert a branching node
+      Node<T> branch = new Node<>(bits & mask(common), common);
+      parent.setChild(branch);
+      branch.setChild(node);
+      branch.setChild(child);
+      return node;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return _root.hash();
+  }
+
+  /**
+   * Stores {@code value} for {@code prefix}, replacing any previous value.
+   *
+   * @param prefix The prefix for which to store the value; host bits are ignored
+   * @param value The (non-null) value to store
+   */
+  public void put(Prefix prefix, T value) {
+    getOrCreateNode(getBits(prefix), prefix.getPrefixLength())._value = value;
+  }
+}
@@ -6,7 +6,6 @@ import com.fasterxml.jackson.annotation.JsonValue;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,16 +28,14 @@ public class PrefixSpace implements Serializable {
     public void addPrefixRange(PrefixRange prefixRange) {
       Prefix prefix = prefixRange.getPrefix();
       int prefixLength = prefix.getPrefixLength();
-      BitSet bits = getAddressBits(prefix.getAddress());
       int minLength = prefixRange.getLengthRange().getStart();
       int matchLength = prefixRange.getPrefix().getPrefixLength();
       for (int currentLength = minLength; currentLength < matchLength; currentLength++) {
         Prefix currentPrefix = new Prefix(prefix.getAddress(), currentLength).getNetworkPrefix();
         PrefixRange currentPrefixRange = PrefixRange.fromPrefix(currentPrefix);
-        BitSet currentBits = getAddressBits(currentPrefix.getAddress());
-        _root.addPrefixRange(currentPrefixRange, currentBits, currentLength, 0);
+        _root.addPrefixRange(currentPrefixRange, currentPrefix.getAddress(), currentLength, 0);
       }
-      _root.addPrefixRange(prefixRange, bits, prefixLength, 0);
+      _root.addPrefixRange(prefixRange, prefix.getAddress(), prefixLength, 0);
     }
 
     public void addTrieNodeSpace(BitTrieNode node) {
@@ -56,8 +53,7 @@ public class PrefixSpace implements Serializable {
     public boolean containsPrefixRange(PrefixRange prefixRange) {
       Prefix prefix = prefixRange.getPrefix();
       int prefixLength = prefix.getPrefixLength();
-      BitSet bits = getAddressBits(prefix.getAddress());
-      return _root.containsPrefixRange(prefixRange, bits, prefixLength, 0);
+      return _root.containsPrefixRange(prefixRange, prefix.getAddress(), prefixLength, 0);
     }
 
     public Set<PrefixRange> getPrefixRanges() {
@@ -82,7 +78,7 @@ public class PrefixSpace implements Serializable {
       _prefixRanges = new HashSet<>();
     }
 
-    public void addPrefixRange(PrefixRange prefixRange, BitSet bits, int prefixLength, int depth) {
+    public void addPrefixRange(PrefixRange prefixRange, Ip address, int prefixLength, int depth) {
       for (PrefixRange nodeRange : _prefixRanges) {
         if (nodeRange.includesPrefixRange(prefixRange)) {
           return;
@@ -92,17 +88,17 @@ public class PrefixSpace implements Serializable {
         _prefixRanges.add(prefixRange);
         prune(prefixRange);
       } else {
-        boolean currentBit = bits.get(depth);
+        boolean currentBit = address.getBit(depth);
         if (currentBit) {
           if (_right == null) {
             _right = new BitTrieNode();
           }
-          _right.addPrefixRange(prefixRange, bits, prefixLength, depth + 1);
+          _right.addPrefixRange(prefixRange, address, prefixLength, depth + 1);
         } else {
           if (_left == null) {
             _left = new BitTrieNode();
           }
-          _left.addPrefixRange(prefixRange, bits, prefixLength, depth + 1);
+          _left.addPrefixRange(prefixRange, address, prefixLength, depth + 1);
         }
       }
     }
@@ -118,7 +114,7 @@ public class PrefixSpace implements Serializable {
     }
 
     public boolean containsPrefixRange(
-        PrefixRange prefixRange, BitSet bits, int prefixLength, int depth) {
+        PrefixRange prefixRange, Ip address, int prefixLength, int depth) {
       for (PrefixRange nodeRange : _prefixRanges) {
         if (nodeRange.includesPrefixRange(prefixRange)) {
           return true;
@@ -127,18 +123,18 @@ public class PrefixSpace implements Serializable {
       if (prefixLength == depth) {
         return false;
       } else {
-        boolean currentBit = bits.get(depth);
+        boolean currentBit = address.getBit(depth);
         if (currentBit) {
           if (_right == null) {
             return false;
           } else {
-            return _right.containsPrefixRange(prefixRange, bits, prefixLength, depth + 1);
+            return _right.containsPrefixRange(prefixRange, address, prefixLength, depth + 1);
           }
         } else {
           if (_left == null) {
             return false;
           } else {
-            return _left.containsPrefixRange(prefixRange, bits, prefixLength, depth + 1);
+            return _left.containsPrefixRange(prefixRange, address, prefixLength, depth + 1);
           }
         }
       }
@@ -175,16 +171,6 @@ public class PrefixSpace implements Serializable {
   /** */
   private static final long serialVersionUID = 1L;
 
-  /**
-   * Converts an IPv4 address into a {@link BitSet} useful for prefix matching. The highest bit of
-   * the address is the lowest bit of the bitset: the address 128.0.0.0 when converted to a {@link
-   * BitSet} has only the lowest bit set.
-   */
-  // visible for testing
-  static BitSet getAddressBits(Ip address) {
-    return BitSet.valueOf(new long[] {Integer.reverse((int) address.asLong()) & 0xffffffffL});
-  }
-
   private transient ConcurrentMap<Prefix, Boolean> _cache;
 
   private BitTrie _trie;
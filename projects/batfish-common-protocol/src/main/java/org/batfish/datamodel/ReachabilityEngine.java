@@ -0,0 +1,48 @@
+package org.batfish.datamodel;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.batfish.common.BatfishException;
+
+/** Engine used to compute the answer to a reachability question */
+public enum ReachabilityEngine {
+  /** Header-space propagation of binary decision diagrams, entirely in Java */
+  BDD("bdd"),
+  /** Network-optimized datalog, solved by z3 */
+  NOD("nod");
+
+  private static final Map<String, ReachabilityEngine> _map = buildMap();
+
+  private static Map<String, ReachabilityEngine> buildMap() {
+    Map<String, ReachabilityEngine> map = new HashMap<>();
+    for (ReachabilityEngine value : ReachabilityEngine.values()) {
+      String name = value._name.toLowerCase();
+      map.put(name, value);
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+  @JsonCreator
+  public static ReachabilityEngine fromName(String name) {
+    ReachabilityEngine instance = _map.get(name.toLowerCase());
+    if (instance == null) {
+      throw new BatfishException(
+          "No " + ReachabilityEngine.class.getSimpleName() + " with name: \"" + name + "\"");
+    }
+    return instance;
+  }
+
+  private final String _name;
+
+  private ReachabilityEngine(String name) {
+    _name = name;
+  }
+
+  @JsonValue
+  public String reachabilityEngineName() {
+    return _name;
+  }
+}
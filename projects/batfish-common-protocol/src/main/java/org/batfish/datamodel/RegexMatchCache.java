@@ -0,0 +1,80 @@
+package org.batfish.datamodel;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import org.batfish.common.BatfishException;
+
+/**
+ * Results of matching the regexes of AS-path and community lists, shared by the lists of all
+ * configurations.
+ *
+ * <p>Routing policies check the same few AS-paths and communities against the same regexes on every
+ * iteration of data plane computation, and the same list is often configured on many nodes. Once a
+ * regex has been matched against a value, later checks of that value against that regex are a
+ * lookup, whichever list they come from.
+ */
+final class RegexMatchCache {
+
+  private static final class Key {
+
+    private final boolean _fullMatch;
+
+    private final String _regex;
+
+    private final Object _value;
+
+    private Key(String regex, Object value, boolean fullMatch) {
+      _fullMatch = fullMatch;
+      _regex = regex;
+      _value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return _fullMatch == other._fullMatch
+          && _regex.equals(other._regex)
+          && _value.equals(other._value);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_fullMatch, _regex, _value);
+    }
+  }
+
+  private static final int MAX_CACHED_MATCHES = 1 << 18;
+
+  private static final Cache<Key, Boolean> MATCHES =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_MATCHES).build();
+
+  /**
+   * Returns whether {@code pattern} matches the text of {@code value}, or part of it if {@code
+   * fullMatch} is false. The text is only rendered if the result is not cached yet.
+   */
+  static boolean matches(
+      Pattern pattern, boolean fullMatch, Object value, Supplier<String> valueText) {
+    try {
+      return MATCHES.get(
+          new Key(pattern.pattern(), value, fullMatch),
+          () -> {
+            String text = valueText.get();
+            return fullMatch ? pattern.matcher(text).matches() : pattern.matcher(text).find();
+          });
+    } catch (ExecutionException e) {
+      throw new BatfishException("Could not match regex: " + pattern.pattern(), e.getCause());
+    }
+  }
+
+  private RegexMatchCache() {}
+}
@@ -2,88 +2,316 @@ package org.batfish.datamodel;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import org.batfish.datamodel.collections.NodeInterfacePair;
 
+/**
+ * Layer-3 adjacencies between interfaces.
+ *
+ * <p>Besides explicit edges, a topology may hold broadcast domains: sets of interfaces that are all
+ * adjacent to each other, such as the interfaces on one multi-access subnet. A broadcast domain of
+ * n interfaces stands for n(n-1) edges, which are only created when asked for. Looking up the edges
+ * of one node or interface creates only the edges of that node or interface, while {@link
+ * #getEdges()}, {@link #getInterfaceEdges()} and {@link #getNodeEdges()} turn all broadcast domains
+ * into explicit edges. Callers that only need to visit the adjacent interfaces should use {@link
+ * #getInterfaces()}, {@link #getExplicitEdges()} and {@link #getBroadcastDomains()} instead.
+ */
+@JsonSerialize(using = Topology.Serializer.class)
 public class Topology implements Serializable {
 
-  private static final long serialVersionUID = 1L;
+  /* Lookups of the edges and broadcast domains of nodes and interfaces */
+  private static final class Index {
+
+    private final Map<NodeInterfacePair, List<SortedSet<NodeInterfacePair>>>
+        _interfaceBroadcastDomains = new HashMap<>();
+
+    private final Map<NodeInterfacePair, SortedSet<Edge>> _interfaceEdges = new HashMap<>();
+
+    /* Edges of single interfaces including broadcast domain edges, filled on demand */
+    private final Map<NodeInterfacePair, SortedSet<Edge>> _interfaceEdgesWithDomains =
+        new ConcurrentHashMap<>();
+
+    private final SortedSet<NodeInterfacePair> _interfaces = new TreeSet<>();
+
+    private final Map<String, SortedSet<Edge>> _nodeEdges = new HashMap<>();
+
+    /* Edges of single nodes including broadcast domain edges, filled on demand */
+    private final Map<String, SortedSet<Edge>> _nodeEdgesWithDomains = new ConcurrentHashMap<>();
+
+    private final Map<String, SortedSet<NodeInterfacePair>> _nodeInterfaces = new HashMap<>();
+
+    private Index(SortedSet<Edge> edges, List<SortedSet<NodeInterfacePair>> broadcastDomains) {
+      for (Edge edge : edges) {
+        _nodeEdges.computeIfAbsent(edge.getNode1(), k -> new TreeSet<>()).add(edge);
+        _nodeEdges.computeIfAbsent(edge.getNode2(), k -> new TreeSet<>()).add(edge);
+        _interfaceEdges.computeIfAbsent(edge.getInterface1(), k -> new TreeSet<>()).add(edge);
+        _interfaceEdges.computeIfAbsent(edge.getInterface2(), k -> new TreeSet<>()).add(edge);
+        _interfaces.add(edge.getInterface1());
+        _interfaces.add(edge.getInterface2());
+      }
+      for (SortedSet<NodeInterfacePair> broadcastDomain : broadcastDomains) {
+        if (broadcastDomain.size() > 1) {
+          _interfaces.addAll(broadcastDomain);
+        }
+        for (NodeInterfacePair iface : broadcastDomain) {
+          _interfaceBroadcastDomains
+              .computeIfAbsent(iface, k -> new ArrayList<>())
+              .add(broadcastDomain);
+          _nodeInterfaces.computeIfAbsent(iface.getHostname(), k -> new TreeSet<>()).add(iface);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the edges of a topology as a sorted JSON array, one interface at a time, so broadcast
+   * domains are not turned into a set of all their edges first.
+   */
+  public static class Serializer extends JsonSerializer<Topology> {
+
+    @Override
+    public void serialize(Topology value, JsonGenerator jgen, SerializerProvider provider)
+        throws IOException {
+      Index index = value.index();
+      jgen.writeStartArray();
+      // edges are ordered by their first interface first, so this yields them in sorted order
+      for (NodeInterfacePair iface : index._interfaces) {
+        for (Edge edge : edgesWithDomains(index, iface)) {
+          if (edge.getInterface1().equals(iface)) {
+            provider.defaultSerializeValue(edge, jgen);
+          }
+        }
+      }
+      jgen.writeEndArray();
+    }
+  }
+
+  private static final long serialVersionUID = 2L;
+
+  /* Adds the edges between an interface and the other interfaces of its broadcast domain */
+  private static void addBroadcastDomainEdges(
+      NodeInterfacePair iface, SortedSet<NodeInterfacePair> broadcastDomain, Set<Edge> edges) {
+    for (NodeInterfacePair other : broadcastDomain) {
+      if (!other.equals(iface)) {
+        edges.add(new Edge(iface, other));
+        edges.add(new Edge(other, iface));
+      }
+    }
+  }
+
+  /* Returns the explicit and broadcast domain edges to and from iface */
+  private static SortedSet<Edge> edgesWithDomains(Index index, NodeInterfacePair iface) {
+    SortedSet<Edge> edges = new TreeSet<>();
+    SortedSet<Edge> explicitEdges = index._interfaceEdges.get(iface);
+    if (explicitEdges != null) {
+      edges.addAll(explicitEdges);
+    }
+    List<SortedSet<NodeInterfacePair>> broadcastDomains =
+        index._interfaceBroadcastDomains.get(iface);
+    if (broadcastDomains != null) {
+      for (SortedSet<NodeInterfacePair> broadcastDomain : broadcastDomains) {
+        addBroadcastDomainEdges(iface, broadcastDomain, edges);
+      }
+    }
+    return edges;
+  }
+
+  /* Returns the explicit and broadcast domain edges to and from the interfaces of hostname */
+  private static SortedSet<Edge> nodeEdgesWithDomains(Index index, String hostname) {
+    SortedSet<Edge> edges = new TreeSet<>();
+    SortedSet<Edge> explicitEdges = index._nodeEdges.get(hostname);
+    if (explicitEdges != null) {
+      edges.addAll(explicitEdges);
+    }
+    SortedSet<NodeInterfacePair> ifaces = index._nodeInterfaces.get(hostname);
+    if (ifaces != null) {
+      for (NodeInterfacePair iface : ifaces) {
+        for (SortedSet<NodeInterfacePair> broadcastDomain :
+            index._interfaceBroadcastDomains.get(iface)) {
+          addBroadcastDomainEdges(iface, broadcastDomain, edges);
+        }
+      }
+    }
+    return edges;
+  }
 
   @JsonCreator
   private static Topology jacksonCreateTopology(SortedSet<Edge> edges) {
     return new Topology(edges);
   }
 
-  private final SortedSet<Edge> _edges;
+  private final List<SortedSet<NodeInterfacePair>> _broadcastDomains;
 
-  private final Map<NodeInterfacePair, SortedSet<Edge>> _interfaceEdges;
+  private final SortedSet<Edge> _edges;
 
-  private final Map<String, SortedSet<Edge>> _nodeEdges;
+  private transient volatile Index _index;
 
   public Topology(SortedSet<Edge> edges) {
-    _edges = edges;
-    _nodeEdges = new HashMap<>();
-    _interfaceEdges = new HashMap<>();
-    for (Edge edge : edges) {
-      String node1 = edge.getNode1();
-      String node2 = edge.getNode2();
-      NodeInterfacePair int1 = edge.getInterface1();
-      NodeInterfacePair int2 = edge.getInterface2();
-
-      SortedSet<Edge> node1Edges = _nodeEdges.computeIfAbsent(node1, k -> new TreeSet<>());
-      node1Edges.add(edge);
-
-      SortedSet<Edge> node2Edges = _nodeEdges.computeIfAbsent(node2, k -> new TreeSet<>());
-      node2Edges.add(edge);
+    this(edges, new ArrayList<>());
+  }
 
-      SortedSet<Edge> interface1Edges = _interfaceEdges.computeIfAbsent(int1, k -> new TreeSet<>());
-      interface1Edges.add(edge);
+  /**
+   * Creates a topology with explicit {@code edges}, plus an edge in each direction between any two
+   * interfaces of any of the {@code broadcastDomains}.
+   */
+  public Topology(SortedSet<Edge> edges, List<SortedSet<NodeInterfacePair>> broadcastDomains) {
+    _edges = edges;
+    _broadcastDomains = broadcastDomains;
+  }
 
-      SortedSet<Edge> interface2Edges = _interfaceEdges.computeIfAbsent(int2, k -> new TreeSet<>());
-      interface2Edges.add(edge);
+  /* Turns the broadcast domains into explicit edges */
+  private synchronized void expandBroadcastDomains() {
+    if (_broadcastDomains.isEmpty()) {
+      return;
+    }
+    for (SortedSet<NodeInterfacePair> broadcastDomain : _broadcastDomains) {
+      for (NodeInterfacePair iface : broadcastDomain) {
+        addBroadcastDomainEdges(iface, broadcastDomain, _edges);
+      }
     }
+    _broadcastDomains.clear();
+    _index = null;
   }
 
+  /** Returns the broadcast domains that have not been turned into explicit edges yet. */
+  @JsonIgnore
+  public List<SortedSet<NodeInterfacePair>> getBroadcastDomains() {
+    return Collections.unmodifiableList(_broadcastDomains);
+  }
+
+  /** Returns all edges, after turning all broadcast domains into explicit edges. */
   @JsonIgnore
   public SortedSet<Edge> getEdges() {
+    expandBroadcastDomains();
     return _edges;
   }
 
+  /** Returns the edges that are not part of a broadcast domain. */
+  @JsonIgnore
+  public SortedSet<Edge> getExplicitEdges() {
+    return Collections.unmodifiableSortedSet(_edges);
+  }
+
   @JsonIgnore
   public Map<NodeInterfacePair, SortedSet<Edge>> getInterfaceEdges() {
-    return _interfaceEdges;
+    expandBroadcastDomains();
+    return index()._interfaceEdges;
+  }
+
+  /**
+   * Returns the edges to and from {@code iface}, without turning broadcast domains into explicit
+   * edges. The returned set is unmodifiable, empty if there are none, and computed once until this
+   * topology changes.
+   */
+  public SortedSet<Edge> getInterfaceEdges(NodeInterfacePair iface) {
+    Index index = index();
+    return index._interfaceEdgesWithDomains.computeIfAbsent(
+        iface, i -> Collections.unmodifiableSortedSet(edgesWithDomains(index, i)));
+  }
+
+  /**
+   * Returns every interface with at least one edge, explicit or in a broadcast domain, without
+   * turning broadcast domains into explicit edges.
+   */
+  @JsonIgnore
+  public SortedSet<NodeInterfacePair> getInterfaces() {
+    return Collections.unmodifiableSortedSet(index()._interfaces);
   }
 
   @JsonIgnore
   public Map<String, SortedSet<Edge>> getNodeEdges() {
-    return _nodeEdges;
+    expandBroadcastDomains();
+    return index()._nodeEdges;
   }
 
-  public void removeEdge(Edge edge) {
+  /**
+   * Returns the edges to and from the interfaces of {@code hostname}, without turning broadcast
+   * domains into explicit edges. The returned set is unmodifiable, empty if there are none, and
+   * computed once until this topology changes.
+   */
+  public SortedSet<Edge> getNodeEdges(String hostname) {
+    Index index = index();
+    return index._nodeEdgesWithDomains.computeIfAbsent(
+        hostname, h -> Collections.unmodifiableSortedSet(nodeEdgesWithDomains(index, h)));
+  }
+
+  /* Returns the lookups of edges and broadcast domains, building them if necessary */
+  private Index index() {
+    Index index = _index;
+    if (index == null) {
+      synchronized (this) {
+        index = _index;
+        if (index == null) {
+          index = new Index(_edges, _broadcastDomains);
+          _index = index;
+        }
+      }
+    }
+    return index;
+  }
+
+  public synchronized void removeEdge(Edge edge) {
+    List<SortedSet<NodeInterfacePair>> broadcastDomains =
+        index()._interfaceBroadcastDomains.get(edge.getInterface1());
+    if (broadcastDomains != null
+        && broadcastDomains
+            .stream()
+            .anyMatch(broadcastDomain -> broadcastDomain.contains(edge.getInterface2()))) {
+      // the edge is only one of those of its broadcast domain
+      expandBroadcastDomains();
+    }
     _edges.remove(edge);
+    _index = null;
   }
 
-  public void removeInterface(NodeInterfacePair iface) {
-    SortedSet<Edge> interfaceEdges = _interfaceEdges.get(iface);
+  public synchronized void removeInterface(NodeInterfacePair iface) {
+    SortedSet<Edge> interfaceEdges = index()._interfaceEdges.get(iface);
     if (interfaceEdges != null) {
       _edges.removeAll(interfaceEdges);
     }
+    for (SortedSet<NodeInterfacePair> broadcastDomain : _broadcastDomains) {
+      broadcastDomain.remove(iface);
+    }
+    _index = null;
   }
 
-  public void removeNode(String hostname) {
-    SortedSet<Edge> nodeEdges = _nodeEdges.get(hostname);
+  public synchronized void removeNode(String hostname) {
+    Index index = index();
+    SortedSet<Edge> nodeEdges = index._nodeEdges.get(hostname);
     if (nodeEdges != null) {
       _edges.removeAll(nodeEdges);
     }
+    SortedSet<NodeInterfacePair> ifaces = index._nodeInterfaces.get(hostname);
+    if (ifaces != null) {
+      for (SortedSet<NodeInterfacePair> broadcastDomain : _broadcastDomains) {
+        broadcastDomain.removeAll(ifaces);
+      }
+    }
+    _index = null;
   }
 
-  @JsonValue
-  public SortedSet<Edge> sortedEdges() {
-    return new TreeSet<>(_edges);
+  /** Returns a new set of all edges, without turning broadcast domains into explicit edges. */
+  public synchronized SortedSet<Edge> sortedEdges() {
+    SortedSet<Edge> edges = new TreeSet<>(_edges);
+    for (SortedSet<NodeInterfacePair> broadcastDomain : _broadcastDomains) {
+      for (NodeInterfacePair iface : broadcastDomain) {
+        addBroadcastDomainEdges(iface, broadcastDomain, edges);
+      }
+    }
+    return edges;
   }
 }
@@ -1,5 +1,6 @@
 package org.batfish.datamodel.answers;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serializable;
 import java.util.Set;
 import java.util.SortedMap;
@@ -15,6 +16,8 @@ public class ConvertConfigurationAnswerElement implements InitStepAnswerElement,
   /** */
   private static final long serialVersionUID = 1L;
 
+  private SortedMap<String, Long> _convertTimes;
+
   private SortedMap<String, BatfishException.BatfishStackTrace> _errors;
 
   private Set<String> _failed;
@@ -31,6 +34,7 @@ public class ConvertConfigurationAnswerElement implements InitStepAnswerElement,
   private SortedMap<String, Warnings> _warnings;
 
   public ConvertConfigurationAnswerElement() {
+    _convertTimes = new TreeMap<>();
     _failed = new TreeSet<>();
     _warnings = new TreeMap<>();
     _undefinedReferences = new TreeMap<>();
@@ -38,6 +42,15 @@ public class ConvertConfigurationAnswerElement implements InitStepAnswerElement,
     _errors = new TreeMap<>();
   }
 
+  /**
+   * Returns how long conversion took for each vendor configuration, in milliseconds. Left out of
+   * JSON, since it differs from run to run.
+   */
+  @JsonIgnore
+  public SortedMap<String, Long> getConvertTimes() {
+    return _convertTimes;
+  }
+
   public SortedMap<String, BatfishException.BatfishStackTrace> getErrors() {
     return _errors;
   }
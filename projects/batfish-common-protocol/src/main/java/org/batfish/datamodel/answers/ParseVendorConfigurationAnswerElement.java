@@ -1,5 +1,6 @@
 package org.batfish.datamodel.answers;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serializable;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -19,6 +20,8 @@ public class ParseVendorConfigurationAnswerElement implements ParseAnswerElement
 
   private SortedMap<String, ParseStatus> _parseStatus;
 
+  private SortedMap<String, Long> _parseTimes;
+
   private SortedMap<String, ParseTreeSentences> _parseTrees;
 
   private String _version;
@@ -28,6 +31,7 @@ public class ParseVendorConfigurationAnswerElement implements ParseAnswerElement
   public ParseVendorConfigurationAnswerElement() {
     _fileMap = new TreeMap<>();
     _parseStatus = new TreeMap<>();
+    _parseTimes = new TreeMap<>();
     _parseTrees = new TreeMap<>();
     _warnings = new TreeMap<>();
     _errors = new TreeMap<>();
@@ -52,6 +56,15 @@ public class ParseVendorConfigurationAnswerElement implements ParseAnswerElement
     return _parseStatus;
   }
 
+  /**
+   * Returns how long parsing took for each host, or for each file that did not produce a host, in
+   * milliseconds. Left out of JSON, since it differs from run to run.
+   */
+  @JsonIgnore
+  public SortedMap<String, Long> getParseTimes() {
+    return _parseTimes;
+  }
+
   public SortedMap<String, ParseTreeSentences> getParseTrees() {
     return _parseTrees;
   }
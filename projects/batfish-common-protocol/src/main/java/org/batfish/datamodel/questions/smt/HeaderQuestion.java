@@ -70,6 +70,8 @@ public class HeaderQuestion extends Question implements IQuestion {
 
   private static final String PROP_BENCHMARK = "benchmark";
 
+  private static final String PROP_VERIFICATION_THREADS = "verificationThreads";
+
   private Set<ForwardingAction> _actions;
 
   private HeaderSpace _headerSpace;
@@ -94,6 +96,8 @@ public class HeaderQuestion extends Question implements IQuestion {
 
   private boolean _benchmark;
 
+  private int _verificationThreads;
+
   public HeaderQuestion() {
     _actions = EnumSet.of(ForwardingAction.ACCEPT);
     _headerSpace = new HeaderSpace();
@@ -107,6 +111,7 @@ public class HeaderQuestion extends Question implements IQuestion {
     _deltaEnvType = EnvironmentType.ANY;
     _useAbstraction = false;
     _benchmark = false;
+    _verificationThreads = 1;
   }
 
   public HeaderQuestion(HeaderQuestion q) {
@@ -122,6 +127,7 @@ public class HeaderQuestion extends Question implements IQuestion {
     _deltaEnvType = q._deltaEnvType;
     _useAbstraction = q._useAbstraction;
     _benchmark = q._benchmark;
+    _verificationThreads = q._verificationThreads;
   }
 
   @Override
@@ -279,6 +285,16 @@ public class HeaderQuestion extends Question implements IQuestion {
     return _benchmark;
   }
 
+  /**
+   * Number of equivalence classes that are checked at the same time, each with its own solver. With
+   * more than one, the first counterexample found is reported, which is not necessarily the one a
+   * sequential check would report.
+   */
+  @JsonProperty(PROP_VERIFICATION_THREADS)
+  public int getVerificationThreads() {
+    return _verificationThreads;
+  }
+
   @Override
   public boolean getTraffic() {
     return true;
@@ -476,4 +492,9 @@ public class HeaderQuestion extends Question implements IQuestion {
   public void setBenchmark(boolean x) {
     this._benchmark = x;
   }
+
+  @JsonProperty(PROP_VERIFICATION_THREADS)
+  public void setVerificationThreads(int x) {
+    this._verificationThreads = x;
+  }
 }
@@ -56,6 +56,7 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
         | SecurityException e) {
       throw new BatfishException("Error constructing lexer using reflection", e);
     }
+    _lexer.setInterpreter(new DfaCacheLexerATNSimulator(_lexer, _lexer.getInterpreter()));
     _lexer.initErrorListener(this);
     _tokens = new CommonTokenStream(_lexer);
     try {
@@ -68,6 +69,7 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
         | SecurityException e) {
       throw new Error(e);
     }
+    _parser.setInterpreter(new DfaCacheParserATNSimulator(_parser.getInterpreter()));
     _parser.initErrorListener(this);
     _parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
   }
@@ -150,6 +152,21 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
     _parserErrorListener = parserErrorListener;
   }
 
+  /**
+   * Adds the DFA cache lookups made by the lexer and parser since the last call to their {@link
+   * DfaCache}s, then clears any of these caches that holds more than {@code maxDfaCacheSize} DFA
+   * states. Meant to be called after each parse.
+   */
+  public void updateDfaCaches(long maxDfaCacheSize) {
+    DfaCacheLexerATNSimulator lexerSimulator = (DfaCacheLexerATNSimulator) _lexer.getInterpreter();
+    lexerSimulator.recordLookups();
+    lexerSimulator.getDfaCache().trim(maxDfaCacheSize);
+    DfaCacheParserATNSimulator parserSimulator =
+        (DfaCacheParserATNSimulator) _parser.getInterpreter();
+    parserSimulator.recordLookups();
+    parserSimulator.getDfaCache().trim(maxDfaCacheSize);
+  }
+
   public void updateTokenModes(int mode) {
     for (int i = _currentModeStart; i <= _tokens.size(); i++) {
       _tokenModes.add(mode);
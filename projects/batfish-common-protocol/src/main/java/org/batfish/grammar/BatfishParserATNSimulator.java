@@ -10,7 +10,7 @@ import org.antlr.v4.runtime.atn.ParserATNSimulator;
  * adaptivePredict} function with a recovery mechanism. Intended for use with a {@link
  * BatfishParser} employing a {@link BatfishANTLRErrorStrategy} as its error recovery strategy.
  */
-public class BatfishParserATNSimulator extends ParserATNSimulator {
+public class BatfishParserATNSimulator extends DfaCacheParserATNSimulator {
 
   private BatfishParser _parser;
 
@@ -20,7 +20,7 @@ public class BatfishParserATNSimulator extends ParserATNSimulator {
    * @param parent The {@link ParserATNSimulator} to emulate modulo {@link adpativePredict}
    */
   public BatfishParserATNSimulator(ParserATNSimulator parent) {
-    super(parent.getParser(), parent.atn, parent.decisionToDFA, parent.getSharedContextCache());
+    super(parent);
     _parser = (BatfishParser) parser;
   }
 
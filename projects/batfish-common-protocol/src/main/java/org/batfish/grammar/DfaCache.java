@@ -0,0 +1,138 @@
+package org.batfish.grammar;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.dfa.DFA;
+
+/**
+ * The DFA cache that ANTLR shares between all lexers or all parsers of one grammar, along with
+ * statistics on its use.
+ *
+ * <p>ANTLR adds a DFA state to the cache whenever a lexer or parser meets input it has not
+ * predicted before, and never removes any. The cache can be cleared with {@link #trim(long)} to
+ * bound its size in a long-running process, after which it is rebuilt as input is parsed.
+ */
+public final class DfaCache {
+
+  private static final SortedMap<String, DfaCache> CACHES = new ConcurrentSkipListMap<>();
+
+  /**
+   * Returns the cache of the grammar {@code grammarFileName}, which has the given {@code atn} and
+   * {@code decisionToDFA} shared by all of its recognizers.
+   */
+  static DfaCache getCache(String grammarFileName, ATN atn, DFA[] decisionToDFA) {
+    return CACHES.computeIfAbsent(
+        grammarFileName, name -> new DfaCache(grammarFileName, atn, decisionToDFA));
+  }
+
+  /** Returns the caches of all grammars used so far, sorted by grammar file name. */
+  public static Collection<DfaCache> getCaches() {
+    return Collections.unmodifiableCollection(CACHES.values());
+  }
+
+  private final ATN _atn;
+
+  private final LongAdder _clears;
+
+  private final DFA[] _decisionToDFA;
+
+  private final String _grammarFileName;
+
+  private final LongAdder _hits;
+
+  private final LongAdder _misses;
+
+  private DfaCache(String grammarFileName, ATN atn, DFA[] decisionToDFA) {
+    _atn = atn;
+    _clears = new LongAdder();
+    _decisionToDFA = decisionToDFA;
+    _grammarFileName = grammarFileName;
+    _hits = new LongAdder();
+    _misses = new LongAdder();
+  }
+
+  /**
+   * Removes all DFA states, in the same way as {@link
+   * org.antlr.v4.runtime.atn.ATNSimulator#clearDFA()}.
+   */
+  public void clear() {
+    for (int d = 0; d < _decisionToDFA.length; d++) {
+      _decisionToDFA[d] = new DFA(_atn.getDecisionState(d), d);
+    }
+    _clears.increment();
+  }
+
+  /** Returns the number of times the cache has been cleared. */
+  public long getClears() {
+    return _clears.sum();
+  }
+
+  public String getGrammarFileName() {
+    return _grammarFileName;
+  }
+
+  /**
+   * Returns the number of lookups of a transition between DFA states that found it in the cache.
+   */
+  public long getHits() {
+    return _hits.sum();
+  }
+
+  /**
+   * Returns the fraction of lookups of a transition between DFA states that found it in the cache,
+   * or 0 if there were no lookups.
+   */
+  public double getHitRate() {
+    long hits = _hits.sum();
+    long lookups = hits + _misses.sum();
+    return lookups == 0 ? 0.0 : (double) hits / lookups;
+  }
+
+  /** Returns the number of lookups of a transition between DFA states. */
+  public long getLookups() {
+    return _hits.sum() + _misses.sum();
+  }
+
+  /** Returns the number of lookups of a transition between DFA states that did not find it. */
+  public long getMisses() {
+    return _misses.sum();
+  }
+
+  /** Returns the number of DFA states in the cache. */
+  public long getSize() {
+    long size = 0;
+    for (DFA dfa : _decisionToDFA) {
+      size += dfa.states.size();
+    }
+    return size;
+  }
+
+  void recordLookups(long hits, long misses) {
+    _hits.add(hits);
+    _misses.add(misses);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s: %d DFA states, %.1f%% hits in %d lookups, cleared %d times",
+        _grammarFileName, getSize(), 100 * getHitRate(), getLookups(), getClears());
+  }
+
+  /**
+   * Clears the cache if it holds more than {@code maxSize} DFA states.
+   *
+   * @return true iff the cache was cleared
+   */
+  public boolean trim(long maxSize) {
+    if (getSize() <= maxSize) {
+      return false;
+    }
+    clear();
+    return true;
+  }
+}
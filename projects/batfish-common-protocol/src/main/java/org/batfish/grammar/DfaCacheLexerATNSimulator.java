@@ -0,0 +1,50 @@
+package org.batfish.grammar;
+
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+/**
+ * A {@link LexerATNSimulator} that counts hits and misses in the {@link DfaCache} of its grammar.
+ * Counts are kept locally, since a simulator is only used by one thread, and added to the {@link
+ * DfaCache} by {@link #recordLookups()}.
+ */
+public class DfaCacheLexerATNSimulator extends LexerATNSimulator {
+
+  private final DfaCache _dfaCache;
+
+  private long _hits;
+
+  private long _misses;
+
+  /**
+   * Construct a {@link DfaCacheLexerATNSimulator} for {@code lexer} from its current {@link
+   * LexerATNSimulator}
+   */
+  public DfaCacheLexerATNSimulator(Lexer lexer, LexerATNSimulator parent) {
+    super(lexer, parent.atn, parent.decisionToDFA, parent.getSharedContextCache());
+    _dfaCache = DfaCache.getCache(lexer.getGrammarFileName(), parent.atn, parent.decisionToDFA);
+  }
+
+  public DfaCache getDfaCache() {
+    return _dfaCache;
+  }
+
+  @Override
+  protected DFAState getExistingTargetState(DFAState s, int t) {
+    DFAState target = super.getExistingTargetState(s, t);
+    if (target == null) {
+      _misses++;
+    } else {
+      _hits++;
+    }
+    return target;
+  }
+
+  /** Adds the hits and misses counted since the last call to the {@link DfaCache}. */
+  public void recordLookups() {
+    _dfaCache.recordLookups(_hits, _misses);
+    _hits = 0;
+    _misses = 0;
+  }
+}
@@ -0,0 +1,52 @@
+package org.batfish.grammar;
+
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+/**
+ * A {@link ParserATNSimulator} that counts hits and misses in the {@link DfaCache} of its grammar.
+ * Counts are kept locally, since a simulator is only used by one thread, and added to the {@link
+ * DfaCache} by {@link #recordLookups()}.
+ */
+public class DfaCacheParserATNSimulator extends ParserATNSimulator {
+
+  private final DfaCache _dfaCache;
+
+  private long _hits;
+
+  private long _misses;
+
+  /**
+   * Construct a {@link DfaCacheParserATNSimulator} from a {@link ParserATNSimulator}
+   *
+   * @param parent The {@link ParserATNSimulator} whose parser, ATN and caches are to be used
+   */
+  public DfaCacheParserATNSimulator(ParserATNSimulator parent) {
+    super(parent.getParser(), parent.atn, parent.decisionToDFA, parent.getSharedContextCache());
+    _dfaCache =
+        DfaCache.getCache(
+            parent.getParser().getGrammarFileName(), parent.atn, parent.decisionToDFA);
+  }
+
+  public DfaCache getDfaCache() {
+    return _dfaCache;
+  }
+
+  @Override
+  protected DFAState getExistingTargetState(DFAState previousD, int t) {
+    DFAState target = super.getExistingTargetState(previousD, t);
+    if (target == null) {
+      _misses++;
+    } else {
+      _hits++;
+    }
+    return target;
+  }
+
+  /** Adds the hits and misses counted since the last call to the {@link DfaCache}. */
+  public void recordLookups() {
+    _dfaCache.recordLookups(_hits, _misses);
+    _hits = 0;
+    _misses = 0;
+  }
+}
@@ -23,6 +23,7 @@ import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.NodeRoleSpecifier;
 import org.batfish.datamodel.RoleEdge;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.collections.NodeInterfacePair;
 
 public class InferRoles implements Callable<NodeRoleSpecifier> {
 
@@ -244,7 +245,7 @@ public class InferRoles implements Callable<NodeRoleSpecifier> {
     // produce a role-level topology and the list of nodes in each edge's source role
     // that have an edge to some node in the edge's target role
     SortedMap<RoleEdge, SortedSet<String>> roleEdges = new TreeMap<>();
-    for (Edge e : topology.getEdges()) {
+    for (Edge e : topology.getExplicitEdges()) {
       String n1 = e.getNode1();
       String n2 = e.getNode2();
       SortedSet<String> roles1 = nodeRolesMap.get(n1);
@@ -262,6 +263,28 @@ public class InferRoles implements Callable<NodeRoleSpecifier> {
         roleEdges.put(redge, roleEdgeNodes);
       }
     }
+    // every node of a broadcast domain has an edge to every other node of the domain, so group
+    // the nodes by role instead of visiting each pair of them
+    for (SortedSet<NodeInterfacePair> broadcastDomain : topology.getBroadcastDomains()) {
+      SortedMap<String, SortedSet<String>> domainRoleNodes = new TreeMap<>();
+      for (NodeInterfacePair iface : broadcastDomain) {
+        String n = iface.getHostname();
+        SortedSet<String> roles = nodeRolesMap.get(n);
+        if (roles != null && roles.size() == 1) {
+          domainRoleNodes.computeIfAbsent(roles.first(), r -> new TreeSet<>()).add(n);
+        }
+      }
+      for (Map.Entry<String, SortedSet<String>> e1 : domainRoleNodes.entrySet()) {
+        for (String role2 : domainRoleNodes.keySet()) {
+          // ignore self-edges
+          if (e1.getKey().equals(role2)) {
+            continue;
+          }
+          RoleEdge redge = new RoleEdge(e1.getKey(), role2);
+          roleEdges.computeIfAbsent(redge, r -> new TreeSet<>()).addAll(e1.getValue());
+        }
+      }
+    }
 
     int numEdges = roleEdges.size();
     if (numEdges == 0) {
@@ -3,6 +3,7 @@ package org.batfish.common.plugin;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import org.batfish.common.BatfishLogger;
 import org.junit.Rule;
@@ -16,8 +17,8 @@ public class PluginConsumerTest {
   @Rule public TemporaryFolder _folder = new TemporaryFolder();
 
   private static class TestPluginConsumer extends PluginConsumer {
-    private TestPluginConsumer(boolean serializeToText) {
-      super(serializeToText);
+    private TestPluginConsumer(boolean serializeToText, SerializationFormat format) {
+      super(serializeToText, format);
     }
 
     @Override
@@ -32,14 +33,22 @@ public class PluginConsumerTest {
   }
 
   private void runSerializationTest(boolean serializeToText) throws Exception {
-    Path serializeFile = _folder.newFile().toPath();
-    TestPluginConsumer consumer = new TestPluginConsumer(serializeToText);
+    for (SerializationFormat format : SerializationFormat.values()) {
+      Path serializeFile = _folder.newFile().toPath();
+      TestPluginConsumer consumer = new TestPluginConsumer(serializeToText, format);
 
-    int[] ints = new int[] {1, 2, 3};
-    consumer.serializeObject(ints, serializeFile);
+      int[] ints = new int[] {1, 2, 3};
+      consumer.serializeObject(ints, serializeFile);
 
-    int[] value = consumer.deserializeObject(serializeFile, int[].class);
-    assertThat(value, equalTo(ints));
+      int[] value = consumer.deserializeObject(serializeFile, int[].class);
+      assertThat(value, equalTo(ints));
+
+      // the format is recorded in the data, so any reader can load it
+      TestPluginConsumer gzipConsumer = new TestPluginConsumer(false, SerializationFormat.GZIP);
+      assertThat(
+          gzipConsumer.deserializeObject(Files.readAllBytes(serializeFile), int[].class),
+          equalTo(ints));
+    }
   }
 
   @Test
@@ -51,4 +60,15 @@ public class PluginConsumerTest {
   public void testSerializingAndDeserializingText() throws Exception {
     runSerializationTest(true);
   }
+
+  @Test
+  public void testUntaggedDataIsGzip() throws Exception {
+    TestPluginConsumer consumer = new TestPluginConsumer(false, SerializationFormat.GZIP);
+    byte[] data = consumer.toSerializedData("abc");
+    // plain GZIP magic number, as written by earlier versions
+    assertThat(data[0], equalTo((byte) 0x1f));
+    assertThat(data[1], equalTo((byte) 0x8b));
+    TestPluginConsumer lz4Consumer = new TestPluginConsumer(false, SerializationFormat.LZ4);
+    assertThat(lz4Consumer.deserializeObject(data, String.class), equalTo("abc"));
+  }
 }
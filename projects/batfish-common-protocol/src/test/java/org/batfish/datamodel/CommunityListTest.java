@@ -0,0 +1,49 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.batfish.common.util.CommonUtil;
+import org.junit.Test;
+
+public class CommunityListTest {
+
+  private static long community(String community) {
+    return CommonUtil.communityStringToLong(community);
+  }
+
+  @Test
+  public void testFirstMatchingLineDecides() {
+    CommunityList list =
+        new CommunityList(
+            "list",
+            ImmutableList.of(
+                new CommunityListLine(LineAction.REJECT, "^65000:1$"),
+                new CommunityListLine(LineAction.ACCEPT, "^65000:")));
+
+    assertThat(list.permits(community("65000:1")), equalTo(false));
+    assertThat(list.permits(community("65000:10")), equalTo(true));
+    assertThat(list.permits(community("65001:1")), equalTo(false));
+    // checked again, now answered from cached matches
+    assertThat(list.permits(community("65000:10")), equalTo(true));
+  }
+
+  @Test
+  public void testMatchingCommunities() {
+    CommunityListLine line = new CommunityListLine(LineAction.ACCEPT, "65000:1");
+    ImmutableSet<Long> communities =
+        ImmutableSet.of(community("65000:1"), community("65000:10"), community("65001:1"));
+
+    assertThat(
+        line.getMatchingCommunities(communities, false),
+        equalTo(ImmutableSet.of(community("65000:1"), community("65000:10"))));
+    assertThat(
+        line.getMatchingCommunities(communities, true),
+        equalTo(ImmutableSet.of(community("65001:1"))));
+    assertThat(
+        line.getExactMatchingCommunities(communities),
+        equalTo(ImmutableSet.of(community("65000:1"))));
+  }
+}
@@ -0,0 +1,100 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.Test;
+
+public class IpAccessListTest {
+
+  private static Flow flow(String dstIp, int dstPort) {
+    Flow.Builder builder = new Flow.Builder();
+    builder.setIngressNode("node");
+    builder.setTag("TEST");
+    builder.setSrcIp(new Ip("1.1.1.1"));
+    builder.setDstIp(new Ip(dstIp));
+    builder.setDstPort(dstPort);
+    return builder.build();
+  }
+
+  private static IpAccessListLine line(LineAction action, String dstIp, Integer dstPort) {
+    IpAccessListLine line = new IpAccessListLine();
+    line.setAction(action);
+    if (dstIp != null) {
+      line.setDstIps(ImmutableSortedSet.of(new IpWildcard(dstIp)));
+    }
+    if (dstPort != null) {
+      line.setDstPorts(ImmutableSortedSet.of(new SubRange(dstPort, dstPort)));
+    }
+    return line;
+  }
+
+  @Test
+  public void testFilterFollowsLineOrder() {
+    List<IpAccessListLine> lines = new ArrayList<>();
+    lines.add(line(LineAction.REJECT, "10.0.0.0/8", 22));
+    lines.add(line(LineAction.ACCEPT, "10.1.0.0/16", null));
+    lines.add(line(LineAction.REJECT, null, 80));
+    lines.add(line(LineAction.ACCEPT, "10.0.0.0/8", null));
+    // not a prefix, so checked against every flow
+    lines.add(line(LineAction.ACCEPT, "20.0.0.1:0.255.0.0", null));
+    IpAccessList acl = new IpAccessList("acl", lines);
+
+    assertThat(acl.filter(flow("10.1.2.3", 22)).getMatchLine(), equalTo(0));
+    assertThat(acl.filter(flow("10.1.2.3", 80)).getMatchLine(), equalTo(1));
+    assertThat(acl.filter(flow("10.2.2.3", 80)).getMatchLine(), equalTo(2));
+    assertThat(acl.filter(flow("10.2.2.3", 443)).getMatchLine(), equalTo(3));
+    assertThat(acl.filter(flow("20.7.0.1", 443)).getMatchLine(), equalTo(4));
+
+    FilterResult noMatch = acl.filter(flow("20.7.0.2", 443));
+    assertThat(noMatch.getMatchLine(), equalTo(null));
+    assertThat(noMatch.getAction(), equalTo(LineAction.REJECT));
+  }
+
+  @Test
+  public void testFilterSeesChangedLines() {
+    List<IpAccessListLine> lines = new ArrayList<>();
+    lines.add(line(LineAction.REJECT, "10.0.0.0/8", null));
+    IpAccessList acl = new IpAccessList("acl", lines);
+    assertThat(acl.filter(flow("11.0.0.1", 80)).getMatchLine(), equalTo(null));
+
+    lines.add(line(LineAction.ACCEPT, "0.0.0.0/0", null));
+    assertThat(acl.filter(flow("11.0.0.1", 80)).getMatchLine(), equalTo(1));
+
+    List<IpAccessListLine> newLines = new ArrayList<>();
+    newLines.add(line(LineAction.ACCEPT, "11.0.0.0/8", 80));
+    acl.setLines(newLines);
+    assertThat(acl.filter(flow("11.0.0.1", 80)).getMatchLine(), equalTo(0));
+  }
+
+  @Test
+  public void testFilterSeesLinesChangedInPlace() {
+    List<IpAccessListLine> lines = new ArrayList<>();
+    lines.add(line(LineAction.REJECT, "10.0.0.0/8", null));
+    IpAccessList acl = new IpAccessList("acl", lines);
+    assertThat(acl.filter(flow("10.0.0.1", 80)).getAction(), equalTo(LineAction.REJECT));
+
+    // replace a line in the list
+    acl.getLines().set(0, line(LineAction.ACCEPT, "10.0.0.0/8", null));
+    assertThat(acl.filter(flow("10.0.0.1", 80)).getAction(), equalTo(LineAction.ACCEPT));
+
+    // change the action of a line
+    acl.getLines().get(0).setAction(LineAction.REJECT);
+    assertThat(acl.filter(flow("10.0.0.1", 80)).getAction(), equalTo(LineAction.REJECT));
+
+    // change the destination IPs of a line, both by setting and by adding to them
+    acl.getLines().get(0).setDstIps(new TreeSet<>(ImmutableSet.of(new IpWildcard("11.0.0.0/8"))));
+    assertThat(acl.filter(flow("11.0.0.1", 80)).getMatchLine(), equalTo(0));
+    acl.getLines().get(0).getDstIps().add(new IpWildcard("12.0.0.0/8"));
+    assertThat(acl.filter(flow("12.0.0.1", 80)).getMatchLine(), equalTo(0));
+
+    // change another condition of a line
+    acl.getLines().get(0).setDstPorts(ImmutableSortedSet.of(new SubRange(22, 22)));
+    assertThat(acl.filter(flow("12.0.0.1", 80)).getMatchLine(), equalTo(null));
+  }
+}
@@ -0,0 +1,82 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/** Tests of {@link PatriciaTrie} */
+public class PatriciaTrieTest {
+
+  private static PatriciaTrie<Prefix> trieOf(String... prefixes) {
+    PatriciaTrie<Prefix> trie = new PatriciaTrie<>();
+    for (String prefixStr : prefixes) {
+      Prefix prefix = new Prefix(prefixStr);
+      trie.put(prefix, prefix);
+    }
+    return trie;
+  }
+
+  @Test
+  public void testContainsPathFromPrefix() {
+    PatriciaTrie<Prefix> trie = trieOf("10.1.0.0/16", "10.1.128.0/24");
+    assertThat(trie.containsPathFromPrefix(new Prefix("10.0.0.0/8")), is(true));
+    assertThat(trie.containsPathFromPrefix(new Prefix("10.1.128.0/17")), is(true));
+    assertThat(trie.containsPathFromPrefix(new Prefix("10.1.0.0/17")), is(false));
+    assertThat(trie.containsPathFromPrefix(new Prefix("10.1.128.0/25")), is(false));
+    assertThat(trie.containsPathFromPrefix(Prefix.ZERO), is(false));
+    assertThat(trieOf("0.0.0.0/0").containsPathFromPrefix(Prefix.ZERO), is(true));
+  }
+
+  @Test
+  public void testEquals() {
+    PatriciaTrie<Prefix> trie = trieOf("10.1.0.0/16", "10.2.0.0/16", "10.0.0.0/8");
+    assertThat(trie, equalTo(trieOf("10.0.0.0/8", "10.2.0.0/16", "10.1.0.0/16")));
+    assertThat(
+        trie.hashCode(), equalTo(trieOf("10.0.0.0/8", "10.2.0.0/16", "10.1.0.0/16").hashCode()));
+    assertThat(trie, not(equalTo(trieOf("10.1.0.0/16", "10.2.0.0/16"))));
+  }
+
+  @Test
+  public void testForEachValueOrder() {
+    PatriciaTrie<Prefix> trie = trieOf("0.0.0.0/0", "128.0.0.0/1", "10.0.0.0/8", "10.1.0.0/16");
+    List<Prefix> values = new ArrayList<>();
+    trie.forEachValue(values::add);
+    assertThat(
+        values,
+        contains(
+            new Prefix("10.1.0.0/16"),
+            new Prefix("10.0.0.0/8"),
+            new Prefix("128.0.0.0/1"),
+            new Prefix("0.0.0.0/0")));
+  }
+
+  @Test
+  public void testGet() {
+    PatriciaTrie<Prefix> trie = trieOf("10.1.0.0/16", "10.2.0.0/16");
+    assertThat(trie.get(new Prefix("10.1.0.0/16")), equalTo(new Prefix("10.1.0.0/16")));
+    // host bits are ignored
+    assertThat(trie.get(new Prefix("10.2.3.4/16")), equalTo(new Prefix("10.2.0.0/16")));
+    // branching node created for the divergence of the two prefixes holds no value
+    assertThat(trie.get(new Prefix("10.0.0.0/14")), nullValue());
+    assertThat(trie.get(new Prefix("10.1.0.0/24")), nullValue());
+  }
+
+  @Test
+  public void testLongestPrefixMatch() {
+    PatriciaTrie<Prefix> trie =
+        trieOf("0.0.0.0/0", "10.0.0.0/8", "10.1.0.0/16", "10.1.1.1/32", "10.2.0.0/16");
+    assertThat(trie.getLongestPrefixMatch(new Ip("10.1.1.1")), equalTo(new Prefix("10.1.1.1/32")));
+    assertThat(trie.getLongestPrefixMatch(new Ip("10.1.1.2")), equalTo(new Prefix("10.1.0.0/16")));
+    assertThat(trie.getLongestPrefixMatch(new Ip("10.3.0.1")), equalTo(new Prefix("10.0.0.0/8")));
+    assertThat(trie.getLongestPrefixMatch(new Ip("11.0.0.1")), equalTo(Prefix.ZERO));
+    assertThat(trie.getLongestPrefixMatch(Ip.AUTO), nullValue());
+    assertThat(trieOf("10.0.0.0/8").getLongestPrefixMatch(new Ip("11.0.0.1")), nullValue());
+  }
+}
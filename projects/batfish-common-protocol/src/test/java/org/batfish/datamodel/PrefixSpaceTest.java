@@ -1,9 +1,8 @@
 package org.batfish.datamodel;
 
-import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
-import java.util.BitSet;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -11,12 +10,15 @@ import org.junit.runners.JUnit4;
 @RunWith(JUnit4.class)
 public class PrefixSpaceTest {
   @Test
-  public void getAddressBits() {
-    assertThat(PrefixSpace.getAddressBits(Ip.ZERO), equalTo(new BitSet()));
-    assertThat(
-        PrefixSpace.getAddressBits(Ip.MAX), equalTo(BitSet.valueOf(new long[] {0xff_ff_ff_ffL})));
-    assertThat(
-        PrefixSpace.getAddressBits(new Ip("128.255.31.3")),
-        equalTo(BitSet.valueOf(new long[] {0xc0_f8_ff_01L})));
+  public void containsPrefix() {
+    PrefixSpace space = new PrefixSpace();
+    space.addPrefixRange(new PrefixRange("128.255.0.0/16:16-24"));
+    space.addPrefix(new Prefix("10.0.0.0/8"));
+    assertThat(space.containsPrefix(new Prefix("128.255.31.0/24")), is(true));
+    assertThat(space.containsPrefix(new Prefix("128.255.0.0/16")), is(true));
+    assertThat(space.containsPrefix(new Prefix("128.255.31.3/32")), is(false));
+    assertThat(space.containsPrefix(new Prefix("128.254.0.0/16")), is(false));
+    assertThat(space.containsPrefix(new Prefix("10.0.0.0/8")), is(true));
+    assertThat(space.containsPrefix(new Prefix("10.0.0.0/9")), is(false));
   }
 }
@@ -0,0 +1,98 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.junit.Test;
+
+public class TopologyTest {
+
+  private static final NodeInterfacePair A = new NodeInterfacePair("a", "eth0");
+
+  private static final NodeInterfacePair B = new NodeInterfacePair("b", "eth0");
+
+  private static final NodeInterfacePair C = new NodeInterfacePair("c", "eth0");
+
+  private static final NodeInterfacePair D = new NodeInterfacePair("d", "eth0");
+
+  private static Topology topology() {
+    SortedSet<Edge> edges = new TreeSet<>();
+    edges.add(new Edge(C, D));
+    List<SortedSet<NodeInterfacePair>> broadcastDomains = new ArrayList<>();
+    broadcastDomains.add(new TreeSet<>(ImmutableSortedSet.of(A, B, C)));
+    return new Topology(edges, broadcastDomains);
+  }
+
+  @Test
+  public void testBroadcastDomainEdges() {
+    Topology topology = topology();
+
+    assertThat(
+        topology.getNodeEdges("c"),
+        equalTo(
+            ImmutableSortedSet.of(
+                new Edge(A, C), new Edge(B, C), new Edge(C, A), new Edge(C, B), new Edge(C, D))));
+    assertThat(
+        topology.getInterfaceEdges(A),
+        equalTo(
+            ImmutableSortedSet.of(new Edge(A, B), new Edge(A, C), new Edge(B, A), new Edge(C, A))));
+    assertThat(
+        topology.getInterfaceEdges(new NodeInterfacePair("e", "eth0")).isEmpty(), equalTo(true));
+    assertThat(topology.getBroadcastDomains().size(), equalTo(1));
+
+    assertThat(topology.sortedEdges().size(), equalTo(7));
+    assertThat(topology.getEdges(), equalTo(topology.sortedEdges()));
+    assertThat(topology.getBroadcastDomains().isEmpty(), equalTo(true));
+    assertThat(topology.getNodeEdges().get("c"), equalTo(topology.getNodeEdges("c")));
+  }
+
+  @Test
+  public void testInterfaces() {
+    Topology topology = topology();
+
+    assertThat(topology.getInterfaces(), equalTo(ImmutableSortedSet.of(A, B, C, D)));
+    assertThat(topology.getExplicitEdges(), equalTo(ImmutableSortedSet.of(new Edge(C, D))));
+    assertThat(topology.getNodeEdges("c"), sameInstance(topology.getNodeEdges("c")));
+    assertThat(topology.getInterfaceEdges(A), sameInstance(topology.getInterfaceEdges(A)));
+    assertThat(topology.getBroadcastDomains().size(), equalTo(1));
+  }
+
+  @Test
+  public void testJsonSerialization() throws IOException {
+    Topology topology = topology();
+    BatfishObjectMapper mapper =
+        new BatfishObjectMapper(Thread.currentThread().getContextClassLoader());
+
+    String json = mapper.writeValueAsString(topology);
+    SortedSet<Edge> edges = mapper.readValue(json, new TypeReference<SortedSet<Edge>>() {});
+    assertThat(edges, equalTo(topology.sortedEdges()));
+    assertThat(json, equalTo(mapper.writeValueAsString(topology.sortedEdges())));
+    assertThat(topology.getBroadcastDomains().size(), equalTo(1));
+    assertThat(mapper.readValue(json, Topology.class).getEdges(), equalTo(edges));
+  }
+
+  @Test
+  public void testRemove() {
+    Topology topology = topology();
+    topology.removeNode("a");
+
+    assertThat(
+        topology.sortedEdges(),
+        equalTo(ImmutableSortedSet.of(new Edge(B, C), new Edge(C, B), new Edge(C, D))));
+    assertThat(topology.getBroadcastDomains().size(), equalTo(1));
+
+    topology.removeInterface(D);
+    topology.removeEdge(new Edge(B, C));
+    assertThat(topology.getEdges(), equalTo(ImmutableSortedSet.of(new Edge(C, B))));
+  }
+}
@@ -0,0 +1,69 @@
+package org.batfish.grammar;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.grammar.recovery.RecoveryCombinedParser;
+import org.batfish.grammar.recovery.RecoveryExtractor;
+import org.junit.Test;
+
+public class DfaCacheTest {
+
+  private static final GrammarSettings SETTINGS =
+      new TestGrammarSettings(false, 0, 0, 0, false, true, true);
+
+  private static DfaCache getCache(String grammarFileName) {
+    return DfaCache.getCaches()
+        .stream()
+        .filter(dfaCache -> dfaCache.getGrammarFileName().equals(grammarFileName))
+        .findAny()
+        .get();
+  }
+
+  private static RecoveryExtractor parse(String text, long maxDfaCacheSize) {
+    RecoveryCombinedParser cp = new RecoveryCombinedParser(text, SETTINGS);
+    RecoveryExtractor extractor = new RecoveryExtractor();
+    new ParseTreeWalker().walk(extractor, cp.parse());
+    cp.updateDfaCaches(maxDfaCacheSize);
+    return extractor;
+  }
+
+  @Test
+  public void testLookupsRecorded() {
+    String text = CommonUtil.readResource("org/batfish/grammar/recovery/recovery_text");
+    parse(text, Long.MAX_VALUE);
+    DfaCache lexerCache = getCache("RecoveryLexer.g4");
+    long lexerHits = lexerCache.getHits();
+
+    assertThat(lexerCache.getSize(), greaterThan(0L));
+    assertThat(lexerCache.getLookups(), greaterThan(0L));
+
+    /* Lexing the same text again finds transitions in the cache */
+    parse(text, Long.MAX_VALUE);
+
+    assertThat(lexerCache.getHits(), greaterThan(lexerHits));
+  }
+
+  @Test
+  public void testTrim() {
+    String text = CommonUtil.readResource("org/batfish/grammar/recovery/recovery_text");
+    RecoveryExtractor expected = parse(text, Long.MAX_VALUE);
+    DfaCache lexerCache = getCache("RecoveryLexer.g4");
+    long clears = lexerCache.getClears();
+
+    assertThat(lexerCache.trim(lexerCache.getSize()), equalTo(false));
+    assertThat(lexerCache.getClears(), equalTo(clears));
+
+    RecoveryExtractor extractor = parse(text, 0L);
+
+    assertThat(lexerCache.getSize(), equalTo(0L));
+    assertThat(lexerCache.getClears(), equalTo(clears + 1));
+
+    /* Parsing is unaffected by clearing the caches */
+    assertThat(extractor.getNumStatements(), equalTo(expected.getNumStatements()));
+    assertThat(extractor.getNumErrorNodes(), equalTo(expected.getNumErrorNodes()));
+  }
+}
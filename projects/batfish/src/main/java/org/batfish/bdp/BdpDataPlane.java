@@ -42,10 +42,15 @@ public class BdpDataPlane implements Serializable, DataPlane {
 
   private Map<Ip, String> _ipOwnersSimple;
 
-  Map<String, Node> _nodes;
+  LazyNodeMap _nodes;
 
   Topology _topology;
 
+  /** Returns the configuration of the node with the given hostname, without loading its RIBs. */
+  Configuration getConfiguration(String hostname) {
+    return _nodes.getConfiguration(hostname);
+  }
+
   @Override
   public HashMap<String, Map<String, SortedSet<FibRow>>> getFibs() {
     HashMap<String, Map<String, SortedSet<FibRow>>> fibs = new HashMap<>();
@@ -101,10 +106,9 @@ public class BdpDataPlane implements Serializable, DataPlane {
                             Set<FibRow> currentRows = new HashSet<>();
                             interfaceRouteRows.put(route, currentRows);
                             SortedSet<Edge> edges =
-                                _topology
-                                    .getInterfaceEdges()
-                                    .get(new NodeInterfacePair(hostname, outInt));
-                            if (edges != null) {
+                                _topology.getInterfaceEdges(
+                                    new NodeInterfacePair(hostname, outInt));
+                            if (!edges.isEmpty()) {
                               for (Edge edge : edges) {
                                 if (edge.getNode1().equals(hostname)) {
                                   // add interface route rows that are non-dropping for
@@ -119,7 +123,7 @@ public class BdpDataPlane implements Serializable, DataPlane {
                                   currentRows.add(currentRow);
 
                                   // handle connected neighbors
-                                  Configuration nextHop = _nodes.get(nextHopName)._c;
+                                  Configuration nextHop = _nodes.getConfiguration(nextHopName);
                                   Interface nextHopInInt =
                                       nextHop.getInterfaces().get(nextHopInIntName);
                                   for (Prefix prefix : nextHopInInt.getAllPrefixes()) {
@@ -165,9 +169,8 @@ public class BdpDataPlane implements Serializable, DataPlane {
                               } else {
                                 Set<FibRow> currentRows = new HashSet<>();
                                 SortedSet<Edge> edges =
-                                    _topology
-                                        .getInterfaceEdges()
-                                        .get(new NodeInterfacePair(hostname, srNextHopInterface));
+                                    _topology.getInterfaceEdges(
+                                        new NodeInterfacePair(hostname, srNextHopInterface));
                                 interfaceRouteRows.put(route, currentRows);
                                 for (Edge edge : edges) {
                                   if (edge.getNode1().equals(hostname)) {
@@ -182,7 +185,7 @@ public class BdpDataPlane implements Serializable, DataPlane {
                                 }
                               }
                               break;
-                            } else if (!srNextHopIp.equals(Route.UNSET_ROUTE_NEXT_HOP_IP)
+                            } else if (srNextHopIp.equals(Route.UNSET_ROUTE_NEXT_HOP_IP)
                                 && !srNextHopInterface.equals(Route.UNSET_NEXT_HOP_INTERFACE)) {
                               // just nextHopInterface; neighbor must not send dstIp back
                               // out receiving interface
@@ -199,9 +202,8 @@ public class BdpDataPlane implements Serializable, DataPlane {
                               } else {
                                 Set<FibRow> currentRows = new HashSet<>();
                                 SortedSet<Edge> edges =
-                                    _topology
-                                        .getInterfaceEdges()
-                                        .get(new NodeInterfacePair(hostname, srNextHopInterface));
+                                    _topology.getInterfaceEdges(
+                                        new NodeInterfacePair(hostname, srNextHopInterface));
                                 interfaceRouteRows.put(route, currentRows);
                                 for (Edge edge : edges) {
                                   if (edge.getNode1().equals(hostname)) {
@@ -332,9 +334,13 @@ public class BdpDataPlane implements Serializable, DataPlane {
     return ribs;
   }
 
+  /**
+   * Returns a new set of all topology edges. Broadcast domains of the topology are left as they
+   * are, so the data plane keeps them compact.
+   */
   @Override
   public SortedSet<Edge> getTopologyEdges() {
-    return _topology.getEdges();
+    return _topology.sortedEdges();
   }
 
   protected void initIpOwners(
@@ -357,8 +363,12 @@ public class BdpDataPlane implements Serializable, DataPlane {
     _ipOwnersSimple = ipOwnersSimple;
   }
 
-  public void setNodes(Map<String, Node> nodes) {
-    _nodes = nodes;
+  /**
+   * Sets the nodes of this data plane. Unless {@code serializeToText} is set, each node is
+   * serialized as a separate segment that is only deserialized when the node is first retrieved.
+   */
+  public void setNodes(Map<String, Node> nodes, boolean serializeToText) {
+    _nodes = new LazyNodeMap(nodes, !serializeToText);
   }
 
   public void setTopology(Topology topology) {
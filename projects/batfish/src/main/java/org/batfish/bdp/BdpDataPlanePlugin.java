@@ -1,8 +1,10 @@
 package org.batfish.bdp;
 
 import com.google.auto.service.AutoService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -26,12 +28,19 @@ import org.batfish.datamodel.collections.NodeInterfacePair;
 @AutoService(Plugin.class)
 public class BdpDataPlanePlugin extends DataPlanePlugin {
 
-  private final Map<BdpDataPlane, Map<Flow, Set<FlowTrace>>> _flowTraces;
+  /*
+   * Flow traces are kept only for the few data planes traced most recently, which covers the base
+   * and delta data planes of a differential question. Data planes are weak keys, so the traces do
+   * not keep a data plane in memory once it is no longer cached anywhere else.
+   */
+  private static final int MAX_TRACED_DATA_PLANES = 4;
 
   private BdpEngine _engine;
 
+  private final Cache<BdpDataPlane, Map<Flow, Set<FlowTrace>>> _flowTraces;
+
   public BdpDataPlanePlugin() {
-    _flowTraces = new HashMap<>();
+    _flowTraces = CacheBuilder.newBuilder().maximumSize(MAX_TRACED_DATA_PLANES).weakKeys().build();
   }
 
   @Override
@@ -78,10 +87,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
 
   @Override
   public List<Flow> getHistoryFlows() {
-    BdpDataPlane dp = loadDataPlane();
     List<Flow> flowList = new ArrayList<>();
-    _flowTraces
-        .get(dp)
+    getFlowTraces()
         .forEach(
             (flow, flowTraces) -> {
               for (int i = 0; i < flowTraces.size(); i++) {
@@ -93,10 +100,8 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
 
   @Override
   public List<FlowTrace> getHistoryFlowTraces() {
-    BdpDataPlane dp = loadDataPlane();
     List<FlowTrace> flowTraceList = new ArrayList<>();
-    _flowTraces
-        .get(dp)
+    getFlowTraces()
         .forEach(
             (flow, flowTraces) -> {
               for (FlowTrace flowTrace : flowTraces) {
@@ -106,6 +111,12 @@ public class BdpDataPlanePlugin extends DataPlanePlugin {
     return flowTraceList;
   }
 
+  /* The flow traces of the current data plane, or none if its flows were not processed */
+  private Map<Flow, Set<FlowTrace>> getFlowTraces() {
+    Map<Flow, Set<FlowTrace>> flowTraces = _flowTraces.getIfPresent(loadDataPlane());
+    return flowTraces == null ? ImmutableMap.of() : flowTraces;
+  }
+
   @Override
   public IbgpTopology getIbgpNeighbors() {
     throw new UnsupportedOperationException("no implementation for generated method");
@@ -214,8 +214,8 @@ public class BdpEngine {
             // Apply any relevant source NAT rules.
             transformedFlow = applySourceNat(transformedFlow, outgoingInterface.getSourceNats());
 
-            SortedSet<Edge> edges = dp._topology.getInterfaceEdges().get(nextHopInterface);
-            if (edges != null) {
+            SortedSet<Edge> edges = dp._topology.getInterfaceEdges(nextHopInterface);
+            if (!edges.isEmpty()) {
               boolean continueToNextNextHopInterface = false;
               continueToNextNextHopInterface =
                   processCurrentNextHopInterfaceEdges(
@@ -408,13 +408,13 @@ public class BdpEngine {
     dp.initIpOwners(configurations, ipOwners, ipOwnersSimple);
     CommonUtil.initRemoteBgpNeighbors(configurations, dp.getIpOwners());
     SortedMap<String, Node> nodes = new TreeMap<>();
-    SortedMap<Integer, SortedMap<Integer, Integer>> recoveryIterationHashCodes = new TreeMap<>();
+    SortedMap<Integer, SortedMap<Integer, Long>> recoveryIterationHashCodes = new TreeMap<>();
     do {
       configurations.values().forEach(c -> nodes.put(c.getHostname(), new Node(c)));
     } while (computeFixedPoint(
         nodes, topology, dp, externalAdverts, ae, recoveryIterationHashCodes));
     computeFibs(nodes);
-    dp.setNodes(nodes);
+    dp.setNodes(nodes, _settings.getSerializeToText());
     dp.setTopology(topology);
     dp.setFlowSinks(flowSinks);
     ae.setVersion(Version.getVersion());
@@ -589,7 +589,11 @@ public class BdpEngine {
             n -> {
               for (VirtualRouter vr : n._virtualRouters.values()) {
                 vr.propagateBgpRoutes(
-                    dp.getIpOwners(), dependentRoutesIterations, oscillatingPrefixes, nodes);
+                    dp.getIpOwners(),
+                    dependentRoutesIterations,
+                    oscillatingPrefixes,
+                    nodes,
+                    _settings.getBdpIncrementalBgp());
               }
               propagateBgpCompleted.incrementAndGet();
             });
@@ -650,7 +654,7 @@ public class BdpEngine {
       BdpDataPlane dp,
       Set<BgpAdvertisement> externalAdverts,
       BdpAnswerElement ae,
-      SortedMap<Integer, SortedMap<Integer, Integer>> recoveryIterationHashCodes) {
+      SortedMap<Integer, SortedMap<Integer, Long>> recoveryIterationHashCodes) {
     SortedSet<Prefix> oscillatingPrefixes = ae.getOscillatingPrefixes();
 
     // BEGIN DONE ONCE (except main rib)
@@ -690,8 +694,8 @@ public class BdpEngine {
      * odd iterations, and lex-higher neighbor during even iterations.
      */
 
-    Map<Integer, SortedSet<Integer>> iterationsByHashCode = new HashMap<>();
-    SortedMap<Integer, Integer> iterationHashCodes = new TreeMap<>();
+    Map<Long, SortedSet<Integer>> iterationsByHashCode = new HashMap<>();
+    SortedMap<Integer, Long> iterationHashCodes = new TreeMap<>();
     Map<Integer, SortedSet<Route>> iterationRoutes = null;
     Map<Integer, SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>>>
         iterationAbstractRoutes = null;
@@ -741,7 +745,7 @@ public class BdpEngine {
               nodes.size());
 
       // This hashcode uniquely identifies the iteration (i.e., network state)
-      int iterationHashCode = computeIterationHashCode(nodes);
+      long iterationHashCode = computeIterationHashCode(nodes);
       SortedSet<Integer> iterationsWithThisHashCode =
           iterationsByHashCode.computeIfAbsent(iterationHashCode, h -> new TreeSet<>());
       iterationHashCodes.put(numDependentRoutesIterations, iterationHashCode);
@@ -797,45 +801,21 @@ public class BdpEngine {
     return false;
   }
 
-  private int computeIterationHashCode(Map<String, Node> nodes) {
-    int mainHash =
-        nodes
-            .values()
-            .parallelStream()
-            .mapToInt(
-                n ->
-                    n._virtualRouters
-                        .values()
-                        .stream()
-                        .mapToInt(vr -> vr._mainRib.getRoutes().hashCode())
-                        .sum())
-            .sum();
-    int ospfExternalType1Hash =
-        nodes
-            .values()
-            .parallelStream()
-            .mapToInt(
-                n ->
-                    n._virtualRouters
-                        .values()
-                        .stream()
-                        .mapToInt(vr -> vr._ospfExternalType1Rib.getRoutes().hashCode())
-                        .sum())
-            .sum();
-    int ospfExternalType2Hash =
-        nodes
-            .values()
-            .parallelStream()
-            .mapToInt(
-                n ->
-                    n._virtualRouters
-                        .values()
-                        .stream()
-                        .mapToInt(vr -> vr._ospfExternalType2Rib.getRoutes().hashCode())
-                        .sum())
-            .sum();
-    int hash = mainHash + ospfExternalType1Hash + ospfExternalType2Hash;
-    return hash;
+  /*
+   * Combine the fingerprints that the RIBs compared between iterations maintain as
+   * routes are merged, so no RIB has to be enumerated
+   */
+  private long computeIterationHashCode(Map<String, Node> nodes) {
+    return nodes
+        .values()
+        .parallelStream()
+        .flatMap(n -> n._virtualRouters.values().stream())
+        .mapToLong(
+            vr ->
+                vr._mainRib.getFingerprint()
+                    + vr._ospfExternalType1Rib.getFingerprint()
+                    + vr._ospfExternalType2Rib.getFingerprint())
+        .sum();
   }
 
   private void computeIterationStatistics(
@@ -1139,7 +1119,7 @@ public class BdpEngine {
    *     involved in the oscillation
    */
   private void handleOscillation(
-      SortedMap<Integer, SortedMap<Integer, Integer>> recoveryIterationHashCodes,
+      SortedMap<Integer, SortedMap<Integer, Long>> recoveryIterationHashCodes,
       Map<Integer, SortedSet<Route>> iterationRoutes,
       Map<Integer, SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>>>
           iterationAbstractRoutes,
@@ -1403,7 +1383,7 @@ public class BdpEngine {
         if (arpIpOwners == null || !arpIpOwners.contains(node2)) {
           // neighbor does not own arpIp
           String int2Name = edge.getInt2();
-          Interface int2 = dp._nodes.get(node2)._c.getInterfaces().get(int2Name);
+          Interface int2 = dp.getConfiguration(node2).getInterfaces().get(int2Name);
           boolean neighborUnreachable = false;
           Boolean proxyArp = int2.getProxyArp();
           if (proxyArp == null || !proxyArp) {
@@ -1434,9 +1414,7 @@ public class BdpEngine {
       // now check output filter and input filter
       if (nextHopInterfaceName != null) {
         IpAccessList outFilter =
-            dp._nodes
-                .get(currentNodeName)
-                ._c
+            dp.getConfiguration(currentNodeName)
                 .getInterfaces()
                 .get(nextHopInterfaceName)
                 .getOutgoingFilter();
@@ -1452,7 +1430,7 @@ public class BdpEngine {
         }
       }
       IpAccessList inFilter =
-          dp._nodes.get(nextNodeName)._c.getInterfaces().get(edge.getInt2()).getIncomingFilter();
+          dp.getConfiguration(nextNodeName).getInterfaces().get(edge.getInt2()).getIncomingFilter();
       if (inFilter != null) {
         FlowDisposition disposition = FlowDisposition.DENIED_IN;
         boolean denied =
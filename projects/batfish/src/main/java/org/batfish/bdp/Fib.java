@@ -1,5 +1,10 @@
 package org.batfish.bdp;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -15,52 +20,120 @@ import org.batfish.datamodel.Route;
 
 public class Fib implements Serializable {
 
+  /*
+   * The next hop interfaces that a next hop IP resolves to, and the networks of all routes
+   * visited while resolving it
+   */
+  private static final class Resolution {
+
+    private final Map<String, Map<Ip, Set<AbstractRoute>>> _nextHopInterfaces;
+
+    private final Set<Prefix> _visitedNetworks;
+
+    private Resolution(
+        Map<String, Map<Ip, Set<AbstractRoute>>> nextHopInterfaces, Set<Prefix> visitedNetworks) {
+      _nextHopInterfaces = nextHopInterfaces;
+      _visitedNetworks = visitedNetworks;
+    }
+  }
+
   private static final int MAX_DEPTH = 10;
 
   /** */
   private static final long serialVersionUID = 1L;
 
+  private static Map<String, Map<Ip, Set<AbstractRoute>>> freeze(
+      Map<String, Map<Ip, Set<AbstractRoute>>> nextHopInterfaces) {
+    ImmutableSortedMap.Builder<String, Map<Ip, Set<AbstractRoute>>> frozen =
+        ImmutableSortedMap.naturalOrder();
+    nextHopInterfaces.forEach(
+        (nextHopInterface, routesByFinalNextHopIp) -> {
+          ImmutableMap.Builder<Ip, Set<AbstractRoute>> frozenRoutesByFinalNextHopIp =
+              ImmutableMap.builder();
+          routesByFinalNextHopIp.forEach(
+              (finalNextHopIp, routes) ->
+                  frozenRoutesByFinalNextHopIp.put(
+                      finalNextHopIp, ImmutableSortedSet.copyOf(routes)));
+          frozen.put(nextHopInterface, frozenRoutesByFinalNextHopIp.build());
+        });
+    return frozen.build();
+  }
+
   private final Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>> _nextHopInterfaces;
 
   private final Rib _rib;
 
+  /**
+   * Computes the next hop interfaces of every route of a RIB.
+   *
+   * <p>Routes that share a next hop IP almost always resolve it the same way, so each next hop IP
+   * is resolved once, and routes share the resulting immutable next hop interfaces. Equal results
+   * for different next hop IPs are shared too. A route is resolved on its own only if its network
+   * is visited while resolving its next hop IP, since the route then cuts that recursion short.
+   */
   public Fib(Rib rib) {
     _rib = rib;
     _nextHopInterfaces = new HashMap<>();
+    Interner<Map<String, Map<Ip, Set<AbstractRoute>>>> nextHopInterfacesInterner =
+        Interners.newStrongInterner();
+    Map<Ip, Resolution> resolutions = new HashMap<>();
     for (AbstractRoute route : rib.getRoutes()) {
-      Map<String, Map<Ip, Set<AbstractRoute>>> nextHopInterfaces = new TreeMap<>();
-      collectNextHopInterfaces(
-          route, Route.UNSET_ROUTE_NEXT_HOP_IP, nextHopInterfaces, new HashSet<>(), 0);
-      _nextHopInterfaces.put(route, nextHopInterfaces);
+      Ip nextHopIp = route.getNextHopIp();
+      Resolution resolution =
+          nextHopIp.equals(Route.UNSET_ROUTE_NEXT_HOP_IP)
+              ? null
+              : resolutions.computeIfAbsent(
+                  nextHopIp, ip -> resolve(ip, nextHopInterfacesInterner));
+      if (resolution != null && !resolution._visitedNetworks.contains(route.getNetwork())) {
+        _nextHopInterfaces.put(route, resolution._nextHopInterfaces);
+      } else {
+        Map<String, Map<Ip, Set<AbstractRoute>>> nextHopInterfaces = new TreeMap<>();
+        collectNextHopInterfaces(
+            route,
+            Route.UNSET_ROUTE_NEXT_HOP_IP,
+            nextHopInterfaces,
+            new HashSet<>(),
+            new HashSet<>(),
+            0);
+        _nextHopInterfaces.put(route, freeze(nextHopInterfaces));
+      }
     }
   }
 
+  /*
+   * Adds the next hop interfaces that a route resolves to, reached through the given next hop IP.
+   * seenNetworks holds the networks of the routes on the current recursion path, and
+   * visitedNetworks collects the networks of every route visited.
+   */
   private void collectNextHopInterfaces(
       AbstractRoute route,
       Ip mostRecentNextHopIp,
       Map<String, Map<Ip, Set<AbstractRoute>>> nextHopInterfaces,
       Set<Prefix> seenNetworks,
+      Set<Prefix> visitedNetworks,
       int depth) {
     Prefix network = route.getNetwork();
+    visitedNetworks.add(network);
     if (seenNetworks.contains(network)) {
       return;
     }
-    Set<Prefix> newSeenNetworks = new HashSet<>(seenNetworks);
-    newSeenNetworks.add(network);
     if (depth > MAX_DEPTH) {
       throw new BatfishException("Exceeded max route recursion depth: " + MAX_DEPTH);
     }
     Ip nextHopIp = route.getNextHopIp();
     if (!nextHopIp.equals(Route.UNSET_ROUTE_NEXT_HOP_IP)) {
       Set<AbstractRoute> nextHopLongestPrefixMatchRoutes = _rib.longestPrefixMatch(nextHopIp);
+      seenNetworks.add(network);
       for (AbstractRoute nextHopLongestPrefixMatchRoute : nextHopLongestPrefixMatchRoutes) {
         collectNextHopInterfaces(
             nextHopLongestPrefixMatchRoute,
             nextHopIp,
             nextHopInterfaces,
-            newSeenNetworks,
+            seenNetworks,
+            visitedNetworks,
             depth + 1);
       }
+      seenNetworks.remove(network);
     } else {
       String nextHopInterface = route.getNextHopInterface();
       if (!Route.UNSET_NEXT_HOP_INTERFACE.equals(nextHopInterface)) {
@@ -94,6 +167,28 @@ public class Fib implements Serializable {
     return outputNextHopInterfaces;
   }
 
+  /*
+   * Resolves a next hop IP the way a route with that next hop IP would be resolved, except that
+   * no network is on the recursion path to begin with. Returns null if the next hop IP cannot be
+   * resolved that way.
+   */
+  private Resolution resolve(
+      Ip nextHopIp, Interner<Map<String, Map<Ip, Set<AbstractRoute>>>> nextHopInterfacesInterner) {
+    Map<String, Map<Ip, Set<AbstractRoute>>> nextHopInterfaces = new TreeMap<>();
+    Set<Prefix> visitedNetworks = new HashSet<>();
+    try {
+      for (AbstractRoute nextHopRoute : _rib.longestPrefixMatch(nextHopIp)) {
+        collectNextHopInterfaces(
+            nextHopRoute, nextHopIp, nextHopInterfaces, new HashSet<>(), visitedNetworks, 1);
+      }
+    } catch (BatfishException e) {
+      // a route may still resolve it by cutting the recursion short, so resolve routes on their own
+      return null;
+    }
+    return new Resolution(
+        nextHopInterfacesInterner.intern(freeze(nextHopInterfaces)), visitedNetworks);
+  }
+
   public Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>> getNextHopInterfacesByRoute(
       Ip dstIp) {
     Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>> nextHopInterfacesByRoute =
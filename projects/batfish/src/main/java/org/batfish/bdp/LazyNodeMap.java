@@ -0,0 +1,284 @@
+package org.batfish.bdp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import org.batfish.common.BatfishException;
+import org.batfish.common.util.BatfishObjectInputStream;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Vrf;
+
+/**
+ * Read-only map from hostname to {@link Node} in which each node is serialized as a separate
+ * segment.
+ *
+ * <p>When the map is deserialized, only the raw segment of each node is read; a node is not
+ * deserialized until it is first retrieved. Questions that look at a few nodes, such as traceroute,
+ * therefore never materialize the RIBs and FIBs of the rest of the network. Iterating over the
+ * whole map deserializes all remaining nodes at once, in parallel.
+ *
+ * <p>The configurations of the nodes are serialized with the map itself rather than in the
+ * segments, which refer to them and to their VRFs by name. They are therefore shared by the
+ * reloaded nodes, and available through {@link #getConfiguration} without deserializing any
+ * node. When the data plane is serialized to text, there are no segments: the nodes are written
+ * inline so that the output stays readable.
+ */
+final class LazyNodeMap extends AbstractMap<String, Node> implements Serializable {
+
+  /** Stands in for a configuration of the map inside a segment */
+  private static final class ConfigurationRef implements Serializable {
+
+    /** */
+    private static final long serialVersionUID = 1L;
+
+    private final String _hostname;
+
+    private ConfigurationRef(String hostname) {
+      _hostname = hostname;
+    }
+  }
+
+  /** Stands in for a VRF of a configuration of the map inside a segment */
+  private static final class VrfRef implements Serializable {
+
+    /** */
+    private static final long serialVersionUID = 1L;
+
+    private final String _hostname;
+
+    private final String _vrfName;
+
+    private VrfRef(String hostname, String vrfName) {
+      _hostname = hostname;
+      _vrfName = vrfName;
+    }
+  }
+
+  /** Reads a segment, resolving references to the configurations of the map and their VRFs */
+  private class SegmentInputStream extends BatfishObjectInputStream {
+
+    private SegmentInputStream(byte[] segment) throws IOException {
+      super(new ByteArrayInputStream(segment), Node.class.getClassLoader());
+      enableResolveObject(true);
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) {
+      if (obj instanceof ConfigurationRef) {
+        return _configurations.get(((ConfigurationRef) obj)._hostname);
+      } else if (obj instanceof VrfRef) {
+        VrfRef ref = (VrfRef) obj;
+        return _configurations.get(ref._hostname).getVrfs().get(ref._vrfName);
+      }
+      return obj;
+    }
+  }
+
+  /**
+   * Writes the segment of a node, replacing the configurations of the map and the VRFs of the
+   * node with references to them
+   */
+  private class SegmentOutputStream extends ObjectOutputStream {
+
+    private final Configuration _c;
+
+    private SegmentOutputStream(ByteArrayOutputStream out, Configuration c) throws IOException {
+      super(out);
+      _c = c;
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      if (obj instanceof Configuration) {
+        String hostname = ((Configuration) obj).getHostname();
+        if (_configurations.get(hostname) == obj) {
+          return new ConfigurationRef(hostname);
+        }
+      } else if (obj instanceof Vrf) {
+        String vrfName = ((Vrf) obj).getName();
+        if (_c.getVrfs().get(vrfName) == obj) {
+          return new VrfRef(_c.getHostname(), vrfName);
+        }
+      }
+      return obj;
+    }
+  }
+
+  private class EntrySet extends AbstractSet<Entry<String, Node>> {
+
+    @Override
+    public Iterator<Entry<String, Node>> iterator() {
+      Iterator<String> names = _configurations.keySet().iterator();
+      return new Iterator<Entry<String, Node>>() {
+
+        @Override
+        public boolean hasNext() {
+          return names.hasNext();
+        }
+
+        @Override
+        public Entry<String, Node> next() {
+          String name = names.next();
+          return new SimpleImmutableEntry<>(name, _loaded.get(name));
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return _configurations.size();
+    }
+  }
+
+  /** */
+  private static final long serialVersionUID = 1L;
+
+  private transient Set<Entry<String, Node>> _entrySet;
+
+  /** Nodes that have been computed or deserialized */
+  private transient ConcurrentMap<String, Node> _loaded;
+
+  /** Configurations of the nodes, by hostname */
+  private final SortedMap<String, Configuration> _configurations;
+
+  /** Serialized nodes that have not yet been deserialized */
+  private transient ConcurrentMap<String, byte[]> _segments;
+
+  /** Whether the nodes are serialized as separate segments rather than inline */
+  private final boolean _segmented;
+
+  LazyNodeMap(Map<String, Node> nodes, boolean segmented) {
+    _loaded = new ConcurrentHashMap<>(nodes);
+    SortedMap<String, Configuration> configurations = new TreeMap<>();
+    nodes.forEach((name, node) -> configurations.put(name, node._c));
+    _configurations = Collections.unmodifiableSortedMap(configurations);
+    _segmented = segmented;
+    _segments = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return _configurations.containsKey(key);
+  }
+
+  private Node deserializeNode(String name, byte[] segment) {
+    try (ObjectInputStream ois = new SegmentInputStream(segment)) {
+      return (Node) ois.readObject();
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      throw new BatfishException("Failed to deserialize data plane of node: " + name, e);
+    }
+  }
+
+  @Override
+  public Set<Entry<String, Node>> entrySet() {
+    loadAll();
+    if (_entrySet == null) {
+      _entrySet = new EntrySet();
+    }
+    return _entrySet;
+  }
+
+  @Override
+  @Nullable
+  public Node get(Object key) {
+    Node node = _loaded.get(key);
+    if (node != null || !_configurations.containsKey(key)) {
+      return node;
+    }
+    String name = (String) key;
+    byte[] segment = _segments.get(name);
+    if (segment == null) {
+      // another thread finished deserializing this node after our first check
+      return _loaded.get(name);
+    }
+    node = deserializeNode(name, segment);
+    Node previous = _loaded.putIfAbsent(name, node);
+    _segments.remove(name);
+    return previous != null ? previous : node;
+  }
+
+  /** Returns the configuration of the node with the given hostname, without deserializing it. */
+  @Nullable
+  Configuration getConfiguration(String hostname) {
+    return _configurations.get(hostname);
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return _configurations.keySet();
+  }
+
+  /** Deserializes every node that has not been retrieved yet. */
+  private void loadAll() {
+    if (!_segments.isEmpty()) {
+      _configurations.keySet().parallelStream().forEach(this::get);
+    }
+  }
+
+  /** Number of nodes that have been computed or deserialized; for testing. */
+  int loadedSize() {
+    return _loaded.size();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    _loaded = new ConcurrentHashMap<>();
+    _segments = new ConcurrentHashMap<>();
+    for (String name : _configurations.keySet()) {
+      if (_segmented) {
+        _segments.put(name, (byte[]) in.readObject());
+      } else {
+        _loaded.put(name, (Node) in.readObject());
+      }
+    }
+  }
+
+  private byte[] serializeNode(String name, Node node) {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new SegmentOutputStream(baos, node._c)) {
+      oos.writeObject(node);
+    } catch (IOException e) {
+      throw new BatfishException("Failed to serialize data plane of node: " + name, e);
+    }
+    return baos.toByteArray();
+  }
+
+  @Override
+  public int size() {
+    return _configurations.size();
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    if (!_segmented) {
+      loadAll();
+      for (String name : _configurations.keySet()) {
+        out.writeObject(_loaded.get(name));
+      }
+      return;
+    }
+    Map<String, byte[]> segments = new ConcurrentHashMap<>(_segments);
+    _loaded
+        .entrySet()
+        .parallelStream()
+        .forEach(e -> segments.put(e.getKey(), serializeNode(e.getKey(), e.getValue())));
+    for (String name : _configurations.keySet()) {
+      out.writeObject(segments.get(name));
+    }
+  }
+}
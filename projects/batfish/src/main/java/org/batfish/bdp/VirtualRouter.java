@@ -3,6 +3,7 @@ package org.batfish.bdp;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -52,6 +53,32 @@ import org.batfish.datamodel.routing_policy.RoutingPolicy;
 
 public class VirtualRouter extends ComparableStructure<String> {
 
+  /**
+   * The outcome of sending a single remote route across a BGP session: the advertisement sent by
+   * the remote neighbor, and, if accepted by the import policy, the received route and
+   * advertisement.
+   */
+  private static final class BgpPropagation {
+
+    /** Outcome for a route that is not sent across the session at all */
+    static final BgpPropagation REJECTED = new BgpPropagation(null, null, null);
+
+    @Nullable final BgpAdvertisement _receivedAdvert;
+
+    @Nullable final BgpRoute _receivedRoute;
+
+    @Nullable final BgpAdvertisement _sentAdvert;
+
+    BgpPropagation(
+        @Nullable BgpAdvertisement sentAdvert,
+        @Nullable BgpRoute receivedRoute,
+        @Nullable BgpAdvertisement receivedAdvert) {
+      _sentAdvert = sentAdvert;
+      _receivedRoute = receivedRoute;
+      _receivedAdvert = receivedAdvert;
+    }
+  }
+
   /** */
   private static final long serialVersionUID = 1L;
 
@@ -146,10 +173,17 @@ public class VirtualRouter extends ComparableStructure<String> {
 
   private Set<BgpAdvertisement> _prevSentBgpAdvertisements;
 
+  /**
+   * Results of sending remote routes across each BGP session in the previous iteration, keyed by
+   * neighbor prefix and then by (identity of) remote route. Only used in incremental mode.
+   */
+  private transient Map<Prefix, Map<AbstractRoute, BgpPropagation>> _bgpPropagations;
+
   VirtualRouter(String name, Configuration c) {
     super(name);
     _c = c;
     _vrf = c.getVrfs().get(name);
+    _bgpPropagations = new HashMap<>();
   }
 
   /**
@@ -1134,11 +1168,25 @@ public class VirtualRouter extends ComparableStructure<String> {
     return numAdvertisements;
   }
 
+  /**
+   * Propagate BGP routes received from neighbors into the staging eBGP and iBGP RIBs.
+   *
+   * @param ipOwners Mapping of IPs to the names of the nodes that own them
+   * @param dependentRoutesIterations The current dependent-routes iteration
+   * @param oscillatingPrefixes Prefixes for which lockstep propagation is in effect
+   * @param nodes All nodes in the network, keyed by hostname
+   * @param incremental Whether to reuse the results of export and import policy evaluation for
+   *     remote routes that were already sent across a session in the previous iteration. Only
+   *     routes added since the previous iteration are evaluated; the resulting RIBs are identical
+   *     to those computed in non-incremental mode.
+   * @return the number of routes merged into the staging RIBs
+   */
   int propagateBgpRoutes(
       Map<Ip, Set<String>> ipOwners,
       int dependentRoutesIterations,
       SortedSet<Prefix> oscillatingPrefixes,
-      Map<String, Node> nodes) {
+      Map<String, Node> nodes,
+      boolean incremental) {
 
     int numRoutes = 0;
     _receivedBgpAdvertisements = new LinkedHashSet<>();
@@ -1173,14 +1221,10 @@ public class VirtualRouter extends ComparableStructure<String> {
       Configuration remoteConfig = remoteBgpNeighbor.getOwner();
       String remoteHostname = remoteConfig.getHostname();
       String remoteVrfName = remoteBgpNeighbor.getVrf();
-      Vrf remoteVrf = remoteConfig.getVrfs().get(remoteVrfName);
       VirtualRouter remoteVirtualRouter =
           nodes.get(remoteHostname)._virtualRouters.get(remoteVrfName);
-      RoutingPolicy remoteExportPolicy =
-          remoteConfig.getRoutingPolicies().get(remoteBgpNeighbor.getExportPolicy());
       boolean ebgpSession = localAs != remoteAs;
       BgpMultipathRib targetRib = ebgpSession ? _ebgpStagingRib : _ibgpStagingRib;
-      RoutingProtocol targetProtocol = ebgpSession ? RoutingProtocol.BGP : RoutingProtocol.IBGP;
       Set<AbstractRoute> remoteCandidateRoutes = Collections.newSetFromMap(new IdentityHashMap<>());
 
       // Add IGP routes
@@ -1233,334 +1277,377 @@ public class VirtualRouter extends ComparableStructure<String> {
           remoteCandidateRoutes.add(remoteCandidateRoute);
         }
       }
+      Map<AbstractRoute, BgpPropagation> prevPropagations =
+          incremental ? _bgpPropagations.get(neighbor.getPrefix()) : null;
+      Map<AbstractRoute, BgpPropagation> propagations =
+          incremental ? new IdentityHashMap<>() : null;
+      int admin = ebgpSession ? ebgpAdminCost : ibgpAdminCost;
       for (AbstractRoute remoteRoute : remoteCandidateRoutes) {
-        BgpRoute.Builder transformedOutgoingRouteBuilder = new BgpRoute.Builder();
-        RoutingProtocol remoteRouteProtocol = remoteRoute.getProtocol();
-        boolean remoteRouteIsBgp =
-            remoteRouteProtocol == RoutingProtocol.IBGP
-                || remoteRouteProtocol == RoutingProtocol.BGP;
-
-        // originatorIP
-        Ip originatorIp;
-        if (!ebgpSession && remoteRouteProtocol.equals(RoutingProtocol.IBGP)) {
-          BgpRoute bgpRemoteRoute = (BgpRoute) remoteRoute;
-          originatorIp = bgpRemoteRoute.getOriginatorIp();
-        } else {
-          originatorIp = remoteVrf.getBgpProcess().getRouterId();
+        /*
+         * Only routes that were not sent across this session in the previous iteration need to go
+         * through the export and import policies. Routes withdrawn since then are dropped from the
+         * cache by virtue of not being carried over.
+         */
+        BgpPropagation propagation =
+            prevPropagations != null ? prevPropagations.get(remoteRoute) : null;
+        if (propagation == null) {
+          propagation = propagateBgpRoute(neighbor, remoteBgpNeighbor, remoteRoute, admin);
         }
-        transformedOutgoingRouteBuilder.setOriginatorIp(originatorIp);
-
-        // clusterList, receivedFromRouteReflectorClient, (originType
-        // for bgp remote route)
-        if (remoteRouteIsBgp) {
-          BgpRoute bgpRemoteRoute = (BgpRoute) remoteRoute;
-          transformedOutgoingRouteBuilder.setOriginType(bgpRemoteRoute.getOriginType());
-          if (ebgpSession
-              && bgpRemoteRoute.getAsPath().containsAs(remoteBgpNeighbor.getRemoteAs())
-              && !remoteBgpNeighbor.getAllowRemoteAsOut()) {
-            // skip routes containing peer's AS unless
-            // disable-peer-as-check (getAllowRemoteAsOut) is set
-            continue;
-          }
-          /*
-           * route reflection: reflect everything received from
-           * clients to clients and non-clients. reflect everything
-           * received from non-clients to clients. Do not reflect to
-           * originator
-           */
-
-          Ip remoteOriginatorIp = bgpRemoteRoute.getOriginatorIp();
-          /*
-           *  iBGP speaker should not send out routes to iBGP neighbor whose router-id is
-           *  same as originator id of advertisement
-           */
-          if (!ebgpSession
-              && remoteOriginatorIp != null
-              && _vrf.getBgpProcess().getRouterId().equals(remoteOriginatorIp)) {
-            continue;
-          }
-          if (remoteRouteProtocol.equals(RoutingProtocol.IBGP) && !ebgpSession) {
-            boolean remoteRouteReceivedFromRouteReflectorClient =
-                bgpRemoteRoute.getReceivedFromRouteReflectorClient();
-            boolean sendingToRouteReflectorClient = remoteBgpNeighbor.getRouteReflectorClient();
-            boolean newRouteReceivedFromRouteReflectorClient = neighbor.getRouteReflectorClient();
-            transformedOutgoingRouteBuilder.setReceivedFromRouteReflectorClient(
-                newRouteReceivedFromRouteReflectorClient);
-            transformedOutgoingRouteBuilder
-                .getClusterList()
-                .addAll(bgpRemoteRoute.getClusterList());
-            if (!remoteRouteReceivedFromRouteReflectorClient && !sendingToRouteReflectorClient) {
-              continue;
-            }
-            if (sendingToRouteReflectorClient) {
-              // sender adds its local cluster id to clusterlist of
-              // new route
-              transformedOutgoingRouteBuilder
-                  .getClusterList()
-                  .add(remoteBgpNeighbor.getClusterId());
-            }
-            if (transformedOutgoingRouteBuilder
-                .getClusterList()
-                .contains(neighbor.getClusterId())) {
-              // receiver will reject new route if it contains its
-              // local cluster id
-              continue;
-            }
-          }
+        if (propagations != null) {
+          propagations.put(remoteRoute, propagation);
+        }
+        BgpAdvertisement sentAdvert = propagation._sentAdvert;
+        if (sentAdvert == null) {
+          continue;
         }
 
-        // Outgoing asPath
-        // Outgoing communities
-        if (remoteRouteIsBgp) {
-          BgpRoute bgpRemoteRoute = (BgpRoute) remoteRoute;
-          transformedOutgoingRouteBuilder.setAsPath(bgpRemoteRoute.getAsPath().getAsSets());
-          if (remoteBgpNeighbor.getSendCommunity()) {
-            transformedOutgoingRouteBuilder
-                .getCommunities()
-                .addAll(bgpRemoteRoute.getCommunities());
-          }
+        Prefix prefix = remoteRoute.getNetwork();
+        boolean isOscillatingPrefix = oscillatingPrefixes.contains(prefix);
+        boolean hasAdvertisementPriorityDuringRecovery =
+            hasAdvertisementPriorityDuringRecovery(
+                remoteRoute,
+                dependentRoutesIterations,
+                oscillatingPrefixes,
+                neighbor,
+                remoteBgpNeighbor);
+        if (isOscillatingPrefix
+            && !hasAdvertisementPriorityDuringRecovery
+            && !_prevSentBgpAdvertisements.contains(sentAdvert)) {
+          continue;
         }
-        if (ebgpSession) {
-          SortedSet<Integer> newAsPathElement = new TreeSet<>();
-          newAsPathElement.add(remoteAs);
-          transformedOutgoingRouteBuilder.getAsPath().add(0, newAsPathElement);
+        _sentBgpAdvertisements.add(sentAdvert);
+        if (propagation._receivedRoute != null) {
+          if (targetRib.mergeRoute(propagation._receivedRoute)) {
+            numRoutes++;
+          }
+          _receivedBgpAdvertisements.add(propagation._receivedAdvert);
         }
+      }
+      if (incremental) {
+        _bgpPropagations.put(neighbor.getPrefix(), propagations);
+      }
+    }
+    return numRoutes;
+  }
 
-        // Outgoing protocol
-        transformedOutgoingRouteBuilder.setProtocol(targetProtocol);
-        transformedOutgoingRouteBuilder.setNetwork(remoteRoute.getNetwork());
+  /**
+   * Sends a single candidate route of the remote virtual router across the session from {@code
+   * remoteBgpNeighbor} to {@code neighbor}, applying the remote export policy and the local import
+   * policy.
+   *
+   * <p>The result depends only on the remote route and the (immutable) configurations of the two
+   * endpoints, which allows {@link #propagateBgpRoutes} to reuse it across iterations.
+   *
+   * @param neighbor The local end of the session
+   * @param remoteBgpNeighbor The remote end of the session
+   * @param remoteRoute The candidate route of the remote virtual router
+   * @param admin The administrative cost to assign to the received route
+   * @return The resulting advertisements and received route, or {@link BgpPropagation#REJECTED} if
+   *     the route is not sent across the session
+   */
+  private BgpPropagation propagateBgpRoute(
+      BgpNeighbor neighbor, BgpNeighbor remoteBgpNeighbor, AbstractRoute remoteRoute, int admin) {
+    Ip localIp = neighbor.getLocalIp();
+    String hostname = _c.getHostname();
+    int remoteAs = neighbor.getRemoteAs();
+    Configuration remoteConfig = remoteBgpNeighbor.getOwner();
+    String remoteHostname = remoteConfig.getHostname();
+    String remoteVrfName = remoteBgpNeighbor.getVrf();
+    Vrf remoteVrf = remoteConfig.getVrfs().get(remoteVrfName);
+    RoutingPolicy remoteExportPolicy =
+        remoteConfig.getRoutingPolicies().get(remoteBgpNeighbor.getExportPolicy());
+    boolean ebgpSession = neighbor.getLocalAs() != remoteAs;
+    RoutingProtocol targetProtocol = ebgpSession ? RoutingProtocol.BGP : RoutingProtocol.IBGP;
+
+    BgpRoute.Builder transformedOutgoingRouteBuilder = new BgpRoute.Builder();
+    RoutingProtocol remoteRouteProtocol = remoteRoute.getProtocol();
+    boolean remoteRouteIsBgp =
+        remoteRouteProtocol == RoutingProtocol.IBGP || remoteRouteProtocol == RoutingProtocol.BGP;
+
+    // originatorIP
+    Ip originatorIp;
+    if (!ebgpSession && remoteRouteProtocol.equals(RoutingProtocol.IBGP)) {
+      BgpRoute bgpRemoteRoute = (BgpRoute) remoteRoute;
+      originatorIp = bgpRemoteRoute.getOriginatorIp();
+    } else {
+      originatorIp = remoteVrf.getBgpProcess().getRouterId();
+    }
+    transformedOutgoingRouteBuilder.setOriginatorIp(originatorIp);
+
+    // clusterList, receivedFromRouteReflectorClient, (originType
+    // for bgp remote route)
+    if (remoteRouteIsBgp) {
+      BgpRoute bgpRemoteRoute = (BgpRoute) remoteRoute;
+      transformedOutgoingRouteBuilder.setOriginType(bgpRemoteRoute.getOriginType());
+      if (ebgpSession
+          && bgpRemoteRoute.getAsPath().containsAs(remoteBgpNeighbor.getRemoteAs())
+          && !remoteBgpNeighbor.getAllowRemoteAsOut()) {
+        // skip routes containing peer's AS unless
+        // disable-peer-as-check (getAllowRemoteAsOut) is set
+        return BgpPropagation.REJECTED;
+      }
+      /*
+       * route reflection: reflect everything received from
+       * clients to clients and non-clients. reflect everything
+       * received from non-clients to clients. Do not reflect to
+       * originator
+       */
 
-        // Outgoing metric
-        if (remoteRouteIsBgp) {
-          transformedOutgoingRouteBuilder.setMetric(remoteRoute.getMetric());
+      Ip remoteOriginatorIp = bgpRemoteRoute.getOriginatorIp();
+      /*
+       *  iBGP speaker should not send out routes to iBGP neighbor whose router-id is
+       *  same as originator id of advertisement
+       */
+      if (!ebgpSession
+          && remoteOriginatorIp != null
+          && _vrf.getBgpProcess().getRouterId().equals(remoteOriginatorIp)) {
+        return BgpPropagation.REJECTED;
+      }
+      if (remoteRouteProtocol.equals(RoutingProtocol.IBGP) && !ebgpSession) {
+        boolean remoteRouteReceivedFromRouteReflectorClient =
+            bgpRemoteRoute.getReceivedFromRouteReflectorClient();
+        boolean sendingToRouteReflectorClient = remoteBgpNeighbor.getRouteReflectorClient();
+        boolean newRouteReceivedFromRouteReflectorClient = neighbor.getRouteReflectorClient();
+        transformedOutgoingRouteBuilder.setReceivedFromRouteReflectorClient(
+            newRouteReceivedFromRouteReflectorClient);
+        transformedOutgoingRouteBuilder.getClusterList().addAll(bgpRemoteRoute.getClusterList());
+        if (!remoteRouteReceivedFromRouteReflectorClient && !sendingToRouteReflectorClient) {
+          return BgpPropagation.REJECTED;
         }
-
-        // Outgoing nextHopIp
-        // Outgoing localPreference
-        Ip nextHopIp;
-        int localPreference;
-        if (ebgpSession || !remoteRouteIsBgp) {
-          nextHopIp = remoteBgpNeighbor.getLocalIp();
-          localPreference = BgpRoute.DEFAULT_LOCAL_PREFERENCE;
-        } else {
-          nextHopIp = remoteRoute.getNextHopIp();
-          BgpRoute remoteIbgpRoute = (BgpRoute) remoteRoute;
-          localPreference = remoteIbgpRoute.getLocalPreference();
+        if (sendingToRouteReflectorClient) {
+          // sender adds its local cluster id to clusterlist of
+          // new route
+          transformedOutgoingRouteBuilder.getClusterList().add(remoteBgpNeighbor.getClusterId());
         }
-        if (nextHopIp.equals(Route.UNSET_ROUTE_NEXT_HOP_IP)) {
-          // should only happen for ibgp
-          String nextHopInterface = remoteRoute.getNextHopInterface();
-          Prefix nextHopPrefix = remoteVrf.getInterfaces().get(nextHopInterface).getPrefix();
-          if (nextHopPrefix == null) {
-            throw new BatfishException("remote route's nextHopInterface has no address");
-          }
-          nextHopIp = nextHopPrefix.getAddress();
+        if (transformedOutgoingRouteBuilder.getClusterList().contains(neighbor.getClusterId())) {
+          // receiver will reject new route if it contains its
+          // local cluster id
+          return BgpPropagation.REJECTED;
         }
-        transformedOutgoingRouteBuilder.setNextHopIp(nextHopIp);
-        transformedOutgoingRouteBuilder.setLocalPreference(localPreference);
+      }
+    }
 
-        // Outgoing srcProtocol
-        transformedOutgoingRouteBuilder.setSrcProtocol(remoteRoute.getProtocol());
+    // Outgoing asPath
+    // Outgoing communities
+    if (remoteRouteIsBgp) {
+      BgpRoute bgpRemoteRoute = (BgpRoute) remoteRoute;
+      transformedOutgoingRouteBuilder.setAsPath(bgpRemoteRoute.getAsPath().getAsSets());
+      if (remoteBgpNeighbor.getSendCommunity()) {
+        transformedOutgoingRouteBuilder.getCommunities().addAll(bgpRemoteRoute.getCommunities());
+      }
+    }
+    if (ebgpSession) {
+      SortedSet<Integer> newAsPathElement = new TreeSet<>();
+      newAsPathElement.add(remoteAs);
+      transformedOutgoingRouteBuilder.getAsPath().add(0, newAsPathElement);
+    }
 
-        /*
-         * CREATE OUTGOING ROUTE
-         */
-        boolean acceptOutgoing =
-            remoteExportPolicy.process(
-                remoteRoute,
-                transformedOutgoingRouteBuilder,
-                localIp,
-                remoteVrfName,
-                Direction.OUT);
-        if (acceptOutgoing) {
-          BgpRoute transformedOutgoingRoute = transformedOutgoingRouteBuilder.build();
-          // Record sent advertisement
-          BgpAdvertisementType sentType =
-              ebgpSession ? BgpAdvertisementType.EBGP_SENT : BgpAdvertisementType.IBGP_SENT;
-          Ip sentOriginatorIp = transformedOutgoingRoute.getOriginatorIp();
-          SortedSet<Long> sentClusterList =
-              new TreeSet<>(transformedOutgoingRoute.getClusterList());
-          boolean sentReceivedFromRouteReflectorClient =
-              transformedOutgoingRoute.getReceivedFromRouteReflectorClient();
-          AsPath sentAsPath = transformedOutgoingRoute.getAsPath();
-          SortedSet<Long> sentCommunities =
-              new TreeSet<>(transformedOutgoingRoute.getCommunities());
-          Prefix sentNetwork = remoteRoute.getNetwork();
-          Ip sentNextHopIp;
-          String sentSrcNode = remoteHostname;
-          String sentSrcVrf = remoteVrfName;
-          Ip sentSrcIp = remoteBgpNeighbor.getLocalIp();
-          String sentDstNode = hostname;
-          String sentDstVrf = _vrf.getName();
-          Ip sentDstIp = neighbor.getLocalIp();
-          int sentWeight = -1;
-          if (ebgpSession) {
-            sentNextHopIp = nextHopIp;
-          } else {
-            sentNextHopIp = transformedOutgoingRoute.getNextHopIp();
-          }
-          int sentLocalPreference = transformedOutgoingRoute.getLocalPreference();
-          long sentMed = transformedOutgoingRoute.getMetric();
-          OriginType sentOriginType = transformedOutgoingRoute.getOriginType();
-          RoutingProtocol sentSrcProtocol = targetProtocol;
-          BgpRoute.Builder transformedIncomingRouteBuilder = new BgpRoute.Builder();
+    // Outgoing protocol
+    transformedOutgoingRouteBuilder.setProtocol(targetProtocol);
+    transformedOutgoingRouteBuilder.setNetwork(remoteRoute.getNetwork());
 
-          // Incoming originatorIp
-          transformedIncomingRouteBuilder.setOriginatorIp(sentOriginatorIp);
+    // Outgoing metric
+    if (remoteRouteIsBgp) {
+      transformedOutgoingRouteBuilder.setMetric(remoteRoute.getMetric());
+    }
 
-          // Incoming clusterList
-          transformedIncomingRouteBuilder.getClusterList().addAll(sentClusterList);
+    // Outgoing nextHopIp
+    // Outgoing localPreference
+    Ip nextHopIp;
+    int localPreference;
+    if (ebgpSession || !remoteRouteIsBgp) {
+      nextHopIp = remoteBgpNeighbor.getLocalIp();
+      localPreference = BgpRoute.DEFAULT_LOCAL_PREFERENCE;
+    } else {
+      nextHopIp = remoteRoute.getNextHopIp();
+      BgpRoute remoteIbgpRoute = (BgpRoute) remoteRoute;
+      localPreference = remoteIbgpRoute.getLocalPreference();
+    }
+    if (nextHopIp.equals(Route.UNSET_ROUTE_NEXT_HOP_IP)) {
+      // should only happen for ibgp
+      String nextHopInterface = remoteRoute.getNextHopInterface();
+      Prefix nextHopPrefix = remoteVrf.getInterfaces().get(nextHopInterface).getPrefix();
+      if (nextHopPrefix == null) {
+        throw new BatfishException("remote route's nextHopInterface has no address");
+      }
+      nextHopIp = nextHopPrefix.getAddress();
+    }
+    transformedOutgoingRouteBuilder.setNextHopIp(nextHopIp);
+    transformedOutgoingRouteBuilder.setLocalPreference(localPreference);
 
-          // Incoming receivedFromRouteReflectorClient
-          transformedIncomingRouteBuilder.setReceivedFromRouteReflectorClient(
-              sentReceivedFromRouteReflectorClient);
+    // Outgoing srcProtocol
+    transformedOutgoingRouteBuilder.setSrcProtocol(remoteRoute.getProtocol());
 
-          // Incoming asPath
-          transformedIncomingRouteBuilder.setAsPath(sentAsPath.getAsSets());
+    /*
+     * CREATE OUTGOING ROUTE
+     */
+    boolean acceptOutgoing =
+        remoteExportPolicy.process(
+            remoteRoute, transformedOutgoingRouteBuilder, localIp, remoteVrfName, Direction.OUT);
+    if (!acceptOutgoing) {
+      return BgpPropagation.REJECTED;
+    }
+    BgpRoute transformedOutgoingRoute = transformedOutgoingRouteBuilder.build();
+    // Record sent advertisement
+    BgpAdvertisementType sentType =
+        ebgpSession ? BgpAdvertisementType.EBGP_SENT : BgpAdvertisementType.IBGP_SENT;
+    Ip sentOriginatorIp = transformedOutgoingRoute.getOriginatorIp();
+    SortedSet<Long> sentClusterList = new TreeSet<>(transformedOutgoingRoute.getClusterList());
+    boolean sentReceivedFromRouteReflectorClient =
+        transformedOutgoingRoute.getReceivedFromRouteReflectorClient();
+    AsPath sentAsPath = transformedOutgoingRoute.getAsPath();
+    SortedSet<Long> sentCommunities = new TreeSet<>(transformedOutgoingRoute.getCommunities());
+    Prefix sentNetwork = remoteRoute.getNetwork();
+    Ip sentNextHopIp;
+    String sentSrcNode = remoteHostname;
+    String sentSrcVrf = remoteVrfName;
+    Ip sentSrcIp = remoteBgpNeighbor.getLocalIp();
+    String sentDstNode = hostname;
+    String sentDstVrf = _vrf.getName();
+    Ip sentDstIp = neighbor.getLocalIp();
+    int sentWeight = -1;
+    if (ebgpSession) {
+      sentNextHopIp = nextHopIp;
+    } else {
+      sentNextHopIp = transformedOutgoingRoute.getNextHopIp();
+    }
+    int sentLocalPreference = transformedOutgoingRoute.getLocalPreference();
+    long sentMed = transformedOutgoingRoute.getMetric();
+    OriginType sentOriginType = transformedOutgoingRoute.getOriginType();
+    RoutingProtocol sentSrcProtocol = targetProtocol;
+    BgpRoute.Builder transformedIncomingRouteBuilder = new BgpRoute.Builder();
 
-          // Incoming communities
-          transformedIncomingRouteBuilder.getCommunities().addAll(sentCommunities);
+    // Incoming originatorIp
+    transformedIncomingRouteBuilder.setOriginatorIp(sentOriginatorIp);
 
-          // Incoming protocol
-          transformedIncomingRouteBuilder.setProtocol(targetProtocol);
+    // Incoming clusterList
+    transformedIncomingRouteBuilder.getClusterList().addAll(sentClusterList);
 
-          // Incoming network
-          transformedIncomingRouteBuilder.setNetwork(sentNetwork);
+    // Incoming receivedFromRouteReflectorClient
+    transformedIncomingRouteBuilder.setReceivedFromRouteReflectorClient(
+        sentReceivedFromRouteReflectorClient);
 
-          // Incoming nextHopIp
-          transformedIncomingRouteBuilder.setNextHopIp(sentNextHopIp);
+    // Incoming asPath
+    transformedIncomingRouteBuilder.setAsPath(sentAsPath.getAsSets());
 
-          // Incoming localPreference
-          transformedIncomingRouteBuilder.setLocalPreference(sentLocalPreference);
+    // Incoming communities
+    transformedIncomingRouteBuilder.getCommunities().addAll(sentCommunities);
 
-          // Incoming admin
-          int admin = ebgpSession ? ebgpAdminCost : ibgpAdminCost;
-          transformedIncomingRouteBuilder.setAdmin(admin);
+    // Incoming protocol
+    transformedIncomingRouteBuilder.setProtocol(targetProtocol);
 
-          // Incoming metric
-          transformedIncomingRouteBuilder.setMetric(sentMed);
+    // Incoming network
+    transformedIncomingRouteBuilder.setNetwork(sentNetwork);
 
-          // Incoming originType
-          transformedIncomingRouteBuilder.setOriginType(sentOriginType);
+    // Incoming nextHopIp
+    transformedIncomingRouteBuilder.setNextHopIp(sentNextHopIp);
 
-          // Incoming srcProtocol
-          transformedIncomingRouteBuilder.setSrcProtocol(sentSrcProtocol);
-          String importPolicyName = neighbor.getImportPolicy();
-          // TODO: ensure there is always an import policy
+    // Incoming localPreference
+    transformedIncomingRouteBuilder.setLocalPreference(sentLocalPreference);
 
-          if (transformedOutgoingRoute.getAsPath().containsAs(neighbor.getLocalAs())
-              && !neighbor.getAllowLocalAsIn()) {
-            // skip routes containing peer's AS unless
-            // disable-peer-as-check (getAllowRemoteAsOut) is set
-            continue;
-          }
+    // Incoming admin
+    transformedIncomingRouteBuilder.setAdmin(admin);
 
-          BgpAdvertisement sentAdvert =
-              new BgpAdvertisement(
-                  sentType,
-                  sentNetwork,
-                  sentNextHopIp,
-                  sentSrcNode,
-                  sentSrcVrf,
-                  sentSrcIp,
-                  sentDstNode,
-                  sentDstVrf,
-                  sentDstIp,
-                  sentSrcProtocol,
-                  sentOriginType,
-                  sentLocalPreference,
-                  sentMed,
-                  sentOriginatorIp,
-                  sentAsPath,
-                  new TreeSet<>(sentCommunities),
-                  new TreeSet<>(sentClusterList),
-                  sentWeight);
+    // Incoming metric
+    transformedIncomingRouteBuilder.setMetric(sentMed);
 
-          Prefix prefix = remoteRoute.getNetwork();
-          boolean isOscillatingPrefix = oscillatingPrefixes.contains(prefix);
-          boolean hasAdvertisementPriorityDuringRecovery =
-              hasAdvertisementPriorityDuringRecovery(
-                  remoteRoute,
-                  dependentRoutesIterations,
-                  oscillatingPrefixes,
-                  neighbor,
-                  remoteBgpNeighbor);
-          if (isOscillatingPrefix
-              && !hasAdvertisementPriorityDuringRecovery
-              && !_prevSentBgpAdvertisements.contains(sentAdvert)) {
-            continue;
-          }
-          _sentBgpAdvertisements.add(sentAdvert);
+    // Incoming originType
+    transformedIncomingRouteBuilder.setOriginType(sentOriginType);
 
-          /*
-           * CREATE INCOMING ROUTE
-           */
-          boolean acceptIncoming = true;
-          if (importPolicyName != null) {
-            RoutingPolicy importPolicy = _c.getRoutingPolicies().get(importPolicyName);
-            if (importPolicy != null) {
-              acceptIncoming =
-                  importPolicy.process(
-                      transformedOutgoingRoute,
-                      transformedIncomingRouteBuilder,
-                      remoteBgpNeighbor.getLocalIp(),
-                      _key,
-                      Direction.IN);
-            }
-          }
-          if (acceptIncoming) {
-            BgpRoute transformedIncomingRoute = transformedIncomingRouteBuilder.build();
-            BgpAdvertisementType receivedType =
-                ebgpSession
-                    ? BgpAdvertisementType.EBGP_RECEIVED
-                    : BgpAdvertisementType.IBGP_RECEIVED;
-            Prefix receivedNetwork = sentNetwork;
-            Ip receivedNextHopIp = sentNextHopIp;
-            String receivedSrcNode = sentSrcNode;
-            String receivedSrcVrf = sentSrcVrf;
-            Ip receivedSrcIp = sentSrcIp;
-            String receivedDstNode = sentDstNode;
-            String receivedDstVrf = sentDstVrf;
-            Ip receivedDstIp = sentDstIp;
-            RoutingProtocol receivedSrcProtocol = sentSrcProtocol;
-            OriginType receivedOriginType = transformedIncomingRoute.getOriginType();
-            int receivedLocalPreference = transformedIncomingRoute.getLocalPreference();
-            long receivedMed = transformedIncomingRoute.getMetric();
-            Ip receivedOriginatorIp = sentOriginatorIp;
-            AsPath receivedAsPath = transformedIncomingRoute.getAsPath();
-            SortedSet<Long> receivedCommunities =
-                new TreeSet<>(transformedIncomingRoute.getCommunities());
-            SortedSet<Long> receivedClusterList = new TreeSet<>(sentClusterList);
-            int receivedWeight = transformedIncomingRoute.getWeight();
-            BgpAdvertisement receivedAdvert =
-                new BgpAdvertisement(
-                    receivedType,
-                    receivedNetwork,
-                    receivedNextHopIp,
-                    receivedSrcNode,
-                    receivedSrcVrf,
-                    receivedSrcIp,
-                    receivedDstNode,
-                    receivedDstVrf,
-                    receivedDstIp,
-                    receivedSrcProtocol,
-                    receivedOriginType,
-                    receivedLocalPreference,
-                    receivedMed,
-                    receivedOriginatorIp,
-                    receivedAsPath,
-                    new TreeSet<>(receivedCommunities),
-                    new TreeSet<>(receivedClusterList),
-                    receivedWeight);
-            if (targetRib.mergeRoute(transformedIncomingRoute)) {
-              numRoutes++;
-            }
-            _receivedBgpAdvertisements.add(receivedAdvert);
-          }
-        }
+    // Incoming srcProtocol
+    transformedIncomingRouteBuilder.setSrcProtocol(sentSrcProtocol);
+    String importPolicyName = neighbor.getImportPolicy();
+    // TODO: ensure there is always an import policy
+
+    if (transformedOutgoingRoute.getAsPath().containsAs(neighbor.getLocalAs())
+        && !neighbor.getAllowLocalAsIn()) {
+      // skip routes containing peer's AS unless
+      // disable-peer-as-check (getAllowRemoteAsOut) is set
+      return BgpPropagation.REJECTED;
+    }
+
+    BgpAdvertisement sentAdvert =
+        new BgpAdvertisement(
+            sentType,
+            sentNetwork,
+            sentNextHopIp,
+            sentSrcNode,
+            sentSrcVrf,
+            sentSrcIp,
+            sentDstNode,
+            sentDstVrf,
+            sentDstIp,
+            sentSrcProtocol,
+            sentOriginType,
+            sentLocalPreference,
+            sentMed,
+            sentOriginatorIp,
+            sentAsPath,
+            new TreeSet<>(sentCommunities),
+            new TreeSet<>(sentClusterList),
+            sentWeight);
+
+    /*
+     * CREATE INCOMING ROUTE
+     */
+    boolean acceptIncoming = true;
+    if (importPolicyName != null) {
+      RoutingPolicy importPolicy = _c.getRoutingPolicies().get(importPolicyName);
+      if (importPolicy != null) {
+        acceptIncoming =
+            importPolicy.process(
+                transformedOutgoingRoute,
+                transformedIncomingRouteBuilder,
+                remoteBgpNeighbor.getLocalIp(),
+                _key,
+                Direction.IN);
       }
     }
-    return numRoutes;
+    if (acceptIncoming) {
+      BgpRoute transformedIncomingRoute = transformedIncomingRouteBuilder.build();
+      BgpAdvertisementType receivedType =
+          ebgpSession ? BgpAdvertisementType.EBGP_RECEIVED : BgpAdvertisementType.IBGP_RECEIVED;
+      Prefix receivedNetwork = sentNetwork;
+      Ip receivedNextHopIp = sentNextHopIp;
+      String receivedSrcNode = sentSrcNode;
+      String receivedSrcVrf = sentSrcVrf;
+      Ip receivedSrcIp = sentSrcIp;
+      String receivedDstNode = sentDstNode;
+      String receivedDstVrf = sentDstVrf;
+      Ip receivedDstIp = sentDstIp;
+      RoutingProtocol receivedSrcProtocol = sentSrcProtocol;
+      OriginType receivedOriginType = transformedIncomingRoute.getOriginType();
+      int receivedLocalPreference = transformedIncomingRoute.getLocalPreference();
+      long receivedMed = transformedIncomingRoute.getMetric();
+      Ip receivedOriginatorIp = sentOriginatorIp;
+      AsPath receivedAsPath = transformedIncomingRoute.getAsPath();
+      SortedSet<Long> receivedCommunities =
+          new TreeSet<>(transformedIncomingRoute.getCommunities());
+      SortedSet<Long> receivedClusterList = new TreeSet<>(sentClusterList);
+      int receivedWeight = transformedIncomingRoute.getWeight();
+      BgpAdvertisement receivedAdvert =
+          new BgpAdvertisement(
+              receivedType,
+              receivedNetwork,
+              receivedNextHopIp,
+              receivedSrcNode,
+              receivedSrcVrf,
+              receivedSrcIp,
+              receivedDstNode,
+              receivedDstVrf,
+              receivedDstIp,
+              receivedSrcProtocol,
+              receivedOriginType,
+              receivedLocalPreference,
+              receivedMed,
+              receivedOriginatorIp,
+              receivedAsPath,
+              new TreeSet<>(receivedCommunities),
+              new TreeSet<>(receivedClusterList),
+              receivedWeight);
+      return new BgpPropagation(sentAdvert, transformedIncomingRoute, receivedAdvert);
+    }
+    return new BgpPropagation(sentAdvert, null, null);
   }
 
   public boolean propagateOspfExternalRoutes(Map<String, Node> nodes, Topology topology) {
@@ -1569,8 +1656,8 @@ public class VirtualRouter extends ComparableStructure<String> {
     OspfProcess proc = _vrf.getOspfProcess();
     if (proc != null) {
       int admin = RoutingProtocol.OSPF.getDefaultAdministrativeCost(_c.getConfigurationFormat());
-      SortedSet<Edge> edges = topology.getNodeEdges().get(node);
-      if (edges == null) {
+      SortedSet<Edge> edges = topology.getNodeEdges(node);
+      if (edges.isEmpty()) {
         // there are no edges, so OSPF won't produce anything
         return false;
       }
@@ -1889,8 +1976,8 @@ public class VirtualRouter extends ComparableStructure<String> {
 
     // Default OSPF admin cost for constructing new routes
     int adminCost = RoutingProtocol.OSPF.getDefaultAdministrativeCost(_c.getConfigurationFormat());
-    SortedSet<Edge> edges = topology.getNodeEdges().get(node);
-    if (edges == null) {
+    SortedSet<Edge> edges = topology.getNodeEdges(node);
+    if (edges.isEmpty()) {
       // there are no edges, so OSPF won't produce anything
       return false;
     }
@@ -1935,8 +2022,8 @@ public class VirtualRouter extends ComparableStructure<String> {
 
     String node = _c.getHostname();
     int admin = RoutingProtocol.RIP.getDefaultAdministrativeCost(_c.getConfigurationFormat());
-    SortedSet<Edge> edges = topology.getNodeEdges().get(node);
-    if (edges == null) {
+    SortedSet<Edge> edges = topology.getNodeEdges(node);
+    if (edges.isEmpty()) {
       // there are no edges, so RIP won't produce anything
       return false;
     }
@@ -6,6 +6,8 @@ public interface BdpSettings extends DataPlanePluginSettings {
 
   boolean getBdpDetail();
 
+  boolean getBdpIncrementalBgp();
+
   int getBdpMaxOscillationRecoveryAttempts();
 
   int getBdpMaxRecordedIterations();
@@ -16,8 +18,12 @@ public interface BdpSettings extends DataPlanePluginSettings {
 
   boolean getBdpRecordAllIterations();
 
+  boolean getSerializeToText();
+
   void setBdpDetail(boolean bdpDetail);
 
+  void setBdpIncrementalBgp(boolean bdpIncrementalBgp);
+
   void setBdpMaxOscillationRecoveryAttempts(int bdpMaxOscillationRecoveryAttempts);
 
   void setBdpMaxRecordedIterations(int bdpMaxRecordedIterations);
@@ -1,6 +1,7 @@
 package org.batfish.config;
 
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.batfish.common.BaseSettings;
@@ -10,6 +11,7 @@ import org.batfish.common.CoordConsts;
 import org.batfish.common.PedanticBatfishException;
 import org.batfish.common.RedFlagBatfishException;
 import org.batfish.common.UnimplementedBatfishException;
+import org.batfish.common.plugin.SerializationFormat;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.datamodel.Ip;
 import org.batfish.grammar.GrammarSettings;
@@ -393,6 +395,10 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private static final String ARG_ANONYMIZE = "anonymize";
 
+  private static final String ARG_BDD_CACHE_SIZE = "bddcachesize";
+
+  private static final String ARG_BDD_NODE_TABLE_SIZE = "bddnodetablesize";
+
   public static final String ARG_COORDINATOR_HOST = "coordinatorhost";
 
   private static final String ARG_COORDINATOR_POOL_PORT = "coordinatorpoolport";
@@ -433,6 +439,8 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private static final String ARG_LOG_TEE = "logtee";
 
+  private static final String ARG_MAX_DFA_CACHE_SIZE = "maxdfacachesize";
+
   private static final String ARG_MAX_PARSER_CONTEXT_LINES = "maxparsercontextlines";
 
   private static final String ARG_MAX_PARSER_CONTEXT_TOKENS = "maxparsercontexttokens";
@@ -441,6 +449,8 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private static final String ARG_MAX_RUNTIME_MS = "maxruntime";
 
+  private static final String ARG_NO_PARSER_WARMUP = "noparserwarmup";
+
   private static final String ARG_NO_SHUFFLE = "noshuffle";
 
   private static final String ARG_PRINT_PARSE_TREES = "ppt";
@@ -449,6 +459,8 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private static final String ARG_SEQUENTIAL = "sequential";
 
+  private static final String ARG_SERIALIZATION_FORMAT = "serializationformat";
+
   private static final String ARG_SERIALIZE_TO_TEXT = "stext";
 
   private static final String ARG_SERVICE_BIND_HOST = "servicebindhost";
@@ -459,6 +471,10 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private static final String ARG_SERVICE_PORT = "serviceport";
 
+  private static final String ARG_TASK_SLOT_MEMORY_MB = "taskslotmemorymb";
+
+  private static final String ARG_TASK_SLOTS = "taskslots";
+
   private static final String ARG_TRACING_AGENT_HOST = "tracingagenthost";
 
   private static final String ARG_TRACING_AGENT_PORT = "tracingagentport";
@@ -507,8 +523,14 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private TestrigSettings _baseTestrigSettings;
 
+  private int _bddCacheSize;
+
+  private int _bddNodeTableSize;
+
   private boolean _bdpDetail;
 
+  private boolean _bdpIncrementalBgp;
+
   private int _bdpMaxOscillationRecoveryAttempts;
 
   private int _bdpMaxRecordedIterations;
@@ -597,6 +619,8 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private boolean _logTee;
 
+  private int _maxDfaCacheSize;
+
   private int _maxParserContextLines;
 
   private int _maxParserContextTokens;
@@ -607,6 +631,8 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private String _outputEnvironmentName;
 
+  private boolean _parserWarmup;
+
   private boolean _pedanticAsError;
 
   private boolean _pedanticRecord;
@@ -633,6 +659,8 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private boolean _sequential;
 
+  private SerializationFormat _serializationFormat;
+
   private boolean _serializeIndependent;
 
   private boolean _serializeToText;
@@ -667,6 +695,10 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
   private String _taskPlugin;
 
+  private int _taskSlotMemoryMb;
+
+  private int _taskSlots;
+
   private String _testrig;
 
   private boolean _throwOnLexerError;
@@ -744,10 +776,22 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     return _baseTestrigSettings;
   }
 
+  public int getBddCacheSize() {
+    return _bddCacheSize;
+  }
+
+  public int getBddNodeTableSize() {
+    return _bddNodeTableSize;
+  }
+
   public boolean getBdpDetail() {
     return _bdpDetail;
   }
 
+  public boolean getBdpIncrementalBgp() {
+    return _bdpIncrementalBgp;
+  }
+
   public int getBdpMaxOscillationRecoveryAttempts() {
     return _bdpMaxOscillationRecoveryAttempts;
   }
@@ -905,6 +949,10 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     return _logTee;
   }
 
+  public int getMaxDfaCacheSize() {
+    return _maxDfaCacheSize;
+  }
+
   @Override
   public int getMaxParserContextLines() {
     return _maxParserContextLines;
@@ -928,6 +976,10 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     return _outputEnvironmentName;
   }
 
+  public boolean getParserWarmup() {
+    return _parserWarmup;
+  }
+
   public boolean getPedanticAsError() {
     return _pedanticAsError;
   }
@@ -973,6 +1025,10 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     return _sequential;
   }
 
+  public SerializationFormat getSerializationFormat() {
+    return _serializationFormat;
+  }
+
   public boolean getSerializeIndependent() {
     return _serializeIndependent;
   }
@@ -1041,6 +1097,14 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     return _taskPlugin;
   }
 
+  public int getTaskSlotMemoryMb() {
+    return _taskSlotMemoryMb;
+  }
+
+  public int getTaskSlots() {
+    return _taskSlots;
+  }
+
   public String getTestrig() {
     return _testrig;
   }
@@ -1107,7 +1171,10 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     setDefaultProperty(BfConsts.ARG_ANALYSIS_NAME, null);
     setDefaultProperty(ARG_ANONYMIZE, false);
     setDefaultProperty(BfConsts.ARG_ANSWER_JSON_PATH, null);
+    setDefaultProperty(ARG_BDD_CACHE_SIZE, 10000);
+    setDefaultProperty(ARG_BDD_NODE_TABLE_SIZE, 100000);
     setDefaultProperty(BfConsts.ARG_BDP_DETAIL, false);
+    setDefaultProperty(BfConsts.ARG_BDP_INCREMENTAL_BGP, false);
     setDefaultProperty(BfConsts.ARG_BDP_MAX_OSCILLATION_RECOVERY_ATTEMPTS, 0);
     setDefaultProperty(BfConsts.ARG_BDP_MAX_RECORDED_ITERATIONS, 5);
     setDefaultProperty(BfConsts.ARG_BDP_PRINT_ALL_ITERATIONS, false);
@@ -1144,10 +1211,12 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     setDefaultProperty(BfConsts.ARG_LOG_FILE, null);
     setDefaultProperty(ARG_LOG_TEE, false);
     setDefaultProperty(BfConsts.ARG_LOG_LEVEL, "debug");
+    setDefaultProperty(ARG_MAX_DFA_CACHE_SIZE, 0);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_LINES, 10);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_TOKENS, 10);
     setDefaultProperty(ARG_MAX_PARSE_TREE_PRINT_LENGTH, 0);
     setDefaultProperty(ARG_MAX_RUNTIME_MS, 0);
+    setDefaultProperty(ARG_NO_PARSER_WARMUP, false);
     setDefaultProperty(ARG_NO_SHUFFLE, false);
     setDefaultProperty(BfConsts.ARG_OUTPUT_ENV, null);
     setDefaultProperty(BfConsts.ARG_PEDANTIC_AS_ERROR, false);
@@ -1159,6 +1228,7 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     setDefaultProperty(BfConsts.ARG_RED_FLAG_AS_ERROR, false);
     setDefaultProperty(BfConsts.ARG_RED_FLAG_SUPPRESS, false);
     setDefaultProperty(ARG_SEQUENTIAL, false);
+    setDefaultProperty(ARG_SERIALIZATION_FORMAT, SerializationFormat.GZIP.toString());
     setDefaultProperty(ARG_SERIALIZE_TO_TEXT, false);
     setDefaultProperty(ARG_SERVICE_BIND_HOST, Ip.ZERO.toString());
     setDefaultProperty(ARG_SERVICE_HOST, "localhost");
@@ -1172,6 +1242,8 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     setDefaultProperty(BfConsts.ARG_SSL_TRUSTSTORE_PASSWORD, null);
     setDefaultProperty(BfConsts.ARG_SYNTHESIZE_JSON_TOPOLOGY, false);
     setDefaultProperty(BfConsts.ARG_TASK_PLUGIN, null);
+    setDefaultProperty(ARG_TASK_SLOT_MEMORY_MB, 2048);
+    setDefaultProperty(ARG_TASK_SLOTS, 1);
     setDefaultProperty(ARG_THROW_ON_LEXER_ERROR, true);
     setDefaultProperty(ARG_THROW_ON_PARSER_ERROR, true);
     setDefaultProperty(ARG_TIMESTAMP, false);
@@ -1202,11 +1274,26 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     addOption(
         BfConsts.ARG_ANSWER_JSON_PATH, "save query json output to specified file", ARGNAME_PATH);
 
+    addOption(
+        ARG_BDD_CACHE_SIZE,
+        "Size of the operation cache of each BDD factory used by symbolic analyses",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_BDD_NODE_TABLE_SIZE,
+        "Initial number of nodes in each BDD factory used by symbolic analyses",
+        ARGNAME_NUMBER);
+
     addBooleanOption(
         BfConsts.ARG_BDP_DETAIL,
         "Set to true to print/record detailed protocol-specific information about routes in each"
             + "iteration rather than only protocol-independent information.");
 
+    addBooleanOption(
+        BfConsts.ARG_BDP_INCREMENTAL_BGP,
+        "Set to true to only evaluate BGP export/import policies for routes that changed since the"
+            + " previous iteration, reusing prior results for all other routes.");
+
     addOption(
         BfConsts.ARG_BDP_MAX_OSCILLATION_RECOVERY_ATTEMPTS,
         "Max number of recovery attempts when oscillation occurs during data plane computations",
@@ -1339,6 +1426,12 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
     addBooleanOption(ARG_LOG_TEE, "print output to both logfile and standard out");
 
+    addOption(
+        ARG_MAX_DFA_CACHE_SIZE,
+        "max number of DFA states cached for each lexer or parser grammar before the cache is "
+            + "cleared (<= 0 is treated as no limit)",
+        ARGNAME_NUMBER);
+
     addOption(
         ARG_MAX_PARSER_CONTEXT_LINES,
         "max number of surrounding lines to print on parser error",
@@ -1357,6 +1450,9 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
     addOption(ARG_MAX_RUNTIME_MS, "maximum time (in ms) to allow a task to run", ARGNAME_NUMBER);
 
+    addBooleanOption(
+        ARG_NO_PARSER_WARMUP, "do not warm up parser caches when starting in service mode");
+
     addBooleanOption(ARG_NO_SHUFFLE, "do not shuffle parallel jobs");
 
     addOption(BfConsts.ARG_OUTPUT_ENV, "name of output environment", ARGNAME_NAME);
@@ -1390,6 +1486,12 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
     addBooleanOption(ARG_SEQUENTIAL, "force sequential operation");
 
+    addOption(
+        ARG_SERIALIZATION_FORMAT,
+        "format of serialized objects written to disk: "
+            + Arrays.toString(SerializationFormat.values()),
+        ARGNAME_NAME);
+
     addBooleanOption(ARG_SERIALIZE_TO_TEXT, "serialize to text");
 
     addOption(
@@ -1420,6 +1522,13 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
 
     addOption(BfConsts.ARG_TASK_PLUGIN, "fully-qualified name of task plugin class", ARGNAME_NAME);
 
+    addOption(
+        ARG_TASK_SLOT_MEMORY_MB,
+        "free heap (in MB) required to start a task while other tasks are running",
+        ARGNAME_NUMBER);
+
+    addOption(ARG_TASK_SLOTS, "number of tasks a service can run at the same time", ARGNAME_NUMBER);
+
     addOption(BfConsts.ARG_TESTRIG, "name of testrig", ARGNAME_NAME);
 
     addBooleanOption(ARG_THROW_ON_LEXER_ERROR, "throw exception immediately on lexer error");
@@ -1493,8 +1602,11 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     _analyze = getBooleanOptionValue(BfConsts.COMMAND_ANALYZE);
     _answer = getBooleanOptionValue(BfConsts.COMMAND_ANSWER);
     _answerJsonPath = getPathOptionValue(BfConsts.ARG_ANSWER_JSON_PATH);
+    _bddCacheSize = getIntOptionValue(ARG_BDD_CACHE_SIZE);
+    _bddNodeTableSize = getIntOptionValue(ARG_BDD_NODE_TABLE_SIZE);
     _bdpRecordAllIterations = getBooleanOptionValue(BfConsts.ARG_BDP_RECORD_ALL_ITERATIONS);
     _bdpDetail = getBooleanOptionValue(BfConsts.ARG_BDP_DETAIL);
+    _bdpIncrementalBgp = getBooleanOptionValue(BfConsts.ARG_BDP_INCREMENTAL_BGP);
     _bdpMaxOscillationRecoveryAttempts =
         getIntOptionValue(BfConsts.ARG_BDP_MAX_OSCILLATION_RECOVERY_ATTEMPTS);
     _bdpMaxRecordedIterations = getIntOptionValue(BfConsts.ARG_BDP_MAX_RECORDED_ITERATIONS);
@@ -1534,6 +1646,7 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     _initInfo = getBooleanOptionValue(BfConsts.COMMAND_INIT_INFO);
     _jobs = getIntOptionValue(ARG_JOBS);
     _logTee = getBooleanOptionValue(ARG_LOG_TEE);
+    _maxDfaCacheSize = getIntOptionValue(ARG_MAX_DFA_CACHE_SIZE);
     _maxParserContextLines = getIntOptionValue(ARG_MAX_PARSER_CONTEXT_LINES);
     _maxParserContextTokens = getIntOptionValue(ARG_MAX_PARSER_CONTEXT_TOKENS);
     _maxParseTreePrintLength = getIntOptionValue(ARG_MAX_PARSE_TREE_PRINT_LENGTH);
@@ -1551,11 +1664,14 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     _runInServiceMode = getBooleanOptionValue(ARG_SERVICE_MODE);
     _sequential = getBooleanOptionValue(ARG_SEQUENTIAL);
     _serializeIndependent = getBooleanOptionValue(BfConsts.COMMAND_PARSE_VENDOR_INDEPENDENT);
+    _serializationFormat =
+        SerializationFormat.fromName(getStringOptionValue(ARG_SERIALIZATION_FORMAT));
     _serializeToText = getBooleanOptionValue(ARG_SERIALIZE_TO_TEXT);
     _serializeVendor = getBooleanOptionValue(BfConsts.COMMAND_PARSE_VENDOR_SPECIFIC);
     _serviceBindHost = getStringOptionValue(ARG_SERVICE_BIND_HOST);
     _serviceHost = getStringOptionValue(ARG_SERVICE_HOST);
     _servicePort = getIntOptionValue(ARG_SERVICE_PORT);
+    _parserWarmup = !getBooleanOptionValue(ARG_NO_PARSER_WARMUP);
     _shuffleJobs = !getBooleanOptionValue(ARG_NO_SHUFFLE);
     _simplify = !getBooleanOptionValue(ARG_DISABLE_Z3_SIMPLIFICATION);
     _sslDisable = getBooleanOptionValue(BfConsts.ARG_SSL_DISABLE);
@@ -1566,6 +1682,8 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     _sslTruststorePassword = getStringOptionValue(BfConsts.ARG_SSL_TRUSTSTORE_PASSWORD);
     _synthesizeJsonTopology = getBooleanOptionValue(BfConsts.ARG_SYNTHESIZE_JSON_TOPOLOGY);
     _taskPlugin = getStringOptionValue(BfConsts.ARG_TASK_PLUGIN);
+    _taskSlotMemoryMb = getIntOptionValue(ARG_TASK_SLOT_MEMORY_MB);
+    _taskSlots = getIntOptionValue(ARG_TASK_SLOTS);
     _testrig = getStringOptionValue(BfConsts.ARG_TESTRIG);
     _throwOnLexerError = getBooleanOptionValue(ARG_THROW_ON_LEXER_ERROR);
     _throwOnParserError = getBooleanOptionValue(ARG_THROW_ON_PARSER_ERROR);
@@ -1596,6 +1714,10 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     _bdpDetail = bdpDetail;
   }
 
+  public void setBdpIncrementalBgp(boolean bdpIncrementalBgp) {
+    _bdpIncrementalBgp = bdpIncrementalBgp;
+  }
+
   public void setBdpMaxOscillationRecoveryAttempts(int bdpMaxOscillationRecoveryAttempts) {
     _bdpMaxOscillationRecoveryAttempts = bdpMaxOscillationRecoveryAttempts;
   }
@@ -1657,6 +1779,10 @@ public final class Settings extends BaseSettings implements BdpSettings, Grammar
     _initInfo = initInfo;
   }
 
+  public void setJobs(int jobs) {
+    _jobs = jobs;
+  }
+
   public void setLogger(BatfishLogger logger) {
     _logger = logger;
   }
@@ -1,8 +1,12 @@
 package org.batfish.grammar.flatjuniper;
 
+import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.batfish.common.BatfishException;
@@ -20,7 +24,8 @@ import org.batfish.main.UndefinedGroupBatfishException;
 
 public class ApplyGroupsApplicator extends FlatJuniperParserBaseListener {
 
-  private boolean _changed;
+  /* Lines applied from groups during the current round of the walk */
+  private List<ParseTree> _appliedLines;
 
   private Flat_juniper_configurationContext _configurationContext;
 
@@ -34,10 +39,11 @@ public class ApplyGroupsApplicator extends FlatJuniperParserBaseListener {
 
   private boolean _inGroup;
 
-  private List<ParseTree> _newConfigurationLines;
-
   private boolean _reenablePathRecording;
 
+  /* Lines with apply-groups statements, each mapped to the lines replacing it */
+  private Map<ParseTree, List<ParseTree>> _replacedLines;
+
   private final Warnings _w;
 
   public ApplyGroupsApplicator(
@@ -46,6 +52,18 @@ public class ApplyGroupsApplicator extends FlatJuniperParserBaseListener {
     _w = warnings;
   }
 
+  /* Adds lines to newLines, with each replaced line substituted by the lines replacing it */
+  private void addConfigurationLines(List<ParseTree> lines, List<ParseTree> newLines) {
+    for (ParseTree line : lines) {
+      List<ParseTree> replacingLines = _replacedLines.get(line);
+      if (replacingLines == null) {
+        newLines.add(line);
+      } else {
+        addConfigurationLines(replacingLines, newLines);
+      }
+    }
+  }
+
   @Override
   public void enterApply_groups(Apply_groupsContext ctx) {
     if (_inGroup) {
@@ -55,8 +73,8 @@ public class ApplyGroupsApplicator extends FlatJuniperParserBaseListener {
     try {
       List<ParseTree> applyGroupsLines =
           _hierarchy.getApplyGroupsLines(groupName, _currentPath, _configurationContext);
-      int insertionIndex = _newConfigurationLines.indexOf(_currentSetLine);
-      _newConfigurationLines.addAll(insertionIndex, applyGroupsLines);
+      _replacedLines.put(_currentSetLine, applyGroupsLines);
+      _appliedLines.addAll(applyGroupsLines);
     } catch (PartialGroupMatchException e) {
       String message =
           "Exception processing apply-groups statement at path: \""
@@ -88,8 +106,7 @@ public class ApplyGroupsApplicator extends FlatJuniperParserBaseListener {
               + ExceptionUtils.getFullStackTrace(e);
       _w.redFlag(message);
     }
-    _newConfigurationLines.remove(_currentSetLine);
-    _changed = true;
+    _replacedLines.putIfAbsent(_currentSetLine, ImmutableList.of());
   }
 
   @Override
@@ -97,14 +114,14 @@ public class ApplyGroupsApplicator extends FlatJuniperParserBaseListener {
     if (_inGroup) {
       _w.redFlag("Do not know how to handle apply-groups-except occcurring within group statement");
     }
-    _newConfigurationLines.remove(_currentSetLine);
+    _replacedLines.put(_currentSetLine, ImmutableList.of());
   }
 
   @Override
   public void enterFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
     _configurationContext = ctx;
-    _newConfigurationLines = new ArrayList<>();
-    _newConfigurationLines.addAll(ctx.children);
+    _appliedLines = new ArrayList<>();
+    _replacedLines = new IdentityHashMap<>();
   }
 
   @Override
@@ -135,7 +152,21 @@ public class ApplyGroupsApplicator extends FlatJuniperParserBaseListener {
 
   @Override
   public void exitFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
-    _configurationContext.children = _newConfigurationLines;
+    /*
+     * Lines applied from groups may apply groups themselves. They are walked in rounds, in the
+     * order they were applied, until no more groups are applied.
+     */
+    ParseTreeWalker walker = new ParseTreeWalker();
+    while (!_appliedLines.isEmpty()) {
+      List<ParseTree> appliedLines = _appliedLines;
+      _appliedLines = new ArrayList<>();
+      for (ParseTree line : appliedLines) {
+        walker.walk(this, line);
+      }
+    }
+    List<ParseTree> newConfigurationLines = new ArrayList<>();
+    addConfigurationLines(_configurationContext.children, newConfigurationLines);
+    _configurationContext.children = newConfigurationLines;
   }
 
   @Override
@@ -162,10 +193,6 @@ public class ApplyGroupsApplicator extends FlatJuniperParserBaseListener {
     _enablePathRecording = false;
   }
 
-  public boolean getChanged() {
-    return _changed;
-  }
-
   @Override
   public void visitTerminal(TerminalNode node) {
     if (_enablePathRecording) {
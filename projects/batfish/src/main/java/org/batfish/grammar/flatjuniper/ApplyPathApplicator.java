@@ -1,7 +1,9 @@
 package org.batfish.grammar.flatjuniper;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.batfish.common.BatfishException;
@@ -15,6 +17,9 @@ import org.batfish.grammar.flatjuniper.Hierarchy.HierarchyTree.HierarchyPath;
 
 public class ApplyPathApplicator extends FlatJuniperParserBaseListener {
 
+  /* Lines with apply-path statements, each mapped to the lines to add after it */
+  private Map<ParseTree, List<ParseTree>> _appliedLines;
+
   private Flat_juniper_configurationContext _configurationContext;
 
   private HierarchyPath _currentPath;
@@ -25,8 +30,6 @@ public class ApplyPathApplicator extends FlatJuniperParserBaseListener {
 
   private Hierarchy _hierarchy;
 
-  private List<ParseTree> _newConfigurationLines;
-
   private boolean _reenablePathRecording;
 
   private final Warnings _w;
@@ -39,8 +42,7 @@ public class ApplyPathApplicator extends FlatJuniperParserBaseListener {
   @Override
   public void enterFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
     _configurationContext = ctx;
-    _newConfigurationLines = new ArrayList<>();
-    _newConfigurationLines.addAll(ctx.children);
+    _appliedLines = new IdentityHashMap<>();
   }
 
   @Override
@@ -67,7 +69,6 @@ public class ApplyPathApplicator extends FlatJuniperParserBaseListener {
         applyPathPath.addNode(pathComponent);
       }
     }
-    int insertionIndex = _newConfigurationLines.indexOf(_currentSetLine);
     List<ParseTree> newLines = null;
     try {
       newLines = _hierarchy.getApplyPathLines(_currentPath, applyPathPath, _configurationContext);
@@ -79,7 +80,7 @@ public class ApplyPathApplicator extends FlatJuniperParserBaseListener {
               + "addresses or prefixes");
     }
     if (newLines != null) {
-      _newConfigurationLines.addAll(insertionIndex + 1, newLines);
+      _appliedLines.computeIfAbsent(_currentSetLine, l -> new ArrayList<>()).addAll(newLines);
     }
   }
 
@@ -96,7 +97,15 @@ public class ApplyPathApplicator extends FlatJuniperParserBaseListener {
 
   @Override
   public void exitFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
-    _configurationContext.children = _newConfigurationLines;
+    List<ParseTree> newConfigurationLines = new ArrayList<>();
+    for (ParseTree line : _configurationContext.children) {
+      newConfigurationLines.add(line);
+      List<ParseTree> appliedLines = _appliedLines.get(line);
+      if (appliedLines != null) {
+        newConfigurationLines.addAll(appliedLines);
+      }
+    }
+    _configurationContext.children = newConfigurationLines;
   }
 
   @Override
@@ -1,7 +1,10 @@
 package org.batfish.grammar.flatjuniper;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.batfish.grammar.flatjuniper.FlatJuniperParser.Deactivate_lineContext;
 import org.batfish.grammar.flatjuniper.FlatJuniperParser.Flat_juniper_configurationContext;
@@ -10,22 +13,27 @@ public class DeactivateLinePruner extends FlatJuniperParserBaseListener {
 
   private Flat_juniper_configurationContext _configurationContext;
 
-  private List<ParseTree> _newConfigurationLines;
+  private Set<ParseTree> _prunedLines;
 
   @Override
   public void enterFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
     _configurationContext = ctx;
-    _newConfigurationLines = new ArrayList<>();
-    _newConfigurationLines.addAll(ctx.children);
+    _prunedLines = Collections.newSetFromMap(new IdentityHashMap<>());
   }
 
   @Override
   public void exitDeactivate_line(Deactivate_lineContext ctx) {
-    _newConfigurationLines.remove(ctx);
+    _prunedLines.add(ctx);
   }
 
   @Override
   public void exitFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
-    _configurationContext.children = _newConfigurationLines;
+    List<ParseTree> newConfigurationLines = new ArrayList<>();
+    for (ParseTree line : _configurationContext.children) {
+      if (!_prunedLines.contains(line)) {
+        newConfigurationLines.add(line);
+      }
+    }
+    _configurationContext.children = newConfigurationLines;
   }
 }
@@ -1,7 +1,10 @@
 package org.batfish.grammar.flatjuniper;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.batfish.grammar.flatjuniper.FlatJuniperParser.Flat_juniper_configurationContext;
@@ -22,7 +25,7 @@ public class DeactivatedLinePruner extends FlatJuniperParserBaseListener {
 
   private Hierarchy _hierarchy;
 
-  private List<ParseTree> _newConfigurationLines;
+  private Set<ParseTree> _prunedLines;
 
   private boolean _reenablePathRecording;
 
@@ -33,8 +36,7 @@ public class DeactivatedLinePruner extends FlatJuniperParserBaseListener {
   @Override
   public void enterFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
     _configurationContext = ctx;
-    _newConfigurationLines = new ArrayList<>();
-    _newConfigurationLines.addAll(ctx.children);
+    _prunedLines = Collections.newSetFromMap(new IdentityHashMap<>());
   }
 
   @Override
@@ -60,7 +62,13 @@ public class DeactivatedLinePruner extends FlatJuniperParserBaseListener {
 
   @Override
   public void exitFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
-    _configurationContext.children = _newConfigurationLines;
+    List<ParseTree> newConfigurationLines = new ArrayList<>();
+    for (ParseTree line : _configurationContext.children) {
+      if (!_prunedLines.contains(line)) {
+        newConfigurationLines.add(line);
+      }
+    }
+    _configurationContext.children = newConfigurationLines;
   }
 
   @Override
@@ -75,7 +83,7 @@ public class DeactivatedLinePruner extends FlatJuniperParserBaseListener {
   public void exitSet_line(Set_lineContext ctx) {
     if (_checkLine) {
       if (_hierarchy.isDeactivated(_currentPath)) {
-        _newConfigurationLines.remove(ctx);
+        _prunedLines.add(ctx);
       }
       _currentPath = null;
     }
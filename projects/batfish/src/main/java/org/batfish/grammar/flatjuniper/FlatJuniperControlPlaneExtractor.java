@@ -53,17 +53,12 @@ public class FlatJuniperControlPlaneExtractor implements ControlPlaneExtractor {
     walker.walk(tb, tree);
     GroupTreeBuilder gb = new GroupTreeBuilder(_parser, hierarchy);
     walker.walk(gb, tree);
-    ApplyGroupsApplicator hb;
-    do {
-      hb = new ApplyGroupsApplicator(_parser, hierarchy, _w);
-      walker.walk(hb, tree);
-    } while (hb.getChanged());
+    ApplyGroupsApplicator hb = new ApplyGroupsApplicator(_parser, hierarchy, _w);
+    walker.walk(hb, tree);
     GroupPruner gp = new GroupPruner();
     walker.walk(gp, tree);
     WildcardApplicator wa = new WildcardApplicator(hierarchy);
     walker.walk(wa, tree);
-    WildcardPruner wp = new WildcardPruner();
-    walker.walk(wp, tree);
     walker.walk(dlp, tree);
     ApplyPathApplicator ap = new ApplyPathApplicator(hierarchy, _w);
     walker.walk(ap, tree);
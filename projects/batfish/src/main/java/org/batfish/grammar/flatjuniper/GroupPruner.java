@@ -1,7 +1,10 @@
 package org.batfish.grammar.flatjuniper;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.batfish.grammar.flatjuniper.FlatJuniperParser.Flat_juniper_configurationContext;
 import org.batfish.grammar.flatjuniper.FlatJuniperParser.S_groupsContext;
@@ -13,18 +16,23 @@ public class GroupPruner extends FlatJuniperParserBaseListener {
 
   private boolean _isGroupsLine;
 
-  private List<ParseTree> _newConfigurationLines;
+  private Set<ParseTree> _prunedLines;
 
   @Override
   public void enterFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
     _configurationContext = ctx;
-    _newConfigurationLines = new ArrayList<>();
-    _newConfigurationLines.addAll(ctx.children);
+    _prunedLines = Collections.newSetFromMap(new IdentityHashMap<>());
   }
 
   @Override
   public void exitFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
-    _configurationContext.children = _newConfigurationLines;
+    List<ParseTree> newConfigurationLines = new ArrayList<>();
+    for (ParseTree line : _configurationContext.children) {
+      if (!_prunedLines.contains(line)) {
+        newConfigurationLines.add(line);
+      }
+    }
+    _configurationContext.children = newConfigurationLines;
   }
 
   @Override
@@ -35,7 +43,7 @@ public class GroupPruner extends FlatJuniperParserBaseListener {
   @Override
   public void exitSet_line(Set_lineContext ctx) {
     if (_isGroupsLine) {
-      _newConfigurationLines.remove(ctx);
+      _prunedLines.add(ctx);
     }
     _isGroupsLine = false;
   }
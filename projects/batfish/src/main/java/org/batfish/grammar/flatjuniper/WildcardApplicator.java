@@ -1,7 +1,9 @@
 package org.batfish.grammar.flatjuniper;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.batfish.grammar.flatjuniper.FlatJuniperParser.Flat_juniper_configurationContext;
@@ -20,10 +22,11 @@ public class WildcardApplicator extends FlatJuniperParserBaseListener {
 
   private Hierarchy _hierarchy;
 
-  private List<ParseTree> _newConfigurationLines;
-
   private boolean _reenablePathRecording;
 
+  /* Lines with wildcards, each mapped to the lines replacing it in the master tree */
+  private Map<ParseTree, List<ParseTree>> _wildcardLines;
+
   public WildcardApplicator(Hierarchy hierarchy) {
     _hierarchy = hierarchy;
   }
@@ -31,8 +34,7 @@ public class WildcardApplicator extends FlatJuniperParserBaseListener {
   @Override
   public void enterFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
     _configurationContext = ctx;
-    _newConfigurationLines = new ArrayList<>();
-    _newConfigurationLines.addAll(ctx.children);
+    _wildcardLines = new IdentityHashMap<>();
   }
 
   @Override
@@ -53,7 +55,16 @@ public class WildcardApplicator extends FlatJuniperParserBaseListener {
 
   @Override
   public void exitFlat_juniper_configuration(Flat_juniper_configurationContext ctx) {
-    _configurationContext.children = _newConfigurationLines;
+    List<ParseTree> newConfigurationLines = new ArrayList<>();
+    for (ParseTree line : _configurationContext.children) {
+      List<ParseTree> appliedLines = _wildcardLines.get(line);
+      if (appliedLines == null) {
+        newConfigurationLines.add(line);
+      } else {
+        newConfigurationLines.addAll(appliedLines);
+      }
+    }
+    _configurationContext.children = newConfigurationLines;
   }
 
   @Override
@@ -69,8 +80,7 @@ public class WildcardApplicator extends FlatJuniperParserBaseListener {
     if (_currentPath.containsWildcard()) {
       List<ParseTree> lines =
           _hierarchy.getMasterTree().applyWildcardPath(_currentPath, _configurationContext);
-      int insertionIndex = _newConfigurationLines.indexOf(ctx);
-      _newConfigurationLines.addAll(insertionIndex, lines);
+      _wildcardLines.put(ctx, lines);
     }
     _currentPath = null;
   }
@@ -12,24 +12,23 @@ public class JuniperFlattener extends JuniperParserBaseListener {
 
   private List<String> _currentBracketedWords;
 
-  private List<String> _currentStatement;
+  private final StringBuilder _flattenedConfiguration;
 
   private String _flattenedConfigurationText;
 
-  private final String _header;
-
   private StatementContext _inactiveStatement;
 
   private boolean _inBrackets;
 
-  private List<String> _setStatements;
+  private final StringBuilder _prefix;
 
-  private List<List<String>> _stack;
+  /* The length of _prefix before each enclosing statement added its words */
+  private final List<Integer> _prefixLengths;
 
   public JuniperFlattener(String header) {
-    _header = header;
-    _stack = new ArrayList<>();
-    _setStatements = new ArrayList<>();
+    _flattenedConfiguration = new StringBuilder(header);
+    _prefix = new StringBuilder("set");
+    _prefixLengths = new ArrayList<>();
   }
 
   @Override
@@ -46,8 +45,7 @@ public class JuniperFlattener extends JuniperParserBaseListener {
       if (ctx.INACTIVE() != null) {
         _inactiveStatement = ctx;
       } else {
-        _currentStatement = new ArrayList<>();
-        _stack.add(_currentStatement);
+        _prefixLengths.add(_prefix.length());
       }
     }
   }
@@ -61,18 +59,13 @@ public class JuniperFlattener extends JuniperParserBaseListener {
 
   @Override
   public void exitJuniper_configuration(Juniper_configurationContext ctx) {
-    StringBuilder sb = new StringBuilder();
-    sb.append(_header);
-    for (String setStatement : _setStatements) {
-      sb.append(setStatement + "\n");
-    }
-    _flattenedConfigurationText = sb.toString();
+    _flattenedConfigurationText = _flattenedConfiguration.toString();
   }
 
   @Override
   public void exitStatement(StatementContext ctx) {
     if (_inactiveStatement == null) {
-      _stack.remove(_stack.size() - 1);
+      _prefix.setLength(_prefixLengths.remove(_prefixLengths.size() - 1));
     } else if (_inactiveStatement == ctx) {
       _inactiveStatement = null;
     }
@@ -81,22 +74,13 @@ public class JuniperFlattener extends JuniperParserBaseListener {
   @Override
   public void exitTerminator(TerminatorContext ctx) {
     if (_inactiveStatement == null) {
-      StringBuilder sb = new StringBuilder();
-      sb.append("set");
-      for (List<String> prefix : _stack) {
-        for (String word : prefix) {
-          sb.append(" " + word);
-        }
-      }
-      String setStatementBase = sb.toString();
       if (_currentBracketedWords != null) {
         for (String bracketedWord : _currentBracketedWords) {
-          String setStatement = setStatementBase + " " + bracketedWord;
-          _setStatements.add(setStatement);
+          _flattenedConfiguration.append(_prefix).append(' ').append(bracketedWord).append('\n');
         }
         _currentBracketedWords = null;
       } else {
-        _setStatements.add(setStatementBase);
+        _flattenedConfiguration.append(_prefix).append('\n');
       }
     }
   }
@@ -108,7 +92,7 @@ public class JuniperFlattener extends JuniperParserBaseListener {
       if (_inBrackets) {
         _currentBracketedWords.add(word);
       } else {
-        _currentStatement.add(word);
+        _prefix.append(' ').append(word);
       }
     }
   }
@@ -14,4 +14,12 @@ public abstract class BatfishJob<R extends BatfishJobResult<?, ?>> implements Ca
     _settings = settings;
     _logger = new BatfishLogger(_settings.getLogLevel(), _settings.getTimestamp());
   }
+
+  /**
+   * Returns how long this job is expected to run, relative to other jobs of the same kind, e.g. the
+   * size of its input. Jobs expected to run longest are started first. Returns 0 if unknown.
+   */
+  public long getExpectedCost() {
+    return 0L;
+  }
 }
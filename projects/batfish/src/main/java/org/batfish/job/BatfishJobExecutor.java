@@ -1,12 +1,19 @@
 package org.batfish.job;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.batfish.common.BatfishException;
@@ -20,9 +27,16 @@ import org.batfish.main.Driver;
 /**
  * Class to execute a list of jobs in a thread pool of adaptable size using {@link Executors}. The
  * execution can be forced to be sequential by setting the appropriate property in {@link Settings}
+ *
+ * <p>Jobs expected to run longest, according to {@link BatfishJob#getExpectedCost()}, are started
+ * first, so that a few large jobs do not start last and hold up the whole batch. Thread pools are
+ * shared by all batches and kept for the life of the process.
  */
 public class BatfishJobExecutor {
 
+  /* Thread pools shared by all batches of jobs, by number of threads */
+  private static final ConcurrentMap<Integer, ExecutorService> POOLS = new ConcurrentHashMap<>();
+
   private final BatfishLogger _logger;
 
   private final Settings _settings;
@@ -102,15 +116,23 @@ public class BatfishJobExecutor {
           String description) {
 
     // Initializing executors
-    ExecutorService pool = createExecutorService();
+    ExecutorService pool = getExecutorService();
     ExecutorCompletionService<JobResultT> completionService = new ExecutorCompletionService<>(pool);
 
-    if (!_settings.getSequential() && _settings.getShuffleJobs()) {
-      Collections.shuffle(jobs);
+    if (!_settings.getSequential()) {
+      if (_settings.getShuffleJobs()) {
+        Collections.shuffle(jobs);
+      }
+      // an expected cost may take a file system call to compute, so get each one only once
+      Map<JobT, Long> expectedCosts = new IdentityHashMap<>();
+      jobs.forEach(job -> expectedCosts.put(job, job.getExpectedCost()));
+      // stable, so shuffled jobs with equal expected costs stay shuffled
+      jobs.sort(Comparator.comparing(expectedCosts::get, Comparator.reverseOrder()));
     }
 
+    List<Future<JobResultT>> futures = new ArrayList<>();
     for (JobT job : jobs) {
-      completionService.submit(job);
+      futures.add(completionService.submit(job));
     }
 
     initializeJobsStats(jobs, description);
@@ -137,7 +159,10 @@ public class BatfishJobExecutor {
         }
       }
     } finally {
-      pool.shutdown();
+      // the pool is shared, so jobs left after a failure must not keep it busy
+      for (Future<JobResultT> future : futures) {
+        future.cancel(false);
+      }
     }
 
     if (processingError) {
@@ -147,14 +172,24 @@ public class BatfishJobExecutor {
     }
   }
 
-  private ExecutorService createExecutorService() {
+  private ExecutorService getExecutorService() {
+    int numConcurrentThreads;
     if (_settings.getSequential()) {
-      return Executors.newSingleThreadExecutor();
+      numConcurrentThreads = 1;
+    } else {
+      // if parallel processing is allowed
+      int maxConcurrentThreads = Runtime.getRuntime().availableProcessors();
+      numConcurrentThreads = Math.min(maxConcurrentThreads, _settings.getJobs());
     }
-    // if parallel processing is allowed
-    int maxConcurrentThreads = Runtime.getRuntime().availableProcessors();
-    int numConcurrentThreads = Math.min(maxConcurrentThreads, _settings.getJobs());
-    return Executors.newFixedThreadPool(numConcurrentThreads);
+    return POOLS.computeIfAbsent(
+        numConcurrentThreads,
+        n ->
+            Executors.newFixedThreadPool(
+                n,
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("batfish-job-" + n + "-%d")
+                    .build()));
   }
 
   <
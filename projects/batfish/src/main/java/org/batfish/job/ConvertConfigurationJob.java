@@ -17,18 +17,34 @@ public class ConvertConfigurationJob extends BatfishJob<ConvertConfigurationResu
 
   private Object _configObject;
 
+  private long _expectedCost;
+
   private String _name;
 
   private Warnings _warnings;
 
   public ConvertConfigurationJob(
       Settings settings, Object configObject, String name, Warnings warnings) {
+    this(settings, configObject, name, warnings, 0L);
+  }
+
+  /**
+   * Creates a job with an expected cost, such as the size of the serialized vendor configuration.
+   */
+  public ConvertConfigurationJob(
+      Settings settings, Object configObject, String name, Warnings warnings, long expectedCost) {
     super(settings);
     _configObject = configObject;
+    _expectedCost = expectedCost;
     _name = name;
     _warnings = warnings;
   }
 
+  @Override
+  public long getExpectedCost() {
+    return _expectedCost;
+  }
+
   @Override
   public ConvertConfigurationResult call() throws Exception {
     long startTime = System.currentTimeMillis();
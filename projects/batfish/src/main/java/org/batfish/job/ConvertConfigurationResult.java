@@ -57,6 +57,7 @@ public class ConvertConfigurationResult
       BatfishLogger logger,
       ConvertConfigurationAnswerElement answerElement) {
     appendHistory(logger);
+    answerElement.getConvertTimes().put(_name, getElapsedTime());
     if (_configurations != null) {
       for (Entry<String, Configuration> hostConfig : _configurations.entrySet()) {
         String hostname = hostConfig.getKey();
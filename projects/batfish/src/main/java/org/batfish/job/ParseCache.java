@@ -0,0 +1,167 @@
+package org.batfish.job;
+
+import com.google.common.base.Suppliers;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import org.batfish.common.ParseTreeSentences;
+import org.batfish.common.Warnings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.vendor.VendorConfiguration;
+
+/**
+ * Results of parsing configuration files, kept on local disk and keyed by the content of each file.
+ *
+ * <p>Testrigs uploaded to the same container are usually mostly identical, e.g. nightly snapshots
+ * of the same network, so most of their files need not be parsed again. An entry is keyed by a hash
+ * of the file text, its path relative to the testrig and its configuration format, together with a
+ * key of everything else that affects parsing, such as the Batfish version, the build of the parsers
+ * and the parse settings.
+ * Only successful parses are stored. Entries that cannot be read are treated as missing.
+ */
+public final class ParseCache {
+
+  /** What is kept of a successful parse of a configuration file. */
+  public static final class Entry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ParseTreeSentences _parseTree;
+
+    private final VendorConfiguration _vendorConfiguration;
+
+    private final Warnings _warnings;
+
+    public Entry(
+        VendorConfiguration vendorConfiguration, Warnings warnings, ParseTreeSentences parseTree) {
+      _parseTree = parseTree;
+      _vendorConfiguration = vendorConfiguration;
+      _warnings = warnings;
+    }
+
+    public ParseTreeSentences getParseTree() {
+      return _parseTree;
+    }
+
+    public VendorConfiguration getVendorConfiguration() {
+      return _vendorConfiguration;
+    }
+
+    public Warnings getWarnings() {
+      return _warnings;
+    }
+  }
+
+  private static final Supplier<String> BUILD_FINGERPRINT =
+      Suppliers.memoize(ParseCache::computeBuildFingerprint);
+
+  /*
+   * Returns the fingerprint of the build of the parsers, or null if it cannot be determined
+   */
+  private static @Nullable String computeBuildFingerprint() {
+    try {
+      CodeSource source = ParseCache.class.getProtectionDomain().getCodeSource();
+      return source == null ? null : getBuildFingerprint(Paths.get(source.getLocation().toURI()));
+    } catch (IOException | URISyntaxException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a fingerprint of the build of the grammars and extractors, or null if it cannot be
+   * determined. Rebuilding them changes the fingerprint even if the Batfish version stays the same,
+   * so it belongs in the settings key of any cache.
+   */
+  public static @Nullable String getBuildFingerprint() {
+    return BUILD_FINGERPRINT.get();
+  }
+
+  /**
+   * Returns a fingerprint of the classes at {@code location}: the size and modification time of a
+   * jar, or the latest modification time of the files in a directory of classes.
+   */
+  static String getBuildFingerprint(Path location) throws IOException {
+    if (!Files.isDirectory(location)) {
+      return Files.size(location) + "@" + Files.getLastModifiedTime(location).toMillis();
+    }
+    try (Stream<Path> files = Files.walk(location)) {
+      return Long.toString(files.mapToLong(file -> file.toFile().lastModified()).max().orElse(0L));
+    }
+  }
+
+  private final Path _dir;
+
+  private final String _settingsKey;
+
+  /**
+   * Creates a cache stored in {@code dir}, whose entries are only valid for parses done with the
+   * same {@code settingsKey}.
+   */
+  public ParseCache(Path dir, String settingsKey) {
+    _dir = dir;
+    _settingsKey = settingsKey;
+  }
+
+  /** Returns the key of the parse of {@code fileText}, found at {@code relativePath}. */
+  public String getKey(String relativePath, ConfigurationFormat format, String fileText) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (String part : new String[] {_settingsKey, relativePath, format.toString(), fileText}) {
+      hasher.putInt(part.length());
+      hasher.putString(part, StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /** Returns the entry stored with {@code key}, or null if there is no readable one. */
+  public @Nullable Entry load(String key) {
+    Path file = _dir.resolve(key);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+      return (Entry) in.readObject();
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Stores {@code entry} with {@code key}. Other processes see either the whole entry or none of
+   * it.
+   *
+   * @throws IOException if the entry could not be written
+   */
+  public void store(String key, Entry entry) throws IOException {
+    Files.createDirectories(_dir);
+    Path tmpFile = Files.createTempFile(_dir, key, ".tmp");
+    try {
+      try (ObjectOutputStream out =
+          new ObjectOutputStream(new GZIPOutputStream(Files.newOutputStream(tmpFile)))) {
+        out.writeObject(entry);
+      }
+      Files.move(
+          tmpFile,
+          _dir.resolve(key),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+}
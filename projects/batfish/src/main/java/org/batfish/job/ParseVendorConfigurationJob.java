@@ -1,8 +1,11 @@
 package org.batfish.job;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.batfish.common.BatfishException;
 import org.batfish.common.ParseTreeSentences;
@@ -67,22 +70,49 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
 
   private ConfigurationFormat _format;
 
+  @Nullable private ParseCache _parseCache;
+
   private ParseTreeSentences _ptSentences;
 
   private Warnings _warnings;
 
+  /** Creates a job that reads {@code file} when it is run. */
+  public ParseVendorConfigurationJob(
+      Settings settings,
+      Path file,
+      Warnings warnings,
+      ConfigurationFormat configurationFormat,
+      @Nullable ParseCache parseCache) {
+    this(settings, null, file, warnings, configurationFormat, parseCache);
+  }
+
   public ParseVendorConfigurationJob(
       Settings settings,
-      String fileText,
+      @Nullable String fileText,
       Path file,
       Warnings warnings,
-      ConfigurationFormat configurationFormat) {
+      ConfigurationFormat configurationFormat,
+      @Nullable ParseCache parseCache) {
     super(settings);
     _fileText = fileText;
     _file = file;
     _ptSentences = new ParseTreeSentences();
     _warnings = warnings;
     _format = configurationFormat;
+    _parseCache = parseCache;
+  }
+
+  /** Returns the length of the file, which is roughly proportional to the time to parse it. */
+  @Override
+  public long getExpectedCost() {
+    if (_fileText != null) {
+      return _fileText.length();
+    }
+    try {
+      return Files.size(_file);
+    } catch (IOException e) {
+      return 0L;
+    }
   }
 
   @SuppressWarnings("fallthrough")
@@ -97,6 +127,9 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     ControlPlaneExtractor extractor = null;
     ConfigurationFormat format = _format;
     _logger.info("Processing: '" + currentPath + "'\n");
+    if (_fileText == null) {
+      _fileText = Batfish.readConfigurationFile(_file);
+    }
 
     for (String s : _settings.ignoreFilesWithStrings()) {
       if (_fileText.contains(s)) {
@@ -108,6 +141,24 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     String relativePathStr =
         _settings.getActiveTestrigSettings().getBasePath().relativize(_file).toString();
 
+    String parseCacheKey = null;
+    if (_parseCache != null) {
+      parseCacheKey = _parseCache.getKey(relativePathStr, format, _fileText);
+      ParseCache.Entry entry = _parseCache.load(parseCacheKey);
+      if (entry != null) {
+        _logger.info("\tUnchanged since last parsed, using cached result\n");
+        Batfish.logWarnings(_logger, entry.getWarnings());
+        elapsedTime = System.currentTimeMillis() - startTime;
+        return new ParseVendorConfigurationResult(
+            elapsedTime,
+            _logger.getHistory(),
+            _file,
+            entry.getVendorConfiguration(),
+            entry.getWarnings(),
+            entry.getParseTree());
+      }
+    }
+
     if (format == ConfigurationFormat.UNKNOWN) {
       format = VendorConfigurationFormatDetector.identifyConfigurationFormat(_fileText);
     }
@@ -166,7 +217,7 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
         if (_settings.flattenOnTheFly()) {
           String msg =
               "Flattening: '"
-                  + currentPath
+                  + relativePathStr
                   + "' on-the-fly; line-numbers reported for this file will be spurious\n";
           _warnings.pedantic(msg);
           // _logger
@@ -204,7 +255,7 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
         if (_settings.flattenOnTheFly()) {
           String msg =
               "Flattening: '"
-                  + currentPath
+                  + relativePathStr
                   + "' on-the-fly; line-numbers reported for this file will be spurious\n";
           _warnings.pedantic(msg);
           // _logger
@@ -354,6 +405,13 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
               + "'\n");
       vc.setHostname(guessedHostname);
     }
+    if (_parseCache != null) {
+      try {
+        _parseCache.store(parseCacheKey, new ParseCache.Entry(vc, _warnings, _ptSentences));
+      } catch (IOException e) {
+        _logger.warn("Could not cache result of parsing: '" + relativePathStr + "': " + e + "\n");
+      }
+    }
     elapsedTime = System.currentTimeMillis() - startTime;
     return new ParseVendorConfigurationResult(
         elapsedTime, _logger.getHistory(), _file, vc, _warnings, _ptSentences);
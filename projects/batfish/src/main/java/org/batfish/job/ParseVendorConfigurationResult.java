@@ -85,6 +85,7 @@ public class ParseVendorConfigurationResult
         throw new BatfishException("Duplicate hostname: " + hostname);
       } else {
         vendorConfigurations.put(hostname, _vc);
+        answerElement.getParseTimes().put(hostname, getElapsedTime());
         if (!_warnings.isEmpty()) {
           answerElement.getWarnings().put(hostname, _warnings);
         }
@@ -101,6 +102,7 @@ public class ParseVendorConfigurationResult
     } else {
       String filename = _file.getFileName().toString();
       answerElement.getParseStatus().put(filename, _status);
+      answerElement.getParseTimes().put(filename, getElapsedTime());
       if (_status == ParseStatus.FAILED) {
         answerElement
             .getErrors()
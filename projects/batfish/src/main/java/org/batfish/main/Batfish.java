@@ -4,8 +4,13 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.io.File;
 import java.io.IOException;
@@ -16,8 +21,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -33,6 +40,10 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.regex.Matcher;
@@ -94,6 +105,7 @@ import org.batfish.datamodel.OspfArea;
 import org.batfish.datamodel.OspfNeighbor;
 import org.batfish.datamodel.OspfProcess;
 import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.ReachabilityEngine;
 import org.batfish.datamodel.RipNeighbor;
 import org.batfish.datamodel.RipProcess;
 import org.batfish.datamodel.SubRange;
@@ -139,11 +151,15 @@ import org.batfish.datamodel.questions.smt.HeaderLocationQuestion;
 import org.batfish.datamodel.questions.smt.HeaderQuestion;
 import org.batfish.grammar.BatfishCombinedParser;
 import org.batfish.grammar.BgpTableFormat;
+import org.batfish.grammar.DfaCache;
 import org.batfish.grammar.GrammarSettings;
 import org.batfish.grammar.ParseTreePrettyPrinter;
+import org.batfish.grammar.VendorConfigurationFormatDetector;
 import org.batfish.grammar.assertion.AssertionCombinedParser;
 import org.batfish.grammar.assertion.AssertionExtractor;
 import org.batfish.grammar.assertion.AssertionParser.AssertionContext;
+import org.batfish.grammar.cisco.CiscoCombinedParser;
+import org.batfish.grammar.flatjuniper.FlatJuniperCombinedParser;
 import org.batfish.grammar.juniper.JuniperCombinedParser;
 import org.batfish.grammar.juniper.JuniperFlattener;
 import org.batfish.grammar.topology.GNS3TopologyCombinedParser;
@@ -151,9 +167,11 @@ import org.batfish.grammar.topology.GNS3TopologyExtractor;
 import org.batfish.grammar.topology.TopologyExtractor;
 import org.batfish.grammar.vyos.VyosCombinedParser;
 import org.batfish.grammar.vyos.VyosFlattener;
+import org.batfish.job.BatfishJob;
 import org.batfish.job.BatfishJobExecutor;
 import org.batfish.job.ConvertConfigurationJob;
 import org.batfish.job.FlattenVendorConfigurationJob;
+import org.batfish.job.ParseCache;
 import org.batfish.job.ParseEnvironmentBgpTableJob;
 import org.batfish.job.ParseEnvironmentRoutingTableJob;
 import org.batfish.job.ParseVendorConfigurationJob;
@@ -162,16 +180,21 @@ import org.batfish.representation.host.HostConfiguration;
 import org.batfish.representation.iptables.IptablesVendorConfiguration;
 import org.batfish.role.InferRoles;
 import org.batfish.symbolic.abstraction.Roles;
+import org.batfish.symbolic.bdd.BDDFactorySupplier;
+import org.batfish.symbolic.bdd.BDDReachabilityAnalysis;
+import org.batfish.symbolic.smt.EncoderSession;
 import org.batfish.symbolic.smt.PropertyChecker;
 import org.batfish.vendor.VendorConfiguration;
 import org.batfish.z3.AclLine;
 import org.batfish.z3.AclReachabilityQuerySynthesizer;
+import org.batfish.z3.BDDReachabilityJob;
 import org.batfish.z3.BlacklistDstIpQuerySynthesizer;
 import org.batfish.z3.CompositeNodJob;
 import org.batfish.z3.EarliestMoreGeneralReachableLineQuerySynthesizer;
 import org.batfish.z3.MultipathInconsistencyQuerySynthesizer;
 import org.batfish.z3.NodFirstUnsatJob;
 import org.batfish.z3.NodJob;
+import org.batfish.z3.NodJobResult;
 import org.batfish.z3.NodSatJob;
 import org.batfish.z3.QuerySynthesizer;
 import org.batfish.z3.ReachEdgeQuerySynthesizer;
@@ -186,10 +209,33 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private static final String BASE_TESTRIG_TAG = "BASE";
 
+  /*
+   * Held while loading a testrig into the shared caches, so that concurrent tasks on
+   * the same testrig load (and if needed repair) it only once. A thread may take the
+   * configuration lock while holding the data plane lock, never the other way round. Locks are
+   * weakly held, so a testrig's lock is dropped once no thread is using it.
+   */
+  private static final LoadingCache<TestrigSettings, Object> CONFIGURATION_LOAD_LOCKS =
+      newLoadLocks();
+
+  private static final LoadingCache<TestrigSettings, Object> DATA_PLANE_LOAD_LOCKS =
+      newLoadLocks();
+
   private static final String DELTA_TESTRIG_TAG = "DELTA";
 
   private static final String DIFFERENTIAL_FLOW_TAG = "DIFFERENTIAL";
 
+  /*
+   * How many network configuration files are parsed at a time per parse thread when serializing
+   * vendor configurations
+   */
+  private static final int PARSE_WINDOW_FILES_PER_THREAD = 8;
+
+  /* Bundled configurations parsed by warmUpParsers */
+  private static final String[] PARSER_WARMUP_CONFIGS = {"cisco_ios", "cisco_nxos", "juniper"};
+
+  private static final String PARSER_WARMUP_RESOURCE_PREFIX = "org/batfish/main/parser_warmup/";
+
   /** The name of the [optional] topology file within a test-rig */
   private static final String TOPOLOGY_FILENAME = "topology.net";
 
@@ -253,33 +299,27 @@ public class Batfish extends PluginConsumer implements IBatfish {
   }
 
   static void checkTopology(Map<String, Configuration> configurations, Topology topology) {
-    for (Edge edge : topology.getEdges()) {
-      if (!configurations.containsKey(edge.getNode1())) {
-        throw new BatfishException(
-            String.format("Topology contains a non-existent node '%s'", edge.getNode1()));
-      }
-      if (!configurations.containsKey(edge.getNode2())) {
+    // visit interfaces rather than edges, so broadcast domains are not expanded
+    SortedSet<NodeInterfacePair> interfaces = topology.getInterfaces();
+    for (NodeInterfacePair iface : interfaces) {
+      if (!configurations.containsKey(iface.getHostname())) {
         throw new BatfishException(
-            String.format("Topology contains a non-existent node '%s'", edge.getNode2()));
+            String.format("Topology contains a non-existent node '%s'", iface.getHostname()));
       }
-      // nodes are valid, now checking corresponding interfaces
-      Configuration config1 = configurations.get(edge.getNode1());
-      Configuration config2 = configurations.get(edge.getNode2());
-      if (!config1.getInterfaces().containsKey(edge.getInt1())) {
-        throw new BatfishException(
-            String.format(
-                "Topology contains a non-existent interface '%s' on node '%s'",
-                edge.getInt1(), edge.getNode1()));
-      }
-      if (!config2.getInterfaces().containsKey(edge.getInt2())) {
+    }
+    // nodes are valid, now checking corresponding interfaces
+    for (NodeInterfacePair iface : interfaces) {
+      Configuration config = configurations.get(iface.getHostname());
+      if (!config.getInterfaces().containsKey(iface.getInterface())) {
         throw new BatfishException(
             String.format(
                 "Topology contains a non-existent interface '%s' on node '%s'",
-                edge.getInt2(), edge.getNode2()));
+                iface.getInterface(), iface.getHostname()));
       }
     }
   }
 
+
   public static String flatten(
       String input,
       BatfishLogger logger,
@@ -394,6 +434,25 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return "   " + warning.getTag() + ": " + warning.getText() + "\n";
   }
 
+  /** Logs the size and hit rate of the DFA cache of each grammar used so far. */
+  public static void logDfaCaches(BatfishLogger logger) {
+    logger.info("\n*** DFA CACHES ***\n");
+    for (DfaCache dfaCache : DfaCache.getCaches()) {
+      logger.infof("%s\n", dfaCache);
+    }
+  }
+
+  /** Returns the text of a configuration file, followed by a newline unless it is empty. */
+  /* Creates a lock per testrig that is kept only while some thread still refers to it */
+  private static LoadingCache<TestrigSettings, Object> newLoadLocks() {
+    return CacheBuilder.newBuilder().weakValues().build(CacheLoader.from(t -> new Object()));
+  }
+
+  public static String readConfigurationFile(Path file) {
+    String fileTextRaw = CommonUtil.readFile(file.toAbsolutePath());
+    return fileTextRaw + ((fileTextRaw.length() != 0) ? "\n" : "");
+  }
+
   public static ParserRuleContext parse(
       BatfishCombinedParser<?, ?> parser, BatfishLogger logger, Settings settings) {
     ParserRuleContext tree;
@@ -401,6 +460,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
       tree = parser.parse();
     } catch (BatfishException e) {
       throw new ParserBatfishException("Parser error", e);
+    } finally {
+      int maxDfaCacheSize = settings.getMaxDfaCacheSize();
+      parser.updateDfaCaches(maxDfaCacheSize > 0 ? maxDfaCacheSize : Long.MAX_VALUE);
     }
     List<String> errors = parser.getErrors();
     int numErrors = errors.size();
@@ -422,6 +484,59 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return tree;
   }
 
+  /**
+   * Parses a bundled sample of configurations in the most common formats, so that the DFA caches
+   * shared by all lexers and parsers of their grammars already hold the predictions for typical
+   * input. Meant to be called when a long-running worker starts, so that its first parse jobs do
+   * not pay for building them. Failures are logged and otherwise ignored.
+   */
+  @SuppressWarnings("fallthrough")
+  public static void warmUpParsers(Settings settings, BatfishLogger logger) {
+    logger.info("\n*** WARMING UP PARSERS ***\n");
+    logger.resetTimer();
+    for (String name : PARSER_WARMUP_CONFIGS) {
+      try {
+        String text = CommonUtil.readResource(PARSER_WARMUP_RESOURCE_PREFIX + name);
+        ConfigurationFormat format =
+            VendorConfigurationFormatDetector.identifyConfigurationFormat(text);
+        switch (format) {
+          case ARISTA:
+          case CADANT:
+          case CISCO_ASA:
+          case CISCO_IOS:
+          case CISCO_IOS_XR:
+          case CISCO_NX:
+          case FORCE10:
+          case FOUNDRY:
+            parse(new CiscoCombinedParser(text, settings, format), logger, settings);
+            break;
+
+          case JUNIPER:
+            text =
+                flatten(
+                    text,
+                    logger,
+                    settings,
+                    format,
+                    VendorConfigurationFormatDetector.BATFISH_FLATTENED_JUNIPER_HEADER);
+            // fall through
+          case FLAT_JUNIPER:
+            parse(new FlatJuniperCombinedParser(text, settings), logger, settings);
+            break;
+
+            // $CASES-OMITTED$
+          default:
+            throw new BatfishException("No parser to warm up for format: " + format);
+        }
+      } catch (BatfishException e) {
+        logger.warnf(
+            "Could not warm up parsers with '%s': %s\n", name, ExceptionUtils.getFullStackTrace(e));
+      }
+    }
+    logger.printElapsedTime();
+    logDfaCaches(logger);
+  }
+
   private final Map<String, BiFunction<Question, IBatfish, Answerer>> _answererCreators;
 
   private TestrigSettings _baseTestrigSettings;
@@ -442,6 +557,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private TestrigSettings _deltaTestrigSettings;
 
+  private final Map<TestrigSettings, EncoderSession> _encoderSessions;
+
   private Set<ExternalBgpAdvertisementPlugin> _externalBgpAdvertisementPlugins;
 
   private BatfishLogger _logger;
@@ -465,13 +582,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Map<EnvironmentSettings, SortedMap<String, BgpAdvertisementsByVrf>>
           cachedEnvironmentBgpTables,
       Map<EnvironmentSettings, SortedMap<String, RoutesByVrf>> cachedEnvironmentRoutingTables) {
-    super(settings.getSerializeToText());
+    super(settings.getSerializeToText(), settings.getSerializationFormat());
     _settings = settings;
     _bgpTablePlugins = new TreeMap<>();
     _cachedConfigurations = cachedConfigurations;
     _cachedEnvironmentBgpTables = cachedEnvironmentBgpTables;
     _cachedEnvironmentRoutingTables = cachedEnvironmentRoutingTables;
     _cachedDataPlanes = cachedDataPlanes;
+    _encoderSessions = new HashMap<>();
     _externalBgpAdvertisementPlugins = new TreeSet<>();
     _testrigSettings = settings.getActiveTestrigSettings();
     _baseTestrigSettings = settings.getBaseTestrigSettings();
@@ -862,6 +980,16 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return flows;
   }
 
+  private BDDReachabilityAnalysis computeBddReachabilityAnalysis() {
+    _logger.info("\n*** COMPUTING BDD REACHABILITY ***\n");
+    _logger.resetTimer();
+    BDDReachabilityAnalysis analysis =
+        new BDDReachabilityAnalysis(
+            loadConfigurations(), loadDataPlane(), getBddFactorySupplier().get());
+    _logger.printElapsedTime();
+    return analysis;
+  }
+
   private Answer computeDataPlane(boolean differentialContext) {
     checkEnvironmentExists();
     return _dataPlanePlugin.computeDataPlane(differentialContext);
@@ -913,13 +1041,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Map<String, Configuration> configurations, Topology topology) {
     // TODO: confirm VRFs are handled correctly
     ImmutableSet.Builder<NodeInterfacePair> flowSinksBuilder = new ImmutableSet.Builder<>();
-    ImmutableSet.Builder<NodeInterfacePair> topologyInterfacesBuilder =
-        new ImmutableSet.Builder<>();
-    for (Edge edge : topology.getEdges()) {
-      topologyInterfacesBuilder.add(edge.getInterface1());
-      topologyInterfacesBuilder.add(edge.getInterface2());
-    }
-    Set<NodeInterfacePair> topologyInterfaces = topologyInterfacesBuilder.build();
+    Set<NodeInterfacePair> topologyInterfaces = topology.getInterfaces();
     for (Configuration node : configurations.values()) {
       String hostname = node.getHostname();
       for (Interface iface : node.getInterfaces().values()) {
@@ -950,7 +1072,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _logger.printElapsedTime();
   }
 
-  public Set<Flow> computeNodOutput(List<NodJob> jobs) {
+  public Set<Flow> computeNodOutput(List<? extends BatfishJob<NodJobResult>> jobs) {
     _logger.info("\n*** EXECUTING NOD JOBS ***\n");
     _logger.resetTimer();
     Set<Flow> flows = new TreeSet<>();
@@ -974,8 +1096,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
     Topology topology = computeTopology(_testrigSettings.getTestRigPath(), configurations);
     SortedSet<Edge> blacklistEdges = getEdgeBlacklist();
     if (blacklistEdges != null) {
-      SortedSet<Edge> edges = topology.getEdges();
-      edges.removeAll(blacklistEdges);
+      for (Edge blacklistEdge : blacklistEdges) {
+        topology.removeEdge(blacklistEdge);
+      }
     }
     SortedSet<String> blacklistNodes = getNodeBlacklist();
     if (blacklistNodes != null) {
@@ -989,9 +1112,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
         topology.removeInterface(blacklistInterface);
       }
     }
-    Topology prunedTopology = new Topology(topology.getEdges());
     _logger.printElapsedTime();
-    return prunedTopology;
+    return topology;
   }
 
   private Topology computeTopology(Path testRigPath, Map<String, Configuration> configurations) {
@@ -1010,6 +1132,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private Map<String, Configuration> convertConfigurations(
       Map<String, GenericConfigObject> vendorConfigurations,
+      Map<String, Long> expectedCosts,
       ConvertConfigurationAnswerElement answerElement) {
     _logger.info("\n*** CONVERTING VENDOR CONFIGURATIONS TO INDEPENDENT FORMAT ***\n");
     _logger.resetTimer();
@@ -1018,8 +1141,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
     for (Entry<String, GenericConfigObject> config : vendorConfigurations.entrySet()) {
       Warnings warnings = buildWarnings();
       GenericConfigObject vc = config.getValue();
+      String name = config.getKey();
       ConvertConfigurationJob job =
-          new ConvertConfigurationJob(_settings, vc, config.getKey(), warnings);
+          new ConvertConfigurationJob(
+              _settings, vc, name, warnings, expectedCosts.getOrDefault(name, 0L));
       jobs.add(job);
     }
     BatfishJobExecutor.runJobsInExecutor(
@@ -1109,26 +1234,31 @@ public class Batfish extends PluginConsumer implements IBatfish {
     Map<String, byte[]> dataByName = new TreeMap<>();
     AtomicInteger readCompleted =
         newBatch(
-            "Reading and unpacking files containg '" + outputClassName + "' instances",
-            namesByPath.size());
+            "Reading files containing '" + outputClassName + "' instances", namesByPath.size());
     namesByPath.forEach(
         (inputPath, name) -> {
           logger.debug(
-              "Reading and gunzipping: "
+              "Reading: "
                   + outputClassName
                   + " '"
                   + name
                   + "' from '"
                   + inputPath.toString()
                   + "'");
-          byte[] data = fromGzipFile(inputPath);
+          byte[] data;
+          try {
+            data = Files.readAllBytes(inputPath);
+          } catch (IOException e) {
+            throw new BatfishException("Failed to read: '" + inputPath + "'", e);
+          }
           logger.debug(" ...OK\n");
           dataByName.put(name, data);
           readCompleted.incrementAndGet();
         });
     Map<String, S> unsortedOutput = new ConcurrentHashMap<>();
     AtomicInteger deserializeCompleted =
-        newBatch("Deserializing '" + outputClassName + "' instances", dataByName.size());
+        newBatch(
+            "Unpacking and deserializing '" + outputClassName + "' instances", dataByName.size());
     dataByName
         .keySet()
         .parallelStream()
@@ -1315,7 +1445,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     Map<NodeInterfacePair, Set<NodeInterfacePair>> interfaceMap = new HashMap<>();
     // first we collect set of all mentioned nodes, and build mapping from
     // each interface to the set of interfaces that connect to each other
-    for (Edge edge : topology.getEdges()) {
+    for (Edge edge : topology.getExplicitEdges()) {
       allNodes.add(edge.getNode1());
       allNodes.add(edge.getNode2());
       NodeInterfacePair interface1 = new NodeInterfacePair(edge.getNode1(), edge.getInt1());
@@ -1329,6 +1459,21 @@ public class Batfish extends PluginConsumer implements IBatfish {
       interfaceSet.add(interface1);
       interfaceSet.add(interface2);
     }
+    // all interfaces of a broadcast domain connect to each other
+    for (SortedSet<NodeInterfacePair> broadcastDomain : topology.getBroadcastDomains()) {
+      if (broadcastDomain.size() < 2) {
+        continue;
+      }
+      Set<NodeInterfacePair> interfaceSet = interfaceMap.get(broadcastDomain.first());
+      if (interfaceSet == null) {
+        interfaceSet = new HashSet<>();
+      }
+      for (NodeInterfacePair iface : broadcastDomain) {
+        allNodes.add(iface.getHostname());
+        interfaceMap.put(iface, interfaceSet);
+        interfaceSet.add(iface);
+      }
+    }
     // then we create configs for every mentioned node
     for (String hostname : allNodes) {
       Configuration config = new Configuration(hostname, ConfigurationFormat.CISCO_IOS);
@@ -1570,17 +1715,37 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Path serializedVendorConfigPath, ConvertConfigurationAnswerElement answerElement) {
     Map<String, GenericConfigObject> vendorConfigurations =
         deserializeVendorConfigurations(serializedVendorConfigPath);
+    // a larger serialized vendor configuration usually takes longer to convert
+    Map<String, Long> expectedCosts = new HashMap<>();
+    for (String name : vendorConfigurations.keySet()) {
+      try {
+        expectedCosts.put(name, Files.size(serializedVendorConfigPath.resolve(name)));
+      } catch (IOException e) {
+        // no hint, so the job is started after those with one
+      }
+    }
     Map<String, Configuration> configurations =
-        convertConfigurations(vendorConfigurations, answerElement);
+        convertConfigurations(vendorConfigurations, expectedCosts, answerElement);
 
     postProcessConfigurations(configurations.values());
     return configurations;
   }
 
+  private BDDFactorySupplier getBddFactorySupplier() {
+    return new BDDFactorySupplier(_settings.getBddNodeTableSize(), _settings.getBddCacheSize());
+  }
+
   public DataPlanePlugin getDataPlanePlugin() {
     return _dataPlanePlugin;
   }
 
+  /*
+   * SMT encodings of the active testrig, shared by the questions this instance answers
+   */
+  private EncoderSession getEncoderSession() {
+    return _encoderSessions.computeIfAbsent(_testrigSettings, t -> new EncoderSession());
+  }
+
   @Override
   public DataPlanePluginSettings getDataPlanePluginSettings() {
     return _settings;
@@ -1834,6 +1999,43 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return dir;
   }
 
+  /*
+   * Returns the cache of configuration file parses for the current container, or null if there is
+   * no container or the build of the parsers cannot be identified
+   */
+  private @Nullable ParseCache getParseCache() {
+    Path containerDir = _settings.getContainerDir();
+    String buildFingerprint = ParseCache.getBuildFingerprint();
+    if (containerDir == null || buildFingerprint == null) {
+      return null;
+    }
+    // everything besides the file itself that affects the result of parsing it
+    String settingsKey =
+        Arrays.asList(
+                Version.getVersion(),
+                buildFingerprint,
+                _logger.getLogLevel(),
+                _settings.getDisableUnrecognized(),
+                _settings.flattenOnTheFly(),
+                _settings.ignoreFilesWithStrings(),
+                _settings.ignoreUnknown(),
+                _settings.ignoreUnsupported(),
+                _settings.getMaxParserContextLines(),
+                _settings.getMaxParserContextTokens(),
+                _settings.getPedanticAsError(),
+                _settings.getPedanticRecord(),
+                _settings.getPrintParseTree(),
+                _settings.getRedFlagAsError(),
+                _settings.getRedFlagRecord(),
+                _settings.getThrowOnLexerError(),
+                _settings.getThrowOnParserError(),
+                _settings.getUnimplementedAsError(),
+                _settings.getUnimplementedRecord(),
+                _settings.getUnrecognizedAsRedFlag())
+            .toString();
+    return new ParseCache(containerDir.resolve(BfConsts.RELPATH_PARSE_CACHE_DIR), settingsKey);
+  }
+
   public String getTestrigName() {
     return _testrigSettings.getName();
   }
@@ -2162,10 +2364,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
               String ifaceName = e4.getKey();
               Interface iface = e4.getValue();
               SortedSet<Edge> ifaceEdges =
-                  topology.getInterfaceEdges().get(new NodeInterfacePair(hostname, ifaceName));
+                  topology.getInterfaceEdges(new NodeInterfacePair(hostname, ifaceName));
               boolean hasNeighbor = false;
               Ip localIp = iface.getPrefix().getAddress();
-              if (ifaceEdges != null) {
+              if (!ifaceEdges.isEmpty()) {
                 for (Edge edge : ifaceEdges) {
                   if (edge.getNode1().equals(hostname)) {
                     String remoteHostname = edge.getNode2();
@@ -2245,10 +2447,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
           for (String ifaceName : proc.getInterfaces()) {
             Interface iface = vrf.getInterfaces().get("ifaceName");
             SortedSet<Edge> ifaceEdges =
-                topology.getInterfaceEdges().get(new NodeInterfacePair(hostname, ifaceName));
+                topology.getInterfaceEdges(new NodeInterfacePair(hostname, ifaceName));
             boolean hasNeighbor = false;
             Ip localIp = iface.getPrefix().getAddress();
-            if (ifaceEdges != null) {
+            if (!ifaceEdges.isEmpty()) {
               for (Edge edge : ifaceEdges) {
                 if (edge.getNode1().equals(hostname)) {
                   String remoteHostname = edge.getNode2();
@@ -2324,14 +2526,20 @@ public class Batfish extends PluginConsumer implements IBatfish {
   private SortedMap<String, Configuration> loadConfigurationsWithoutValidation() {
     SortedMap<String, Configuration> configurations =
         _cachedConfigurations.getIfPresent(_testrigSettings);
-    if (configurations == null) {
-      ConvertConfigurationAnswerElement ccae = loadConvertConfigurationAnswerElement();
-      if (!Version.isCompatibleVersion(
-          "Service", "Old processed configurations", ccae.getVersion())) {
-        repairConfigurations();
+    if (configurations != null) {
+      return configurations;
+    }
+    synchronized (CONFIGURATION_LOAD_LOCKS.getUnchecked(_testrigSettings)) {
+      configurations = _cachedConfigurations.getIfPresent(_testrigSettings);
+      if (configurations == null) {
+        ConvertConfigurationAnswerElement ccae = loadConvertConfigurationAnswerElement();
+        if (!Version.isCompatibleVersion(
+            "Service", "Old processed configurations", ccae.getVersion())) {
+          repairConfigurations();
+        }
+        configurations = deserializeConfigurations(_testrigSettings.getSerializeIndependentPath());
+        _cachedConfigurations.put(_testrigSettings, configurations);
       }
-      configurations = deserializeConfigurations(_testrigSettings.getSerializeIndependentPath());
-      _cachedConfigurations.put(_testrigSettings, configurations);
     }
     return configurations;
   }
@@ -2364,20 +2572,26 @@ public class Batfish extends PluginConsumer implements IBatfish {
   @Override
   public DataPlane loadDataPlane() {
     DataPlane dp = _cachedDataPlanes.getIfPresent(_testrigSettings);
-    if (dp == null) {
-      /*
-       * Data plane should exist after loading answer element, as it triggers
-       * repair if necessary. However, it might not be cached if it was not
-       * repaired, so we still might need to load it from disk.
-       */
-      loadDataPlaneAnswerElement();
+    if (dp != null) {
+      return dp;
+    }
+    synchronized (DATA_PLANE_LOAD_LOCKS.getUnchecked(_testrigSettings)) {
       dp = _cachedDataPlanes.getIfPresent(_testrigSettings);
       if (dp == null) {
-        newBatch("Loading data plane from disk", 0);
-        dp =
-            deserializeObject(
-                _testrigSettings.getEnvironmentSettings().getDataPlanePath(), DataPlane.class);
-        _cachedDataPlanes.put(_testrigSettings, dp);
+        /*
+         * Data plane should exist after loading answer element, as it triggers
+         * repair if necessary. However, it might not be cached if it was not
+         * repaired, so we still might need to load it from disk.
+         */
+        loadDataPlaneAnswerElement();
+        dp = _cachedDataPlanes.getIfPresent(_testrigSettings);
+        if (dp == null) {
+          newBatch("Loading data plane from disk", 0);
+          dp =
+              deserializeObject(
+                  _testrigSettings.getEnvironmentSettings().getDataPlanePath(), DataPlane.class);
+          _cachedDataPlanes.put(_testrigSettings, dp);
+        }
       }
     }
     return dp;
@@ -2599,8 +2813,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
   }
 
   @Override
-  public AnswerElement multipath(HeaderSpace headerSpace) {
-    if (SystemUtils.IS_OS_MAC_OSX) {
+  public AnswerElement multipath(HeaderSpace headerSpace, ReachabilityEngine engine) {
+    if (engine == ReachabilityEngine.NOD && SystemUtils.IS_OS_MAC_OSX) {
       // TODO: remove when z3 parallelism bug on OSX is fixed
       _settings.setSequential(true);
     }
@@ -2608,8 +2822,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
     String tag = getFlowTag(_testrigSettings);
     Map<String, Configuration> configurations = loadConfigurations();
     Set<Flow> flows = null;
-    Synthesizer dataPlaneSynthesizer = synthesizeDataPlane();
-    List<NodJob> jobs = new ArrayList<>();
+    Synthesizer dataPlaneSynthesizer =
+        engine == ReachabilityEngine.NOD ? synthesizeDataPlane() : null;
+    BDDReachabilityAnalysis bddAnalysis =
+        engine == ReachabilityEngine.BDD ? computeBddReachabilityAnalysis() : null;
+    List<BatfishJob<NodJobResult>> jobs = new ArrayList<>();
     configurations.forEach(
         (node, configuration) -> {
           for (String vrf : configuration.getVrfs().keySet()) {
@@ -2617,8 +2834,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
                 new MultipathInconsistencyQuerySynthesizer(node, vrf, headerSpace);
             SortedSet<Pair<String, String>> nodes = new TreeSet<>();
             nodes.add(new Pair<>(node, vrf));
-            NodJob job = new NodJob(settings, dataPlaneSynthesizer, query, nodes, tag);
-            jobs.add(job);
+            if (bddAnalysis != null) {
+              jobs.add(new BDDReachabilityJob(settings, bddAnalysis, query, nodes, tag));
+            } else {
+              jobs.add(new NodJob(settings, dataPlaneSynthesizer, query, nodes, tag));
+            }
           }
         });
 
@@ -2972,10 +3192,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Map<Path, String> configurationData,
       ParseVendorConfigurationAnswerElement answerElement,
       ConfigurationFormat configurationFormat) {
-    _logger.info("\n*** PARSING VENDOR CONFIGURATION FILES ***\n");
-    _logger.resetTimer();
-    SortedMap<String, VendorConfiguration> vendorConfigurations = new TreeMap<>();
     List<ParseVendorConfigurationJob> jobs = new ArrayList<>();
+    ParseCache parseCache = getParseCache();
     for (Entry<Path, String> vendorFile : configurationData.entrySet()) {
       Path currentFile = vendorFile.getKey();
       String fileText = vendorFile.getValue();
@@ -2983,9 +3201,41 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Warnings warnings = buildWarnings();
       ParseVendorConfigurationJob job =
           new ParseVendorConfigurationJob(
-              _settings, fileText, currentFile, warnings, configurationFormat);
+              _settings, fileText, currentFile, warnings, configurationFormat, parseCache);
       jobs.add(job);
     }
+    return parseVendorConfigurations(jobs, answerElement);
+  }
+
+  /* Parses configuration files, each read by the job that parses it */
+  private SortedMap<String, VendorConfiguration> parseVendorConfigurations(
+      List<Path> files,
+      ParseVendorConfigurationAnswerElement answerElement,
+      ConfigurationFormat configurationFormat) {
+    List<ParseVendorConfigurationJob> jobs = new ArrayList<>();
+    ParseCache parseCache = getParseCache();
+    for (Path file : files) {
+      jobs.add(
+          new ParseVendorConfigurationJob(
+              _settings, file, buildWarnings(), configurationFormat, parseCache));
+    }
+    return runParseJobs(jobs, answerElement);
+  }
+
+  private SortedMap<String, VendorConfiguration> parseVendorConfigurations(
+      List<ParseVendorConfigurationJob> jobs, ParseVendorConfigurationAnswerElement answerElement) {
+    _logger.info("\n*** PARSING VENDOR CONFIGURATION FILES ***\n");
+    _logger.resetTimer();
+    SortedMap<String, VendorConfiguration> vendorConfigurations =
+        runParseJobs(jobs, answerElement);
+    _logger.printElapsedTime();
+    return vendorConfigurations;
+  }
+
+  /* Runs parse jobs, leaving the banner and timing of the parsing phase to the caller */
+  private SortedMap<String, VendorConfiguration> runParseJobs(
+      List<ParseVendorConfigurationJob> jobs, ParseVendorConfigurationAnswerElement answerElement) {
+    SortedMap<String, VendorConfiguration> vendorConfigurations = new TreeMap<>();
     BatfishJobExecutor.runJobsInExecutor(
         _settings,
         _logger,
@@ -2994,7 +3244,6 @@ public class Batfish extends PluginConsumer implements IBatfish {
         answerElement,
         _settings.getHaltOnParseError(),
         "Parse configurations");
-    _logger.printElapsedTime();
     return vendorConfigurations;
   }
 
@@ -3417,9 +3666,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
         newBatch("Reading network configuration files", configFilePaths.size());
     for (Path file : configFilePaths) {
       _logger.debug("Reading: \"" + file + "\"\n");
-      String fileTextRaw = CommonUtil.readFile(file.toAbsolutePath());
-      String fileText = fileTextRaw + ((fileTextRaw.length() != 0) ? "\n" : "");
-      configurationData.put(file, fileText);
+      configurationData.put(file, readConfigurationFile(file));
       completed.incrementAndGet();
     }
     _logger.printElapsedTime();
@@ -3756,6 +4003,16 @@ public class Batfish extends PluginConsumer implements IBatfish {
   }
 
   public Answer run() {
+    try {
+      return runJob();
+    } finally {
+      // the z3 contexts of SMT encodings hold native memory, so release them with the job
+      _encoderSessions.values().forEach(EncoderSession::close);
+      _encoderSessions.clear();
+    }
+  }
+
+  private Answer runJob() {
     newBatch("Begin job", 0);
     loadPlugins();
     boolean action = false;
@@ -4075,49 +4332,97 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Path outputPath,
       ParseVendorConfigurationAnswerElement answerElement,
       SortedMap<String, VendorConfiguration> overlayHostConfigurations) {
-    Map<Path, String> configurationData =
-        readConfigurationFiles(testRigPath, BfConsts.RELPATH_CONFIGURATIONS_DIR);
-    Map<String, VendorConfiguration> vendorConfigurations =
-        parseVendorConfigurations(configurationData, answerElement, ConfigurationFormat.UNKNOWN);
-    if (vendorConfigurations == null) {
-      throw new BatfishException("Exiting due to parser errors");
-    }
-    _logger.info("\n*** SERIALIZING VENDOR CONFIGURATION STRUCTURES ***\n");
-    _logger.resetTimer();
+    List<Path> configFilePaths =
+        listAllFiles(testRigPath.resolve(BfConsts.RELPATH_CONFIGURATIONS_DIR));
+    /*
+     * Largest files first, so that each window holds files of similar sizes that its threads finish
+     * at about the same time, and no large file is left to be parsed alone at the end
+     */
+    Map<Path, Long> fileSizes = new HashMap<>();
+    configFilePaths.forEach(path -> fileSizes.put(path, path.toFile().length()));
+    configFilePaths.sort(Comparator.comparing(fileSizes::get, Comparator.reverseOrder()));
     CommonUtil.createDirectories(outputPath);
-    Map<Path, VendorConfiguration> output = new TreeMap<>();
-    vendorConfigurations.forEach(
-        (name, vc) -> {
-          if (name.contains(File.separator)) {
-            // iptables will get a hostname like configs/iptables-save if they
-            // are not set up correctly using host files
-            _logger.errorf("Cannot serialize configuration with hostname %s\n", name);
-            answerElement.addRedFlagWarning(
-                name,
-                new Warning(
-                    "Cannot serialize network config. Bad hostname " + name.replace("\\", "/"),
-                    "MISCELLANEOUS"));
-          } else {
-            // apply overlay if it exists
-            VendorConfiguration overlayConfig = overlayHostConfigurations.get(name);
-            if (overlayConfig != null) {
-              vc.setOverlayConfiguration(overlayConfig);
-              overlayHostConfigurations.remove(name);
-            }
+    /*
+     * Files are read, parsed and serialized a window at a time, so that the texts and vendor
+     * configurations in memory are bounded by the number of parse threads rather than by the size
+     * of the testrig. Each job reads its own file, and a window is serialized in the background
+     * while the next one is parsed.
+     */
+    int parseThreads =
+        _settings.getSequential()
+            ? 1
+            : Math.min(Runtime.getRuntime().availableProcessors(), _settings.getJobs());
+    int windowSize = PARSE_WINDOW_FILES_PER_THREAD * parseThreads;
+    Set<String> hostnames = new HashSet<>();
+    ExecutorService serializer = Executors.newSingleThreadExecutor();
+    Future<?> serialization = null;
+    _logger.info("\n*** PARSING VENDOR CONFIGURATION FILES ***\n");
+    _logger.resetTimer();
+    try {
+      for (List<Path> window : Lists.partition(configFilePaths, windowSize)) {
+        Map<String, VendorConfiguration> vendorConfigurations =
+            parseVendorConfigurations(window, answerElement, ConfigurationFormat.UNKNOWN);
+        Map<Path, VendorConfiguration> output = new TreeMap<>();
+        vendorConfigurations.forEach(
+            (name, vc) -> {
+              if (!hostnames.add(name)) {
+                throw new BatfishException("Duplicate hostname: " + name);
+              }
+              if (name.contains(File.separator)) {
+                // iptables will get a hostname like configs/iptables-save if they
+                // are not set up correctly using host files
+                _logger.errorf("Cannot serialize configuration with hostname %s\n", name);
+                answerElement.addRedFlagWarning(
+                    name,
+                    new Warning(
+                        "Cannot serialize network config. Bad hostname " + name.replace("\\", "/"),
+                        "MISCELLANEOUS"));
+              } else {
+                // apply overlay if it exists
+                VendorConfiguration overlayConfig = overlayHostConfigurations.get(name);
+                if (overlayConfig != null) {
+                  vc.setOverlayConfiguration(overlayConfig);
+                  overlayHostConfigurations.remove(name);
+                }
 
-            Path currentOutputPath = outputPath.resolve(name);
-            output.put(currentOutputPath, vc);
-          }
-        });
+                Path currentOutputPath = outputPath.resolve(name);
+                output.put(currentOutputPath, vc);
+              }
+            });
+        if (serialization == null) {
+          _logger.info("\n*** SERIALIZING VENDOR CONFIGURATION STRUCTURES ***\n");
+        }
+        awaitSerialization(serialization);
+        serialization = serializer.submit(() -> serializeObjects(output));
+      }
+      awaitSerialization(serialization);
+    } finally {
+      serializer.shutdownNow();
+    }
+    _logger.printElapsedTime();
+    logDfaCaches(_logger);
 
     // warn about unused overlays
     overlayHostConfigurations.forEach(
         (name, overlay) -> {
           answerElement.getParseStatus().put(name, ParseStatus.ORPHANED);
         });
+  }
 
-    serializeObjects(output);
-    _logger.printElapsedTime();
+  /* Waits for a background serialization, if any, and rethrows its failure */
+  private static void awaitSerialization(@Nullable Future<?> serialization) {
+    if (serialization == null) {
+      return;
+    }
+    try {
+      serialization.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BatfishException("Interrupted while serializing vendor configurations", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new BatfishException("Error serializing vendor configurations", e.getCause());
+    }
   }
 
   public <S extends Serializable> void serializeObjects(Map<Path, S> objectsByPath) {
@@ -4135,12 +4440,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
         .forEach(
             outputPath -> {
               S object = objectsByPath.get(outputPath);
-              byte[] gzipData = toGzipData(object);
-              dataByPath.put(outputPath, gzipData);
+              byte[] data = toSerializedData(object);
+              dataByPath.put(outputPath, data);
               serializeCompleted.incrementAndGet();
             });
-    AtomicInteger writeCompleted =
-        newBatch("Packing and writing '" + className + "' instances to disk", size);
+    AtomicInteger writeCompleted = newBatch("Writing '" + className + "' instances to disk", size);
     dataByPath.forEach(
         (outputPath, data) -> {
           logger.debug("Writing: \"" + outputPath + "\"...");
@@ -4212,7 +4516,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   @Override
   public AnswerElement smtBlackhole(HeaderQuestion q) {
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkBlackHole(q);
   }
 
@@ -4221,49 +4525,49 @@ public class Batfish extends PluginConsumer implements IBatfish {
     if (bound == null) {
       throw new BatfishException("Missing parameter length bound: (e.g., bound=3)");
     }
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkBoundedLength(q, bound);
   }
 
   @Override
   public AnswerElement smtDeterminism(HeaderQuestion q) {
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkDeterminism(q);
   }
 
   @Override
   public AnswerElement smtEqualLength(HeaderLocationQuestion q) {
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkEqualLength(q);
   }
 
   @Override
   public AnswerElement smtForwarding(HeaderQuestion q) {
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkForwarding(q);
   }
 
   @Override
   public AnswerElement smtLoadBalance(HeaderLocationQuestion q, int threshold) {
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkLoadBalancing(q, threshold);
   }
 
   @Override
   public AnswerElement smtLocalConsistency(Pattern routerRegex, boolean strict, boolean fullModel) {
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkLocalEquivalence(routerRegex, strict, fullModel);
   }
 
   @Override
   public AnswerElement smtMultipathConsistency(HeaderLocationQuestion q) {
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkMultipathConsistency(q);
   }
 
   @Override
   public AnswerElement smtReachability(HeaderLocationQuestion q) {
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkReachability(q);
   }
 
@@ -4271,13 +4575,13 @@ public class Batfish extends PluginConsumer implements IBatfish {
   public AnswerElement smtRoles(EquivalenceType t, String nodeRegex) {
     Pattern p = Pattern.compile(nodeRegex);
 
-    Roles roles = Roles.create(this, p);
+    Roles roles = Roles.create(this, p, getBddFactorySupplier().get());
     return roles.asAnswer(t);
   }
 
   @Override
   public AnswerElement smtRoutingLoop(HeaderQuestion q) {
-    PropertyChecker p = new PropertyChecker(this);
+    PropertyChecker p = new PropertyChecker(this, getBddFactorySupplier(), getEncoderSession());
     return p.checkRoutingLoop(q);
   }
 
@@ -4290,8 +4594,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
       String finalNodeRegexStr,
       String notFinalNodeRegexStr,
       Set<String> transitNodes,
-      Set<String> notTransitNodes) {
-    if (SystemUtils.IS_OS_MAC_OSX) {
+      Set<String> notTransitNodes,
+      ReachabilityEngine engine) {
+    if (engine == ReachabilityEngine.NOD && SystemUtils.IS_OS_MAC_OSX) {
       // TODO: remove when z3 parallelism bug on OSX is fixed
       _settings.setSequential(true);
     }
@@ -4299,7 +4604,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
     String tag = getFlowTag(_testrigSettings);
     Map<String, Configuration> configurations = loadConfigurations();
     Set<Flow> flows = null;
-    Synthesizer dataPlaneSynthesizer = synthesizeDataPlane();
+    Synthesizer dataPlaneSynthesizer =
+        engine == ReachabilityEngine.NOD ? synthesizeDataPlane() : null;
+    BDDReachabilityAnalysis bddAnalysis =
+        engine == ReachabilityEngine.BDD ? computeBddReachabilityAnalysis() : null;
 
     // collect ingress nodes
     Pattern ingressNodeRegex = Pattern.compile(ingressNodeRegexStr);
@@ -4361,7 +4669,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
 
     // build query jobs
-    List<NodJob> jobs = new ArrayList<>();
+    List<BatfishJob<NodJobResult>> jobs = new ArrayList<>();
     for (String ingressNode : activeIngressNodes) {
       for (String ingressVrf : configurations.get(ingressNode).getVrfs().keySet()) {
         Map<String, Set<String>> nodeVrfs = new TreeMap<>();
@@ -4371,8 +4679,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
                 actions, headerSpace, activeFinalNodes, nodeVrfs, transitNodes, notTransitNodes);
         SortedSet<Pair<String, String>> nodes = new TreeSet<>();
         nodes.add(new Pair<>(ingressNode, ingressVrf));
-        NodJob job = new NodJob(settings, dataPlaneSynthesizer, query, nodes, tag);
-        jobs.add(job);
+        if (bddAnalysis != null) {
+          jobs.add(new BDDReachabilityJob(settings, bddAnalysis, query, nodes, tag));
+        } else {
+          jobs.add(new NodJob(settings, dataPlaneSynthesizer, query, nodes, tag));
+        }
       }
     }
 
@@ -2,6 +2,7 @@ package org.batfish.main;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
 import com.uber.jaeger.Configuration.ReporterConfiguration;
 import com.uber.jaeger.Configuration.SamplerConfiguration;
 import com.uber.jaeger.samplers.ConstSampler;
@@ -17,6 +18,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -62,14 +64,14 @@ import org.glassfish.jersey.server.ResourceConfig;
 
 public class Driver {
 
-  private static boolean _idle = true;
-
   private static Date _lastPollFromCoordinator = new Date();
 
   private static BatfishLogger _mainLogger = null;
 
   private static Settings _mainSettings = null;
 
+  private static int _runningTasks = 0;
+
   private static ConcurrentMap<String, Task> _taskLog;
 
   private static final Cache<TestrigSettings, DataPlane> CACHED_DATA_PLANES = buildDataPlaneCache();
@@ -127,24 +129,55 @@ public class Driver {
     return CacheBuilder.newBuilder().maximumSize(MAX_CACHED_TESTRIGS).build();
   }
 
-  private static synchronized boolean claimIdle() {
-    if (_idle) {
-      _idle = false;
+  private static synchronized boolean claimTaskSlot() {
+    if (computeFreeTaskSlots() > 0) {
+      _runningTasks++;
       return true;
     }
 
     return false;
   }
 
-  public static synchronized boolean getIdle() {
+  /*
+   * A task can start when a slot is free and, unless no other task is running, the
+   * heap can still grow by the memory set aside for one task. Tasks on the same
+   * testrig share its configurations and data plane through the caches above.
+   */
+  private static synchronized int computeFreeTaskSlots() {
+    int freeSlots = _mainSettings.getTaskSlots() - _runningTasks;
+    if (freeSlots <= 0) {
+      return 0;
+    }
+    if (_runningTasks > 0) {
+      Runtime runtime = Runtime.getRuntime();
+      long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+      long taskMemory = _mainSettings.getTaskSlotMemoryMb() * 1024L * 1024L;
+      if (runtime.maxMemory() - usedMemory < taskMemory) {
+        return 0;
+      }
+    }
+    return freeSlots;
+  }
+
+  public static synchronized int getFreeTaskSlots() {
     _lastPollFromCoordinator = new Date();
-    return _idle;
+    return computeFreeTaskSlots();
   }
 
   public static BatfishLogger getMainLogger() {
     return _mainLogger;
   }
 
+  /** Returns the testrigs and environments whose data planes are loaded in memory. */
+  public static Set<TestrigSettings> getLoadedDataPlanes() {
+    return ImmutableSet.copyOf(CACHED_DATA_PLANES.asMap().keySet());
+  }
+
+  /** Returns the testrigs and environments whose configurations are loaded in memory. */
+  public static Set<TestrigSettings> getLoadedTestrigs() {
+    return ImmutableSet.copyOf(CACHED_TESTRIGS.asMap().keySet());
+  }
+
   @Nullable
   private static synchronized Task getTask(Settings settings) {
     String taskId = settings.getTaskId();
@@ -223,6 +256,9 @@ public class Driver {
       if (_mainSettings.getTracingEnable() && !GlobalTracer.isRegistered()) {
         initTracer();
       }
+      if (_mainSettings.getParserWarmup()) {
+        Batfish.warmUpParsers(_mainSettings, _mainLogger);
+      }
       String protocol = _mainSettings.getSslDisable() ? "http" : "https";
       String baseUrl = String.format("%s://%s", protocol, _mainSettings.getServiceBindHost());
       URI baseUri = UriBuilder.fromUri(baseUrl).port(_mainSettings.getServicePort()).build();
@@ -284,8 +320,8 @@ public class Driver {
     }
   }
 
-  private static synchronized void makeIdle() {
-    _idle = true;
+  private static synchronized void releaseTaskSlot() {
+    _runningTasks--;
   }
 
   public static synchronized AtomicInteger newBatch(
@@ -433,10 +469,10 @@ public class Driver {
     }
 
     if (settings.canExecute()) {
-      if (claimIdle()) {
+      if (claimTaskSlot()) {
 
-        // lets put a try-catch around all the code around claimIdle
-        // so that we never the worker non-idle accidentally
+        // lets put a try-catch around all the code around claimTaskSlot
+        // so that we never leak a task slot accidentally
 
         try {
 
@@ -461,7 +497,7 @@ public class Driver {
                   ? null
                   : GlobalTracer.get().activeSpan().context();
 
-          // run batfish on a new thread and set idle to true when done
+          // run batfish on a new thread and release the task slot when done
           Thread thread =
               new Thread() {
                 @Override
@@ -480,7 +516,7 @@ public class Driver {
                     }
                     task.setTerminated();
                     jobLogger.close();
-                    makeIdle();
+                    releaseTaskSlot();
                   }
                 }
               };
@@ -490,11 +526,11 @@ public class Driver {
           return Arrays.asList(BfConsts.SVC_SUCCESS_KEY, "running now");
         } catch (Exception e) {
           _mainLogger.error("Exception while running task: " + e.getMessage());
-          makeIdle();
+          releaseTaskSlot();
           return Arrays.asList(BfConsts.SVC_FAILURE_KEY, e.getMessage());
         }
       } else {
-        return Arrays.asList(BfConsts.SVC_FAILURE_KEY, "Not idle");
+        return Arrays.asList(BfConsts.SVC_FAILURE_KEY, "No free task slot");
       }
     } else {
       return Arrays.asList(BfConsts.SVC_FAILURE_KEY, "Non-executable command");
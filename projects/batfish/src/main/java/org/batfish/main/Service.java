@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -12,8 +13,11 @@ import javax.ws.rs.core.MediaType;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.BfConsts.TaskStatus;
+import org.batfish.common.CoordConsts;
 import org.batfish.common.Task;
+import org.batfish.config.Settings.TestrigSettings;
 import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 
 @Path(BfConsts.SVC_BASE_RSC)
@@ -36,15 +40,40 @@ public class Service {
   @Produces(MediaType.APPLICATION_JSON)
   public JSONArray getStatus() {
     try {
+      int freeTaskSlots = Driver.getFreeTaskSlots();
       return new JSONArray(
           Arrays.asList(
               BfConsts.SVC_SUCCESS_KEY,
-              (new JSONObject().put("idle", Driver.getIdle())).toString()));
+              new JSONObject()
+                  .put("idle", freeTaskSlots > 0)
+                  .put("freeSlots", freeTaskSlots)
+                  .put("loadedTestrigs", toJson(Driver.getLoadedTestrigs()))
+                  .put("loadedDataPlanes", toJson(Driver.getLoadedDataPlanes()))
+                  .toString()));
     } catch (Exception e) {
       return new JSONArray(Arrays.asList(BfConsts.SVC_FAILURE_KEY, e.getMessage()));
     }
   }
 
+  /*
+   * Names the container, testrig and environment of each of the given settings, so the coordinator
+   * can send work to a worker that already has what the work needs loaded
+   */
+  private static JSONArray toJson(Set<TestrigSettings> testrigs) throws JSONException {
+    JSONArray array = new JSONArray();
+    for (TestrigSettings testrig : testrigs) {
+      // testrigs live in <container dir>/testrigs/<testrig>, and a container dir is named after
+      // its container
+      String container = testrig.getBasePath().getParent().getParent().getFileName().toString();
+      array.put(
+          new JSONObject()
+              .put(CoordConsts.SVC_KEY_CONTAINER_NAME, container)
+              .put(BfConsts.ARG_TESTRIG, testrig.getName())
+              .put(BfConsts.ARG_ENVIRONMENT_NAME, testrig.getEnvironmentSettings().getName()));
+    }
+    return array;
+  }
+
   @GET
   @Path(BfConsts.SVC_GET_TASKSTATUS_RSC)
   @Produces(MediaType.APPLICATION_JSON)
@@ -2,6 +2,7 @@ package org.batfish.symbolic.abstraction;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -14,8 +15,10 @@ import java.util.SortedSet;
 import java.util.Stack;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
+import net.sf.javabdd.BDDFactory;
 import org.batfish.common.BatfishException;
 import org.batfish.common.Pair;
 import org.batfish.common.plugin.IBatfish;
@@ -59,9 +62,16 @@ public class Abstraction {
 
   private IBatfish _batfish;
 
+  private Supplier<BDDFactory> _bddFactories;
+
   private Graph _graph;
 
-  private BDDNetwork _network;
+  /*
+   * BDD networks not in use by any equivalence class computation. Each
+   * has its own factory, so classes can be computed in parallel as long
+   * as each computation takes a network of its own.
+   */
+  private Deque<BDDNetwork> _idleNetworks;
 
   private HeaderSpace _headerspace;
 
@@ -71,10 +81,16 @@ public class Abstraction {
 
   private Map<Set<String>, Tuple<HeaderSpace, List<Prefix>>> _headerspaceMap;
 
-  private Abstraction(IBatfish batfish, @Nullable HeaderSpace h, int fails, boolean defaultCase) {
+  private Abstraction(
+      IBatfish batfish,
+      Supplier<BDDFactory> bddFactories,
+      @Nullable HeaderSpace h,
+      int fails,
+      boolean defaultCase) {
     _batfish = batfish;
+    _bddFactories = bddFactories;
     _graph = new Graph(batfish);
-    _network = BDDNetwork.create(_graph);
+    _idleNetworks = new ConcurrentLinkedDeque<>();
     _headerspace = h;
     _headerspaceMap = new HashMap<>();
     _possibleFailures = fails;
@@ -82,14 +98,19 @@ public class Abstraction {
   }
 
   public static Abstraction create(
-      IBatfish batfish, @Nullable HeaderSpace h, int fails, boolean defaultCase) {
-    Abstraction abs = new Abstraction(batfish, h, fails, defaultCase);
+      IBatfish batfish,
+      Supplier<BDDFactory> bddFactories,
+      @Nullable HeaderSpace h,
+      int fails,
+      boolean defaultCase) {
+    Abstraction abs = new Abstraction(batfish, bddFactories, h, fails, defaultCase);
     abs.initDestinationMap();
     return abs;
   }
 
-  public static Abstraction create(IBatfish batfish, int fails, boolean defaultCase) {
-    Abstraction abs = new Abstraction(batfish, null, fails, defaultCase);
+  public static Abstraction create(
+      IBatfish batfish, Supplier<BDDFactory> bddFactories, int fails, boolean defaultCase) {
+    Abstraction abs = new Abstraction(batfish, bddFactories, null, fails, defaultCase);
     abs.initDestinationMap();
     return abs;
   }
@@ -292,18 +313,32 @@ public class Abstraction {
   /*
    * Create an abstract network that is forwarding-equivalent to the original
    * network for a given destination-based slice of the original network.
+   * Safe to call from several threads at once.
    */
   private EquivalenceClass computeAbstraction(
       Set<String> devices, HeaderSpace headerspace, List<Prefix> prefixes) {
+    BDDNetwork network = _idleNetworks.pollFirst();
+    if (network == null) {
+      network = BDDNetwork.create(_graph, _bddFactories.get());
+    }
+    try {
+      return computeAbstraction(network, devices, headerspace, prefixes);
+    } finally {
+      _idleNetworks.addFirst(network);
+    }
+  }
+
+  private EquivalenceClass computeAbstraction(
+      BDDNetwork network, Set<String> devices, HeaderSpace headerspace, List<Prefix> prefixes) {
 
     Map<GraphEdge, InterfacePolicy> exportPol = new HashMap<>();
     Map<GraphEdge, InterfacePolicy> importPol = new HashMap<>();
 
     if (prefixes == null) {
-      exportPol = _network.getExportPolicyMap();
-      importPol = _network.getImportPolicyMap();
+      exportPol = network.getExportPolicyMap();
+      importPol = network.getImportPolicyMap();
     } else {
-      specializeBdds(prefixes, exportPol, importPol);
+      specializeBdds(network, prefixes, exportPol, importPol);
     }
 
     UnionSplit<String> workset = new UnionSplit<>(_graph.getRouters());
@@ -361,18 +396,19 @@ public class Abstraction {
 
   /*
    * Specialize the collection of BDDs representing ACL and route map policies on
-   * each edge. Must be synchronized since BDDs are not thread-safe.
+   * each edge. The network must not be in use by any other thread.
    */
-  private synchronized void specializeBdds(
+  private void specializeBdds(
+      BDDNetwork network,
       List<Prefix> prefixes,
       Map<GraphEdge, InterfacePolicy> exportPol,
       Map<GraphEdge, InterfacePolicy> importPol) {
-    for (Entry<GraphEdge, InterfacePolicy> entry : _network.getExportPolicyMap().entrySet()) {
+    for (Entry<GraphEdge, InterfacePolicy> entry : network.getExportPolicyMap().entrySet()) {
       GraphEdge ge = entry.getKey();
       InterfacePolicy pol = entry.getValue();
       exportPol.put(ge, pol.restrict(prefixes));
     }
-    for (Entry<GraphEdge, InterfacePolicy> entry : _network.getImportPolicyMap().entrySet()) {
+    for (Entry<GraphEdge, InterfacePolicy> entry : network.getImportPolicyMap().entrySet()) {
       GraphEdge ge = entry.getKey();
       InterfacePolicy pol = entry.getValue();
       importPol.put(ge, pol.restrict(prefixes));
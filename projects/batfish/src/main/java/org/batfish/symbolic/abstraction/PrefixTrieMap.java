@@ -2,7 +2,6 @@ package org.batfish.symbolic.abstraction;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,10 +28,9 @@ public class PrefixTrieMap implements Serializable {
 
     void addPrefix(Prefix prefix, String device) {
       int prefixLength = prefix.getPrefixLength();
-      BitSet bits = prefix.getAddress().getAddressBits();
       Set<String> devices = new HashSet<>();
       devices.add(device);
-      _root.addPrefix(prefix.getNetworkPrefix(), devices, bits, prefixLength, 0);
+      _root.addPrefix(prefix.getNetworkPrefix(), devices, prefix.getAddress(), prefixLength, 0);
     }
   }
 
@@ -50,7 +48,7 @@ public class PrefixTrieMap implements Serializable {
     private ByteTrieNode _right;
 
     private void addPrefix(
-        Prefix prefix, Set<String> devices, BitSet bits, int prefixLength, int depth) {
+        Prefix prefix, Set<String> devices, Ip address, int prefixLength, int depth) {
       if (prefixLength == depth) {
         _prefix = prefix;
         if (_devices == null) {
@@ -59,7 +57,7 @@ public class PrefixTrieMap implements Serializable {
           _devices.addAll(devices);
         }
       } else {
-        boolean currentBit = bits.get(depth);
+        boolean currentBit = address.getBit(depth);
         if (_devices != null) {
           devices.addAll(_devices);
         }
@@ -68,12 +66,12 @@ public class PrefixTrieMap implements Serializable {
           if (_right == null) {
             _right = new ByteTrieNode();
           }
-          _right.addPrefix(prefix, devices, bits, prefixLength, depth + 1);
+          _right.addPrefix(prefix, devices, address, prefixLength, depth + 1);
         } else {
           if (_left == null) {
             _left = new ByteTrieNode();
           }
-          _left.addPrefix(prefix, devices, bits, prefixLength, depth + 1);
+          _left.addPrefix(prefix, devices, address, prefixLength, depth + 1);
         }
       }
     }
@@ -14,6 +14,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.questions.smt.EquivalenceType;
@@ -45,15 +46,15 @@ public class Roles {
 
   private List<SortedSet<String>> _nodeEcs = null;
 
-  public static Roles create(IBatfish batfish, Pattern nodeRegex) {
-    Roles rf = new Roles(batfish, nodeRegex);
+  public static Roles create(IBatfish batfish, Pattern nodeRegex, BDDFactory factory) {
+    Roles rf = new Roles(batfish, nodeRegex, factory);
     rf.computeRoles();
     return rf;
   }
 
-  private Roles(IBatfish batfish, Pattern nodeRegex) {
+  private Roles(IBatfish batfish, Pattern nodeRegex, BDDFactory factory) {
     _graph = new Graph(batfish);
-    _network = BDDNetwork.create(_graph);
+    _network = BDDNetwork.create(_graph, factory);
     _nodeRegex = nodeRegex;
     _bgpInEcs = null;
     _bgpOutEcs = null;
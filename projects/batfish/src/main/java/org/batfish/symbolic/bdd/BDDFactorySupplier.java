@@ -0,0 +1,47 @@
+package org.batfish.symbolic.bdd;
+
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+import net.sf.javabdd.BDDFactory;
+import net.sf.javabdd.JFactory;
+import org.batfish.common.BatfishException;
+
+/**
+ * Creates a new, independent {@link BDDFactory} on every call.
+ *
+ * <p>A factory is not thread-safe, but separate factories share no state, so BDDs built by
+ * different threads can be computed in parallel as long as each thread uses its own factory. BDDs
+ * from different factories must never be combined or compared.
+ */
+public final class BDDFactorySupplier implements Supplier<BDDFactory> {
+
+  private final int _cacheSize;
+
+  private final int _nodeTableSize;
+
+  /**
+   * @param nodeTableSize Initial number of nodes of each factory; the table grows as needed
+   * @param cacheSize Number of entries of each operation cache of each factory
+   */
+  public BDDFactorySupplier(int nodeTableSize, int cacheSize) {
+    _cacheSize = cacheSize;
+    _nodeTableSize = nodeTableSize;
+  }
+
+  @Override
+  public BDDFactory get() {
+    BDDFactory factory = JFactory.init(_nodeTableSize, _cacheSize);
+    factory.disableReorder();
+    // Disables printing
+    CallbackHandler handler = new CallbackHandler();
+    try {
+      Method m = handler.getClass().getDeclaredMethod("handle", (Class<?>[]) null);
+      factory.registerGCCallback(handler, m);
+      factory.registerResizeCallback(handler, m);
+      factory.registerReorderCallback(handler, m);
+    } catch (NoSuchMethodException e) {
+      throw new BatfishException("Could not silence BDD factory", e);
+    }
+    return factory;
+  }
+}
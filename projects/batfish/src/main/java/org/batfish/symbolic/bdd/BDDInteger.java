@@ -198,6 +198,21 @@ public class BDDInteger {
     return _bitvec;
   }
 
+  /*
+   * The value of this integer under a full variable assignment,
+   * e.g. one produced by BDD.fullSatOne()
+   */
+  public long getValueSatisfying(BDD assignment) {
+    long value = 0;
+    for (BDD bit : _bitvec) {
+      value <<= 1;
+      if (!assignment.and(bit).isZero()) {
+        value |= 1;
+      }
+    }
+    return value;
+  }
+
   public BDDFactory getFactory() {
     return _factory;
   }
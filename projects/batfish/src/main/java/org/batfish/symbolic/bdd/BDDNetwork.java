@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import net.sf.javabdd.BDDFactory;
 import org.batfish.common.Pair;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.IpAccessList;
@@ -17,6 +18,11 @@ import org.batfish.symbolic.GraphEdge;
 import org.batfish.symbolic.Protocol;
 import org.batfish.symbolic.abstraction.InterfacePolicy;
 
+/*
+ * The BDDs of the routing policies and ACLs of every edge of a graph.
+ * All of them belong to one factory, which is not thread-safe, so a
+ * network must be used by only one thread at a time.
+ */
 public class BDDNetwork {
 
   private Graph _graph;
@@ -33,14 +39,20 @@ public class BDDNetwork {
 
   private Map<GraphEdge, BDDAcl> _outAcls;
 
-  public static BDDNetwork create(Graph g) {
-    BDDNetwork network = new BDDNetwork(g);
+  private BDDFactory _factory;
+
+  private BDDPacket _pkt;
+
+  public static BDDNetwork create(Graph g, BDDFactory factory) {
+    BDDNetwork network = new BDDNetwork(g, factory);
     network.computeInterfacePolicies();
     return network;
   }
 
-  private BDDNetwork(Graph graph) {
+  private BDDNetwork(Graph graph, BDDFactory factory) {
     _graph = graph;
+    _factory = factory;
+    _pkt = new BDDPacket(factory);
     _importPolicyMap = new HashMap<>();
     _exportPolicyMap = new HashMap<>();
     _importBgpPolicies = new HashMap<>();
@@ -54,7 +66,7 @@ public class BDDNetwork {
    */
   private BDDRoute computeBDD(
       Graph g, Configuration conf, RoutingPolicy pol, boolean ignoreNetworks) {
-    TransferBDD t = new TransferBDD(g, conf, pol.getStatements());
+    TransferBDD t = new TransferBDD(_factory, g, conf, pol.getStatements());
     return t.compute(ignoreNetworks);
   }
 
@@ -86,12 +98,12 @@ public class BDDNetwork {
         IpAccessList out = ge.getStart().getOutgoingFilter();
         // Incoming ACL
         if (in != null) {
-          BDDAcl x = BDDAcl.create(in);
+          BDDAcl x = BDDAcl.create(_pkt, in);
           _inAcls.put(ge, x);
         }
         // Outgoing ACL
         if (out != null) {
-          BDDAcl x = BDDAcl.create(out);
+          BDDAcl x = BDDAcl.create(_pkt, out);
           _outAcls.put(ge, x);
         }
       }
@@ -123,6 +135,10 @@ public class BDDNetwork {
     }
   }
 
+  public BDDFactory getFactory() {
+    return _factory;
+  }
+
   public Map<GraphEdge, BDDRoute> getExportBgpPolicies() {
     return _exportBgpPolicies;
   }
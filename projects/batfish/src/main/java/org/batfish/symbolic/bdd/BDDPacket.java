@@ -1,7 +1,5 @@
 package org.batfish.symbolic.bdd;
 
-import java.lang.reflect.Method;
-import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -11,8 +9,8 @@ import java.util.Set;
 import net.sf.javabdd.BDD;
 import net.sf.javabdd.BDDFactory;
 import net.sf.javabdd.BDDPairing;
-import net.sf.javabdd.JFactory;
 import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.Prefix;
 
 /**
@@ -24,38 +22,23 @@ public class BDDPacket {
 
   private static final int dstIpIndex = 8;
 
-  static BDDFactory factory;
-
-  private static BDDPairing pairing;
-
-  static {
-    CallbackHandler handler = new CallbackHandler();
-    try {
-      Method m = handler.getClass().getDeclaredMethod("handle", (Class<?>[]) null);
-      factory = JFactory.init(10000, 1000);
-      factory.disableReorder();
-      // Disables printing
-      factory.registerGCCallback(handler, m);
-      factory.registerResizeCallback(handler, m);
-      factory.registerReorderCallback(handler, m);
-      pairing = factory.makePair();
-    } catch (NoSuchMethodException e) {
-      e.printStackTrace();
-    }
-  }
-
   private Map<Integer, String> _bitNames;
 
   private BDDInteger _dstIp;
 
   private BDDInteger _dstPort;
 
+  private final BDDFactory _factory;
+
   private BDDInteger _icmpCode;
 
   private BDDInteger _icmpType;
 
   private BDDInteger _ipProtocol;
 
+  // NOTE: shared by copies, since creating a pairing per restriction leaks memory in JavaBDD
+  private final BDDPairing _pairing;
+
   private BDDInteger _srcIp;
 
   private BDDInteger _srcPort;
@@ -78,9 +61,10 @@ public class BDDPacket {
 
   /*
    * Creates a collection of BDD variables representing the
-   * various attributes of a control plane advertisement.
+   * various attributes of a packet, in the given factory.
    */
-  BDDPacket() {
+  public BDDPacket(BDDFactory factory) {
+    _factory = factory;
 
     // Make sure we have the right number of variables
     int numVars = factory.varNum();
@@ -88,6 +72,7 @@ public class BDDPacket {
     if (numVars < numNeeded) {
       factory.setVarNum(numNeeded);
     }
+    _pairing = factory.makePair();
 
     _bitNames = new HashMap<>();
 
@@ -144,6 +129,8 @@ public class BDDPacket {
    * there is no need for a deep copy.
    */
   private BDDPacket(BDDPacket other) {
+    _factory = other._factory;
+    _pairing = other._pairing;
     _srcIp = new BDDInteger(other._srcIp);
     _dstIp = new BDDInteger(other._dstIp);
     _srcPort = new BDDInteger(other._srcPort);
@@ -233,6 +220,10 @@ public class BDDPacket {
     this._dstIp = x;
   }
 
+  public BDDFactory getFactory() {
+    return _factory;
+  }
+
   public BDDInteger getDstPort() {
     return _dstPort;
   }
@@ -391,18 +382,18 @@ public class BDDPacket {
 
   public BDD restrict(BDD bdd, Prefix pfx) {
     int len = pfx.getPrefixLength();
-    BitSet bits = pfx.getAddress().getAddressBits();
+    Ip ip = pfx.getAddress();
     int[] vars = new int[len];
     BDD[] vals = new BDD[len];
-    pairing.reset();
+    _pairing.reset();
     for (int i = 0; i < len; i++) {
       int var = dstIpIndex + i;
-      BDD subst = bits.get(i) ? factory.one() : factory.zero();
+      BDD subst = ip.getBit(i) ? _factory.one() : _factory.zero();
       vars[i] = var;
       vals[i] = subst;
     }
-    pairing.set(vars, vals);
-    return bdd.veccompose(pairing);
+    _pairing.set(vars, vals);
+    return bdd.veccompose(_pairing);
   }
 
   public BDD restrict(BDD bdd, List<Prefix> prefixes) {
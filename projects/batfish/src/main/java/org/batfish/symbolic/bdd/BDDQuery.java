@@ -0,0 +1,10 @@
+package org.batfish.symbolic.bdd;
+
+import net.sf.javabdd.BDD;
+
+/** A reachability query that can be answered by a {@link BDDReachabilityAnalysis} */
+public interface BDDQuery {
+
+  /** Returns the headers of the packets that satisfy this query. */
+  BDD getHeaders(BDDReachabilityAnalysis analysis);
+}
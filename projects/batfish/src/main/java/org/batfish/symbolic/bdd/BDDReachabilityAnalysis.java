@@ -0,0 +1,447 @@
+package org.batfish.symbolic.bdd;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.BatfishException;
+import org.batfish.common.Pair;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.ForwardingAction;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.IcmpCode;
+import org.batfish.datamodel.IcmpType;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.collections.FibRow;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+
+/**
+ * Header-space reachability over the FIBs and interface ACLs of a computed data plane, using BDDs
+ * instead of the z3 datalog engine.
+ *
+ * <p>Sets of packet headers are propagated from the ingress points of a query through longest
+ * prefix match, outgoing and incoming ACLs, and topology edges until no location receives any new
+ * headers. The forwarding model is that of {@link org.batfish.z3.Synthesizer}, so the result is the
+ * same set of headers NoD would report, except that zones and policy routing are not modeled;
+ * building an analysis of a network that uses either fails.
+ *
+ * <p>All BDDs of an analysis belong to the factory it is given, which is not thread-safe, so an
+ * analysis must not be used by more than one thread at a time. Analyses with different factories
+ * can run in parallel.
+ */
+public class BDDReachabilityAnalysis {
+
+  /** What happens to the packets matching one entry of a FIB */
+  private static final class FibEntry {
+
+    /** The action for dropped packets, or {@code null} if they are forwarded along the edge */
+    private final ForwardingAction _drop;
+
+    private final Edge _edge;
+
+    private final BDD _match;
+
+    private FibEntry(BDD match, ForwardingAction drop, Edge edge) {
+      _drop = drop;
+      _edge = edge;
+      _match = match;
+    }
+  }
+
+  /** The headers that reach each disposition and that transit each node from some ingress points */
+  public static final class Reachability {
+
+    /** Headers by disposition and node; DROP holds only packets not in a more specific category */
+    private final Map<ForwardingAction, Map<String, BDD>> _dispositions;
+
+    private final BDDFactory _factory;
+
+    private final Map<String, BDD> _transit;
+
+    private Reachability(BDDFactory factory) {
+      _dispositions = new EnumMap<>(ForwardingAction.class);
+      _factory = factory;
+      _transit = new HashMap<>();
+    }
+
+    private void add(Map<String, BDD> headersByNode, String node, BDD headers) {
+      headersByNode.merge(node, headers, BDD::or);
+    }
+
+    private void addDisposition(ForwardingAction action, String node, BDD headers) {
+      if (!headers.isZero()) {
+        add(_dispositions.computeIfAbsent(action, a -> new HashMap<>()), node, headers);
+      }
+    }
+
+    private BDD get(ForwardingAction action, String node) {
+      Map<String, BDD> headersByNode = _dispositions.get(action);
+      BDD headers = headersByNode == null ? null : headersByNode.get(node);
+      return headers == null ? _factory.zero() : headers;
+    }
+
+    /** Returns the headers of packets with the given disposition at any node. */
+    public BDD getDisposition(ForwardingAction action) {
+      Set<String> nodes = new HashSet<>();
+      _dispositions.values().forEach(headersByNode -> nodes.addAll(headersByNode.keySet()));
+      BDD acc = _factory.zero();
+      for (String node : nodes) {
+        acc = acc.or(getDisposition(action, node));
+      }
+      return acc;
+    }
+
+    /** Returns the headers of packets with the given disposition at {@code node}. */
+    public BDD getDisposition(ForwardingAction action, String node) {
+      switch (action) {
+        case ACCEPT:
+        case DROP_ACL_IN:
+        case DROP_ACL_OUT:
+        case DROP_NO_ROUTE:
+        case DROP_NULL_ROUTE:
+          return get(action, node);
+
+        case DROP_ACL:
+          return get(ForwardingAction.DROP_ACL_IN, node)
+              .or(get(ForwardingAction.DROP_ACL_OUT, node));
+
+        case DROP:
+          return get(ForwardingAction.DROP, node)
+              .or(getDisposition(ForwardingAction.DROP_ACL, node))
+              .or(get(ForwardingAction.DROP_NO_ROUTE, node))
+              .or(get(ForwardingAction.DROP_NULL_ROUTE, node));
+
+        case DEBUG:
+          // nothing in the forwarding model is marked for debugging
+          return _factory.zero();
+
+        case FORWARD:
+        default:
+          throw new BatfishException("unsupported action");
+      }
+    }
+
+    /** Returns the headers of packets that leave {@code node} through some interface. */
+    public BDD getTransit(String node) {
+      BDD headers = _transit.get(node);
+      return headers == null ? _factory.zero() : headers;
+    }
+  }
+
+  private static boolean isLoopbackInterface(String ifaceName) {
+    return ifaceName.toLowerCase().startsWith("lo");
+  }
+
+  private final Map<Pair<String, String>, BDD> _aclPermits;
+
+  private final Map<String, Configuration> _configurations;
+
+  private final BDDFactory _factory;
+
+  private final Map<Pair<String, String>, List<FibEntry>> _fibEntries;
+
+  private final Map<String, Map<String, SortedSet<FibRow>>> _fibs;
+
+  private final Set<NodeInterfacePair> _flowSinks;
+
+  private final Map<String, BDD> _ownedIps;
+
+  private final BDDPacket _pkt;
+
+  private BDD _sane;
+
+  private final HeaderSpaceToBDD _toBdd;
+
+  private final Set<Edge> _topologyEdges;
+
+  public BDDReachabilityAnalysis(
+      Map<String, Configuration> configurations, DataPlane dataPlane, BDDFactory factory) {
+    for (Configuration c : configurations.values()) {
+      if (!c.getZones().isEmpty()) {
+        throw new BatfishException(
+            "BDD reachability does not support zones, which are used by: " + c.getHostname());
+      }
+      for (Interface i : c.getInterfaces().values()) {
+        if (i.getRoutingPolicyName() != null) {
+          throw new BatfishException(
+              "BDD reachability does not support policy routing, which is used by: "
+                  + c.getHostname()
+                  + ":"
+                  + i.getName());
+        }
+      }
+    }
+    _aclPermits = new HashMap<>();
+    _configurations = configurations;
+    _factory = factory;
+    _fibEntries = new HashMap<>();
+    _fibs = dataPlane.getFibs();
+    _flowSinks = dataPlane.getFlowSinks();
+    _ownedIps = new HashMap<>();
+    _pkt = new BDDPacket(factory);
+    _toBdd = new HeaderSpaceToBDD(_pkt);
+    _topologyEdges = dataPlane.getTopologyEdges();
+  }
+
+  /*
+   * The headers permitted by a filter of an interface; inactive interfaces
+   * have no filters, as in the NoD program
+   */
+  private BDD aclPermits(String hostname, Interface iface, IpAccessList acl) {
+    if (acl == null || !iface.getActive()) {
+      return _factory.one();
+    }
+    return _aclPermits.computeIfAbsent(
+        new Pair<>(hostname, acl.getName()), k -> BDDAcl.create(_pkt, acl).getBdd());
+  }
+
+  /**
+   * Propagates {@code headers} from the given ingress points to a fixed point, and returns the
+   * headers that reach each disposition and transit each node. As in NoD, a packet counts as
+   * originated at every ingress node, wherever it is received.
+   */
+  public Reachability computeReachability(Map<String, Set<String>> ingressNodeVrfs, BDD headers) {
+    Reachability reachability = new Reachability(_factory);
+    Map<Pair<String, String>, BDD> reached = new HashMap<>();
+    Deque<Map.Entry<Pair<String, String>, BDD>> worklist = new ArrayDeque<>();
+    ingressNodeVrfs.forEach(
+        (node, vrfs) ->
+            vrfs.forEach(
+                vrf -> worklist.add(new SimpleImmutableEntry<>(new Pair<>(node, vrf), headers))));
+    while (!worklist.isEmpty()) {
+      Map.Entry<Pair<String, String>, BDD> item = worklist.poll();
+      Pair<String, String> nodeVrf = item.getKey();
+      BDD previous = reached.getOrDefault(nodeVrf, _factory.zero());
+      BDD delta = item.getValue().and(previous.not());
+      if (delta.isZero()) {
+        continue;
+      }
+      reached.put(nodeVrf, previous.or(delta));
+      String hostname = nodeVrf.getFirst();
+      Configuration c = _configurations.get(hostname);
+      boolean originated = ingressNodeVrfs.containsKey(hostname);
+
+      // packets for one of the node's own addresses
+      BDD owned = getOwnedIps(hostname);
+      BDD local = delta.and(owned);
+      if (originated
+          || (c.getDefaultInboundAction() != LineAction.REJECT
+              && c.getDefaultCrossZoneAction() != LineAction.REJECT)) {
+        reachability.addDisposition(ForwardingAction.ACCEPT, hostname, local);
+      } else {
+        reachability.addDisposition(ForwardingAction.DROP, hostname, local);
+      }
+
+      // everything else is routed
+      BDD routed = delta.and(owned.not());
+      for (FibEntry entry : getFibEntries(hostname, nodeVrf.getSecond())) {
+        BDD matched = routed.and(entry._match);
+        if (matched.isZero()) {
+          continue;
+        }
+        if (entry._drop != null) {
+          reachability.addDisposition(entry._drop, hostname, matched);
+          continue;
+        }
+        Edge edge = entry._edge;
+        boolean flowSink = _flowSinks.contains(edge.getInterface1());
+        boolean toFlowSink = edge.getNode2().equals(Configuration.NODE_NONE_NAME);
+        if ((toFlowSink && !flowSink) || (!toFlowSink && !_topologyEdges.contains(edge))) {
+          // no such edge, so the packet goes nowhere
+          continue;
+        }
+        if (!originated && c.getDefaultCrossZoneAction() == LineAction.REJECT) {
+          reachability.addDisposition(ForwardingAction.DROP_ACL_OUT, hostname, matched);
+          continue;
+        }
+        Interface outIface = c.getInterfaces().get(edge.getInt1());
+        BDD outPermits = aclPermits(hostname, outIface, outIface.getOutgoingFilter());
+        reachability.addDisposition(
+            ForwardingAction.DROP_ACL_OUT, hostname, matched.and(outPermits.not()));
+        BDD sent = matched.and(outPermits);
+        if (sent.isZero()) {
+          continue;
+        }
+        reachability.add(reachability._transit, hostname, sent);
+        if (flowSink) {
+          reachability.addDisposition(ForwardingAction.ACCEPT, hostname, sent);
+          continue;
+        }
+        if (_flowSinks.contains(edge.getInterface2())) {
+          continue;
+        }
+        String neighbor = edge.getNode2();
+        Interface inIface = _configurations.get(neighbor).getInterfaces().get(edge.getInt2());
+        BDD inPermits = aclPermits(neighbor, inIface, inIface.getIncomingFilter());
+        reachability.addDisposition(
+            ForwardingAction.DROP_ACL_IN, neighbor, sent.and(inPermits.not()));
+        BDD received = sent.and(inPermits);
+        if (!received.isZero()) {
+          worklist.add(
+              new SimpleImmutableEntry<>(new Pair<>(neighbor, inIface.getVrfName()), received));
+        }
+      }
+    }
+    return reachability;
+  }
+
+  /**
+   * Returns the FIB of a VRF as a list of disjoint header sets, one per longest-prefix-match
+   * outcome. Rows for the same prefix share a header set, since the packets are load-balanced
+   * across all of them.
+   */
+  private List<FibEntry> getFibEntries(String hostname, String vrf) {
+    return _fibEntries.computeIfAbsent(
+        new Pair<>(hostname, vrf),
+        k -> {
+          Map<String, SortedSet<FibRow>> vrfFibs = _fibs.get(hostname);
+          SortedSet<FibRow> rows = vrfFibs == null ? null : vrfFibs.get(vrf);
+          Map<Prefix, List<FibRow>> rowsByPrefix =
+              new TreeMap<>(
+                  (p1, p2) -> {
+                    int cmp = Integer.compare(p2.getPrefixLength(), p1.getPrefixLength());
+                    return cmp != 0 ? cmp : p1.compareTo(p2);
+                  });
+          if (rows != null) {
+            for (FibRow row : rows) {
+              rowsByPrefix.computeIfAbsent(row.getPrefix(), p -> new ArrayList<>()).add(row);
+            }
+          }
+          List<FibEntry> entries = new ArrayList<>();
+          BDD unmatched = _factory.one();
+          for (Map.Entry<Prefix, List<FibRow>> e : rowsByPrefix.entrySet()) {
+            BDD prefixMatch = matchDstPrefix(e.getKey());
+            BDD match = unmatched.and(prefixMatch);
+            unmatched = unmatched.and(prefixMatch.not());
+            if (match.isZero()) {
+              continue;
+            }
+            for (FibRow row : e.getValue()) {
+              String iface = row.getInterface();
+              if (isLoopbackInterface(iface) || CommonUtil.isNullInterface(iface)) {
+                entries.add(new FibEntry(match, ForwardingAction.DROP_NULL_ROUTE, null));
+              } else if (iface.equals(FibRow.DROP_INTERFACE)) {
+                entries.add(new FibEntry(match, ForwardingAction.DROP_NO_ROUTE, null));
+              } else {
+                Edge edge = new Edge(hostname, iface, row.getNextHop(), row.getNextHopInterface());
+                entries.add(new FibEntry(match, null, edge));
+              }
+            }
+          }
+          if (!unmatched.isZero()) {
+            entries.add(new FibEntry(unmatched, ForwardingAction.DROP_NO_ROUTE, null));
+          }
+          return Collections.unmodifiableList(entries);
+        });
+  }
+
+  /** Returns the headers matched by {@code headerSpace}. */
+  public BDD getHeaderSpace(HeaderSpace headerSpace) {
+    return _toBdd.toBDD(headerSpace);
+  }
+
+  /*
+   * Headers whose destination is an address of an active interface of the node
+   */
+  private BDD getOwnedIps(String hostname) {
+    return _ownedIps.computeIfAbsent(
+        hostname,
+        h -> {
+          BDD acc = _factory.zero();
+          for (Interface i : _configurations.get(h).getInterfaces().values()) {
+            Prefix prefix = i.getPrefix();
+            if (i.getActive() && prefix != null) {
+              acc = acc.or(_pkt.getDstIp().value((int) prefix.getAddress().asLong()));
+            }
+          }
+          return acc;
+        });
+  }
+
+  /**
+   * Returns the headers whose fields make sense together, e.g. that have ports only if they are TCP
+   * or UDP packets. Same as the sanity constraint of the NoD program.
+   */
+  public BDD getSane() {
+    if (_sane == null) {
+      BDD noPorts = _pkt.getDstPort().value(0).and(_pkt.getSrcPort().value(0));
+      BDD noTcpFlags =
+          _pkt.getTcpAck()
+              .or(_pkt.getTcpCwr())
+              .or(_pkt.getTcpEce())
+              .or(_pkt.getTcpFin())
+              .or(_pkt.getTcpPsh())
+              .or(_pkt.getTcpRst())
+              .or(_pkt.getTcpSyn())
+              .or(_pkt.getTcpUrg())
+              .not();
+      BDD noIcmp =
+          _pkt.getIcmpType().value(IcmpType.UNSET).and(_pkt.getIcmpCode().value(IcmpCode.UNSET));
+      BDDInteger ipProtocol = _pkt.getIpProtocol();
+      BDD icmp = ipProtocol.value(IpProtocol.ICMP.number()).and(noTcpFlags).and(noPorts);
+      BDD tcp = ipProtocol.value(IpProtocol.TCP.number()).and(noIcmp);
+      BDD udp = ipProtocol.value(IpProtocol.UDP.number()).and(noIcmp).and(noTcpFlags);
+      BDD otherIp = noIcmp.and(noTcpFlags).and(noPorts);
+      _sane = icmp.or(tcp).or(udp).or(otherIp);
+    }
+    return _sane;
+  }
+
+  private BDD matchDstPrefix(Prefix prefix) {
+    BDD[] bits = _pkt.getDstIp().getBitvec();
+    Ip ip = prefix.getAddress();
+    BDD acc = _factory.one();
+    for (int i = 0; i < prefix.getPrefixLength(); i++) {
+      acc = acc.and(ip.getBit(i) ? bits[i] : bits[i].not());
+    }
+    return acc;
+  }
+
+  /**
+   * Returns an example flow with headers in {@code headers}, which must not be empty. Unconstrained
+   * fields are zero.
+   */
+  public Flow toFlow(BDD headers, String ingressNode, String tag) {
+    BDD assignment = headers.fullSatOne();
+    Flow.Builder flowBuilder = new Flow.Builder();
+    flowBuilder.setIngressNode(ingressNode);
+    flowBuilder.setTag(tag);
+    flowBuilder.setSrcIp(new Ip(_pkt.getSrcIp().getValueSatisfying(assignment)));
+    flowBuilder.setDstIp(new Ip(_pkt.getDstIp().getValueSatisfying(assignment)));
+    flowBuilder.setSrcPort((int) _pkt.getSrcPort().getValueSatisfying(assignment));
+    flowBuilder.setDstPort((int) _pkt.getDstPort().getValueSatisfying(assignment));
+    flowBuilder.setIpProtocol(
+        IpProtocol.fromNumber((int) _pkt.getIpProtocol().getValueSatisfying(assignment)));
+    flowBuilder.setIcmpType((int) _pkt.getIcmpType().getValueSatisfying(assignment));
+    flowBuilder.setIcmpCode((int) _pkt.getIcmpCode().getValueSatisfying(assignment));
+    flowBuilder.setTcpFlagsAck(assignment.and(_pkt.getTcpAck()).isZero() ? 0 : 1);
+    flowBuilder.setTcpFlagsCwr(assignment.and(_pkt.getTcpCwr()).isZero() ? 0 : 1);
+    flowBuilder.setTcpFlagsEce(assignment.and(_pkt.getTcpEce()).isZero() ? 0 : 1);
+    flowBuilder.setTcpFlagsFin(assignment.and(_pkt.getTcpFin()).isZero() ? 0 : 1);
+    flowBuilder.setTcpFlagsPsh(assignment.and(_pkt.getTcpPsh()).isZero() ? 0 : 1);
+    flowBuilder.setTcpFlagsRst(assignment.and(_pkt.getTcpRst()).isZero() ? 0 : 1);
+    flowBuilder.setTcpFlagsSyn(assignment.and(_pkt.getTcpSyn()).isZero() ? 0 : 1);
+    flowBuilder.setTcpFlagsUrg(assignment.and(_pkt.getTcpUrg()).isZero() ? 0 : 1);
+    return flowBuilder.build();
+  }
+}
@@ -1,8 +1,6 @@
 package org.batfish.symbolic.bdd;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -14,8 +12,8 @@ import java.util.TreeMap;
 import net.sf.javabdd.BDD;
 import net.sf.javabdd.BDDFactory;
 import net.sf.javabdd.BDDPairing;
-import net.sf.javabdd.JFactory;
 import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.Prefix;
 import org.batfish.symbolic.CommunityVar;
 import org.batfish.symbolic.CommunityVar.Type;
@@ -29,14 +27,10 @@ import org.batfish.symbolic.Protocol;
  */
 public class BDDRoute {
 
-  static BDDFactory factory;
-
   private static List<Protocol> allProtos;
 
   private static List<OspfType> allMetricTypes;
 
-  private static BDDPairing pairing;
-
   private static final int prefixIndex = 135;
 
   static {
@@ -51,20 +45,6 @@ public class BDDRoute {
     allProtos.add(Protocol.STATIC);
     allProtos.add(Protocol.OSPF);
     allProtos.add(Protocol.BGP);
-
-    CallbackHandler handler = new CallbackHandler();
-    try {
-      Method m = handler.getClass().getDeclaredMethod("handle", (Class<?>[]) null);
-      factory = JFactory.init(100000, 10000);
-      factory.disableReorder();
-      // Disables printing
-      // factory.registerGCCallback(handler, m);
-      // factory.registerResizeCallback(handler, m);
-      // factory.registerReorderCallback(handler, m);
-      pairing = factory.makePair();
-    } catch (NoSuchMethodException e) {
-      e.printStackTrace();
-    }
   }
 
   private BDDInteger _adminDist;
@@ -73,6 +53,8 @@ public class BDDRoute {
 
   private SortedMap<CommunityVar, BDD> _communities;
 
+  private final BDDFactory _factory;
+
   private BDDInteger _localPref;
 
   private BDDInteger _med;
@@ -81,6 +63,12 @@ public class BDDRoute {
 
   private BDDDomain<OspfType> _ospfMetric;
 
+  /*
+   * Created on first restriction and shared by copies, since creating
+   * a pairing per restriction leaks memory in JavaBDD
+   */
+  private BDDPairing _pairing;
+
   private final BDDInteger _prefix;
 
   private final BDDInteger _prefixLength;
@@ -89,9 +77,11 @@ public class BDDRoute {
 
   /*
    * Creates a collection of BDD variables representing the
-   * various attributes of a control plane advertisement.
+   * various attributes of a control plane advertisement, in the
+   * given factory.
    */
-  public BDDRoute(Set<CommunityVar> comms) {
+  public BDDRoute(BDDFactory factory, Set<CommunityVar> comms) {
+    _factory = factory;
     int numVars = factory.varNum();
     int numNeeded = 32 * 5 + 5 + comms.size() + 4;
     if (numVars < numNeeded) {
@@ -143,6 +133,8 @@ public class BDDRoute {
    * there is no need for a deep copy.
    */
   public BDDRoute(BDDRoute other) {
+    _factory = other._factory;
+    _pairing = other._pairing;
     _communities = new TreeMap<>(other._communities);
     _prefixLength = new BDDInteger(other._prefixLength);
     _prefix = new BDDInteger(other._prefix);
@@ -235,6 +227,10 @@ public class BDDRoute {
     this._communities = communities;
   }
 
+  public BDDFactory getFactory() {
+    return _factory;
+  }
+
   public BDDInteger getLocalPref() {
     return _localPref;
   }
@@ -340,15 +336,17 @@ public class BDDRoute {
 
   public BDDRoute restrict(Prefix pfx) {
     int len = pfx.getPrefixLength();
-    BitSet bits = pfx.getAddress().getAddressBits();
+    Ip ip = pfx.getAddress();
     int[] vars = new int[len];
     BDD[] vals = new BDD[len];
-    // NOTE: do not create a new pairing each time
-    // JavaBDD will start to memory leak
+    if (_pairing == null) {
+      _pairing = _factory.makePair();
+    }
+    BDDPairing pairing = _pairing;
     pairing.reset();
     for (int i = 0; i < len; i++) {
       int var = prefixIndex + i;
-      BDD subst = bits.get(i) ? factory.one() : factory.zero();
+      BDD subst = ip.getBit(i) ? _factory.one() : _factory.zero();
       vars[i] = var;
       vals[i] = subst;
     }
@@ -0,0 +1,255 @@
+package org.batfish.symbolic.bdd;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Protocol;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.TcpFlags;
+
+/**
+ * Converts a {@link HeaderSpace} (e.g. an ACL line or the header constraints of a question) to the
+ * set of packets it matches, as a BDD over the variables of a {@link BDDPacket}.
+ *
+ * <p>Dscp, ecn, fragment offset, packet length and connection state are not part of {@link
+ * BDDPacket}, so a header space that constrains any of them is rejected rather than silently
+ * over-approximated.
+ */
+public class HeaderSpaceToBDD {
+
+  private BDDFactory _factory;
+
+  private BDDPacket _pkt;
+
+  public HeaderSpaceToBDD(BDDPacket pkt) {
+    _factory = pkt.getFactory();
+    _pkt = pkt;
+  }
+
+  private static void checkUnsupported(Collection<?> values, String field) {
+    if (!values.isEmpty()) {
+      throw new BatfishException("BDD packets cannot match on " + field);
+    }
+  }
+
+  /*
+   * Does the field match the prefix?
+   */
+  private BDD firstBitsEqual(BDDInteger field, Prefix p) {
+    BDD[] bits = field.getBitvec();
+    Ip ip = p.getAddress();
+    BDD acc = _factory.one();
+    for (int i = 0; i < p.getPrefixLength(); i++) {
+      acc = acc.and(ip.getBit(i) ? bits[i] : bits[i].not());
+    }
+    return acc;
+  }
+
+  /*
+   * Convert a set of ip protocols to a boolean expression on the symbolic packet
+   */
+  private BDD matchIpProtocols(Set<IpProtocol> ipProtocols) {
+    BDD acc = _factory.zero();
+    for (IpProtocol protocol : ipProtocols) {
+      acc = acc.or(_pkt.getIpProtocol().value(protocol.number()));
+    }
+    return acc;
+  }
+
+  /*
+   * Convert a set of wildcards and a packet field to a symbolic boolean expression
+   */
+  private BDD matchIpWildcards(Set<IpWildcard> wildcards, BDDInteger field) {
+    BDD acc = _factory.zero();
+    for (IpWildcard wildcard : wildcards) {
+      if (wildcard.isPrefix()) {
+        acc = acc.or(firstBitsEqual(field, wildcard.toPrefix()));
+      } else {
+        BDD[] bits = field.getBitvec();
+        Ip ip = wildcard.getIp();
+        Ip dontCare = wildcard.getWildcard();
+        BDD match = _factory.one();
+        for (int i = 0; i < Prefix.MAX_PREFIX_LENGTH; i++) {
+          if (!dontCare.getBit(i)) {
+            match = match.and(ip.getBit(i) ? bits[i] : bits[i].not());
+          }
+        }
+        acc = acc.or(match);
+      }
+    }
+    return acc;
+  }
+
+  /*
+   * Convert a set of protocols (ip protocol and optional port) to a symbolic
+   * boolean expression, where the port may be in any of the given fields
+   */
+  private BDD matchProtocols(Set<Protocol> protocols, BDDInteger... portFields) {
+    BDD acc = _factory.zero();
+    for (Protocol protocol : protocols) {
+      BDD match = _pkt.getIpProtocol().value(protocol.getIpProtocol().number());
+      Integer port = protocol.getPort();
+      if (port != null) {
+        BDD matchPort = _factory.zero();
+        for (BDDInteger portField : portFields) {
+          matchPort = matchPort.or(portField.value(port));
+        }
+        match = match.and(matchPort);
+      }
+      acc = acc.or(match);
+    }
+    return acc;
+  }
+
+  /*
+   * Convert a set of ranges and a packet field to a symbolic boolean expression
+   */
+  private BDD matchRanges(Set<SubRange> ranges, BDDInteger field) {
+    BDD acc = _factory.zero();
+    for (SubRange range : ranges) {
+      int start = range.getStart();
+      int end = range.getEnd();
+      if (start == end) {
+        acc = acc.or(field.value(start));
+      } else {
+        acc = acc.or(field.geq(start).and(field.leq(end)));
+      }
+    }
+    return acc;
+  }
+
+  /*
+   * Convert a list of Tcp flag combinations to a boolean expression on the symbolic packet
+   */
+  private BDD matchTcpFlags(List<TcpFlags> tcpFlags) {
+    BDD acc = _factory.zero();
+    for (TcpFlags flags : tcpFlags) {
+      BDD match = _factory.one();
+      if (flags.getUseAck()) {
+        match = match.and(flags.getAck() ? _pkt.getTcpAck() : _pkt.getTcpAck().not());
+      }
+      if (flags.getUseCwr()) {
+        match = match.and(flags.getCwr() ? _pkt.getTcpCwr() : _pkt.getTcpCwr().not());
+      }
+      if (flags.getUseEce()) {
+        match = match.and(flags.getEce() ? _pkt.getTcpEce() : _pkt.getTcpEce().not());
+      }
+      if (flags.getUseFin()) {
+        match = match.and(flags.getFin() ? _pkt.getTcpFin() : _pkt.getTcpFin().not());
+      }
+      if (flags.getUsePsh()) {
+        match = match.and(flags.getPsh() ? _pkt.getTcpPsh() : _pkt.getTcpPsh().not());
+      }
+      if (flags.getUseRst()) {
+        match = match.and(flags.getRst() ? _pkt.getTcpRst() : _pkt.getTcpRst().not());
+      }
+      if (flags.getUseSyn()) {
+        match = match.and(flags.getSyn() ? _pkt.getTcpSyn() : _pkt.getTcpSyn().not());
+      }
+      if (flags.getUseUrg()) {
+        match = match.and(flags.getUrg() ? _pkt.getTcpUrg() : _pkt.getTcpUrg().not());
+      }
+      acc = acc.or(match);
+    }
+    return acc;
+  }
+
+  /** Returns the set of packets matched by {@code headerSpace}, including its negation flag. */
+  public BDD toBDD(HeaderSpace headerSpace) {
+    checkUnsupported(headerSpace.getDscps(), "dscps");
+    checkUnsupported(headerSpace.getNotDscps(), "dscps");
+    checkUnsupported(headerSpace.getEcns(), "ecns");
+    checkUnsupported(headerSpace.getNotEcns(), "ecns");
+    checkUnsupported(headerSpace.getFragmentOffsets(), "fragment offsets");
+    checkUnsupported(headerSpace.getNotFragmentOffsets(), "fragment offsets");
+    checkUnsupported(headerSpace.getPacketLengths(), "packet lengths");
+    checkUnsupported(headerSpace.getNotPacketLengths(), "packet lengths");
+    checkUnsupported(headerSpace.getStates(), "connection states");
+
+    BDDInteger srcIp = _pkt.getSrcIp();
+    BDDInteger dstIp = _pkt.getDstIp();
+    BDDInteger srcPort = _pkt.getSrcPort();
+    BDDInteger dstPort = _pkt.getDstPort();
+    BDD match = _factory.one();
+
+    if (!headerSpace.getIpProtocols().isEmpty()) {
+      match = match.and(matchIpProtocols(headerSpace.getIpProtocols()));
+    }
+    if (!headerSpace.getNotIpProtocols().isEmpty()) {
+      match = match.and(matchIpProtocols(headerSpace.getNotIpProtocols()).not());
+    }
+    if (!headerSpace.getDstProtocols().isEmpty()) {
+      match = match.and(matchProtocols(headerSpace.getDstProtocols(), dstPort));
+    }
+    if (!headerSpace.getNotDstProtocols().isEmpty()) {
+      match = match.and(matchProtocols(headerSpace.getNotDstProtocols(), dstPort).not());
+    }
+    if (!headerSpace.getSrcProtocols().isEmpty()) {
+      match = match.and(matchProtocols(headerSpace.getSrcProtocols(), srcPort));
+    }
+    if (!headerSpace.getNotSrcProtocols().isEmpty()) {
+      match = match.and(matchProtocols(headerSpace.getNotSrcProtocols(), srcPort).not());
+    }
+    if (!headerSpace.getSrcOrDstProtocols().isEmpty()) {
+      match = match.and(matchProtocols(headerSpace.getSrcOrDstProtocols(), srcPort, dstPort));
+    }
+    if (!headerSpace.getSrcIps().isEmpty()) {
+      match = match.and(matchIpWildcards(headerSpace.getSrcIps(), srcIp));
+    }
+    if (!headerSpace.getNotSrcIps().isEmpty()) {
+      match = match.and(matchIpWildcards(headerSpace.getNotSrcIps(), srcIp).not());
+    }
+    if (!headerSpace.getSrcOrDstIps().isEmpty()) {
+      BDD matchSrc = matchIpWildcards(headerSpace.getSrcOrDstIps(), srcIp);
+      BDD matchDst = matchIpWildcards(headerSpace.getSrcOrDstIps(), dstIp);
+      match = match.and(matchSrc.or(matchDst));
+    }
+    if (!headerSpace.getDstIps().isEmpty()) {
+      match = match.and(matchIpWildcards(headerSpace.getDstIps(), dstIp));
+    }
+    if (!headerSpace.getNotDstIps().isEmpty()) {
+      match = match.and(matchIpWildcards(headerSpace.getNotDstIps(), dstIp).not());
+    }
+    if (!headerSpace.getSrcPorts().isEmpty()) {
+      match = match.and(matchRanges(headerSpace.getSrcPorts(), srcPort));
+    }
+    if (!headerSpace.getNotSrcPorts().isEmpty()) {
+      match = match.and(matchRanges(headerSpace.getNotSrcPorts(), srcPort).not());
+    }
+    if (!headerSpace.getSrcOrDstPorts().isEmpty()) {
+      BDD matchSrc = matchRanges(headerSpace.getSrcOrDstPorts(), srcPort);
+      BDD matchDst = matchRanges(headerSpace.getSrcOrDstPorts(), dstPort);
+      match = match.and(matchSrc.or(matchDst));
+    }
+    if (!headerSpace.getDstPorts().isEmpty()) {
+      match = match.and(matchRanges(headerSpace.getDstPorts(), dstPort));
+    }
+    if (!headerSpace.getNotDstPorts().isEmpty()) {
+      match = match.and(matchRanges(headerSpace.getNotDstPorts(), dstPort).not());
+    }
+    if (!headerSpace.getIcmpTypes().isEmpty()) {
+      match = match.and(matchRanges(headerSpace.getIcmpTypes(), _pkt.getIcmpType()));
+    }
+    if (!headerSpace.getNotIcmpTypes().isEmpty()) {
+      match = match.and(matchRanges(headerSpace.getNotIcmpTypes(), _pkt.getIcmpType()).not());
+    }
+    if (!headerSpace.getIcmpCodes().isEmpty()) {
+      match = match.and(matchRanges(headerSpace.getIcmpCodes(), _pkt.getIcmpCode()));
+    }
+    if (!headerSpace.getNotIcmpCodes().isEmpty()) {
+      match = match.and(matchRanges(headerSpace.getNotIcmpCodes(), _pkt.getIcmpCode()).not());
+    }
+    if (!headerSpace.getTcpFlags().isEmpty()) {
+      match = match.and(matchTcpFlags(headerSpace.getTcpFlags()));
+    }
+    return headerSpace.getNegate() ? match.not() : match;
+  }
+}
@@ -1,7 +1,6 @@
 package org.batfish.symbolic.bdd;
 
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -13,6 +12,7 @@ import org.batfish.common.BatfishException;
 import org.batfish.datamodel.CommunityList;
 import org.batfish.datamodel.CommunityListLine;
 import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.LineAction;
 import org.batfish.datamodel.OspfMetricType;
 import org.batfish.datamodel.Prefix;
@@ -76,21 +76,22 @@ import org.batfish.symbolic.TransferResult;
 /** @author Ryan Beckett */
 class TransferBDD {
 
-  private static BDDFactory factory = BDDRoute.factory;
-
   private SortedMap<CommunityVar, List<CommunityVar>> _commDeps;
 
   private Set<CommunityVar> _comms;
 
   private Configuration _conf;
 
+  private BDDFactory _factory;
+
   private Graph _graph;
 
   private boolean _ignoreNetwork;
 
   private List<Statement> _statements;
 
-  public TransferBDD(Graph g, Configuration conf, List<Statement> statements) {
+  public TransferBDD(BDDFactory factory, Graph g, Configuration conf, List<Statement> statements) {
+    _factory = factory;
     _graph = g;
     _conf = conf;
     _statements = statements;
@@ -104,11 +105,11 @@ class TransferBDD {
    * be a bitvector containing only the underlying variables:
    * [var(0), ..., var(n)]
    */
-  public static BDD firstBitsEqual(BDD[] bits, Prefix p, int length) {
-    BitSet b = p.getAddress().getAddressBits();
-    BDD acc = factory.one();
+  private BDD firstBitsEqual(BDD[] bits, Prefix p, int length) {
+    Ip ip = p.getAddress();
+    BDD acc = _factory.one();
     for (int i = 0; i < length; i++) {
-      boolean res = b.get(i);
+      boolean res = ip.getBit(i);
       if (res) {
         acc = acc.and(bits[i]);
       } else {
@@ -172,20 +173,20 @@ class TransferBDD {
     // TODO: right now everything is IPV4
     if (expr instanceof MatchIpv4) {
       p.debug("MatchIpv4");
-      TransferReturn ret = new TransferReturn(p.getData(), factory.one());
+      TransferReturn ret = new TransferReturn(p.getData(), _factory.one());
       p.debug("MatchIpv4 Result: " + ret);
       return fromExpr(ret);
     }
     if (expr instanceof MatchIpv6) {
       p.debug("MatchIpv6");
-      TransferReturn ret = new TransferReturn(p.getData(), factory.zero());
+      TransferReturn ret = new TransferReturn(p.getData(), _factory.zero());
       return fromExpr(ret);
     }
 
     if (expr instanceof Conjunction) {
       p.debug("Conjunction");
       Conjunction c = (Conjunction) expr;
-      BDD acc = factory.one();
+      BDD acc = _factory.one();
       TransferResult<TransferReturn, BDD> result = new TransferResult<>();
       for (BooleanExpr be : c.getConjuncts()) {
         TransferResult<TransferReturn, BDD> r = compute(be, p);
@@ -198,7 +199,7 @@ class TransferBDD {
     if (expr instanceof Disjunction) {
       p.debug("Disjunction");
       Disjunction d = (Disjunction) expr;
-      BDD acc = factory.zero();
+      BDD acc = _factory.zero();
       TransferResult<TransferReturn, BDD> result = new TransferResult<>();
       for (BooleanExpr be : d.getDisjuncts()) {
         TransferResult<TransferReturn, BDD> r = compute(be, p);
@@ -219,12 +220,12 @@ class TransferBDD {
         conjuncts.add(be);
       }
       if (conjuncts.size() == 0) {
-        TransferReturn ret = new TransferReturn(p.getData(), factory.one());
+        TransferReturn ret = new TransferReturn(p.getData(), _factory.one());
         return fromExpr(ret);
       } else {
         TransferResult<TransferReturn, BDD> result = new TransferResult<>();
         TransferParam<BDDRoute> record = p;
-        BDD acc = factory.zero();
+        BDD acc = _factory.zero();
         for (int i = conjuncts.size() - 1; i >= 0; i--) {
           BooleanExpr conjunct = conjuncts.get(i);
           TransferParam<BDDRoute> param =
@@ -247,12 +248,12 @@ class TransferBDD {
         disjuncts.add(be);
       }
       if (disjuncts.size() == 0) {
-        TransferReturn ret = new TransferReturn(p.getData(), factory.zero());
+        TransferReturn ret = new TransferReturn(p.getData(), _factory.zero());
         return fromExpr(ret);
       } else {
         TransferResult<TransferReturn, BDD> result = new TransferResult<>();
         TransferParam<BDDRoute> record = p;
-        BDD acc = factory.zero();
+        BDD acc = _factory.zero();
         for (int i = disjuncts.size() - 1; i >= 0; i--) {
           BooleanExpr disjunct = disjuncts.get(i);
           TransferParam<BDDRoute> param =
@@ -280,7 +281,7 @@ class TransferBDD {
       Protocol proto = Protocol.fromRoutingProtocol(mp.getProtocol());
       if (proto == null) {
         p.debug("MatchProtocol(" + mp.getProtocol().protocolName() + "): false");
-        TransferReturn ret = new TransferReturn(p.getData(), factory.zero());
+        TransferReturn ret = new TransferReturn(p.getData(), _factory.zero());
         return fromExpr(ret);
       }
       BDD protoMatch = p.getData().getProtocolHistory().value(proto);
@@ -300,7 +301,7 @@ class TransferBDD {
       // TODO: implement me
     } else if (expr instanceof MatchPrefix6Set) {
       p.debug("MatchPrefix6Set");
-      TransferReturn ret = new TransferReturn(p.getData(), factory.zero());
+      TransferReturn ret = new TransferReturn(p.getData(), _factory.zero());
       return fromExpr(ret);
 
     } else if (expr instanceof CallExpr) {
@@ -343,11 +344,11 @@ class TransferBDD {
           return fromExpr(ret);
         case True:
           p.debug("True");
-          ret = new TransferReturn(p.getData(), factory.one());
+          ret = new TransferReturn(p.getData(), _factory.one());
           return fromExpr(ret);
         case False:
           p.debug("False");
-          ret = new TransferReturn(p.getData(), factory.zero());
+          ret = new TransferReturn(p.getData(), _factory.zero());
           return fromExpr(ret);
         default:
           throw new BatfishException(
@@ -368,9 +369,9 @@ class TransferBDD {
     TransferResult<TransferReturn, BDD> result = new TransferResult<>();
     result =
         result
-            .setReturnValue(new TransferReturn(p.getData(), factory.zero()))
-            .setFallthroughValue(factory.zero())
-            .setReturnAssignedValue(factory.zero());
+            .setReturnValue(new TransferReturn(p.getData(), _factory.zero()))
+            .setFallthroughValue(_factory.zero())
+            .setReturnAssignedValue(_factory.zero());
 
     for (Statement stmt : statements) {
 
@@ -541,7 +542,7 @@ class TransferBDD {
         for (CommunityVar cvar : comms) {
           p.indent().debug("Value: " + cvar);
           BDD comm = p.getData().getCommunities().get(cvar);
-          BDD newValue = ite(result.getReturnAssignedValue(), comm, factory.one());
+          BDD newValue = ite(result.getReturnAssignedValue(), comm, _factory.one());
           p.indent().debug("New Value: " + newValue);
           p.getData().getCommunities().put(cvar, newValue);
         }
@@ -563,7 +564,7 @@ class TransferBDD {
         for (CommunityVar cvar : toDelete) {
           p.indent().debug("Value: " + cvar.getValue() + ", " + cvar.getType());
           BDD comm = p.getData().getCommunities().get(cvar);
-          BDD newValue = ite(result.getReturnAssignedValue(), comm, factory.zero());
+          BDD newValue = ite(result.getReturnAssignedValue(), comm, _factory.zero());
           p.indent().debug("New Value: " + newValue);
           p.getData().getCommunities().put(cvar, newValue);
         }
@@ -620,15 +621,15 @@ class TransferBDD {
     _ignoreNetwork = ignoreNetwork;
     _commDeps = _graph.getCommunityDependencies();
     _comms = _graph.findAllCommunities();
-    BDDRoute o = new BDDRoute(_comms);
+    BDDRoute o = new BDDRoute(_factory, _comms);
     TransferParam<BDDRoute> p = new TransferParam<>(o, false);
     TransferResult<TransferReturn, BDD> result = compute(_statements, p);
     return result.getReturnValue().getFirst();
   }
 
   private TransferResult<TransferReturn, BDD> fallthrough(TransferResult<TransferReturn, BDD> r) {
-    BDD b = ite(r.getReturnAssignedValue(), r.getFallthroughValue(), factory.one());
-    return r.setFallthroughValue(b).setReturnAssignedValue(factory.one());
+    BDD b = ite(r.getReturnAssignedValue(), r.getFallthroughValue(), _factory.one());
+    return r.setFallthroughValue(b).setReturnAssignedValue(_factory.one());
   }
 
   /*
@@ -636,7 +637,7 @@ class TransferBDD {
    */
   private TransferResult<TransferReturn, BDD> fromExpr(TransferReturn b) {
     return new TransferResult<TransferReturn, BDD>()
-        .setReturnAssignedValue(factory.one())
+        .setReturnAssignedValue(_factory.one())
         .setReturnValue(b);
   }
 
@@ -656,9 +657,9 @@ class TransferBDD {
     int upper = r.getEnd();
 
     BDD lowerBitsMatch = firstBitsEqual(record.getPrefix().getBitvec(), p, len);
-    BDD acc = factory.zero();
+    BDD acc = _factory.zero();
     if (lower == 0 && upper == 32) {
-      acc = factory.one();
+      acc = _factory.one();
     } else {
       for (int i = lower; i <= upper; i++) {
         BDD equalLen = record.getPrefixLength().value(i);
@@ -693,7 +694,7 @@ class TransferBDD {
   }
 
   private BDDRoute ite(BDD guard, BDDRoute r1, BDDRoute r2) {
-    BDDRoute ret = new BDDRoute(_comms);
+    BDDRoute ret = new BDDRoute(_factory, _comms);
 
     BDDInteger x;
     BDDInteger y;
@@ -743,7 +744,7 @@ class TransferBDD {
   private BDD matchCommunityList(TransferParam<BDDRoute> p, CommunityList cl, BDDRoute other) {
     List<CommunityListLine> lines = new ArrayList<>(cl.getLines());
     Collections.reverse(lines);
-    BDD acc = factory.zero();
+    BDD acc = _factory.zero();
     for (CommunityListLine line : lines) {
       boolean action = (line.getAction() == LineAction.ACCEPT);
       CommunityVar cvar = new CommunityVar(CommunityVar.Type.REGEX, line.getRegex(), null);
@@ -767,7 +768,7 @@ class TransferBDD {
       TransferParam<BDDRoute> p, Configuration conf, CommunitySetExpr e, BDDRoute other) {
     if (e instanceof InlineCommunitySet) {
       Set<CommunityVar> comms = _graph.findAllCommunities(conf, e);
-      BDD acc = factory.one();
+      BDD acc = _factory.one();
       for (CommunityVar comm : comms) {
         p.debug("Inline Community Set: " + comm);
         BDD c = other.getCommunities().get(comm);
@@ -794,7 +795,7 @@ class TransferBDD {
    * Converts a route filter list to a boolean expression.
    */
   private BDD matchFilterList(TransferParam<BDDRoute> p, RouteFilterList x, BDDRoute other) {
-    BDD acc = factory.zero();
+    BDD acc = _factory.zero();
     List<RouteFilterLine> lines = new ArrayList<>(x.getLines());
     Collections.reverse(lines);
     for (RouteFilterLine line : lines) {
@@ -821,7 +822,7 @@ class TransferBDD {
       Set<PrefixRange> ranges = x.getPrefixSpace().getPrefixRanges();
       if (ranges.isEmpty()) {
         p.debug("empty");
-        return factory.one();
+        return _factory.one();
       }
 
       // We explicity ignore originated networks
@@ -835,14 +836,14 @@ class TransferBDD {
             if (start == end && start == pfx.getPrefixLength()) {
               Set<Prefix> origin = Graph.getOriginatedNetworks(_conf, Protocol.BGP);
               if (origin.contains(pfx)) {
-                return factory.zero();
+                return _factory.zero();
               }
             }
           }
         }
       }
 
-      BDD acc = factory.zero();
+      BDD acc = _factory.zero();
       for (PrefixRange range : ranges) {
         p.debug("Prefix Range: " + range);
         acc = acc.or(isRelevantFor(other, range));
@@ -865,7 +866,7 @@ class TransferBDD {
    * Return a BDD from a boolean
    */
   private BDD mkBDD(boolean b) {
-    return b ? factory.one() : factory.zero();
+    return b ? _factory.one() : _factory.zero();
   }
 
   /*
@@ -892,7 +893,7 @@ class TransferBDD {
       TransferResult<TransferReturn, BDD> r, boolean val) {
     BDD b = ite(r.getReturnAssignedValue(), r.getReturnValue().getSecond(), mkBDD(val));
     TransferReturn ret = new TransferReturn(r.getReturnValue().getFirst(), b);
-    return r.setReturnValue(ret).setReturnAssignedValue(factory.one());
+    return r.setReturnValue(ret).setReturnAssignedValue(_factory.one());
   }
 
   /*
@@ -900,7 +901,7 @@ class TransferBDD {
    * outputs if the route is filtered / dropped in the policy
    */
   private BDDRoute zeroedRecord() {
-    BDDRoute rec = new BDDRoute(_comms);
+    BDDRoute rec = new BDDRoute(_factory, _comms);
     rec.getMetric().setValue(0);
     rec.getLocalPref().setValue(0);
     rec.getAdminDist().setValue(0);
@@ -908,7 +909,7 @@ class TransferBDD {
     rec.getMed().setValue(0);
     rec.getPrefix().setValue(0);
     for (CommunityVar comm : _comms) {
-      rec.getCommunities().put(comm, factory.zero());
+      rec.getCommunities().put(comm, _factory.zero());
     }
     rec.getProtocolHistory().getInteger().setValue(0);
     return rec;
@@ -9,6 +9,8 @@ import com.microsoft.z3.Model;
 import com.microsoft.z3.Solver;
 import com.microsoft.z3.Status;
 import com.microsoft.z3.Tactic;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -83,6 +85,28 @@ public class Encoder {
 
   private UnsatCore _unsatCore;
 
+  private VerificationStats _verificationStats;
+
+  private Deque<Scope> _scopes;
+
+  private boolean _closed;
+
+  /*
+   * A scope opened by push: the literal that guards the constraints added in it, and the
+   * variables that existed before it
+   */
+  private static final class Scope {
+
+    private final BoolExpr _literal;
+
+    private final Set<String> _variables;
+
+    private Scope(BoolExpr literal, Set<String> variables) {
+      _literal = literal;
+      _variables = variables;
+    }
+  }
+
   /**
    * Create an encoder object that will consider all packets in the provided headerspace.
    *
@@ -101,6 +125,17 @@ public class Encoder {
     this(null, graph, q, null, null, null, 0);
   }
 
+  /**
+   * Create an encoder object with an incremental solver, so that the encoding can be checked many
+   * times with different constraints added in scopes of their own (see {@link #push()}).
+   *
+   * @param graph The network graph
+   */
+  static Encoder createIncremental(Graph graph, HeaderQuestion q) {
+    Context ctx = createContext();
+    return new Encoder(null, graph, q, ctx, ctx.mkSolver(), null, 0);
+  }
+
   /**
    * Create an encoder object from an existing encoder.
    *
@@ -143,15 +178,7 @@ public class Encoder {
     _slices = new HashMap<>();
     _sliceReachability = new HashMap<>();
 
-    HashMap<String, String> cfg = new HashMap<>();
-
-    // allows for unsat core when debugging
-    if (ENABLE_UNSAT_CORE) {
-      cfg.put("proof", "true");
-      cfg.put("auto-config", "false");
-    }
-
-    _ctx = (ctx == null ? new Context(cfg) : ctx);
+    _ctx = (ctx == null ? createContext() : ctx);
 
     if (solver == null) {
       if (ENABLE_UNSAT_CORE) {
@@ -184,6 +211,9 @@ public class Encoder {
 
     _unsatCore = new UnsatCore(ENABLE_UNSAT_CORE);
 
+    // encoders that share a solver share its scopes
+    _scopes = (enc == null ? new ArrayDeque<>() : enc._scopes);
+
     initFailedLinkVariables();
     initSlices(_question.getHeaderSpace(), graph);
   }
@@ -394,7 +424,8 @@ public class Encoder {
 
   // Add a boolean variable to the model
   void add(BoolExpr e) {
-    _unsatCore.track(_solver, _ctx, e);
+    Scope scope = _scopes.peek();
+    _unsatCore.track(_solver, _ctx, scope == null ? e : mkImplies(scope._literal, e));
   }
 
   /*
@@ -702,6 +733,21 @@ public class Encoder {
     return mkAnd(acc1, acc2);
   }
 
+  /*
+   * Create a context configured the way every encoder expects
+   */
+  private static Context createContext() {
+    HashMap<String, String> cfg = new HashMap<>();
+
+    // allows for unsat core when debugging
+    if (ENABLE_UNSAT_CORE) {
+      cfg.put("proof", "true");
+      cfg.put("auto-config", "false");
+    }
+
+    return new Context(cfg);
+  }
+
   /**
    * Checks that a property is always true by seeing if the encoding is unsatisfiable. mkIf the
    * model is satisfiable, then there is a counter example to the property.
@@ -721,15 +767,16 @@ public class Encoder {
     }
 
     long start = System.currentTimeMillis();
-    Status status = _solver.check();
+    Status status = check();
     long time = System.currentTimeMillis() - start;
 
+    _verificationStats =
+        new VerificationStats(numNodes, numEdges, numVariables, numConstraints, time);
+
     if (ENABLE_BENCHMARKING) {
-      VerificationStats stats =
-          new VerificationStats(numNodes, numEdges, numVariables, numConstraints, time);
-      System.out.println("Constraints: " + stats.getNumConstraints());
-      System.out.println("Variables: " + stats.getNumVariables());
-      System.out.println("Z3 Time: " + stats.getTime());
+      System.out.println("Constraints: " + _verificationStats.getNumConstraints());
+      System.out.println("Variables: " + _verificationStats.getNumVariables());
+      System.out.println("Z3 Time: " + _verificationStats.getTime());
       System.out.println("Stats: \n" + _solver.getStatistics());
     }
 
@@ -764,7 +811,7 @@ public class Encoder {
         BoolExpr blocking = environmentBlockingClause(m);
         add(blocking);
 
-        Status s = _solver.check();
+        Status s = check();
         if (s == Status.UNSATISFIABLE) {
           break;
         }
@@ -777,6 +824,55 @@ public class Encoder {
     }
   }
 
+  /*
+   * Check the solver assuming the literals of all open scopes, so that only the constraints of
+   * those scopes are in force
+   */
+  private Status check() {
+    BoolExpr[] assumptions = new BoolExpr[_scopes.size()];
+    int i = 0;
+    for (Scope scope : _scopes) {
+      assumptions[i++] = scope._literal;
+    }
+    return _solver.check(assumptions);
+  }
+
+  /**
+   * Opens a new scope. Constraints and variables added until the matching {@link #pop()} are
+   * removed by it, while the encoding added before is kept, so that it can be checked again with
+   * other constraints. Encoders created from this one share its solver and so its scope.
+   *
+   * <p>Rather than pushing a solver scope, which makes z3 drop what it learned about the encoding
+   * on every pop, the constraints of the scope are guarded by a fresh literal that {@link #verify()}
+   * assumes. This keeps the solver incremental across checks.
+   */
+  void push() {
+    BoolExpr literal = (BoolExpr) _ctx.mkFreshConst("SCOPE", _ctx.getBoolSort());
+    _scopes.push(new Scope(literal, new HashSet<>(_allVariables.keySet())));
+  }
+
+  /** Removes everything added since the matching {@link #push()}. */
+  void pop() {
+    Scope scope = _scopes.pop();
+    // retire the literal for good, so the solver can discard the constraints it guards
+    _solver.add(mkNot(scope._literal));
+    _allVariables.keySet().retainAll(scope._variables);
+  }
+
+  /**
+   * Releases the z3 context of this encoder, which is shared with the encoders created from it.
+   * None of them can be used afterwards.
+   */
+  void close() {
+    _closed = true;
+    _ctx.close();
+  }
+
+  /* Whether close has been called */
+  boolean isClosed() {
+    return _closed;
+  }
+
   /**
    * Adds all the constraints to capture the interactions of messages among all protocols in the
    * network. This should be called prior to calling the <b>verify method</b>
@@ -838,6 +934,14 @@ public class Encoder {
     return _unsatCore;
   }
 
+  /*
+   * Statistics of the last call to verify, or null if it has not been called
+   */
+  @Nullable
+  VerificationStats getVerificationStats() {
+    return _verificationStats;
+  }
+
   int getFailures() {
     return _question.getFailures();
   }
@@ -0,0 +1,142 @@
+package org.batfish.symbolic.smt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.questions.smt.EnvironmentType;
+import org.batfish.datamodel.questions.smt.HeaderQuestion;
+import org.batfish.symbolic.Graph;
+import org.batfish.symbolic.utils.Tuple;
+
+/**
+ * Encodings of a network that are kept so that later property checks on the same snapshot can use
+ * them again.
+ *
+ * <p>Encoding the control plane for one class of destinations is the same work whatever property is
+ * checked for that class. A session keeps this base encoding, and each check adds its property in a
+ * solver scope of its own (see {@link Encoder#push()} and {@link Encoder#pop()}). A batch of
+ * questions then pays for each encoding once. Only one check may use an encoding at a time, so
+ * checks synchronize on the first encoder of the pair.
+ *
+ * <p>Each encoding owns a z3 context, which holds native memory until it is closed. The session
+ * keeps a bounded number of encodings and closes the context of each one it evicts, so that the
+ * bound holds for the contexts as well. {@link #close()} closes the rest.
+ */
+public final class EncoderSession {
+
+  private static final int MAX_CACHED_ENCODINGS = 64;
+
+  /*
+   * Everything the base encoding depends on: the network and headerspace it
+   * covers, and the question parameters used before the property is added
+   */
+  private static final class Key {
+
+    private final EnvironmentType _baseEnvType;
+
+    private final EnvironmentType _deltaEnvType;
+
+    private final boolean _diff;
+
+    private final boolean _envDiff;
+
+    private final int _failures;
+
+    private final HeaderSpace _headerSpace;
+
+    private final SortedSet<String> _routers;
+
+    private Key(HeaderQuestion q, Graph g) {
+      _baseEnvType = q.getBaseEnvironmentType();
+      _deltaEnvType = q.getDeltaEnvironmentType();
+      _diff = q.getDiffType() != null;
+      _envDiff = q.getEnvDiff();
+      _failures = q.getFailures();
+      _headerSpace = q.getHeaderSpace();
+      _routers = ImmutableSortedSet.copyOf(g.getRouters());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return _baseEnvType == other._baseEnvType
+          && _deltaEnvType == other._deltaEnvType
+          && _diff == other._diff
+          && _envDiff == other._envDiff
+          && _failures == other._failures
+          && _headerSpace.equals(other._headerSpace)
+          && _routers.equals(other._routers);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+          _baseEnvType, _deltaEnvType, _diff, _envDiff, _failures, _headerSpace, _routers);
+    }
+  }
+
+  private final Cache<Key, Tuple<Encoder, Encoder>> _encodings;
+
+  public EncoderSession() {
+    _encodings =
+        CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_ENCODINGS)
+            .removalListener(EncoderSession::closeEncoding)
+            .build();
+  }
+
+  /*
+   * Close the context of an encoding once no check is using it
+   */
+  private static void closeEncoding(RemovalNotification<Key, Tuple<Encoder, Encoder>> removal) {
+    Encoder enc = removal.getValue().getFirst();
+    synchronized (enc) {
+      enc.close();
+    }
+  }
+
+  /** Closes the contexts of all encodings in this session. */
+  public void close() {
+    _encodings.invalidateAll();
+    _encodings.cleanUp();
+  }
+
+  /*
+   * Apply a check to the encoding of a graph for a question, encoding it first if there
+   * is none yet. The second encoder is the copy of the network compared against in
+   * differential questions. The check holds the lock of the encoding, so it is not closed
+   * while in use; an encoding evicted before the lock is taken is encoded again.
+   */
+  <T> T withEncoding(
+      HeaderQuestion q,
+      Graph g,
+      Supplier<Tuple<Encoder, Encoder>> encode,
+      Function<Tuple<Encoder, Encoder>, T> check) {
+    Key key = new Key(q, g);
+    while (true) {
+      Tuple<Encoder, Encoder> encoding = _encodings.getIfPresent(key);
+      if (encoding == null) {
+        encoding = encode.get();
+        _encodings.put(key, encoding);
+      }
+      Encoder enc = encoding.getFirst();
+      synchronized (enc) {
+        if (!enc.isClosed()) {
+          return check.apply(encoding);
+        }
+      }
+    }
+  }
+}
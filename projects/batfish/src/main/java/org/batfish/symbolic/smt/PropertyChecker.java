@@ -1,31 +1,49 @@
 package org.batfish.symbolic.smt;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.microsoft.z3.ArithExpr;
 import com.microsoft.z3.BitVecExpr;
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Context;
 import com.microsoft.z3.Expr;
 import com.microsoft.z3.Model;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
+import net.sf.javabdd.BDDFactory;
 import org.batfish.common.BatfishException;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.datamodel.Configuration;
@@ -67,8 +85,15 @@ public class PropertyChecker {
 
   private IBatfish _batfish;
 
-  public PropertyChecker(IBatfish batfish) {
+  private Supplier<BDDFactory> _bddFactories;
+
+  private EncoderSession _session;
+
+  public PropertyChecker(
+      IBatfish batfish, Supplier<BDDFactory> bddFactories, EncoderSession session) {
     this._batfish = batfish;
+    this._bddFactories = bddFactories;
+    this._session = session;
   }
 
   private Set<GraphEdge> findFinalInterfaces(Graph g, PathRegexes p) {
@@ -230,12 +255,13 @@ public class PropertyChecker {
       long l = System.currentTimeMillis();
       HeaderSpace h = q.getHeaderSpace();
       int numFailures = q.getFailures();
-      Abstraction abs = Abstraction.create(_batfish, h, numFailures, useDefaultCase);
+      Abstraction abs = Abstraction.create(_batfish, _bddFactories, h, numFailures, useDefaultCase);
       if (q.getBenchmark()) {
         System.out.println("  Create abstraction: " + (System.currentTimeMillis() - l));
       }
-      ArrayList<Supplier<EquivalenceClass>> ecs = abs.equivalenceClasses();
-      return ecs.stream();
+      // Compute the classes in the background, on as many threads as they are checked on
+      return computeInBackground(
+          abs.equivalenceClasses(), Math.max(1, q.getVerificationThreads()));
     } else {
       List<Supplier<EquivalenceClass>> singleEc = new ArrayList<>();
       Graph g = graph == null ? new Graph(_batfish) : graph;
@@ -246,6 +272,79 @@ public class PropertyChecker {
     }
   }
 
+  /*
+   * Computes equivalence classes in order on a pool of the given number of threads. At most that
+   * many classes are computed or waiting to be consumed at once, so memory use stays bounded
+   * however many classes there are. Closing the stream cancels the classes not yet consumed.
+   */
+  private static Stream<Supplier<EquivalenceClass>> computeInBackground(
+      List<Supplier<EquivalenceClass>> ecs, int numThreads) {
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            numThreads,
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("equivalence-class-%d")
+                .build());
+    Iterator<Supplier<EquivalenceClass>> pending = ecs.iterator();
+    Deque<Future<EquivalenceClass>> window = new ArrayDeque<>();
+    Iterator<Supplier<EquivalenceClass>> computed =
+        new Iterator<Supplier<EquivalenceClass>>() {
+
+          private void fillWindow() {
+            while (window.size() < numThreads && pending.hasNext()) {
+              window.addLast(executor.submit(pending.next()::get));
+            }
+          }
+
+          @Override
+          public boolean hasNext() {
+            fillWindow();
+            if (window.isEmpty()) {
+              executor.shutdown();
+              return false;
+            }
+            return true;
+          }
+
+          @Override
+          public Supplier<EquivalenceClass> next() {
+            fillWindow();
+            Future<EquivalenceClass> future = window.pollFirst();
+            if (future == null) {
+              throw new NoSuchElementException();
+            }
+            EquivalenceClass ec = awaitEquivalenceClass(future);
+            // start the next class while this one is checked
+            fillWindow();
+            return () -> ec;
+          }
+        };
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(computed, Spliterator.ORDERED), false)
+        .onClose(
+            () -> {
+              window.forEach(ec -> ec.cancel(true));
+              executor.shutdownNow();
+            });
+  }
+
+  /*
+   * Wait for an equivalence class computed in the background,
+   * rethrowing any failure as it was thrown by the computation
+   */
+  private static EquivalenceClass awaitEquivalenceClass(Future<EquivalenceClass> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BatfishException("Interrupted while computing equivalence classes", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new BatfishException("Error computing equivalence class", e.getCause());
+    }
+  }
+
   /*
    * Apply mapping from concrete to abstract nodes
    */
@@ -270,13 +369,15 @@ public class PropertyChecker {
   public AnswerElement checkForwarding(HeaderQuestion question) {
     HeaderQuestion q = new HeaderQuestion(question);
     q.setFailures(0);
-    Stream<Supplier<EquivalenceClass>> sups = findAllEquivalenceClasses(q, null, false);
-    Optional<Supplier<EquivalenceClass>> opt = sups.findFirst();
-    if (!opt.isPresent()) {
-      throw new BatfishException("Unexpected Error: checkForwarding");
+    EquivalenceClass ec;
+    try (Stream<Supplier<EquivalenceClass>> sups = findAllEquivalenceClasses(q, null, false)) {
+      Optional<Supplier<EquivalenceClass>> opt = sups.findFirst();
+      if (!opt.isPresent()) {
+        throw new BatfishException("Unexpected Error: checkForwarding");
+      }
+      Supplier<EquivalenceClass> sup = opt.get();
+      ec = sup.get();
     }
-    Supplier<EquivalenceClass> sup = opt.get();
-    EquivalenceClass ec = sup.get();
     Graph g = ec.getGraph();
     q = new HeaderQuestion(q);
     question.setHeaderSpace(ec.getHeaderSpace());
@@ -311,145 +412,141 @@ public class PropertyChecker {
 
     inferDestinationHeaderSpace(graph, destPorts, q);
     Set<GraphEdge> failOptions = failLinkSet(graph, q);
-    Stream<Supplier<EquivalenceClass>> stream = findAllEquivalenceClasses(q, graph, true);
-
     AnswerElement[] answerElement = new AnswerElement[1];
     VerificationResult[] result = new VerificationResult[1];
+    VerificationStats[] stats = new VerificationStats[1];
     answerElement[0] = null;
     result[0] = null;
+    stats[0] = null;
     Object o = new Object();
 
-    // Checks ECs in parallel, but short circuits when a counterexample is found
-    boolean hasCounterExample =
-        stream.anyMatch(
-            lazyEc -> {
-              long ecTime = System.currentTimeMillis();
-              EquivalenceClass ec = lazyEc.get();
-              if (q.getBenchmark()) {
-                System.out.println("  Compute EC: " + (System.currentTimeMillis() - ecTime));
-              }
-
-              // Make sure the headerspace is correct
-              HeaderLocationQuestion question = new HeaderLocationQuestion(q);
-              question.setHeaderSpace(ec.getHeaderSpace());
-
-              // Get the EC graph and mapping
-              Graph g = ec.getGraph();
-              Set<String> srcRouters = mapConcreteToAbstract(ec, sourceRouters);
-
-              long l1 = System.currentTimeMillis();
-              Encoder enc = new Encoder(g, question);
-              enc.computeEncoding();
-              if (question.getBenchmark()) {
-                System.out.println("  Base Encoding: " + (System.currentTimeMillis() - l1));
-              }
-
-              // Add environment constraints for base case
-              if (question.getDiffType() != null) {
-                if (question.getEnvDiff()) {
-                  addEnvironmentConstraints(enc, question.getDeltaEnvironmentType());
-                }
-              } else {
-                addEnvironmentConstraints(enc, question.getBaseEnvironmentType());
-              }
-
-              Map<String, BoolExpr> prop = instrument.apply(enc, srcRouters, destPorts);
-
-              // If this is a equivalence query, we create a second copy of the network
-              Encoder enc2 = null;
-              Map<String, BoolExpr> prop2 = null;
+    Predicate<Supplier<EquivalenceClass>> checkEc =
+        lazyEc -> {
+          long ecTime = System.currentTimeMillis();
+          EquivalenceClass ec = lazyEc.get();
+          if (q.getBenchmark()) {
+            System.out.println("  Compute EC: " + (System.currentTimeMillis() - ecTime));
+          }
 
-              if (question.getDiffType() != null) {
-                HeaderLocationQuestion q2 = new HeaderLocationQuestion(question);
-                q2.setFailures(0);
-                long l2 = System.currentTimeMillis();
-                enc2 = new Encoder(enc, g, q2);
-                enc2.computeEncoding();
-                if (question.getBenchmark()) {
-                  System.out.println("  Diff Encoding: " + (System.currentTimeMillis() - l2));
+          // Make sure the headerspace is correct
+          HeaderLocationQuestion question = new HeaderLocationQuestion(q);
+          question.setHeaderSpace(ec.getHeaderSpace());
+
+          // Get the EC graph and mapping
+          Graph g = ec.getGraph();
+          Set<String> srcRouters = mapConcreteToAbstract(ec, sourceRouters);
+
+          // Reuse the network encoding of an earlier check if there is one
+          return _session.withEncoding(
+              question,
+              g,
+              () -> encodeNetwork(question, g),
+              encoding -> {
+                Encoder enc = encoding.getFirst();
+                Encoder enc2 = encoding.getSecond();
+                enc.setQuestion(question);
+                if (enc2 != null) {
+                  HeaderLocationQuestion q2 = new HeaderLocationQuestion(question);
+                  q2.setFailures(0);
+                  enc2.setQuestion(q2);
                 }
-              }
-
-              if (question.getDiffType() != null) {
-                assert (enc2 != null);
-                // create a map for enc2 to lookup a related environment variable from enc
-                Table2<GraphEdge, EdgeType, SymbolicRoute> relatedEnv = new Table2<>();
-                enc2.getMainSlice()
-                    .getLogicalGraph()
-                    .getEnvironmentVars()
-                    .forEach((lge, r) -> relatedEnv.put(lge.getEdge(), lge.getEdgeType(), r));
 
-                BoolExpr related = enc.mkTrue();
-                addEnvironmentConstraints(enc2, question.getBaseEnvironmentType());
+                // The property is only added in a scope of its own, so the encoding can be reused
+                enc.push();
+                try {
+                  Map<String, BoolExpr> prop = instrument.apply(enc, srcRouters, destPorts);
+                  Map<String, BoolExpr> prop2 = null;
+
+                  if (question.getDiffType() != null) {
+                    assert (enc2 != null);
+                    prop2 = instrument.apply(enc2, srcRouters, destPorts);
+
+                    // Add diff constraints
+                    BoolExpr required = enc.mkTrue();
+                    for (String source : srcRouters) {
+                      BoolExpr sourceProp1 = prop.get(source);
+                      BoolExpr sourceProp2 = prop2.get(source);
+                      BoolExpr val;
+                      switch (q.getDiffType()) {
+                        case INCREASED:
+                          val = enc.mkImplies(sourceProp1, sourceProp2);
+                          break;
+                        case REDUCED:
+                          val = enc.mkImplies(sourceProp2, sourceProp1);
+                          break;
+                        case ANY:
+                          val = enc.mkEq(sourceProp1, sourceProp2);
+                          break;
+                        default:
+                          throw new BatfishException("Missing case: " + q.getDiffType());
+                      }
+                      required = enc.mkAnd(required, val);
+                    }
 
-                if (!question.getEnvDiff()) {
-                  related = relateEnvironments(enc, enc2);
-                }
+                    enc.add(enc.mkNot(required));
 
-                prop2 = instrument.apply(enc2, srcRouters, destPorts);
-
-                // Add diff constraints
-                BoolExpr required = enc.mkTrue();
-                for (String source : srcRouters) {
-                  BoolExpr sourceProp1 = prop.get(source);
-                  BoolExpr sourceProp2 = prop2.get(source);
-                  BoolExpr val;
-                  switch (q.getDiffType()) {
-                    case INCREASED:
-                      val = enc.mkImplies(sourceProp1, sourceProp2);
-                      break;
-                    case REDUCED:
-                      val = enc.mkImplies(sourceProp2, sourceProp1);
-                      break;
-                    case ANY:
-                      val = enc.mkEq(sourceProp1, sourceProp2);
-                      break;
-                    default:
-                      throw new BatfishException("Missing case: " + q.getDiffType());
+                  } else {
+                    BoolExpr allProp = enc.mkTrue();
+                    for (String router : srcRouters) {
+                      BoolExpr r = prop.get(router);
+                      allProp = enc.mkAnd(allProp, r);
+                    }
+                    enc.add(enc.mkNot(allProp));
                   }
-                  required = enc.mkAnd(required, val);
-                }
 
-                related = enc.mkAnd(related, relatePackets(enc, enc2));
-                enc.add(related);
-                enc.add(enc.mkNot(required));
+                  addFailureConstraints(enc, destPorts, failOptions);
 
-              } else {
-                BoolExpr allProp = enc.mkTrue();
-                for (String router : srcRouters) {
-                  BoolExpr r = prop.get(router);
-                  allProp = enc.mkAnd(allProp, r);
-                }
-                enc.add(enc.mkNot(allProp));
-              }
+                  long startVerify = System.currentTimeMillis();
+                  Tuple<VerificationResult, Model> tup = enc.verify();
+                  if (question.getBenchmark()) {
+                    System.out.println("  z3 time: " + (System.currentTimeMillis() - startVerify));
+                  }
 
-              addFailureConstraints(enc, destPorts, failOptions);
+                  synchronized (o) {
+                    VerificationStats ecStats = enc.getVerificationStats();
+                    stats[0] =
+                        (stats[0] == null ? ecStats : VerificationStats.combine(stats[0], ecStats));
+                  }
 
-              long startVerify = System.currentTimeMillis();
-              Tuple<VerificationResult, Model> tup = enc.verify();
-              if (question.getBenchmark()) {
-                System.out.println("  z3 time: " + (System.currentTimeMillis() - startVerify));
-              }
+                  VerificationResult res = tup.getFirst();
+                  Model model = tup.getSecond();
 
-              VerificationResult res = tup.getFirst();
-              Model model = tup.getSecond();
+                  if (!res.isVerified()) {
+                    VerifyParam vp =
+                        new VerifyParam(res, model, srcRouters, enc, enc2, prop, prop2);
+                    synchronized (o) {
+                      // keep the first counterexample if several checks find one at once
+                      if (answerElement[0] == null) {
+                        answerElement[0] = answer.apply(vp);
+                      }
+                    }
+                    return true;
+                  }
 
-              if (!res.isVerified()) {
-                VerifyParam vp = new VerifyParam(res, model, srcRouters, enc, enc2, prop, prop2);
-                synchronized (o) {
-                  answerElement[0] = answer.apply(vp);
+                  synchronized (o) {
+                    result[0] = res;
+                  }
+                  return false;
+                } finally {
+                  enc.pop();
                 }
-                return true;
-              }
-
-              synchronized (o) {
-                result[0] = res;
-              }
-              return false;
-            });
+              });
+        };
+
+    // Checks ECs, possibly in parallel, but short circuits when a counterexample is found
+    boolean hasCounterExample;
+    try (Stream<Supplier<EquivalenceClass>> stream = findAllEquivalenceClasses(q, graph, true)) {
+      int numThreads = q.getVerificationThreads();
+      if (numThreads > 1) {
+        hasCounterExample = anyMatchInParallel(stream, numThreads, checkEc);
+      } else {
+        hasCounterExample = stream.anyMatch(checkEc);
+      }
+    }
 
     if (q.getBenchmark()) {
       System.out.println("Total time: " + (System.currentTimeMillis() - l));
+      System.out.println("Verification stats: " + stats[0]);
     }
     if (hasCounterExample) {
       return answerElement[0];
@@ -458,6 +555,108 @@ public class PropertyChecker {
     return answer.apply(vp);
   }
 
+  /*
+   * Encode the network for a question together with the constraints that do not
+   * depend on the property being checked. For differential questions, the second
+   * encoder is the copy of the network that the first is compared against.
+   */
+  private Tuple<Encoder, Encoder> encodeNetwork(HeaderLocationQuestion question, Graph g) {
+    long l1 = System.currentTimeMillis();
+    Encoder enc = Encoder.createIncremental(g, question);
+    enc.computeEncoding();
+    if (question.getBenchmark()) {
+      System.out.println("  Base Encoding: " + (System.currentTimeMillis() - l1));
+    }
+
+    // Add environment constraints for base case
+    if (question.getDiffType() != null) {
+      if (question.getEnvDiff()) {
+        addEnvironmentConstraints(enc, question.getDeltaEnvironmentType());
+      }
+    } else {
+      addEnvironmentConstraints(enc, question.getBaseEnvironmentType());
+    }
+
+    // If this is a equivalence query, we create a second copy of the network
+    Encoder enc2 = null;
+    if (question.getDiffType() != null) {
+      HeaderLocationQuestion q2 = new HeaderLocationQuestion(question);
+      q2.setFailures(0);
+      long l2 = System.currentTimeMillis();
+      enc2 = new Encoder(enc, g, q2);
+      enc2.computeEncoding();
+      if (question.getBenchmark()) {
+        System.out.println("  Diff Encoding: " + (System.currentTimeMillis() - l2));
+      }
+
+      BoolExpr related = enc.mkTrue();
+      addEnvironmentConstraints(enc2, question.getBaseEnvironmentType());
+
+      if (!question.getEnvDiff()) {
+        related = relateEnvironments(enc, enc2);
+      }
+
+      related = enc.mkAnd(related, relatePackets(enc, enc2));
+      enc.add(related);
+    }
+    return new Tuple<>(enc, enc2);
+  }
+
+  /*
+   * Apply a check to each equivalence class on a bounded number of threads. Returns
+   * as soon as some check returns true: checks that have not started by then are
+   * skipped, and those still running are left to finish in the background.
+   */
+  private static boolean anyMatchInParallel(
+      Stream<Supplier<EquivalenceClass>> ecs,
+      int numThreads,
+      Predicate<Supplier<EquivalenceClass>> check) {
+    AtomicBoolean found = new AtomicBoolean(false);
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      CompletionService<Boolean> completionService = new ExecutorCompletionService<>(executor);
+      int numSubmitted = 0;
+      int numCompleted = 0;
+      Iterator<Supplier<EquivalenceClass>> it = ecs.iterator();
+      while (it.hasNext()) {
+        // wait for a check to finish before taking another class, so few are held at once
+        if (numSubmitted - numCompleted == numThreads) {
+          numCompleted++;
+          if (completionService.take().get()) {
+            return true;
+          }
+        }
+        Supplier<EquivalenceClass> lazyEc = it.next();
+        completionService.submit(
+            () -> {
+              if (found.get()) {
+                return false;
+              }
+              boolean match = check.test(lazyEc);
+              if (match) {
+                found.set(true);
+              }
+              return match;
+            });
+        numSubmitted++;
+      }
+      for (int i = numCompleted; i < numSubmitted; i++) {
+        if (completionService.take().get()) {
+          return true;
+        }
+      }
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BatfishException("Interrupted while checking equivalence classes", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new BatfishException("Error checking equivalence class", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   /*
    * Check if a collection of routers will be reachable to
    * one or more destinations.
@@ -45,6 +45,19 @@ public class VerificationStats {
     _time = t;
   }
 
+  /**
+   * Combine the statistics of checks that together answer one question: the sizes of the largest
+   * network encoded, and the total number of variables, constraints, and time spent in Z3.
+   */
+  public static VerificationStats combine(VerificationStats s1, VerificationStats s2) {
+    return new VerificationStats(
+        Math.max(s1._numNodes, s2._numNodes),
+        Math.max(s1._numEdges, s2._numEdges),
+        s1._numVariables + s2._numVariables,
+        s1._numConstraints + s2._numConstraints,
+        s1._time + s2._time);
+  }
+
   @JsonProperty(NUM_NODES_VAR)
   public int getNumNodes() {
     return _numNodes;
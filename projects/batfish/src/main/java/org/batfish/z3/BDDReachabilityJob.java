@@ -0,0 +1,68 @@
+package org.batfish.z3;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import net.sf.javabdd.BDD;
+import org.batfish.common.BatfishException;
+import org.batfish.common.Pair;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.Flow;
+import org.batfish.job.BatfishJob;
+import org.batfish.symbolic.bdd.BDDQuery;
+import org.batfish.symbolic.bdd.BDDReachabilityAnalysis;
+
+/**
+ * Answers a query with a {@link BDDReachabilityAnalysis} instead of the NoD program. Produces the
+ * same kind of result as {@link NodJob}: one example flow per ingress node if the query is
+ * satisfiable.
+ */
+public final class BDDReachabilityJob extends BatfishJob<NodJobResult> {
+
+  private final BDDReachabilityAnalysis _analysis;
+
+  private final SortedSet<Pair<String, String>> _nodeVrfSet;
+
+  private final BDDQuery _query;
+
+  private final String _tag;
+
+  public BDDReachabilityJob(
+      Settings settings,
+      BDDReachabilityAnalysis analysis,
+      BDDQuery query,
+      SortedSet<Pair<String, String>> nodeVrfSet,
+      String tag) {
+    super(settings);
+    _analysis = analysis;
+    _query = query;
+    _nodeVrfSet = new TreeSet<>(nodeVrfSet);
+    _tag = tag;
+  }
+
+  @Override
+  public NodJobResult call() {
+    long startTime = System.currentTimeMillis();
+    try {
+      Set<Flow> flows = new HashSet<>();
+      // the analysis is not thread-safe, so jobs sharing it take turns
+      synchronized (_analysis) {
+        BDD headers = _query.getHeaders(_analysis);
+        if (!headers.isZero()) {
+          for (Pair<String, String> nodeVrf : _nodeVrfSet) {
+            flows.add(_analysis.toFlow(headers, nodeVrf.getFirst(), _tag));
+          }
+        }
+      }
+      long elapsedTime = System.currentTimeMillis() - startTime;
+      return new NodJobResult(elapsedTime, _logger.getHistory(), flows);
+    } catch (BatfishException e) {
+      long elapsedTime = System.currentTimeMillis() - startTime;
+      return new NodJobResult(
+          elapsedTime,
+          _logger.getHistory(),
+          new BatfishException("Error computing BDD reachability", e));
+    }
+  }
+}
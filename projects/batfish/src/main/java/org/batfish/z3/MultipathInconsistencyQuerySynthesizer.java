@@ -2,8 +2,14 @@ package org.batfish.z3;
 
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Z3Exception;
+import java.util.Collections;
 import java.util.List;
+import net.sf.javabdd.BDD;
+import org.batfish.datamodel.ForwardingAction;
 import org.batfish.datamodel.HeaderSpace;
+import org.batfish.symbolic.bdd.BDDQuery;
+import org.batfish.symbolic.bdd.BDDReachabilityAnalysis;
+import org.batfish.symbolic.bdd.BDDReachabilityAnalysis.Reachability;
 import org.batfish.z3.node.AcceptExpr;
 import org.batfish.z3.node.AndExpr;
 import org.batfish.z3.node.DropExpr;
@@ -13,7 +19,8 @@ import org.batfish.z3.node.QueryRelationExpr;
 import org.batfish.z3.node.RuleExpr;
 import org.batfish.z3.node.SaneExpr;
 
-public class MultipathInconsistencyQuerySynthesizer extends BaseQuerySynthesizer {
+public class MultipathInconsistencyQuerySynthesizer extends BaseQuerySynthesizer
+    implements BDDQuery {
 
   private HeaderSpace _headerSpace;
 
@@ -28,6 +35,19 @@ public class MultipathInconsistencyQuerySynthesizer extends BaseQuerySynthesizer
     _headerSpace = headerSpace;
   }
 
+  @Override
+  public BDD getHeaders(BDDReachabilityAnalysis analysis) {
+    BDD headers = analysis.getHeaderSpace(_headerSpace).and(analysis.getSane());
+    Reachability reachability =
+        analysis.computeReachability(
+            Collections.singletonMap(_hostname, Collections.singleton(_vrf)), headers);
+    BDD result =
+        reachability
+            .getDisposition(ForwardingAction.ACCEPT)
+            .and(reachability.getDisposition(ForwardingAction.DROP));
+    return getNegate() ? result.not() : result;
+  }
+
   @Override
   public NodProgram getNodProgram(NodProgram baseProgram) throws Z3Exception {
     NodProgram program = new NodProgram(baseProgram.getContext());
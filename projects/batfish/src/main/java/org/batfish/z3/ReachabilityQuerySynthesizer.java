@@ -6,9 +6,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import net.sf.javabdd.BDD;
 import org.batfish.common.BatfishException;
 import org.batfish.datamodel.ForwardingAction;
 import org.batfish.datamodel.HeaderSpace;
+import org.batfish.symbolic.bdd.BDDQuery;
+import org.batfish.symbolic.bdd.BDDReachabilityAnalysis;
+import org.batfish.symbolic.bdd.BDDReachabilityAnalysis.Reachability;
 import org.batfish.z3.node.AcceptExpr;
 import org.batfish.z3.node.AndExpr;
 import org.batfish.z3.node.BooleanExpr;
@@ -35,7 +39,7 @@ import org.batfish.z3.node.QueryRelationExpr;
 import org.batfish.z3.node.RuleExpr;
 import org.batfish.z3.node.SaneExpr;
 
-public class ReachabilityQuerySynthesizer extends BaseQuerySynthesizer {
+public class ReachabilityQuerySynthesizer extends BaseQuerySynthesizer implements BDDQuery {
 
   private Set<ForwardingAction> _actions;
 
@@ -64,6 +68,32 @@ public class ReachabilityQuerySynthesizer extends BaseQuerySynthesizer {
     _notTransitNodes = notTransitNodes;
   }
 
+  @Override
+  public BDD getHeaders(BDDReachabilityAnalysis analysis) {
+    BDD headers = analysis.getHeaderSpace(_headerSpace).and(analysis.getSane());
+    Reachability reachability = analysis.computeReachability(_ingressNodeVrfs, headers);
+    BDD result = headers.getFactory().zero();
+    for (ForwardingAction action : _actions) {
+      if (action == ForwardingAction.FORWARD) {
+        throw new BatfishException("unsupported action");
+      }
+      if (_finalNodes.size() > 0) {
+        for (String finalNode : _finalNodes) {
+          result = result.or(reachability.getDisposition(action, finalNode));
+        }
+      } else {
+        result = result.or(reachability.getDisposition(action));
+      }
+    }
+    for (String nodeName : _transitNodes) {
+      result = result.and(reachability.getTransit(nodeName));
+    }
+    for (String nodeName : _notTransitNodes) {
+      result = result.and(reachability.getTransit(nodeName).not());
+    }
+    return getNegate() ? result.not() : result;
+  }
+
   @Override
   public NodProgram getNodProgram(NodProgram baseProgram) throws Z3Exception {
     NodProgram program = new NodProgram(baseProgram.getContext());
@@ -6,6 +6,7 @@ import com.microsoft.z3.Context;
 import com.microsoft.z3.FuncDecl;
 import com.microsoft.z3.Z3Exception;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -17,7 +18,9 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import org.batfish.common.BatfishException;
+import org.batfish.common.Pair;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
@@ -180,12 +183,18 @@ public class Synthesizer {
   }
 
   public static Map<String, FuncDecl> getRelDeclFuncDecls(
-      List<Statement> existingStatements, Context ctx) throws Z3Exception {
-    Map<String, FuncDecl> funcDecls = new LinkedHashMap<>();
+      List<? extends Statement> existingStatements, Context ctx) throws Z3Exception {
     Set<String> relations = new TreeSet<>();
     for (Statement existingStatement : existingStatements) {
       relations.addAll(existingStatement.getRelations());
     }
+    return getRelDeclFuncDecls(relations, ctx);
+  }
+
+  private static Map<String, FuncDecl> getRelDeclFuncDecls(
+      Set<String> existingRelations, Context ctx) throws Z3Exception {
+    Map<String, FuncDecl> funcDecls = new LinkedHashMap<>();
+    Set<String> relations = new TreeSet<>(existingRelations);
     relations.add(QueryRelationExpr.NAME);
     for (String packetRel : relations) {
       List<Integer> sizes = new ArrayList<>();
@@ -865,8 +874,38 @@ public class Synthesizer {
     }
   }
 
+  /**
+   * Rules and relations of a synthesized program, independent of any z3 {@link Context}. The
+   * relations are collected from the rule statements before simplification, so relations that only
+   * appear in rules simplified away are still declared.
+   */
+  private static final class SynthesizedRules {
+
+    private final Set<String> _relations;
+
+    private final List<RuleExpr> _rules;
+
+    private SynthesizedRules(Set<String> relations, List<RuleExpr> rules) {
+      _relations = relations;
+      _rules = rules;
+    }
+  }
+
+  /**
+   * Simplified rules of the ACL programs synthesized so far, by hostname and ACL name. See {@link
+   * #_dataPlaneRules}.
+   */
+  private final Map<Pair<String, String>, SynthesizedRules> _aclRules;
+
   private final Map<String, Configuration> _configurations;
 
+  /**
+   * Simplified rules of the data plane program, built on first use. Rules are independent of any z3
+   * {@link Context}, so every job that queries this data plane shares them and only has to
+   * translate them into its own context.
+   */
+  private SynthesizedRules _dataPlaneRules;
+
   private final HashMap<String, Map<String, SortedSet<FibRow>>> _fibs;
 
   private Set<NodeInterfacePair> _flowSinks;
@@ -879,9 +918,10 @@ public class Synthesizer {
 
   private final Map<String, Set<Interface>> _topologyInterfaces;
 
-  private List<String> _warnings;
+  private final List<String> _warnings;
 
   public Synthesizer(Map<String, Configuration> configurations, boolean simplify) {
+    _aclRules = new ConcurrentHashMap<>();
     _configurations = configurations;
     _fibs = null;
     // _prFibs = null;
@@ -889,11 +929,12 @@ public class Synthesizer {
     _flowSinks = null;
     _simplify = simplify;
     _topologyInterfaces = null;
-    _warnings = new ArrayList<>();
+    _warnings = Collections.synchronizedList(new ArrayList<>());
   }
 
   public Synthesizer(
       Map<String, Configuration> configurations, DataPlane dataPlane, boolean simplify) {
+    _aclRules = new ConcurrentHashMap<>();
     _configurations = configurations;
     _fibs = dataPlane.getFibs();
     // _prFibs = dataPlane.getPolicyRouteFibNodeMap();
@@ -901,7 +942,7 @@ public class Synthesizer {
     _flowSinks = dataPlane.getFlowSinks();
     _simplify = simplify;
     _topologyInterfaces = new TreeMap<>();
-    _warnings = new ArrayList<>();
+    _warnings = Collections.synchronizedList(new ArrayList<>());
     computeTopologyInterfaces();
     pruneInterfaces();
   }
@@ -2269,17 +2310,29 @@ public class Synthesizer {
 
   public NodProgram synthesizeNodAclProgram(String hostname, String aclName, Context ctx)
       throws Z3Exception {
-
-    List<Statement> ruleStatements = new ArrayList<>();
-    List<Statement> sane = getSane();
-    List<Statement> matchAclRules = getMatchAclRules(hostname, aclName);
-
-    ruleStatements.addAll(sane);
-    ruleStatements.addAll(matchAclRules);
-    return synthesizeNodProgram(ctx, ruleStatements);
+    SynthesizedRules rules =
+        _aclRules.computeIfAbsent(
+            new Pair<>(hostname, aclName),
+            k -> {
+              List<Statement> ruleStatements = new ArrayList<>();
+              List<Statement> sane = getSane();
+              List<Statement> matchAclRules = getMatchAclRules(hostname, aclName);
+
+              ruleStatements.addAll(sane);
+              ruleStatements.addAll(matchAclRules);
+              return simplifyRules(ruleStatements);
+            });
+    return synthesizeNodProgram(ctx, rules);
   }
 
   public NodProgram synthesizeNodDataPlaneProgram(Context ctx) throws Z3Exception {
+    return synthesizeNodProgram(ctx, getDataPlaneRules());
+  }
+
+  private synchronized SynthesizedRules getDataPlaneRules() {
+    if (_dataPlaneRules != null) {
+      return _dataPlaneRules;
+    }
     List<Statement> ruleStatements = new ArrayList<>();
     List<Statement> dropRules = getDropRules();
     List<Statement> acceptRules = getAcceptRules();
@@ -2336,12 +2389,36 @@ public class Synthesizer {
     ruleStatements.addAll(postOutIfaceToNodeTransitRules);
     ruleStatements.addAll(roleOriginateToNodeOriginateRules);
 
-    return synthesizeNodProgram(ctx, ruleStatements);
+    _dataPlaneRules = simplifyRules(ruleStatements);
+    return _dataPlaneRules;
   }
 
-  private NodProgram synthesizeNodProgram(Context ctx, List<Statement> ruleStatements) {
+  /**
+   * Returns the rules among {@code ruleStatements}, simplified if simplification is enabled, along
+   * with every relation the unsimplified statements mention. Rules that simplify to a vacuous
+   * statement are dropped.
+   */
+  private SynthesizedRules simplifyRules(List<Statement> ruleStatements) {
+    Set<String> relations = new TreeSet<>();
+    List<RuleExpr> rules = new ArrayList<>();
+    for (Statement rawStatement : ruleStatements) {
+      relations.addAll(rawStatement.getRelations());
+      Statement statement;
+      if (_simplify) {
+        statement = rawStatement.simplify();
+      } else {
+        statement = rawStatement;
+      }
+      if (statement instanceof RuleExpr) {
+        rules.add((RuleExpr) statement);
+      }
+    }
+    return new SynthesizedRules(relations, rules);
+  }
+
+  private NodProgram synthesizeNodProgram(Context ctx, SynthesizedRules rules) {
     NodProgram nodProgram = new NodProgram(ctx);
-    Map<String, FuncDecl> relDeclFuncDecls = getRelDeclFuncDecls(ruleStatements, ctx);
+    Map<String, FuncDecl> relDeclFuncDecls = getRelDeclFuncDecls(rules._relations, ctx);
     nodProgram.getRelationDeclarations().putAll(relDeclFuncDecls);
     Map<String, BitVecExpr> variables = nodProgram.getVariables();
     Map<String, BitVecExpr> variablesAsConsts = nodProgram.getVariablesAsConsts();
@@ -2355,19 +2432,9 @@ public class Synthesizer {
       variablesAsConsts.put(var, varAsConstExpr);
       deBruinIndex++;
     }
-    List<BoolExpr> rules = nodProgram.getRules();
-    for (Statement rawStatement : ruleStatements) {
-      Statement statement;
-      if (_simplify) {
-        statement = rawStatement.simplify();
-      } else {
-        statement = rawStatement;
-      }
-      if (statement instanceof RuleExpr) {
-        RuleExpr ruleExpr = (RuleExpr) statement;
-        BoolExpr rule = ruleExpr.toBoolExpr(nodProgram);
-        rules.add(rule);
-      }
+    List<BoolExpr> boolRules = nodProgram.getRules();
+    for (RuleExpr rule : rules._rules) {
+      boolRules.add(rule.toBoolExpr(nodProgram));
     }
     return nodProgram;
   }
@@ -164,6 +164,23 @@ public class AbstractRibTest {
     assertThat(match, is(emptyIterableOf(StaticRoute.class)));
   }
 
+  /** Test that a longest prefix match does NOT reflect subsequent changes to the RIB */
+  @Test
+  public void testLongestPrefixMatchIsNotAView() {
+    OspfIntraAreaRib rib = new OspfIntraAreaRib(null);
+    Prefix prefix = new Prefix("1.1.1.0/24");
+    OspfIntraAreaRoute oldRoute = new OspfIntraAreaRoute(prefix, null, 100, 30, 1);
+    rib.mergeRoute(oldRoute);
+    Set<OspfIntraAreaRoute> match = rib.longestPrefixMatch(new Ip("1.1.1.1"));
+
+    // This new route replaces old route
+    OspfIntraAreaRoute newRoute = new OspfIntraAreaRoute(prefix, null, 100, 10, 1);
+    rib.mergeRoute(newRoute);
+
+    assertThat(match, contains(oldRoute));
+    assertThat(rib.longestPrefixMatch(new Ip("1.1.1.1")), contains(newRoute));
+  }
+
   @Test
   public void testSelfHasSameRoutes() {
     assertThat(_rib, equalTo(_rib));
@@ -189,6 +206,7 @@ public class AbstractRibTest {
 
     rib2.mergeRoute(routes.get(1));
     assertThat(rib2, equalTo(_rib));
+    assertThat(rib2.hashCode(), equalTo(_rib.hashCode()));
   }
 
   /**
@@ -213,6 +231,51 @@ public class AbstractRibTest {
     assertThat(rib.getRoutes(), hasSize(2));
   }
 
+  /** Test that the fingerprint depends on the routes in the RIB, not the order they were added */
+  @Test
+  public void testFingerprintIndependentOfOrder() {
+    List<StaticRoute> routes = setupOverlappingRoutes();
+    AbstractRib<StaticRoute> reversed = new StaticRib(null);
+    for (int i = routes.size() - 1; i >= 0; i--) {
+      reversed.mergeRoute(routes.get(i));
+    }
+    // Merging a route that is already present does not change the fingerprint
+    reversed.mergeRoute(routes.get(0));
+
+    assertThat(reversed.getFingerprint(), equalTo(_rib.getFingerprint()));
+    assertThat(_rib.getFingerprint(), not(equalTo(new StaticRib(null).getFingerprint())));
+  }
+
+  /** Test that routes with colliding hash codes still get different fingerprints */
+  @Test
+  public void testFingerprintHashCodeCollision() {
+    Prefix prefix = new Prefix("1.1.1.0/24");
+    StaticRoute route1 = new StaticRoute(prefix, new Ip("2.2.2.2"), null, 1, 0);
+    StaticRoute route2 = new StaticRoute(prefix, new Ip("2.2.2.1"), null, 1, 31);
+    AbstractRib<StaticRoute> rib1 = new StaticRib(null);
+    rib1.mergeRoute(route1);
+    AbstractRib<StaticRoute> rib2 = new StaticRib(null);
+    rib2.mergeRoute(route2);
+
+    assertThat(route1.hashCode(), equalTo(route2.hashCode()));
+    assertThat(rib1.getFingerprint(), not(equalTo(rib2.getFingerprint())));
+  }
+
+  /** Test that routes replaced by better ones no longer count towards the fingerprint */
+  @Test
+  public void testFingerprintWithReplacement() {
+    Prefix prefix = new Prefix("1.1.1.1/32");
+    OspfIntraAreaRoute newRoute = new OspfIntraAreaRoute(prefix, null, 100, 10, 1);
+    OspfIntraAreaRib rib = new OspfIntraAreaRib(null);
+    rib.mergeRoute(new OspfIntraAreaRoute(prefix, null, 100, 30, 1));
+    rib.mergeRoute(newRoute);
+    OspfIntraAreaRib expected = new OspfIntraAreaRib(null);
+    expected.mergeRoute(newRoute);
+
+    assertThat(rib.getFingerprint(), equalTo(expected.getFingerprint()));
+    assertThat(rib, equalTo(expected));
+  }
+
   /** Test that routes obtained from getRoutes() cannot be modified */
   @Test
   public void testGetRoutesCannotBeModified() {
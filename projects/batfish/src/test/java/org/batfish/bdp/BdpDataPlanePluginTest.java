@@ -23,10 +23,13 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.batfish.common.BatfishException;
+import org.batfish.common.BatfishLogger;
 import org.batfish.common.BdpOscillationException;
+import org.batfish.common.util.CommonUtil;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AsPath;
 import org.batfish.datamodel.BgpProcess;
@@ -45,6 +48,7 @@ import org.batfish.datamodel.Route;
 import org.batfish.datamodel.RoutingProtocol;
 import org.batfish.datamodel.SourceNat;
 import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.answers.BdpAnswerElement;
 import org.batfish.datamodel.collections.RoutesByVrf;
 import org.batfish.main.Batfish;
 import org.batfish.main.BatfishTestUtils;
@@ -634,6 +638,76 @@ public class BdpDataPlanePluginTest {
     assertThat(r1AdvertisedPrefix, not(isIn(r3Prefixes)));
   }
 
+  private static SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> computeRoutes(
+      Map<String, Configuration> configurations, boolean incrementalBgp) {
+    TestBdpSettings settings = new TestBdpSettings();
+    settings.setBdpIncrementalBgp(incrementalBgp);
+    BdpEngine engine =
+        new BdpEngine(
+            settings,
+            new BatfishLogger(BatfishLogger.LEVELSTR_OUTPUT, false),
+            (s, i) -> new AtomicInteger());
+    BdpDataPlane dp =
+        engine.computeDataPlane(
+            false,
+            configurations,
+            CommonUtil.synthesizeTopology(configurations),
+            Collections.emptySet(),
+            Collections.emptySet(),
+            new BdpAnswerElement());
+    return engine.getRoutes(dp);
+  }
+
+  @Test
+  public void testIncrementalBgpMatchesFullRecompute() throws IOException {
+    String testrigName = "ibgp-reject-routerid-match";
+    String[] configurationNames = new String[] {"r1", "r2", "r3", "r4"};
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigResource(
+            TESTRIGS_PREFIX + testrigName, configurationNames, null, null, null, null, _folder);
+    Map<String, Configuration> configurations = batfish.loadConfigurations();
+
+    assertThat(computeRoutes(configurations, true), equalTo(computeRoutes(configurations, false)));
+  }
+
+  /*
+   * Returns the next hop IP of the route for the given prefix in the default VRF of the given node
+   */
+  private static Ip nextHopIp(
+      SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> routes,
+      String hostname,
+      Prefix prefix) {
+    return routes
+        .get(hostname)
+        .get(Configuration.DEFAULT_VRF_NAME)
+        .stream()
+        .filter(r -> r.getNetwork().equals(prefix))
+        .findFirst()
+        .get()
+        .getNextHopIp();
+  }
+
+  /** Test that a route rejected by the export policy to one eBGP neighbor still reaches another */
+  @Test
+  public void testIncrementalBgpEbgpExportPolicy() throws IOException {
+    String testrigName = "ebgp-export-policy";
+    String[] configurationNames = new String[] {"r1", "r2", "r3"};
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigResource(
+            TESTRIGS_PREFIX + testrigName, configurationNames, null, null, null, null, _folder);
+    Map<String, Configuration> configurations = batfish.loadConfigurations();
+    SortedMap<String, SortedMap<String, SortedSet<AbstractRoute>>> routes =
+        computeRoutes(configurations, true);
+
+    assertThat(routes, equalTo(computeRoutes(configurations, false)));
+    Prefix r1Loopback0Prefix = new Prefix("1.0.0.1/32");
+    Prefix r1Loopback1Prefix = new Prefix("1.0.0.2/32");
+    // r1 exports Loopback0 to r3 but not to r2, which learns it through r3
+    assertThat(nextHopIp(routes, "r3", r1Loopback0Prefix), equalTo(new Ip("10.13.0.1")));
+    assertThat(nextHopIp(routes, "r2", r1Loopback0Prefix), equalTo(new Ip("10.23.0.3")));
+    assertThat(nextHopIp(routes, "r2", r1Loopback1Prefix), equalTo(new Ip("10.12.0.1")));
+  }
+
   @Test
   public void testIosRtStaticMatchesBdp() throws IOException {
     String testrigName = "ios-rt-static-ad";
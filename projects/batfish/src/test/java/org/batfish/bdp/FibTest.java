@@ -0,0 +1,77 @@
+package org.batfish.bdp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Map;
+import java.util.Set;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.ConnectedRoute;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Route;
+import org.batfish.datamodel.StaticRoute;
+import org.junit.Test;
+
+public class FibTest {
+
+  private static Map<String, Map<Ip, Set<AbstractRoute>>> nextHopInterfaces(
+      Fib fib, AbstractRoute route) {
+    return fib.getNextHopInterfacesByRoute(route.getNetwork().getAddress()).get(route);
+  }
+
+  private static StaticRoute staticRoute(String network, String nextHopIp) {
+    return new StaticRoute(new Prefix(network), new Ip(nextHopIp), null, 1, 0);
+  }
+
+  @Test
+  public void testRoutesShareNextHopInterfaces() {
+    Rib rib = new Rib(null);
+    ConnectedRoute connected = new ConnectedRoute(new Prefix("10.0.0.0/24"), "eth0");
+    StaticRoute r1 = staticRoute("20.0.0.0/8", "10.0.0.1");
+    StaticRoute r2 = staticRoute("30.0.0.0/8", "10.0.0.1");
+    // resolved recursively through r1
+    StaticRoute r3 = staticRoute("40.0.0.0/8", "20.0.0.1");
+    rib.mergeRoute(connected);
+    rib.mergeRoute(r1);
+    rib.mergeRoute(r2);
+    rib.mergeRoute(r3);
+    Fib fib = new Fib(rib);
+
+    assertThat(
+        nextHopInterfaces(fib, r1),
+        equalTo(
+            ImmutableMap.of(
+                "eth0", ImmutableMap.of(new Ip("10.0.0.1"), ImmutableSet.of(connected)))));
+    assertThat(nextHopInterfaces(fib, r2), sameInstance(nextHopInterfaces(fib, r1)));
+    assertThat(nextHopInterfaces(fib, r3), sameInstance(nextHopInterfaces(fib, r1)));
+    assertThat(
+        nextHopInterfaces(fib, connected),
+        equalTo(
+            ImmutableMap.of(
+                "eth0",
+                ImmutableMap.of(
+                    Route.UNSET_ROUTE_NEXT_HOP_IP, ImmutableSet.<AbstractRoute>of(connected)))));
+  }
+
+  @Test
+  public void testRouteResolvedThroughItself() {
+    Rib rib = new Rib(null);
+    ConnectedRoute connected = new ConnectedRoute(new Prefix("10.0.0.0/24"), "eth0");
+    StaticRoute defaultRoute = staticRoute("0.0.0.0/0", "10.0.0.1");
+    // resolved through each other, so each cuts short the resolution of its own next hop
+    StaticRoute r1 = staticRoute("20.0.0.0/8", "30.0.0.1");
+    StaticRoute r2 = staticRoute("30.0.0.0/8", "20.0.0.1");
+    rib.mergeRoute(connected);
+    rib.mergeRoute(defaultRoute);
+    rib.mergeRoute(r1);
+    rib.mergeRoute(r2);
+    Fib fib = new Fib(rib);
+
+    assertThat(nextHopInterfaces(fib, r1).isEmpty(), equalTo(true));
+    assertThat(nextHopInterfaces(fib, r2).isEmpty(), equalTo(true));
+  }
+}
@@ -0,0 +1,130 @@
+package org.batfish.bdp;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.plugin.PluginClientType;
+import org.batfish.common.plugin.PluginConsumer;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.NetworkFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link LazyNodeMap} */
+public class LazyNodeMapTest {
+
+  /** Serializes maps the way the data plane is serialized */
+  private static class TestPluginConsumer extends PluginConsumer {
+
+    private TestPluginConsumer(boolean serializeToText) {
+      super(serializeToText);
+    }
+
+    @Override
+    public BatfishLogger getLogger() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PluginClientType getType() {
+      throw new UnsupportedOperationException();
+    }
+
+    private LazyNodeMap roundTrip(LazyNodeMap nodes) {
+      return deserializeObject(toSerializedData(nodes), LazyNodeMap.class);
+    }
+  }
+
+  private Map<String, Node> _nodes;
+
+  private static LazyNodeMap roundTrip(LazyNodeMap nodes) {
+    return new TestPluginConsumer(false).roundTrip(nodes);
+  }
+
+  private static LazyNodeMap roundTripText(LazyNodeMap nodes) {
+    return new TestPluginConsumer(true).roundTrip(nodes);
+  }
+
+  @Before
+  public void setup() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    _nodes = new TreeMap<>();
+    for (String hostname : new String[] {"n3", "n1", "n2"}) {
+      Configuration c = cb.setHostname(hostname).build();
+      nf.vrfBuilder().setName(Configuration.DEFAULT_VRF_NAME).setOwner(c).build();
+      _nodes.put(hostname, new Node(c));
+    }
+  }
+
+  @Test
+  public void testDeserializesOnlyRetrievedNodes() throws Exception {
+    LazyNodeMap nodes = roundTrip(new LazyNodeMap(_nodes, true));
+    assertThat(nodes.size(), equalTo(3));
+    assertThat(nodes.containsKey("n2"), is(true));
+    assertThat(nodes.loadedSize(), equalTo(0));
+
+    Node n2 = nodes.get("n2");
+    assertThat(n2.getConfiguration().getHostname(), equalTo("n2"));
+    assertThat(n2._virtualRouters.keySet(), contains(Configuration.DEFAULT_VRF_NAME));
+    assertThat(nodes.get("n2"), is(n2));
+    assertThat(nodes.get("n4"), nullValue());
+    assertThat(nodes.loadedSize(), equalTo(1));
+  }
+
+  @Test
+  public void testIterationLoadsAllNodes() throws Exception {
+    LazyNodeMap nodes = roundTrip(new LazyNodeMap(_nodes, true));
+    assertThat(nodes.keySet(), contains("n1", "n2", "n3"));
+    assertThat(nodes.loadedSize(), equalTo(0));
+    nodes.forEach((name, node) -> assertThat(node.getConfiguration().getHostname(), is(name)));
+    assertThat(nodes.loadedSize(), equalTo(3));
+
+    // partially loaded maps serialize both loaded and not-yet-loaded nodes
+    LazyNodeMap partial = roundTrip(new LazyNodeMap(_nodes, true));
+    partial.get("n1");
+    LazyNodeMap copy = roundTrip(partial);
+    assertThat(copy.get("n1").getConfiguration().getHostname(), equalTo("n1"));
+    assertThat(copy.get("n3").getConfiguration().getHostname(), equalTo("n3"));
+  }
+
+  @Test
+  public void testConfigurationsLoadWithoutNodes() throws Exception {
+    LazyNodeMap nodes = roundTrip(new LazyNodeMap(_nodes, true));
+    Configuration c2 = nodes.getConfiguration("n2");
+    assertThat(c2.getHostname(), equalTo("n2"));
+    assertThat(nodes.getConfiguration("n4"), nullValue());
+    assertThat(nodes.loadedSize(), equalTo(0));
+
+    // the segment of a node refers to the configuration of the map rather than a copy of it
+    Node n2 = nodes.get("n2");
+    assertThat(n2.getConfiguration(), sameInstance(c2));
+    assertThat(n2._virtualRouters.get(Configuration.DEFAULT_VRF_NAME)._c, sameInstance(c2));
+  }
+
+  @Test
+  public void testVrfsLoadAsConfigurationVrfs() throws Exception {
+    LazyNodeMap nodes = roundTrip(new LazyNodeMap(_nodes, true));
+    VirtualRouter vr = nodes.get("n1")._virtualRouters.get(Configuration.DEFAULT_VRF_NAME);
+    assertThat(vr._vrf, sameInstance(vr._c.getVrfs().get(Configuration.DEFAULT_VRF_NAME)));
+  }
+
+  @Test
+  public void testTextSerializationWritesNodesInline() throws Exception {
+    LazyNodeMap nodes = roundTripText(new LazyNodeMap(_nodes, false));
+    assertThat(nodes.keySet(), contains("n1", "n2", "n3"));
+    assertThat(nodes.loadedSize(), equalTo(3));
+    Node n1 = nodes.get("n1");
+    assertThat(n1.getConfiguration(), sameInstance(nodes.getConfiguration("n1")));
+    assertThat(n1._virtualRouters.keySet(), contains(Configuration.DEFAULT_VRF_NAME));
+  }
+}
@@ -6,6 +6,8 @@ public class TestBdpSettings implements BdpSettings {
 
   private boolean _bdpDetail;
 
+  private boolean _bdpIncrementalBgp;
+
   private int _bdpMaxOscillationRecoveryAttempts;
 
   private int _bdpMaxRecordedIterations;
@@ -16,19 +18,27 @@ public class TestBdpSettings implements BdpSettings {
 
   private boolean _bdpRecordAllIterations;
 
+  private boolean _serializeToText;
+
   public TestBdpSettings() {
     _bdpDetail = true;
+    _bdpIncrementalBgp = false;
     _bdpMaxOscillationRecoveryAttempts = 0;
     _bdpMaxRecordedIterations = 2;
     _bdpPrintAllIterations = false;
     _bdpPrintOscillatingIterations = false;
     _bdpRecordAllIterations = false;
+    _serializeToText = false;
   }
 
   public boolean getBdpDetail() {
     return _bdpDetail;
   }
 
+  public boolean getBdpIncrementalBgp() {
+    return _bdpIncrementalBgp;
+  }
+
   public int getBdpMaxOscillationRecoveryAttempts() {
     return _bdpMaxOscillationRecoveryAttempts;
   }
@@ -49,10 +59,18 @@ public class TestBdpSettings implements BdpSettings {
     return _bdpRecordAllIterations;
   }
 
+  public boolean getSerializeToText() {
+    return _serializeToText;
+  }
+
   public void setBdpDetail(boolean bdpDetail) {
     _bdpDetail = bdpDetail;
   }
 
+  public void setBdpIncrementalBgp(boolean bdpIncrementalBgp) {
+    _bdpIncrementalBgp = bdpIncrementalBgp;
+  }
+
   public void setBdpMaxOscillationRecoveryAttempts(int bdpMaxOscillationRecoveryAttempts) {
     _bdpMaxOscillationRecoveryAttempts = bdpMaxOscillationRecoveryAttempts;
   }
@@ -72,4 +90,8 @@ public class TestBdpSettings implements BdpSettings {
   public void setBdpRecordAllIterations(boolean bdpRecordAllIterations) {
     _bdpRecordAllIterations = bdpRecordAllIterations;
   }
+
+  public void setSerializeToText(boolean serializeToText) {
+    _serializeToText = serializeToText;
+  }
 }
@@ -1,11 +1,14 @@
 package org.batfish.grammar.flatjuniper;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.SortedMap;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.batfish.common.Warnings;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.config.Settings;
 import org.batfish.datamodel.Configuration;
@@ -13,6 +16,8 @@ import org.batfish.datamodel.MultipathEquivalentAsPathMatchMode;
 import org.batfish.grammar.flatjuniper.FlatJuniperParser.Flat_juniper_configurationContext;
 import org.batfish.main.Batfish;
 import org.batfish.main.BatfishTestUtils;
+import org.batfish.representation.juniper.Interface;
+import org.batfish.representation.juniper.JuniperConfiguration;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -63,6 +68,24 @@ public class FlatJuniperGrammarTest {
     assertThat(multipleAsMixed, equalTo(MultipathEquivalentAsPathMatchMode.FIRST_AS));
   }
 
+  @Test
+  public void testNestedApplyGroups() {
+    String configurationText =
+        CommonUtil.readResource("org/batfish/grammar/juniper/testconfigs/nested-apply-groups");
+    Settings settings = new Settings();
+    FlatJuniperCombinedParser cp = new FlatJuniperCombinedParser(configurationText, settings);
+    Flat_juniper_configurationContext ctx = cp.parse();
+    FlatJuniperControlPlaneExtractor extractor =
+        new FlatJuniperControlPlaneExtractor(configurationText, cp, new Warnings());
+    extractor.processParseTree(ctx);
+    Map<String, Interface> interfaces =
+        ((JuniperConfiguration) extractor.getVendorConfiguration()).getInterfaces();
+
+    /* G2 is applied only through G1, and only to ge-0/0/0 */
+    assertThat(interfaces.get("ge-0/0/0").getMtu(), equalTo(9000));
+    assertThat(interfaces.get("ge-0/0/1").getMtu(), nullValue());
+  }
+
   @Test
   public void testParsingRecovery() throws IOException {
     String recoveryText =
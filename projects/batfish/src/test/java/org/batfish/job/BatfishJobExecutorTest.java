@@ -5,6 +5,7 @@ import static org.junit.Assert.assertEquals;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -26,6 +27,8 @@ public class BatfishJobExecutorTest {
   private static final String TEST_EXECUTOR_DESC = "Test Job Executor";
 
   @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private final List<String> _started = Collections.synchronizedList(new ArrayList<>());
   BatfishLogger _logger;
 
   @Before
@@ -50,6 +53,29 @@ public class BatfishJobExecutorTest {
     assertEquals(output, Sets.newHashSet("result1", "result2"));
   }
 
+  @Test
+  public void testExecuteJobsLongestFirst() {
+    Settings settings = new Settings();
+    settings.setJobs(1);
+
+    List<BfTestJob> jobs = new ArrayList<>();
+    jobs.add(new BfTestJob(settings, "small", 1L));
+    jobs.add(new BfTestJob(settings, "unknown", 0L));
+    jobs.add(new BfTestJob(settings, "large", 100L));
+    jobs.add(new BfTestJob(settings, "medium", 10L));
+
+    Set<String> output = new HashSet<>();
+    BfTestAnswerElement ae = new BfTestAnswerElement();
+    BatfishJobExecutor.runJobsInExecutor(
+        settings, _logger, jobs, output, ae, false, TEST_EXECUTOR_DESC);
+
+    assertEquals(_started, Lists.newArrayList("large", "medium", "small", "unknown"));
+    // each expected cost is computed once, not on every comparison
+    for (BfTestJob job : jobs) {
+      assertEquals(1, job._expectedCostCalls);
+    }
+  }
+
   @Test
   public void testHandleJobResultSuccess() {
     Settings settings = new Settings();
@@ -120,15 +146,31 @@ public class BatfishJobExecutorTest {
 
   /** Class for Batfish test job */
   private class BfTestJob extends BatfishJob<BfTestResult> {
+    private long _expectedCost;
+
+    private int _expectedCostCalls;
+
     private String _testValue;
 
     public BfTestJob(Settings settings, String testValue) {
+      this(settings, testValue, 0L);
+    }
+
+    public BfTestJob(Settings settings, String testValue, long expectedCost) {
       super(settings);
+      _expectedCost = expectedCost;
       _testValue = testValue;
     }
 
+    @Override
+    public long getExpectedCost() {
+      _expectedCostCalls++;
+      return _expectedCost;
+    }
+
     @Override
     public BfTestResult call() throws Exception {
+      _started.add(_testValue);
       long startTime = System.currentTimeMillis();
       return new BfTestResult(
           System.currentTimeMillis() - startTime, _logger.getHistory(), _testValue);
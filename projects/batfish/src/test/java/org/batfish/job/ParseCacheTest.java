@@ -0,0 +1,88 @@
+package org.batfish.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.batfish.common.ParseTreeSentences;
+import org.batfish.common.Warnings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.representation.host.HostConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParseCacheTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  @Test
+  public void testBuildFingerprintChangesWithBuild() throws IOException {
+    Path jar = _folder.newFile("batfish.jar").toPath();
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(1000L));
+    String jarFingerprint = ParseCache.getBuildFingerprint(jar);
+    assertThat(ParseCache.getBuildFingerprint(jar), equalTo(jarFingerprint));
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(2000L));
+    assertThat(ParseCache.getBuildFingerprint(jar), not(equalTo(jarFingerprint)));
+
+    Path classes = _folder.newFolder("classes").toPath();
+    Path parser = Files.createFile(classes.resolve("Parser.class"));
+    Files.setLastModifiedTime(parser, FileTime.fromMillis(1000L));
+    Files.setLastModifiedTime(classes, FileTime.fromMillis(1000L));
+    String classesFingerprint = ParseCache.getBuildFingerprint(classes);
+    Files.setLastModifiedTime(parser, FileTime.fromMillis(2000L));
+    assertThat(ParseCache.getBuildFingerprint(classes), not(equalTo(classesFingerprint)));
+
+    assertThat(ParseCache.getBuildFingerprint(), not(nullValue()));
+  }
+
+  @Test
+  public void testKeyDependsOnEverythingParsed() throws IOException {
+    ParseCache cache = new ParseCache(_folder.getRoot().toPath(), "settings");
+    String key = cache.getKey("configs/r1.cfg", ConfigurationFormat.UNKNOWN, "hostname r1");
+
+    assertThat(
+        cache.getKey("configs/r1.cfg", ConfigurationFormat.UNKNOWN, "hostname r1"), equalTo(key));
+    assertThat(
+        cache.getKey("configs/r1.cfg", ConfigurationFormat.UNKNOWN, "hostname r2"),
+        not(equalTo(key)));
+    assertThat(
+        cache.getKey("configs/r2.cfg", ConfigurationFormat.UNKNOWN, "hostname r1"),
+        not(equalTo(key)));
+    assertThat(
+        cache.getKey("configs/r1.cfg", ConfigurationFormat.CISCO_IOS, "hostname r1"),
+        not(equalTo(key)));
+    assertThat(
+        new ParseCache(_folder.getRoot().toPath(), "other settings")
+            .getKey("configs/r1.cfg", ConfigurationFormat.UNKNOWN, "hostname r1"),
+        not(equalTo(key)));
+  }
+
+  @Test
+  public void testStoreAndLoad() throws IOException {
+    Path dir = _folder.getRoot().toPath().resolve("parse_cache");
+    ParseCache cache = new ParseCache(dir, "settings");
+    String key = cache.getKey("hosts/h1.json", ConfigurationFormat.HOST, "{}");
+    assertThat(cache.load(key), nullValue());
+
+    HostConfiguration vc = new HostConfiguration();
+    vc.setHostname("h1");
+    Warnings warnings = new Warnings(false, true, false, true, false, true, false);
+    warnings.redFlag("red flag");
+    cache.store(key, new ParseCache.Entry(vc, warnings, new ParseTreeSentences()));
+    ParseCache.Entry entry = cache.load(key);
+
+    assertThat(entry.getVendorConfiguration().getHostname(), equalTo("h1"));
+    assertThat(entry.getWarnings().getRedFlagWarnings().size(), equalTo(1));
+    assertThat(entry.getParseTree().isEmpty(), equalTo(true));
+
+    // an unreadable entry is a miss
+    Files.write(dir.resolve(key), new byte[] {1, 2, 3});
+    assertThat(cache.load(key), nullValue());
+  }
+}
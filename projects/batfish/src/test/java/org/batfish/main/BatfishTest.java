@@ -5,6 +5,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
@@ -12,8 +13,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableSortedMap;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -28,9 +31,12 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 import org.batfish.common.BatfishException;
+import org.batfish.common.BatfishLogger;
 import org.batfish.common.CompositeBatfishException;
 import org.batfish.common.util.CommonUtil;
+import org.batfish.config.Settings;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.Edge;
@@ -40,6 +46,7 @@ import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerStatus;
 import org.batfish.datamodel.answers.ParseStatus;
 import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
+import org.batfish.grammar.DfaCache;
 import org.batfish.representation.host.HostConfiguration;
 import org.batfish.vendor.VendorConfiguration;
 import org.junit.Rule;
@@ -89,6 +96,47 @@ public class BatfishTest {
         containsString("Could not parse question"));
   }
 
+  @Test
+  public void testLoadConfigurationsInSeveralParseWindows() throws IOException {
+    SortedMap<String, String> configurationsText = new TreeMap<>();
+    for (int i = 0; i < 20; i++) {
+      configurationsText.put("r" + i, "!\nhostname r" + i + "\n");
+    }
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            configurationsText,
+            Collections.emptySortedMap(),
+            Collections.emptySortedMap(),
+            Collections.emptySortedMap(),
+            Collections.emptySortedMap(),
+            _folder);
+    batfish.getSettings().setSequential(true);
+
+    assertThat(batfish.loadConfigurations().keySet(), equalTo(configurationsText.keySet()));
+  }
+
+  @Test
+  public void testDuplicateHostnameInDifferentParseWindows() throws IOException {
+    SortedMap<String, String> configurationsText = new TreeMap<>();
+    for (int i = 0; i < 20; i++) {
+      configurationsText.put(String.format("r%02d", i), String.format("!\nhostname r%02d\n", i));
+    }
+    configurationsText.put("r19", "!\nhostname r00\n");
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            configurationsText,
+            Collections.emptySortedMap(),
+            Collections.emptySortedMap(),
+            Collections.emptySortedMap(),
+            Collections.emptySortedMap(),
+            _folder);
+    batfish.getSettings().setSequential(true);
+
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage("Duplicate hostname: r00");
+    batfish.loadConfigurations();
+  }
+
   @Test
   public void testOverlayIptables() throws IOException {
     SortedMap<String, String> configurationsText = new TreeMap<>();
@@ -406,4 +454,29 @@ public class BatfishTest {
     _thrown.expectMessage("Failed to walk path: " + nonExistPath);
     Batfish.listAllFiles(nonExistPath);
   }
+
+  @Test
+  public void testWarmUpParsers() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    BatfishLogger logger =
+        new BatfishLogger(BatfishLogger.LEVELSTR_WARN, false, new PrintStream(output));
+    Batfish.warmUpParsers(new Settings(), logger);
+    Set<String> warmedUp =
+        DfaCache.getCaches()
+            .stream()
+            .filter(dfaCache -> dfaCache.getSize() > 0)
+            .map(DfaCache::getGrammarFileName)
+            .collect(Collectors.toSet());
+
+    /* Each bundled configuration is parsed without errors */
+    assertThat(output.toString(), equalTo(""));
+    assertThat(
+        warmedUp,
+        hasItems(
+            "CiscoLexer.g4",
+            "CiscoParser.g4",
+            "FlatJuniperLexer.g4",
+            "FlatJuniperParser.g4",
+            "JuniperLexer.g4"));
+  }
 }
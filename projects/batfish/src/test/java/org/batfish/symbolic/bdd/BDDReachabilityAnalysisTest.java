@@ -0,0 +1,310 @@
+package org.batfish.symbolic.bdd;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.microsoft.z3.Context;
+import java.io.IOException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import net.sf.javabdd.BDD;
+import org.batfish.bdp.BdpDataPlanePlugin;
+import org.batfish.common.Pair;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.FlowTrace;
+import org.batfish.datamodel.ForwardingAction;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpAccessListLine;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.Vrf;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.z3.MultipathInconsistencyQuerySynthesizer;
+import org.batfish.z3.NodJob;
+import org.batfish.z3.QuerySynthesizer;
+import org.batfish.z3.ReachabilityQuerySynthesizer;
+import org.batfish.z3.Synthesizer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link BDDReachabilityAnalysis}, checked against traceroute and, where z3 is available,
+ * against the NoD engine.
+ *
+ * <pre>
+ *   n1 -- n2 -- n4 -- (10.0.4.0/24)
+ *    \
+ *     n3
+ * </pre>
+ *
+ * n1 load-balances 10.0.4.0/24 between n2 and n3, but n3 has no route for it. n2 denies packets for
+ * 10.0.5.0/24 coming in from n1, and n1 null-routes 10.0.9.0/24.
+ */
+public class BDDReachabilityAnalysisTest {
+
+  private static final String N1 = "n1";
+
+  private static final String N2 = "n2";
+
+  private static final String N3 = "n3";
+
+  private static final String N4 = "n4";
+
+  private static final String TAG = "tag";
+
+  /* Accepted at n4 */
+  private static final String PERMITTED_IP = "10.0.24.4";
+
+  /* Denied by the incoming filter of n2 */
+  private static final String DENIED_IP = "10.0.5.1";
+
+  /* Null-routed at n1 */
+  private static final String NULL_ROUTED_IP = "10.0.9.1";
+
+  /* Accepted at n4 along one path, and dropped at n3 along the other */
+  private static final String MULTIPATH_IP = "10.0.4.1";
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private BDDReachabilityAnalysis _analysis;
+
+  private Batfish _batfish;
+
+  private SortedMap<String, Configuration> _configurations;
+
+  private DataPlane _dataPlane;
+
+  private BdpDataPlanePlugin _dataPlanePlugin;
+
+  private static HeaderSpace dstIp(String ip) {
+    HeaderSpace headerSpace = new HeaderSpace();
+    headerSpace.setDstIps(ImmutableSortedSet.of(new IpWildcard(new Ip(ip))));
+    return headerSpace;
+  }
+
+  private static MultipathInconsistencyQuerySynthesizer multipathQuery(String ip) {
+    return new MultipathInconsistencyQuerySynthesizer(
+        N1, Configuration.DEFAULT_VRF_NAME, dstIp(ip));
+  }
+
+  private static ReachabilityQuerySynthesizer reachabilityQuery(
+      ForwardingAction action, String ip) {
+    return new ReachabilityQuerySynthesizer(
+        ImmutableSet.of(action),
+        dstIp(ip),
+        ImmutableSet.of(),
+        ImmutableMap.of(N1, ImmutableSet.of(Configuration.DEFAULT_VRF_NAME)),
+        ImmutableSet.of(),
+        ImmutableSet.of());
+  }
+
+  private static boolean z3Available() {
+    try {
+      new Context().close();
+      return true;
+    } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+      return false;
+    }
+  }
+
+  /* Returns an example flow from n1 satisfying the query, if there is one */
+  private Set<Flow> bddFlows(BDDQuery query) {
+    BDD headers = query.getHeaders(_analysis);
+    return headers.isZero()
+        ? ImmutableSet.of()
+        : ImmutableSet.of(_analysis.toFlow(headers, N1, TAG));
+  }
+
+  private Set<Flow> nodFlows(QuerySynthesizer query) throws Exception {
+    NodJob job =
+        new NodJob(
+            _batfish.getSettings(),
+            new Synthesizer(_configurations, _dataPlane, true),
+            query,
+            ImmutableSortedSet.of(new Pair<>(N1, Configuration.DEFAULT_VRF_NAME)),
+            TAG);
+    return job.call().getFlows();
+  }
+
+  /* Returns the dispositions of the traceroutes of the flow */
+  private Set<FlowDisposition> traceroute(Flow flow) {
+    _dataPlanePlugin.processFlows(ImmutableSet.of(flow));
+    return _dataPlanePlugin
+        .getHistoryFlowTraces()
+        .stream()
+        .map(FlowTrace::getDisposition)
+        .collect(Collectors.toSet());
+  }
+
+  private Set<FlowDisposition> traceroute(Set<Flow> flows) {
+    assertThat(flows.size(), equalTo(1));
+    return traceroute(flows.iterator().next());
+  }
+
+  @Before
+  public void setup() throws IOException {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Vrf.Builder vb = nf.vrfBuilder().setName(Configuration.DEFAULT_VRF_NAME);
+    Interface.Builder ib = nf.interfaceBuilder().setActive(true);
+
+    Configuration c1 = cb.setHostname(N1).build();
+    Vrf v1 = vb.setOwner(c1).build();
+    ib.setOwner(c1).setVrf(v1);
+    ib.setName("Ethernet2").setPrefix(new Prefix("10.0.12.1/24")).build();
+    ib.setName("Ethernet3").setPrefix(new Prefix("10.0.13.1/24")).build();
+    v1.getStaticRoutes()
+        .addAll(
+            ImmutableList.of(
+                new StaticRoute(new Prefix("10.0.4.0/24"), new Ip("10.0.12.2"), null, 1, 0),
+                new StaticRoute(new Prefix("10.0.4.0/24"), new Ip("10.0.13.3"), null, 1, 0),
+                new StaticRoute(new Prefix("10.0.5.0/24"), new Ip("10.0.12.2"), null, 1, 0),
+                new StaticRoute(new Prefix("10.0.24.0/24"), new Ip("10.0.12.2"), null, 1, 0),
+                new StaticRoute(
+                    new Prefix("10.0.9.0/24"), null, Interface.NULL_INTERFACE_NAME, 1, 0)));
+
+    Configuration c2 = cb.setHostname(N2).build();
+    Vrf v2 = vb.setOwner(c2).build();
+    ib.setOwner(c2).setVrf(v2);
+    Interface i21 = ib.setName("Ethernet1").setPrefix(new Prefix("10.0.12.2/24")).build();
+    ib.setName("Ethernet4").setPrefix(new Prefix("10.0.24.2/24")).build();
+    IpAccessListLine denyLine = new IpAccessListLine();
+    denyLine.setAction(LineAction.REJECT);
+    denyLine.setDstIps(ImmutableSortedSet.of(new IpWildcard("10.0.5.0/24")));
+    IpAccessListLine permitLine = new IpAccessListLine();
+    permitLine.setAction(LineAction.ACCEPT);
+    IpAccessList acl = new IpAccessList("deny5", ImmutableList.of(denyLine, permitLine));
+    c2.getIpAccessLists().put(acl.getName(), acl);
+    i21.setIncomingFilter(acl);
+    v2.getStaticRoutes()
+        .addAll(
+            ImmutableList.of(
+                new StaticRoute(new Prefix("10.0.4.0/24"), new Ip("10.0.24.4"), null, 1, 0),
+                new StaticRoute(new Prefix("10.0.5.0/24"), new Ip("10.0.24.4"), null, 1, 0)));
+
+    Configuration c3 = cb.setHostname(N3).build();
+    Vrf v3 = vb.setOwner(c3).build();
+    ib.setOwner(c3).setVrf(v3);
+    ib.setName("Ethernet1").setPrefix(new Prefix("10.0.13.3/24")).build();
+
+    Configuration c4 = cb.setHostname(N4).build();
+    Vrf v4 = vb.setOwner(c4).build();
+    ib.setOwner(c4).setVrf(v4);
+    ib.setName("Ethernet2").setPrefix(new Prefix("10.0.24.4/24")).build();
+    ib.setName("Ethernet4").setPrefix(new Prefix("10.0.4.1/24")).build();
+
+    SortedMap<String, Configuration> configurations = new TreeMap<>();
+    for (Configuration c : ImmutableList.of(c1, c2, c3, c4)) {
+      configurations.put(c.getHostname(), c);
+    }
+    _batfish = BatfishTestUtils.getBatfish(configurations, _folder);
+    _dataPlanePlugin = new BdpDataPlanePlugin();
+    _dataPlanePlugin.initialize(_batfish);
+    _dataPlanePlugin.computeDataPlane(false);
+    _configurations = _batfish.loadConfigurations();
+    _dataPlane = _batfish.loadDataPlane();
+    _analysis =
+        new BDDReachabilityAnalysis(
+            _configurations, _dataPlane, new BDDFactorySupplier(10000, 1000).get());
+  }
+
+  @Test
+  public void testPermit() {
+    Set<Flow> accepted = bddFlows(reachabilityQuery(ForwardingAction.ACCEPT, PERMITTED_IP));
+
+    assertThat(traceroute(accepted), equalTo(ImmutableSet.of(FlowDisposition.ACCEPTED)));
+    assertThat(
+        bddFlows(reachabilityQuery(ForwardingAction.DROP, PERMITTED_IP)).isEmpty(),
+        equalTo(true));
+    assertThat(bddFlows(multipathQuery(PERMITTED_IP)).isEmpty(), equalTo(true));
+  }
+
+  @Test
+  public void testDenyByAcl() {
+    Set<Flow> denied = bddFlows(reachabilityQuery(ForwardingAction.DROP_ACL_IN, DENIED_IP));
+
+    assertThat(traceroute(denied), equalTo(ImmutableSet.of(FlowDisposition.DENIED_IN)));
+    assertThat(
+        bddFlows(reachabilityQuery(ForwardingAction.ACCEPT, DENIED_IP)).isEmpty(),
+        equalTo(true));
+    assertThat(
+        bddFlows(reachabilityQuery(ForwardingAction.DROP_ACL_OUT, DENIED_IP)).isEmpty(),
+        equalTo(true));
+  }
+
+  @Test
+  public void testNullRouted() {
+    Set<Flow> dropped =
+        bddFlows(reachabilityQuery(ForwardingAction.DROP_NULL_ROUTE, NULL_ROUTED_IP));
+
+    assertThat(traceroute(dropped), equalTo(ImmutableSet.of(FlowDisposition.NULL_ROUTED)));
+    assertThat(
+        bddFlows(reachabilityQuery(ForwardingAction.DROP_NO_ROUTE, NULL_ROUTED_IP)).isEmpty(),
+        equalTo(true));
+    assertThat(
+        bddFlows(reachabilityQuery(ForwardingAction.ACCEPT, NULL_ROUTED_IP)).isEmpty(),
+        equalTo(true));
+  }
+
+  @Test
+  public void testMultipath() {
+    Set<Flow> inconsistent = bddFlows(multipathQuery(MULTIPATH_IP));
+
+    assertThat(
+        traceroute(inconsistent),
+        equalTo(ImmutableSet.of(FlowDisposition.ACCEPTED, FlowDisposition.NO_ROUTE)));
+    assertThat(
+        bddFlows(reachabilityQuery(ForwardingAction.ACCEPT, MULTIPATH_IP)).isEmpty(),
+        equalTo(false));
+    assertThat(
+        bddFlows(reachabilityQuery(ForwardingAction.DROP_NO_ROUTE, MULTIPATH_IP)).isEmpty(),
+        equalTo(false));
+  }
+
+  @Test
+  public void testAgreesWithNod() throws Exception {
+    assumeTrue(z3Available());
+    for (ForwardingAction action :
+        ImmutableList.of(
+            ForwardingAction.ACCEPT,
+            ForwardingAction.DROP_ACL_IN,
+            ForwardingAction.DROP_NO_ROUTE,
+            ForwardingAction.DROP_NULL_ROUTE)) {
+      for (String ip : ImmutableList.of(PERMITTED_IP, DENIED_IP, NULL_ROUTED_IP, MULTIPATH_IP)) {
+        Set<Flow> nodFlows = nodFlows(reachabilityQuery(action, ip));
+        Set<Flow> bddFlows = bddFlows(reachabilityQuery(action, ip));
+        assertThat(action + " " + ip, nodFlows.isEmpty(), equalTo(bddFlows.isEmpty()));
+        if (!nodFlows.isEmpty()) {
+          assertThat(traceroute(nodFlows), equalTo(traceroute(bddFlows)));
+        }
+      }
+    }
+    assertThat(
+        nodFlows(multipathQuery(MULTIPATH_IP)).isEmpty(),
+        equalTo(bddFlows(multipathQuery(MULTIPATH_IP)).isEmpty()));
+    assertThat(
+        nodFlows(multipathQuery(PERMITTED_IP)).isEmpty(),
+        equalTo(bddFlows(multipathQuery(PERMITTED_IP)).isEmpty()));
+  }
+}
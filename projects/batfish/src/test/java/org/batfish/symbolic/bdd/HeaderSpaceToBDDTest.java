@@ -0,0 +1,126 @@
+package org.batfish.symbolic.bdd;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.sf.javabdd.BDD;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.SubRange;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class HeaderSpaceToBDDTest {
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private BDDPacket _pkt;
+
+  private HeaderSpaceToBDD _toBdd;
+
+  private BDD dstIp(String ip) {
+    return _pkt.getDstIp().value((int) new Ip(ip).asLong());
+  }
+
+  private BDD srcIp(String ip) {
+    return _pkt.getSrcIp().value((int) new Ip(ip).asLong());
+  }
+
+  @Before
+  public void setup() {
+    _pkt = new BDDPacket(new BDDFactorySupplier(10000, 1000).get());
+    _toBdd = new HeaderSpaceToBDD(_pkt);
+  }
+
+  @Test
+  public void testDstPrefix() {
+    HeaderSpace headerSpace = new HeaderSpace();
+    headerSpace.setDstIps(ImmutableSortedSet.of(new IpWildcard("10.0.0.0/8")));
+    BDD match = _toBdd.toBDD(headerSpace);
+
+    assertThat(dstIp("10.1.2.3").imp(match).isOne(), equalTo(true));
+    assertThat(dstIp("11.1.2.3").and(match).isZero(), equalTo(true));
+  }
+
+  @Test
+  public void testGetValueSatisfying() {
+    HeaderSpace headerSpace = new HeaderSpace();
+    headerSpace.setSrcIps(ImmutableSortedSet.of(new IpWildcard("1.2.3.4")));
+    headerSpace.setDstPorts(ImmutableSortedSet.of(new SubRange(443, 443)));
+    BDD assignment = _toBdd.toBDD(headerSpace).fullSatOne();
+
+    assertThat(_pkt.getSrcIp().getValueSatisfying(assignment), equalTo(new Ip("1.2.3.4").asLong()));
+    assertThat(_pkt.getDstPort().getValueSatisfying(assignment), equalTo(443L));
+  }
+
+  @Test
+  public void testIndependentFactories() throws Exception {
+    HeaderSpace headerSpace = new HeaderSpace();
+    headerSpace.setDstIps(ImmutableSortedSet.of(new IpWildcard("10.0.0.0/8")));
+    headerSpace.setSrcPorts(ImmutableSortedSet.of(new SubRange(100, 200)));
+    BDDFactorySupplier factories = new BDDFactorySupplier(10000, 1000);
+    Callable<Double> countMatches =
+        () -> new HeaderSpaceToBDD(new BDDPacket(factories.get())).toBDD(headerSpace).satCount();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Double> count1 = executor.submit(countMatches);
+      Future<Double> count2 = executor.submit(countMatches);
+      assertThat(count1.get(), equalTo(_toBdd.toBDD(headerSpace).satCount()));
+      assertThat(count2.get(), equalTo(count1.get()));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testNegate() {
+    HeaderSpace headerSpace = new HeaderSpace();
+    headerSpace.setDstIps(ImmutableSortedSet.of(new IpWildcard("10.0.0.0/8")));
+    headerSpace.setNegate(true);
+    BDD match = _toBdd.toBDD(headerSpace);
+
+    assertThat(dstIp("10.1.2.3").and(match).isZero(), equalTo(true));
+    assertThat(dstIp("11.1.2.3").imp(match).isOne(), equalTo(true));
+  }
+
+  @Test
+  public void testNonPrefixWildcard() {
+    HeaderSpace headerSpace = new HeaderSpace();
+    headerSpace.setSrcIps(
+        ImmutableSortedSet.of(new IpWildcard(new Ip("10.0.0.1"), new Ip("0.255.0.0"))));
+    BDD match = _toBdd.toBDD(headerSpace);
+
+    assertThat(srcIp("10.7.0.1").imp(match).isOne(), equalTo(true));
+    assertThat(srcIp("10.7.0.2").and(match).isZero(), equalTo(true));
+  }
+
+  @Test
+  public void testPortRange() {
+    HeaderSpace headerSpace = new HeaderSpace();
+    headerSpace.setNotSrcPorts(ImmutableSortedSet.of(new SubRange(100, 200)));
+    BDD match = _toBdd.toBDD(headerSpace);
+
+    assertThat(_pkt.getSrcPort().value(99).imp(match).isOne(), equalTo(true));
+    assertThat(_pkt.getSrcPort().value(100).and(match).isZero(), equalTo(true));
+    assertThat(_pkt.getSrcPort().value(200).and(match).isZero(), equalTo(true));
+    assertThat(_pkt.getSrcPort().value(201).imp(match).isOne(), equalTo(true));
+  }
+
+  @Test
+  public void testUnsupportedField() {
+    HeaderSpace headerSpace = new HeaderSpace();
+    headerSpace.setDscps(ImmutableSortedSet.of(46));
+
+    _thrown.expect(BatfishException.class);
+    _toBdd.toBDD(headerSpace);
+  }
+}
@@ -0,0 +1,141 @@
+package org.batfish.symbolic.smt;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.microsoft.z3.Context;
+import java.io.IOException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.questions.smt.HeaderQuestion;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.symbolic.Graph;
+import org.batfish.symbolic.utils.Tuple;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link EncoderSession} and the scopes of {@link Encoder}. They need the z3 native
+ * library, and are skipped where it cannot be loaded.
+ */
+public class EncoderSessionTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private Graph _graph;
+
+  private HeaderQuestion _question;
+
+  private static boolean z3Available() {
+    try {
+      new Context().close();
+      return true;
+    } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+      return false;
+    }
+  }
+
+  @Before
+  public void setup() throws IOException {
+    assumeTrue(z3Available());
+
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Vrf.Builder vb = nf.vrfBuilder().setName(Configuration.DEFAULT_VRF_NAME);
+    Interface.Builder ib = nf.interfaceBuilder().setActive(true);
+
+    Configuration c1 = cb.setHostname("r1").build();
+    Vrf v1 = vb.setOwner(c1).build();
+    ib.setOwner(c1).setVrf(v1).setName("Ethernet0").setPrefix(new Prefix("10.0.0.1/24")).build();
+    v1.getStaticRoutes()
+        .addAll(
+            ImmutableList.of(
+                new StaticRoute(new Prefix("10.1.0.0/24"), new Ip("10.0.0.2"), null, 1, 0)));
+
+    Configuration c2 = cb.setHostname("r2").build();
+    Vrf v2 = vb.setOwner(c2).build();
+    ib.setOwner(c2).setVrf(v2);
+    ib.setName("Ethernet0").setPrefix(new Prefix("10.0.0.2/24")).build();
+    ib.setName("Ethernet1").setPrefix(new Prefix("10.1.0.1/24")).build();
+
+    SortedMap<String, Configuration> configs = new TreeMap<>();
+    configs.put(c1.getHostname(), c1);
+    configs.put(c2.getHostname(), c2);
+    _graph = new Graph(BatfishTestUtils.getBatfish(configs, _folder));
+    _question = new HeaderQuestion();
+  }
+
+  /** Test that constraints added in a scope are gone after it, and the encoding checks again */
+  @Test
+  public void testScopesReuseEncoding() {
+    Encoder enc = Encoder.createIncremental(_graph, _question);
+    enc.computeEncoding();
+    int numVariables = enc.getAllVariables().size();
+    try {
+      enc.push();
+      enc.add(enc.mkFalse());
+      assertThat(enc.verify().getFirst().isVerified(), equalTo(true));
+      enc.pop();
+      assertThat(enc.getAllVariables().size(), equalTo(numVariables));
+
+      enc.push();
+      enc.add(enc.mkTrue());
+      assertThat(enc.verify().getFirst().isVerified(), equalTo(false));
+      enc.pop();
+
+      // the retired constraint of the first scope does not make the encoding unsatisfiable
+      assertThat(enc.verify().getFirst().isVerified(), equalTo(false));
+    } finally {
+      enc.close();
+    }
+  }
+
+  /** Test that a session encodes once per key, and closes its encodings when it is closed */
+  @Test
+  public void testSessionReusesAndClosesEncodings() {
+    EncoderSession session = new EncoderSession();
+    AtomicInteger numEncoded = new AtomicInteger();
+    Tuple<Encoder, Encoder> first =
+        session.withEncoding(
+            _question,
+            _graph,
+            () -> {
+              numEncoded.incrementAndGet();
+              Encoder enc = Encoder.createIncremental(_graph, _question);
+              enc.computeEncoding();
+              return new Tuple<>(enc, null);
+            },
+            encoding -> encoding);
+    Tuple<Encoder, Encoder> second =
+        session.withEncoding(
+            _question,
+            _graph,
+            () -> {
+              throw new AssertionError("encoded twice");
+            },
+            encoding -> encoding);
+
+    assertThat(numEncoded.get(), equalTo(1));
+    assertThat(second, sameInstance(first));
+    assertThat(first.getFirst().isClosed(), equalTo(false));
+
+    session.close();
+
+    assertThat(first.getFirst().isClosed(), equalTo(true));
+  }
+}
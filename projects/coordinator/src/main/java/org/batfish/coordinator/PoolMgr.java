@@ -1,10 +1,13 @@
 package org.batfish.coordinator;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -17,9 +20,13 @@ import javax.ws.rs.core.Response;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
+import org.batfish.common.CoordConsts;
+import org.batfish.common.WorkItem;
 import org.batfish.common.util.CommonUtil;
+import org.batfish.coordinator.WorkerStatus.Snapshot;
 import org.batfish.coordinator.config.Settings;
 import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 
 public class PoolMgr {
@@ -38,6 +45,9 @@ public class PoolMgr {
   // the key should be of the form <ip or hostname>:<port>
   private Map<String, WorkerStatus> _workerPool;
 
+  // run whenever a status refresh finds a worker idle
+  @Nullable private volatile Runnable _workerIdleListener;
+
   public PoolMgr(Settings settings, BatfishLogger logger) {
     _settings = settings;
     _logger = logger;
@@ -59,6 +69,12 @@ public class PoolMgr {
     thread.start();
   }
 
+  /* Adds a worker whose status is already known, without refreshing it */
+  @VisibleForTesting
+  synchronized void addToPool(String worker, WorkerStatus status) {
+    _workerPool.put(worker, status);
+  }
+
   public synchronized void deleteFromPool(String worker) {
     if (_workerPool.containsKey(worker)) {
       _workerPool.remove(worker);
@@ -87,17 +103,65 @@ public class PoolMgr {
     return copy;
   }
 
-  @Nullable
-  public synchronized String getWorkerForAssignment() {
+  /*
+   * The snapshots whose configurations or data plane a work item may load
+   */
+  private static Set<Snapshot> getSnapshots(WorkItem workItem) {
+    Map<String, String> params = workItem.getRequestParams();
+    String container = workItem.getContainerName();
+    String testrig = workItem.getTestrigName();
+    String envName =
+        params.getOrDefault(
+            BfConsts.ARG_ENVIRONMENT_NAME, BfConsts.RELPATH_DEFAULT_ENVIRONMENT_NAME);
+    Set<Snapshot> snapshots = new HashSet<>();
+    snapshots.add(new Snapshot(container, testrig, envName));
+    if (params.containsKey(BfConsts.ARG_DELTA_TESTRIG)
+        || params.containsKey(BfConsts.ARG_DELTA_ENVIRONMENT_NAME)) {
+      snapshots.add(
+          new Snapshot(
+              container,
+              params.getOrDefault(BfConsts.ARG_DELTA_TESTRIG, testrig),
+              params.getOrDefault(BfConsts.ARG_DELTA_ENVIRONMENT_NAME, envName)));
+    }
+    return snapshots;
+  }
 
+  /**
+   * Picks an idle worker for a work item and marks it as being assigned work. Workers that already
+   * have the data planes, or failing that the configurations, of the work item loaded are
+   * preferred, so that the work does not load them again; ties go to the worker with the most free
+   * task slots.
+   */
+  @Nullable
+  public synchronized String getWorkerForAssignment(WorkItem workItem) {
+    Set<Snapshot> snapshots = getSnapshots(workItem);
+    String bestWorker = null;
+    int bestAffinity = -1;
+    int bestFreeSlots = -1;
     for (Entry<String, WorkerStatus> workerEntry : _workerPool.entrySet()) {
-      if (workerEntry.getValue().getStatus() == WorkerStatus.StatusCode.IDLE) {
-        updateWorkerStatus(workerEntry.getKey(), WorkerStatus.StatusCode.TRYINGTOASSIGN);
-        return workerEntry.getKey();
+      WorkerStatus status = workerEntry.getValue();
+      if (status.getStatus() != WorkerStatus.StatusCode.IDLE) {
+        continue;
+      }
+      int affinity = 0;
+      for (Snapshot snapshot : snapshots) {
+        if (status.getLoadedDataPlanes().contains(snapshot)) {
+          affinity += 2;
+        } else if (status.getLoadedTestrigs().contains(snapshot)) {
+          affinity += 1;
+        }
+      }
+      if (affinity > bestAffinity
+          || (affinity == bestAffinity && status.getFreeSlots() > bestFreeSlots)) {
+        bestWorker = workerEntry.getKey();
+        bestAffinity = affinity;
+        bestFreeSlots = status.getFreeSlots();
       }
     }
-
-    return null;
+    if (bestWorker != null) {
+      updateWorkerStatus(bestWorker, WorkerStatus.StatusCode.TRYINGTOASSIGN);
+    }
+    return bestWorker;
   }
 
   @Nullable
@@ -105,9 +169,21 @@ public class PoolMgr {
     return _workerPool.get(worker);
   }
 
-  public void markAssignmentResult(String worker, boolean assignmentSuccessful) {
+  public synchronized void markAssignmentResult(String worker, boolean assignmentSuccessful) {
+    WorkerStatus status = _workerPool.get(worker);
+    if (status == null) {
+      return;
+    }
+    if (!assignmentSuccessful) {
+      updateWorkerStatus(worker, WorkerStatus.StatusCode.IDLE);
+      return;
+    }
+    // a worker with task slots left can take more work before its status is refreshed
+    int freeSlots = Math.max(status.getFreeSlots() - 1, 0);
     updateWorkerStatus(
-        worker, assignmentSuccessful ? WorkerStatus.StatusCode.BUSY : WorkerStatus.StatusCode.IDLE);
+        worker,
+        freeSlots > 0 ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY,
+        freeSlots);
   }
 
   public void refreshWorkerStatus() {
@@ -171,11 +247,23 @@ public class PoolMgr {
 
         boolean status = jObj.getBoolean("idle");
 
+        // workers that run one task at a time only report whether they are idle
+        int freeSlots = jObj.has("freeSlots") ? jObj.getInt("freeSlots") : (status ? 1 : 0);
+
+        updateLoadedSnapshots(
+            worker, readSnapshots(jObj, "loadedTestrigs"), readSnapshots(jObj, "loadedDataPlanes"));
+
         // update the status, except leave the ones with TRYINGTOASSIGN
         // alone
         if (getWorkerStatus(worker).getStatus() != WorkerStatus.StatusCode.TRYINGTOASSIGN) {
           updateWorkerStatus(
-              worker, status ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY);
+              worker,
+              status ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY,
+              freeSlots);
+          Runnable workerIdleListener = _workerIdleListener;
+          if (status && workerIdleListener != null) {
+            workerIdleListener.run();
+          }
         }
       }
     } catch (ProcessingException e) {
@@ -192,6 +280,34 @@ public class PoolMgr {
     }
   }
 
+  /*
+   * Reads the snapshots listed under the given key of a worker status, if any. Workers that do not
+   * name the container of a snapshot cannot be matched to work, so such snapshots are skipped.
+   */
+  private static Set<Snapshot> readSnapshots(JSONObject jObj, String key) throws JSONException {
+    Set<Snapshot> snapshots = new HashSet<>();
+    if (!jObj.has(key)) {
+      return snapshots;
+    }
+    JSONArray array = jObj.getJSONArray(key);
+    for (int i = 0; i < array.length(); i++) {
+      JSONObject snapshot = array.getJSONObject(i);
+      if (!snapshot.has(CoordConsts.SVC_KEY_CONTAINER_NAME)) {
+        continue;
+      }
+      snapshots.add(
+          new Snapshot(
+              snapshot.getString(CoordConsts.SVC_KEY_CONTAINER_NAME),
+              snapshot.getString(BfConsts.ARG_TESTRIG),
+              snapshot.getString(BfConsts.ARG_ENVIRONMENT_NAME)));
+    }
+    return snapshots;
+  }
+
+  public void setWorkerIdleListener(@Nullable Runnable workerIdleListener) {
+    _workerIdleListener = workerIdleListener;
+  }
+
   public void startPoolManager() {
     Runnable workerStatusRefreshTask = new WorkerStatusRefreshTask();
     Executors.newScheduledThreadPool(1)
@@ -202,9 +318,23 @@ public class PoolMgr {
             TimeUnit.MILLISECONDS);
   }
 
+  private synchronized void updateLoadedSnapshots(
+      String worker, Set<Snapshot> loadedTestrigs, Set<Snapshot> loadedDataPlanes) {
+    if (_workerPool.containsKey(worker)) {
+      _workerPool.get(worker).updateLoadedSnapshots(loadedTestrigs, loadedDataPlanes);
+    }
+  }
+
   private synchronized void updateWorkerStatus(String worker, WorkerStatus.StatusCode statusCode) {
     if (_workerPool.containsKey(worker)) {
       _workerPool.get(worker).updateStatus(statusCode);
     }
   }
+
+  private synchronized void updateWorkerStatus(
+      String worker, WorkerStatus.StatusCode statusCode, int freeSlots) {
+    if (_workerPool.containsKey(worker)) {
+      _workerPool.get(worker).updateStatus(statusCode, freeSlots);
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package org.batfish.coordinator;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.opentracing.ActiveSpan;
 import io.opentracing.References;
 import io.opentracing.SpanContext;
@@ -12,7 +13,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -22,8 +26,13 @@ import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -62,7 +71,7 @@ public class WorkMgr extends AbstractCoordinator {
     @Override
     public void run() {
       Main.getWorkMgr().checkTask();
-      Main.getWorkMgr().assignWork();
+      Main.getWorkMgr().requestAssignWork();
     }
   }
 
@@ -77,6 +86,8 @@ public class WorkMgr extends AbstractCoordinator {
 
   private static final int MAX_SHOWN_TESTRIG_INFO_SUBDIR_ENTRIES = 10;
 
+  private static final int MAX_CONCURRENT_WORKER_REQUESTS = 16;
+
   private static Set<String> initEnvFilenames() {
     Set<String> envFilenames = new HashSet<>();
     envFilenames.add(BfConsts.RELPATH_NODE_BLACKLIST_FILE);
@@ -88,10 +99,19 @@ public class WorkMgr extends AbstractCoordinator {
     return envFilenames;
   }
 
+  // set while a request to assign work is waiting for the dispatcher
+  private final AtomicBoolean _assignWorkRequested;
+
+  // assigns work on a single thread, so requests to assign work never pile up
+  private final ExecutorService _dispatcher;
+
   private final BatfishLogger _logger;
 
   private final Settings _settings;
 
+  // makes the blocking HTTP requests to workers, off the common fork-join pool
+  private final ExecutorService _workerRequests;
+
   private WorkQueueMgr _workQueueMgr;
 
   public WorkMgr(Settings settings, BatfishLogger logger) {
@@ -99,38 +119,59 @@ public class WorkMgr extends AbstractCoordinator {
     _settings = settings;
     _logger = logger;
     _workQueueMgr = new WorkQueueMgr();
+    _assignWorkRequested = new AtomicBoolean();
+    _dispatcher =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("work-dispatcher").build());
+    _workerRequests =
+        Executors.newFixedThreadPool(
+            MAX_CONCURRENT_WORKER_REQUESTS,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("worker-request-%d").build());
     loadPlugins();
   }
 
+  /*
+   * Assigns unassigned work to idle workers until either runs out. Each round pairs as much work
+   * as there are idle workers and makes those assignments in parallel; workers that can take more
+   * work after a round are used again in the next one.
+   */
   private void assignWork() {
 
     try {
-      QueuedWork work = _workQueueMgr.getWorkForAssignment();
-
-      // get out if no work was found
-      if (work == null) {
-        // _logger.info("WM:AssignWork: No unassigned work\n");
-        return;
-      }
-
-      String idleWorker = Main.getPoolMgr().getWorkerForAssignment();
-
-      // get out if no idle worker was found, but release the work first
-      if (idleWorker == null) {
-        _workQueueMgr.markAssignmentFailure(work);
-
-        _logger.info("WM:AssignWork: No idle worker\n");
-        return;
-      }
+      Map<QueuedWork, String> assignments = new LinkedHashMap<>();
+      boolean assigned;
+      do {
+        assignments.clear();
+        QueuedWork work;
+        while ((work = _workQueueMgr.getWorkForAssignment()) != null) {
+          String idleWorker = Main.getPoolMgr().getWorkerForAssignment(work.getWorkItem());
+
+          // stop pairing if no idle worker was found, but release the work first
+          if (idleWorker == null) {
+            _workQueueMgr.markAssignmentFailure(work);
+
+            if (assignments.isEmpty()) {
+              _logger.info("WM:AssignWork: No idle worker\n");
+            }
+            break;
+          }
+          assignments.put(work, idleWorker);
+        }
 
-      assignWork(work, idleWorker);
+        // stop if a whole round failed, rather than retrying the same workers right away
+        List<Callable<Boolean>> requests = new ArrayList<>();
+        assignments.forEach((queued, worker) -> requests.add(() -> assignWork(queued, worker)));
+        assigned = runWorkerRequests(requests).contains(true);
+      } while (assigned);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     } catch (Exception e) {
       String stackTrace = ExceptionUtils.getFullStackTrace(e);
       _logger.error("Got exception in assignWork: " + stackTrace);
     }
   }
 
-  private void assignWork(QueuedWork work, String worker) {
+  private boolean assignWork(QueuedWork work, String worker) {
 
     _logger.info("WM:AssignWork: Trying to assign " + work + " to " + worker + " \n");
 
@@ -236,22 +277,31 @@ public class WorkMgr extends AbstractCoordinator {
     }
 
     Main.getPoolMgr().markAssignmentResult(worker, assigned);
+    return assigned;
   }
 
+  /*
+   * Checks the status of all assigned work, with the checks made in parallel
+   */
   private void checkTask() {
     try {
-      QueuedWork work = _workQueueMgr.getWorkForChecking();
-      if (work == null) {
-        // _logger.info("WM:checkTask: No assigned work\n");
-        return;
-      }
-      String assignedWorker = work.getAssignedWorker();
-      if (assignedWorker == null) {
-        _logger.error("WM:CheckWork no assinged worker for " + work + "\n");
-        _workQueueMgr.makeWorkUnassigned(work);
-        return;
+      List<Callable<Void>> requests = new ArrayList<>();
+      for (QueuedWork work : _workQueueMgr.getWorkForChecking()) {
+        String assignedWorker = work.getAssignedWorker();
+        if (assignedWorker == null) {
+          _logger.error("WM:CheckWork no assinged worker for " + work + "\n");
+          _workQueueMgr.makeWorkUnassigned(work);
+          continue;
+        }
+        requests.add(
+            () -> {
+              checkTask(work, assignedWorker);
+              return null;
+            });
       }
-      checkTask(work, assignedWorker);
+      runWorkerRequests(requests);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     } catch (Exception e) {
       _logger.error("Got exception in assignWork: " + e.getMessage());
     }
@@ -1041,18 +1091,38 @@ public class WorkMgr extends AbstractCoordinator {
     // as an optimization trigger AssignWork to see if we can schedule this
     // (or another) work
     if (success) {
-      Thread thread =
-          new Thread() {
-            @Override
-            public void run() {
-              assignWork();
-            }
-          };
-      thread.start();
+      requestAssignWork();
     }
     return success;
   }
 
+  /*
+   * Asks the dispatcher to assign work as soon as it can. Requests made while one is already
+   * waiting are merged into it, since a single assignment run assigns all the work it can.
+   */
+  void requestAssignWork() {
+    if (_assignWorkRequested.compareAndSet(false, true)) {
+      _dispatcher.execute(
+          () -> {
+            _assignWorkRequested.set(false);
+            assignWork();
+          });
+    }
+  }
+
+  /*
+   * Runs the given requests to workers on the worker request pool, which bounds how many are made
+   * at once, and returns their results once all of them are done.
+   */
+  private <T> List<T> runWorkerRequests(Collection<Callable<T>> requests)
+      throws InterruptedException, ExecutionException {
+    List<T> results = new ArrayList<>();
+    for (Future<T> result : _workerRequests.invokeAll(requests)) {
+      results.add(result.get());
+    }
+    return results;
+  }
+
   public void startWorkManager() {
     // for some bizarre reason, this ordering of scheduling checktask before
     // assignwork, is important
@@ -1064,6 +1134,9 @@ public class WorkMgr extends AbstractCoordinator {
     // Main.getSettings().getPeriodCheckWorkMs(),
     // TimeUnit.MILLISECONDS);
 
+    // assign work as soon as a worker has room for more, rather than at the next period
+    Main.getPoolMgr().setWorkerIdleListener(this::requestAssignWork);
+
     Executors.newScheduledThreadPool(1)
         .scheduleAtFixedRate(
             new AssignWorkTask(),
@@ -1,5 +1,13 @@
 package org.batfish.coordinator;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.UUID;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.exception.ExceptionUtils;
@@ -17,6 +25,9 @@ import org.codehaus.jettison.json.JSONObject;
 // the design of this WorkQueueMgr is such that all synchronization sits here
 // individual queues do not need to be synchronized
 
+// incomplete work is also indexed by status, so finding work to assign or check does not scan
+// the queue
+
 public class WorkQueueMgr {
 
   public enum QueueType {
@@ -29,7 +40,19 @@ public class WorkQueueMgr {
 
   private WorkQueue _queueIncompleteWork;
 
+  // incomplete work with each status, keyed and ordered by queue position
+  private final Map<WorkStatusCode, NavigableMap<Long, QueuedWork>> _incompleteWorkByStatus;
+
+  private long _nextQueuePosition;
+
+  private final Map<UUID, Long> _queuePositions;
+
   public WorkQueueMgr() {
+    _incompleteWorkByStatus = new EnumMap<>(WorkStatusCode.class);
+    for (WorkStatusCode status : WorkStatusCode.values()) {
+      _incompleteWorkByStatus.put(status, new TreeMap<>());
+    }
+    _queuePositions = new HashMap<>();
     if (Main.getSettings().getQueueType() == WorkQueue.Type.azure) {
       String storageConnectionString =
           String.format(
@@ -99,56 +122,70 @@ public class WorkQueueMgr {
     }
   }
 
+  /*
+   * Marks the first unassigned work in queue order as being assigned, and returns it
+   */
   @Nullable
   public synchronized QueuedWork getWorkForAssignment() {
-
-    for (QueuedWork work : _queueIncompleteWork) {
-      if (work.getStatus() == WorkStatusCode.UNASSIGNED) {
-        work.setStatus(WorkStatusCode.TRYINGTOASSIGN);
-        return work;
-      }
+    Entry<Long, QueuedWork> first =
+        _incompleteWorkByStatus.get(WorkStatusCode.UNASSIGNED).firstEntry();
+    if (first == null) {
+      return null;
     }
-
-    return null;
+    QueuedWork work = first.getValue();
+    setStatus(work, WorkStatusCode.TRYINGTOASSIGN);
+    return work;
   }
 
-  @Nullable
-  public QueuedWork getWorkForChecking() {
-    for (QueuedWork work : _queueIncompleteWork) {
-      if (work.getStatus() == WorkStatusCode.ASSIGNED) {
-        work.setStatus(WorkStatusCode.CHECKINGSTATUS);
-        return work;
-      }
+  /*
+   * Marks all assigned work as having its status checked, and returns it in queue order
+   */
+  public synchronized List<QueuedWork> getWorkForChecking() {
+    List<QueuedWork> works =
+        new ArrayList<>(_incompleteWorkByStatus.get(WorkStatusCode.ASSIGNED).values());
+    for (QueuedWork work : works) {
+      setStatus(work, WorkStatusCode.CHECKINGSTATUS);
     }
-    return null;
+    return works;
   }
 
   public synchronized void makeWorkUnassigned(QueuedWork work) {
-    work.setStatus(WorkStatusCode.UNASSIGNED);
+    setStatus(work, WorkStatusCode.UNASSIGNED);
   }
 
   // when assignment attempt ends in error, we do not try to reassign
   public synchronized void markAssignmentError(QueuedWork work) {
-    // move the work to completed queue
-    _queueIncompleteWork.delete(work);
-    try {
-      _queueCompletedWork.enque(work);
-    } catch (Exception e) {
-      String stackTrace = ExceptionUtils.getFullStackTrace(e);
-      _logger.error(
-          "Could not put work on completed queue. Work = " + work + "\nException = " + stackTrace);
-    }
+    moveToCompleted(work);
     work.setStatus(WorkStatusCode.ASSIGNMENTERROR);
   }
 
   public synchronized void markAssignmentFailure(QueuedWork work) {
-    work.setStatus(WorkStatusCode.UNASSIGNED);
+    setStatus(work, WorkStatusCode.UNASSIGNED);
   }
 
   public synchronized void markAssignmentSuccess(QueuedWork work, String assignedWorker) {
+    setStatus(work, WorkStatusCode.ASSIGNED);
     work.setAssignment(assignedWorker);
   }
 
+  /*
+   * Moves work from the incomplete queue and its status index to the completed queue
+   */
+  private void moveToCompleted(QueuedWork work) {
+    _queueIncompleteWork.delete(work);
+    Long position = _queuePositions.remove(work.getId());
+    if (position != null) {
+      _incompleteWorkByStatus.get(work.getStatus()).remove(position);
+    }
+    try {
+      _queueCompletedWork.enque(work);
+    } catch (Exception e) {
+      String stackTrace = ExceptionUtils.getFullStackTrace(e);
+      _logger.error(
+          "Could not put work on completed queue. Work = " + work + "\nException = " + stackTrace);
+    }
+  }
+
   public synchronized void processTaskCheckResult(QueuedWork work, Task task) {
 
     // {Unscheduled, InProgress, TerminatedNormally, TerminatedAbnormally,
@@ -157,23 +194,12 @@ public class WorkQueueMgr {
     switch (task.getStatus()) {
       case Unscheduled:
       case InProgress:
-        work.setStatus(WorkStatusCode.ASSIGNED);
+        setStatus(work, WorkStatusCode.ASSIGNED);
         work.recordTaskCheckResult(task);
         break;
       case TerminatedNormally:
       case TerminatedAbnormally:
-        // move the work to completed queue
-        _queueIncompleteWork.delete(work);
-        try {
-          _queueCompletedWork.enque(work);
-        } catch (Exception e) {
-          String stackTrace = ExceptionUtils.getFullStackTrace(e);
-          _logger.error(
-              "Could not put work on completed queue. Work = "
-                  + work
-                  + "\nException = "
-                  + stackTrace);
-        }
+        moveToCompleted(work);
         work.setStatus(
             (task.getStatus() == TaskStatus.TerminatedNormally)
                 ? WorkStatusCode.TERMINATEDNORMALLY
@@ -182,17 +208,17 @@ public class WorkQueueMgr {
         break;
       case Unknown:
         // we mark this unassigned, so we try to schedule it again
-        work.setStatus(WorkStatusCode.UNASSIGNED);
+        setStatus(work, WorkStatusCode.UNASSIGNED);
         work.clearAssignment();
         break;
       case UnreachableOrBadResponse:
         if (work.getLastTaskCheckResult().getStatus() == TaskStatus.UnreachableOrBadResponse) {
           // if we saw the same thing last time around, free the task to be
           // scheduled elsewhere
-          work.setStatus(WorkStatusCode.UNASSIGNED);
+          setStatus(work, WorkStatusCode.UNASSIGNED);
           work.clearAssignment();
         } else {
-          work.setStatus(WorkStatusCode.ASSIGNED);
+          setStatus(work, WorkStatusCode.ASSIGNED);
           work.recordTaskCheckResult(task);
         }
         break;
@@ -210,6 +236,26 @@ public class WorkQueueMgr {
       throw new Exception("Duplicate id for work");
     }
 
-    return _queueIncompleteWork.enque(work);
+    if (!_queueIncompleteWork.enque(work)) {
+      return false;
+    }
+    long position = _nextQueuePosition++;
+    _queuePositions.put(work.getId(), position);
+    _incompleteWorkByStatus.get(work.getStatus()).put(position, work);
+    return true;
+  }
+
+  /*
+   * Sets the status of work, moving incomplete work to the index for its new status. Work keeps
+   * its queue position, so work that goes back to being unassigned is not put behind work queued
+   * after it.
+   */
+  private void setStatus(QueuedWork work, WorkStatusCode status) {
+    Long position = _queuePositions.get(work.getId());
+    if (position != null) {
+      _incompleteWorkByStatus.get(work.getStatus()).remove(position);
+      _incompleteWorkByStatus.get(status).put(position, work);
+    }
+    work.setStatus(status);
   }
 }
@@ -1,9 +1,51 @@
 package org.batfish.coordinator;
 
+import com.google.common.collect.ImmutableSet;
 import java.util.Date;
+import java.util.Objects;
+import java.util.Set;
 
 public class WorkerStatus {
 
+  /** A testrig and environment of a container, which a worker may have loaded */
+  public static final class Snapshot {
+
+    private final String _container;
+
+    private final String _environment;
+
+    private final String _testrig;
+
+    public Snapshot(String container, String testrig, String environment) {
+      _container = container;
+      _environment = environment;
+      _testrig = testrig;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      } else if (!(obj instanceof Snapshot)) {
+        return false;
+      }
+      Snapshot other = (Snapshot) obj;
+      return _container.equals(other._container)
+          && _environment.equals(other._environment)
+          && _testrig.equals(other._testrig);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_container, _environment, _testrig);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s/%s/%s", _container, _testrig, _environment);
+    }
+  }
+
   public enum StatusCode {
     BUSY,
     IDLE,
@@ -12,18 +54,38 @@ public class WorkerStatus {
     UNREACHABLE
   }
 
+  private int _freeSlots;
   private Date _lastUpdated;
+  private Set<Snapshot> _loadedDataPlanes;
+  private Set<Snapshot> _loadedTestrigs;
   private StatusCode _statusCode;
 
   public WorkerStatus(StatusCode statusCode) {
     _statusCode = statusCode;
     _lastUpdated = new Date();
+    _loadedDataPlanes = ImmutableSet.of();
+    _loadedTestrigs = ImmutableSet.of();
+  }
+
+  /** Number of additional tasks the worker reported it can run, as of the last update */
+  public int getFreeSlots() {
+    return _freeSlots;
   }
 
   public Date getLastUpdateTime() {
     return _lastUpdated;
   }
 
+  /** Snapshots whose data planes the worker reported having loaded */
+  public Set<Snapshot> getLoadedDataPlanes() {
+    return _loadedDataPlanes;
+  }
+
+  /** Snapshots whose configurations the worker reported having loaded */
+  public Set<Snapshot> getLoadedTestrigs() {
+    return _loadedTestrigs;
+  }
+
   public StatusCode getStatus() {
     return _statusCode;
   }
@@ -37,4 +99,15 @@ public class WorkerStatus {
     _statusCode = statusCode;
     _lastUpdated = new Date();
   }
+
+  public void updateStatus(StatusCode statusCode, int freeSlots) {
+    updateStatus(statusCode);
+    _freeSlots = freeSlots;
+  }
+
+  public void updateLoadedSnapshots(
+      Set<Snapshot> loadedTestrigs, Set<Snapshot> loadedDataPlanes) {
+    _loadedDataPlanes = ImmutableSet.copyOf(loadedDataPlanes);
+    _loadedTestrigs = ImmutableSet.copyOf(loadedTestrigs);
+  }
 }
@@ -1,6 +1,8 @@
 package org.batfish.coordinator.queues;
 
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 import javax.annotation.Nullable;
 import org.batfish.coordinator.QueuedWork;
@@ -8,44 +10,49 @@ import org.batfish.coordinator.QueuedWork;
 // we don't synchronize on this queue
 // all synchronization is in inside WorkQueueMgr
 
-public class MemoryQueue extends LinkedList<QueuedWork> implements WorkQueue {
+// work is indexed by id, so lookups and deletes do not scan the queue; iteration is in the order
+// the work was queued
 
-  private static final long serialVersionUID = -6556862067531610584L;
+public class MemoryQueue implements WorkQueue {
+
+  private final Map<UUID, QueuedWork> _works = new LinkedHashMap<>();
 
   @Override
   public boolean delete(QueuedWork qWork) {
-    return remove(qWork);
+    return _works.remove(qWork.getId(), qWork);
   }
 
   @Nullable
   @Override
   public QueuedWork deque() {
-    if (size() == 0) {
+    Iterator<QueuedWork> works = _works.values().iterator();
+    if (!works.hasNext()) {
       return null;
     }
-
-    return pop();
+    QueuedWork work = works.next();
+    works.remove();
+    return work;
   }
 
   @Override
   public boolean enque(QueuedWork work) {
-    return add(work);
+    _works.put(work.getId(), work);
+    return true;
   }
 
   @Override
   public long getLength() {
-    return size();
+    return _works.size();
   }
 
   @Nullable
   @Override
   public QueuedWork getWork(UUID workItemId) {
-    for (QueuedWork work : this) {
-      if (work.getWorkItem().getId().equals(workItemId)) {
-        return work;
-      }
-    }
+    return _works.get(workItemId);
+  }
 
-    return null;
+  @Override
+  public Iterator<QueuedWork> iterator() {
+    return _works.values().iterator();
   }
 }
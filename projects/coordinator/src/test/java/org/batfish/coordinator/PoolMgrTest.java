@@ -0,0 +1,87 @@
+package org.batfish.coordinator;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.BfConsts;
+import org.batfish.common.WorkItem;
+import org.batfish.coordinator.WorkerStatus.Snapshot;
+import org.batfish.coordinator.WorkerStatus.StatusCode;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link PoolMgr}. */
+public class PoolMgrTest {
+
+  private PoolMgr _poolMgr;
+
+  private void addWorker(
+      String worker,
+      StatusCode statusCode,
+      int freeSlots,
+      Set<Snapshot> loadedTestrigs,
+      Set<Snapshot> loadedDataPlanes) {
+    WorkerStatus status = new WorkerStatus(statusCode);
+    status.updateStatus(statusCode, freeSlots);
+    status.updateLoadedSnapshots(loadedTestrigs, loadedDataPlanes);
+    _poolMgr.addToPool(worker, status);
+  }
+
+  private static WorkItem workItem(String container, String testrig) {
+    return new WorkItem(container, testrig);
+  }
+
+  @Before
+  public void initPoolMgr() {
+    _poolMgr = new PoolMgr(null, new BatfishLogger("debug", false));
+  }
+
+  @Test
+  public void testAssignmentMarksWorker() {
+    addWorker("w1", StatusCode.IDLE, 1, ImmutableSet.of(), ImmutableSet.of());
+
+    assertThat(_poolMgr.getWorkerForAssignment(workItem("c", "t")), equalTo("w1"));
+    assertThat(_poolMgr.getWorkerStatus("w1").getStatus(), equalTo(StatusCode.TRYINGTOASSIGN));
+    assertThat(_poolMgr.getWorkerForAssignment(workItem("c", "t")), nullValue());
+  }
+
+  @Test
+  public void testPrefersLoadedDataPlane() {
+    Snapshot snapshot = new Snapshot("c", "t", BfConsts.RELPATH_DEFAULT_ENVIRONMENT_NAME);
+    addWorker("none", StatusCode.IDLE, 4, ImmutableSet.of(), ImmutableSet.of());
+    addWorker("testrig", StatusCode.IDLE, 2, ImmutableSet.of(snapshot), ImmutableSet.of());
+    addWorker("dataplane", StatusCode.IDLE, 1, ImmutableSet.of(), ImmutableSet.of(snapshot));
+    addWorker("busy", StatusCode.BUSY, 0, ImmutableSet.of(), ImmutableSet.of(snapshot));
+
+    assertThat(_poolMgr.getWorkerForAssignment(workItem("c", "t")), equalTo("dataplane"));
+    assertThat(_poolMgr.getWorkerForAssignment(workItem("c", "t")), equalTo("testrig"));
+    assertThat(_poolMgr.getWorkerForAssignment(workItem("c", "t")), equalTo("none"));
+  }
+
+  @Test
+  public void testCountsDeltaSnapshot() {
+    String env = BfConsts.RELPATH_DEFAULT_ENVIRONMENT_NAME;
+    Snapshot base = new Snapshot("c", "base", env);
+    Snapshot delta = new Snapshot("c", "delta", env);
+    addWorker("base", StatusCode.IDLE, 1, ImmutableSet.of(), ImmutableSet.of(base));
+    addWorker("both", StatusCode.IDLE, 1, ImmutableSet.of(delta), ImmutableSet.of(base));
+
+    WorkItem workItem = workItem("c", "base");
+    workItem.addRequestParam(BfConsts.ARG_DELTA_TESTRIG, "delta");
+    assertThat(_poolMgr.getWorkerForAssignment(workItem), equalTo("both"));
+  }
+
+  @Test
+  public void testIgnoresSnapshotsOfOtherContainers() {
+    Snapshot other = new Snapshot("other", "t", BfConsts.RELPATH_DEFAULT_ENVIRONMENT_NAME);
+    addWorker("other", StatusCode.IDLE, 1, ImmutableSet.of(), ImmutableSet.of(other));
+    addWorker("free", StatusCode.IDLE, 2, ImmutableSet.of(), ImmutableSet.of());
+
+    // without affinity, the worker with the most free slots wins
+    assertThat(_poolMgr.getWorkerForAssignment(workItem("c", "t")), equalTo("free"));
+  }
+}
@@ -0,0 +1,91 @@
+package org.batfish.coordinator;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.BfConsts.TaskStatus;
+import org.batfish.common.CoordConsts.WorkStatusCode;
+import org.batfish.common.Task;
+import org.batfish.common.WorkItem;
+import org.batfish.coordinator.WorkQueueMgr.QueueType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link WorkQueueMgr}. */
+public class WorkQueueMgrTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private WorkQueueMgr _queueMgr;
+
+  private static Task task(TaskStatus status) {
+    Task task = new Task();
+    task.setStatus(status);
+    return task;
+  }
+
+  private QueuedWork queueWork() throws Exception {
+    QueuedWork work = new QueuedWork(new WorkItem("container", "testrig"));
+    _queueMgr.queueUnassignedWork(work);
+    return work;
+  }
+
+  @Before
+  public void initQueueMgr() {
+    Main.mainInit(new String[] {"-containerslocation", _folder.getRoot().toString()});
+    Main.setLogger(new BatfishLogger("debug", false));
+    _queueMgr = new WorkQueueMgr();
+  }
+
+  @Test
+  public void testFailedAssignmentKeepsQueuePosition() throws Exception {
+    QueuedWork work1 = queueWork();
+    QueuedWork work2 = queueWork();
+
+    assertThat(_queueMgr.getWorkForAssignment(), equalTo(work1));
+    _queueMgr.markAssignmentFailure(work1);
+
+    assertThat(_queueMgr.getWorkForAssignment(), equalTo(work1));
+    assertThat(_queueMgr.getWorkForAssignment(), equalTo(work2));
+    assertThat(_queueMgr.getWorkForAssignment(), nullValue());
+  }
+
+  @Test
+  public void testGetWorkForChecking() throws Exception {
+    QueuedWork work1 = queueWork();
+    QueuedWork work2 = queueWork();
+    queueWork();
+    _queueMgr.getWorkForAssignment();
+    _queueMgr.getWorkForAssignment();
+    _queueMgr.markAssignmentSuccess(work2, "worker");
+    _queueMgr.markAssignmentSuccess(work1, "worker");
+
+    assertThat(_queueMgr.getWorkForChecking(), equalTo(ImmutableList.of(work1, work2)));
+    assertThat(work1.getStatus(), equalTo(WorkStatusCode.CHECKINGSTATUS));
+    assertThat(_queueMgr.getWorkForChecking(), equalTo(ImmutableList.of()));
+
+    _queueMgr.processTaskCheckResult(work1, task(TaskStatus.InProgress));
+    assertThat(_queueMgr.getWorkForChecking(), equalTo(ImmutableList.of(work1)));
+  }
+
+  @Test
+  public void testTerminatedWorkIsCompleted() throws Exception {
+    QueuedWork work = queueWork();
+    _queueMgr.getWorkForAssignment();
+    _queueMgr.markAssignmentSuccess(work, "worker");
+    _queueMgr.getWorkForChecking();
+
+    _queueMgr.processTaskCheckResult(work, task(TaskStatus.TerminatedNormally));
+
+    assertThat(work.getStatus(), equalTo(WorkStatusCode.TERMINATEDNORMALLY));
+    assertThat(_queueMgr.getLength(QueueType.INCOMPLETE), equalTo(0L));
+    assertThat(_queueMgr.getLength(QueueType.COMPLETED), equalTo(1L));
+    assertThat(_queueMgr.getWork(work.getId()), equalTo(work));
+    assertThat(_queueMgr.getWorkForChecking(), equalTo(ImmutableList.of()));
+  }
+}
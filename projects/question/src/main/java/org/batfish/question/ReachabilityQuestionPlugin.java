@@ -15,6 +15,7 @@ import org.batfish.datamodel.HeaderSpace;
 import org.batfish.datamodel.IpProtocol;
 import org.batfish.datamodel.IpWildcard;
 import org.batfish.datamodel.Protocol;
+import org.batfish.datamodel.ReachabilityEngine;
 import org.batfish.datamodel.ReachabilityType;
 import org.batfish.datamodel.SubRange;
 import org.batfish.datamodel.answers.AnswerElement;
@@ -69,7 +70,7 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
     }
 
     private AnswerElement multipath(ReachabilityQuestion question) {
-      return _batfish.multipath(question.getHeaderSpace());
+      return _batfish.multipath(question.getHeaderSpace(), question.getEngine());
     }
 
     private AnswerElement pathDiff(ReachabilityQuestion question) {
@@ -89,7 +90,8 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
           question.getFinalNodeRegex(),
           question.getNotFinalNodeRegex(),
           question.getTransitNodes(),
-          question.getNotTransitNodes());
+          question.getNotTransitNodes(),
+          question.getEngine());
     }
   }
 
@@ -103,6 +105,9 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
    * @type Reachability dataplane
    * @param transitNodes set of transit nodes (packet must transit through all of them)
    * @param notTransitNodes set of non-transit nodes (packet does not transit through any of them)
+   * @param engine engine that computes the answer: "nod" (the default) or "bdd". The bdd engine
+   *     does not model zones, policy routing, or matching on dscp, ecn, fragment offset, packet
+   *     length, or connection state, and fails on networks and questions that need them.
    * @param DetailsComing Details coming.
    * @example bf_answer("Reachability", dstIps=["2.128.0.101"], dstPorts=[53], ipProtocols=["UDP"],
    *     actions=["drop"]) Finds all (starting node, packet header) combinations that cannot reach
@@ -115,6 +120,8 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
 
     private static final String PROP_ACTIONS = "actions";
 
+    private static final ReachabilityEngine DEFAULT_ENGINE = ReachabilityEngine.NOD;
+
     private static final String DEFAULT_FINAL_NODE_REGEX = ".*";
 
     private static final String DEFAULT_INGRESS_NODE_REGEX = ".*";
@@ -135,6 +142,8 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
 
     private static final String PROP_DST_PROTOCOLS = "dstProtocols";
 
+    private static final String PROP_ENGINE = "engine";
+
     private static final String PROP_FINAL_NODE_REGEX = "finalNodeRegex";
 
     private static final String PROP_FRAGMENT_OFFSETS = "fragmentOffsets";
@@ -197,6 +206,8 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
 
     private SortedSet<ForwardingAction> _actions;
 
+    private ReachabilityEngine _engine;
+
     private String _finalNodeRegex;
 
     private final HeaderSpace _headerSpace;
@@ -215,6 +226,7 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
 
     public ReachabilityQuestion() {
       _actions = new TreeSet<>(Collections.singleton(ForwardingAction.ACCEPT));
+      _engine = DEFAULT_ENGINE;
       _finalNodeRegex = DEFAULT_FINAL_NODE_REGEX;
       _headerSpace = new HeaderSpace();
       _ingressNodeRegex = DEFAULT_INGRESS_NODE_REGEX;
@@ -250,6 +262,11 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
       return _headerSpace.getDstProtocols();
     }
 
+    @JsonProperty(PROP_ENGINE)
+    public ReachabilityEngine getEngine() {
+      return _engine;
+    }
+
     @JsonProperty(PROP_FINAL_NODE_REGEX)
     public String getFinalNodeRegex() {
       return _finalNodeRegex;
@@ -435,6 +452,9 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
         if (getDstProtocols() != null && !getDstProtocols().isEmpty()) {
           retString += String.format(", %s=%s", PROP_DST_PROTOCOLS, getDstProtocols());
         }
+        if (_engine != DEFAULT_ENGINE) {
+          retString += String.format(", %s=%s", PROP_ENGINE, _engine);
+        }
         if (!_finalNodeRegex.equals(DEFAULT_FINAL_NODE_REGEX)) {
           retString += String.format(", %s=%s", PROP_FINAL_NODE_REGEX, _finalNodeRegex);
         }
@@ -552,6 +572,11 @@ public class ReachabilityQuestionPlugin extends QuestionPlugin {
       _headerSpace.setDstProtocols(new TreeSet<>(dstProtocols));
     }
 
+    @JsonProperty(PROP_ENGINE)
+    public void setEngine(ReachabilityEngine engine) {
+      _engine = engine;
+    }
+
     @JsonProperty(PROP_FINAL_NODE_REGEX)
     public void setFinalNodeRegex(String regex) {
       _finalNodeRegex = regex;
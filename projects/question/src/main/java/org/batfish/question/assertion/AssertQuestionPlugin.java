@@ -5,10 +5,8 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.auto.service.AutoService;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.Configuration.ConfigurationBuilder;
-import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
 import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -17,16 +15,15 @@ import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import org.batfish.common.Answerer;
-import org.batfish.common.BatfishException;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.common.plugin.Plugin;
-import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.assertion.AssertionAst;
 import org.batfish.datamodel.questions.Question;
 import org.batfish.question.NodesQuestionPlugin.NodesAnswerer;
 import org.batfish.question.NodesQuestionPlugin.NodesQuestion;
 import org.batfish.question.QuestionPlugin;
+import org.batfish.question.jsonpath.AnswerTreeCache;
 
 @AutoService(Plugin.class)
 public class AssertQuestionPlugin extends QuestionPlugin {
@@ -88,15 +85,8 @@ public class AssertQuestionPlugin extends QuestionPlugin {
       NodesQuestion nodesQuestion = new NodesQuestion();
       nodesQuestion.setSummary(false);
       NodesAnswerer nodesAnswerer = new NodesAnswerer(nodesQuestion, _batfish);
-      AnswerElement nodesAnswer = nodesAnswerer.answer();
-      BatfishObjectMapper mapper = new BatfishObjectMapper();
-      String nodesAnswerStr = null;
-      try {
-        nodesAnswerStr = mapper.writeValueAsString(nodesAnswer);
-      } catch (IOException e) {
-        throw new BatfishException("Could not get JSON string from nodes answer", e);
-      }
-      Object jsonObject = JsonPath.parse(nodesAnswerStr, c).json();
+      Object jsonObject =
+          AnswerTreeCache.getAnswerTree(_batfish, nodesQuestion, nodesAnswerer::answer);
       Map<Integer, Assertion> failing = new ConcurrentHashMap<>();
       Map<Integer, Assertion> passing = new ConcurrentHashMap<>();
       List<Integer> indices = new ArrayList<>();
@@ -0,0 +1,56 @@
+package org.batfish.question.jsonpath;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import org.batfish.common.BatfishException;
+import org.batfish.common.plugin.IBatfish;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.answers.AnswerElement;
+import org.batfish.datamodel.questions.Question;
+
+/**
+ * JSON trees of the answers to inner questions, which JsonPath and assert questions query.
+ *
+ * <p>An answer is converted straight to a {@link JsonNode} tree, without going through a JSON
+ * string that then has to be parsed again. Trees are kept for as long as the {@link IBatfish} they
+ * were computed with, so that several questions about the same inner answer on the same testrig
+ * share one tree.
+ */
+public final class AnswerTreeCache {
+
+  private static final int MAX_CACHED_TREES_PER_BATFISH = 8;
+
+  private static final Cache<IBatfish, Cache<String, JsonNode>> TREES =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  /**
+   * Returns the JSON tree of the answer to {@code question} on the current testrig and environment
+   * of {@code batfish}, computing the answer with {@code answerer} if there is no tree for it yet.
+   * The returned tree is shared, so it must not be modified: JsonPath queries over it only read it,
+   * and callers that hand the tree or its nodes on to something that may change them must pass a
+   * {@link JsonNode#deepCopy() copy} instead.
+   */
+  public static JsonNode getAnswerTree(
+      IBatfish batfish, Question question, Supplier<AnswerElement> answerer) {
+    String key =
+        String.join("\n", batfish.getTestrigName(), batfish.getFlowTag(), question.toJsonString());
+    try {
+      return TREES
+          .get(
+              batfish,
+              () -> CacheBuilder.newBuilder().maximumSize(MAX_CACHED_TREES_PER_BATFISH).build())
+          .get(key, () -> new BatfishObjectMapper().valueToTree(answerer.get()));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new BatfishException(
+          "Could not get JSON tree of answer to " + question.getName(), e.getCause());
+    }
+  }
+
+  private AnswerTreeCache() {}
+}
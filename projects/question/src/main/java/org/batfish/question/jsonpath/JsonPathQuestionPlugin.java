@@ -12,7 +12,6 @@ import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
 import com.jayway.jsonpath.PathNotFoundException;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,7 +31,6 @@ import org.batfish.common.BatfishException;
 import org.batfish.common.BfConsts;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.common.plugin.Plugin;
-import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.answers.AnswerSummary;
@@ -147,8 +145,6 @@ public class JsonPathQuestionPlugin extends QuestionPlugin {
     public JsonPathAnswerElement answer() {
 
       Configuration.setDefaults(BatfishJsonPathDefaults.INSTANCE);
-      ConfigurationBuilder b = new ConfigurationBuilder();
-      final Configuration c = b.build();
 
       JsonPathQuestion question = (JsonPathQuestion) _question;
       List<JsonPathQuery> paths = question.getPaths();
@@ -157,17 +153,14 @@ public class JsonPathQuestionPlugin extends QuestionPlugin {
       String innerQuestionName = innerQuestion.getName();
       Answerer innerAnswerer =
           _batfish.getAnswererCreators().get(innerQuestionName).apply(innerQuestion, _batfish);
-      AnswerElement innerAnswer =
-          (innerQuestion.getDifferential()) ? innerAnswerer.answerDiff() : innerAnswerer.answer();
-
-      BatfishObjectMapper mapper = new BatfishObjectMapper();
-      String innerAnswerStr = null;
-      try {
-        innerAnswerStr = mapper.writeValueAsString(innerAnswer);
-      } catch (IOException e) {
-        throw new BatfishException("Could not get JSON string from inner answer", e);
-      }
-      Object jsonObject = JsonPath.parse(innerAnswerStr, c).json();
+      JsonNode jsonObject =
+          AnswerTreeCache.getAnswerTree(
+              _batfish,
+              innerQuestion,
+              () ->
+                  innerQuestion.getDifferential()
+                      ? innerAnswerer.answerDiff()
+                      : innerAnswerer.answer());
       Map<Integer, JsonPathResult> allResults = new ConcurrentHashMap<>();
       List<Integer> indices = new ArrayList<>();
       for (int i = 0; i < paths.size(); i++) {
@@ -193,7 +186,8 @@ public class JsonPathQuestionPlugin extends QuestionPlugin {
       answerElement.updateSummary();
 
       if (question.getDebug()) {
-        answerElement.addDebugInfo("innerAnswer", innerAnswer);
+        // the tree is shared with other questions about the same inner answer
+        answerElement.addDebugInfo("innerAnswer", jsonObject.deepCopy());
       }
 
       return answerElement;
@@ -9,8 +9,6 @@ import com.fasterxml.jackson.databind.node.IntNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.Configuration.ConfigurationBuilder;
-import com.jayway.jsonpath.JsonPath;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -262,6 +260,7 @@ public class JsonPathResult {
 
   private void extractValuesFromSuffix(
       String displayVar, Extraction extraction, JsonPathExtractionHint jpeHint) {
+    Configuration.setDefaults(BatfishJsonPathDefaults.INSTANCE);
     for (Entry<String, JsonPathResultEntry> entry : _result.entrySet()) {
       if (!_displayValues.containsKey(entry.getKey())) {
         _displayValues.put(entry.getKey(), new HashMap<>());
@@ -271,9 +270,8 @@ public class JsonPathResult {
             "Cannot compute suffix-based display values with null suffix. "
                 + "(Was suffix set to True in the original JsonPath Query?)");
       }
-      Configuration.setDefaults(BatfishJsonPathDefaults.INSTANCE);
-      Configuration c = (new ConfigurationBuilder()).build();
-      Object jsonObject = JsonPath.parse(entry.getValue().getSuffix(), c).json();
+      // the suffix is already a JSON tree, so it is queried as is
+      Object jsonObject = entry.getValue().getSuffix();
 
       JsonPathQuery query = new JsonPathQuery();
       query.setPath(jpeHint.getFilter());
@@ -293,12 +291,13 @@ public class JsonPathResult {
                 extractedList.add(new IntNode((Integer) result));
               } else if (result instanceof ArrayNode) {
                 for (JsonNode node : (ArrayNode) result) {
-                  if (!(node instanceof IntNode)) {
+                  // answer trees keep the Java types of numbers, so small longs are allowed
+                  if (!node.isIntegralNumber() || !node.canConvertToInt()) {
                     throw new BatfishException(
                         "Got non-integer result from path function after filter "
                             + query.getPath());
                   }
-                  extractedList.add(node);
+                  extractedList.add(node.isInt() ? node : new IntNode(node.intValue()));
                 }
               } else {
                 throw new BatfishException("Unknown result type from computePathFunction");
@@ -0,0 +1,140 @@
+package org.batfish.question.jsonpath;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import java.lang.reflect.Proxy;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import org.batfish.common.Answerer;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.plugin.IBatfish;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.answers.AnswerElement;
+import org.batfish.datamodel.questions.Question;
+import org.batfish.question.NodesQuestionPlugin.NodesAnswerElement;
+import org.batfish.question.NodesQuestionPlugin.NodesQuestion;
+import org.batfish.question.jsonpath.JsonPathQuestionPlugin.JsonPathAnswerElement;
+import org.batfish.question.jsonpath.JsonPathQuestionPlugin.JsonPathAnswerer;
+import org.batfish.question.jsonpath.JsonPathQuestionPlugin.JsonPathQuestion;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link AnswerTreeCache} */
+public class AnswerTreeCacheTest {
+
+  private IBatfish _batfish;
+
+  private int _innerAnswers;
+
+  private NodesQuestion _nodesQuestion;
+
+  private static Configuration configuration(String hostname, String ntpServer) {
+    Configuration c = new Configuration(hostname, ConfigurationFormat.CISCO_IOS);
+    c.setNtpServers(ImmutableSortedSet.of(ntpServer));
+    return c;
+  }
+
+  private static JsonPathQuestion jsonPathQuestion(
+      NodesQuestion innerQuestion, String path, boolean suffix) {
+    JsonPathQuery query = new JsonPathQuery();
+    query.setPath(path);
+    query.setSuffix(suffix);
+    JsonPathQuestion question = new JsonPathQuestion();
+    question.setInnerQuestion(innerQuestion);
+    question.setPaths(ImmutableList.of(query));
+    return question;
+  }
+
+  /* Answers the nodes question with two nodes, counting how often it is answered */
+  private AnswerElement answerNodes() {
+    _innerAnswers++;
+    SortedMap<String, Configuration> nodes = new TreeMap<>();
+    nodes.put("n1", configuration("n1", "1.2.3.4"));
+    nodes.put("n2", configuration("n2", "9.9.9.9"));
+    return new NodesAnswerElement(nodes, false);
+  }
+
+  @Before
+  public void setup() {
+    _nodesQuestion = new NodesQuestion();
+    _nodesQuestion.setSummary(false);
+    BiFunction<Question, IBatfish, Answerer> nodesAnswererCreator =
+        (question, batfish) ->
+            new Answerer(question, batfish) {
+              @Override
+              public AnswerElement answer() {
+                return answerNodes();
+              }
+            };
+    BatfishLogger logger = new BatfishLogger(BatfishLogger.LEVELSTR_WARN, false);
+    _batfish =
+        (IBatfish)
+            Proxy.newProxyInstance(
+                IBatfish.class.getClassLoader(),
+                new Class<?>[] {IBatfish.class},
+                (proxy, method, args) -> {
+                  switch (method.getName()) {
+                    case "getAnswererCreators":
+                      return ImmutableMap.of(_nodesQuestion.getName(), nodesAnswererCreator);
+                    case "getFlowTag":
+                      return "flowTag";
+                    case "getLogger":
+                      return logger;
+                    case "getTestrigName":
+                      return "testrig";
+                    case "newBatch":
+                      return new AtomicInteger();
+                    default:
+                      throw new UnsupportedOperationException(method.getName());
+                  }
+                });
+  }
+
+  @Test
+  public void testQuestionsShareTree() {
+    JsonNode tree = AnswerTreeCache.getAnswerTree(_batfish, _nodesQuestion, this::answerNodes);
+    assertThat(
+        AnswerTreeCache.getAnswerTree(_batfish, _nodesQuestion, this::answerNodes),
+        sameInstance(tree));
+    JsonNode original = tree.deepCopy();
+
+    JsonPathQuestion notFirstServer =
+        jsonPathQuestion(
+            _nodesQuestion,
+            "$.nodes[*][?(!([\"1.2.3.4\"] subsetof @.ntpServers))].ntpServers",
+            false);
+    JsonPathAnswerElement answer1 = new JsonPathAnswerer(notFirstServer, _batfish).answer();
+    assertThat(answer1.getResults().get(0).getNumResults(), equalTo(1));
+    assertThat(
+        answer1.getResults().get(0).getResult().keySet(),
+        contains("'nodes'->'n2'->'ntpServers'"));
+
+    JsonPathQuestion allServers = jsonPathQuestion(_nodesQuestion, "$.nodes[*].ntpServers", true);
+    allServers.setDebug(true);
+    JsonPathAnswerElement answer2 = new JsonPathAnswerer(allServers, _batfish).answer();
+    assertThat(answer2.getResults().get(0).getNumResults(), equalTo(2));
+    assertThat(
+        answer2.getResults().get(0).getResult().get("'nodes'->'n1'->'ntpServers'").getSuffix(),
+        equalTo(tree.get("nodes").get("n1").get("ntpServers")));
+
+    // both questions were answered from one tree, which neither changed
+    assertThat(_innerAnswers, equalTo(1));
+    assertThat(tree, equalTo(original));
+
+    // the debug output is a copy, so changes to it do not reach the shared tree
+    Object debugTree = answer2.getDebug().get("innerAnswer");
+    assertThat(debugTree, not(sameInstance(tree)));
+    assertThat(debugTree, equalTo(tree));
+  }
+}